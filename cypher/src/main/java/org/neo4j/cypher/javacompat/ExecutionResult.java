@@ -95,4 +95,13 @@ public class ExecutionResult implements Iterable<Map<String,Object>>
         inner.dumpToString( writer );
     }
 
+    /**
+     * Releases the resources held by the query, like sorted rows spilled to disk.
+     * This happens automatically when all rows have been read, call it when
+     * abandoning a result before that.
+     */
+    public void close()
+    {
+        inner.close();
+    }
 }
@@ -21,13 +21,14 @@ package org.neo4j.cypher
 
 import internal.commands._
 import internal.executionplan.ExecutionPlanImpl
-import internal.LRUCache
+import internal.{PlanCacheStatistics, PlanCache}
 import scala.collection.JavaConverters._
 import java.lang.Error
 import java.util.{Map => JavaMap}
 import scala.deprecated
 import org.neo4j.kernel.AbstractGraphDatabase
 import org.neo4j.graphdb.GraphDatabaseService
+import org.neo4j.graphdb.factory.GraphDatabaseSettings
 
 class ExecutionEngine(graph: GraphDatabaseService) {
   checkScalaVersion()
@@ -60,6 +61,14 @@ class ExecutionEngine(graph: GraphDatabaseService) {
   @throws(classOf[SyntaxException])
   def prepare(query: String): ExecutionPlan = executionPlanCache.getOrElseUpdate(query, new ExecutionPlanImpl(parser.parse(query), graph))
 
+  /**
+   * Throws away all cached execution plans, so that queries are planned again
+   * the next time they are run.
+   */
+  def clearPlanCache() {
+    executionPlanCache.clear()
+  }
+
   @throws(classOf[SyntaxException])
   @deprecated(message = "You should not parse queries manually any more. Use the execute(String) instead")
   def execute(query: Query): ExecutionResult = execute(query, Map[String, Any]())
@@ -79,7 +88,17 @@ class ExecutionEngine(graph: GraphDatabaseService) {
     }
   }
 
-  private val cacheSize: Int = 100
-  private val executionPlanCache = new LRUCache[String, ExecutionPlan](cacheSize) {}
+  private def cacheSize: Int = if (graph.isInstanceOf[AbstractGraphDatabase]) {
+    val database = graph.asInstanceOf[AbstractGraphDatabase]
+    database.getConfig.getParams.asScala.get(GraphDatabaseSettings.cypher_plan_cache_size.name()) match {
+      case None => 100
+      case Some(v) => v.toInt
+    }
+  }
+  else {
+    100
+  }
+
+  private val executionPlanCache = new PlanCache[ExecutionPlan](cacheSize, PlanCacheStatistics.forGraph(graph))
 }
 
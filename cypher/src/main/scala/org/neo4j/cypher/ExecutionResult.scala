@@ -34,6 +34,12 @@ trait ExecutionResult extends Iterator[Map[String, Any]] {
   def dumpToString(writer: PrintWriter)
   def dumpToString(): String
   def queryStatistics():QueryStatistics
+
+  /**
+   * Releases what the query holds on to, like sorted rows spilled to disk. Done
+   * automatically once all rows have been read.
+   */
+  def close() {}
 }
 
 
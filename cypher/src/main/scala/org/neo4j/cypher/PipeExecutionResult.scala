@@ -28,12 +28,29 @@ import java.lang.String
 import internal.symbols.SymbolTable
 import collection.Map
 import collection.immutable.{Map => ImmutableMap}
+import collection.mutable.ArrayBuffer
 
-class PipeExecutionResult(r: => Traversable[Map[String, Any]], val symbols: SymbolTable, val columns: List[String])
+class PipeExecutionResult(r: => Traversable[Map[String, Any]], val symbols: SymbolTable, val columns: List[String], state: QueryState = null)
   extends ExecutionResult
   with StringExtras {
 
-  lazy val immutableResult = r.map(m => m.toMap)
+  // The rows read so far are kept, so the whole result can still be dumped after it's
+  // been iterated over. Rows sorted on disk are not kept - they were spilled because
+  // there were too many of them to hold in memory.
+  private val readRows = new ArrayBuffer[ImmutableMap[String, Any]]()
+  private var position = 0
+  private var rows: Iterator[ImmutableMap[String, Any]] = null
+  private var memoizing = true
+
+  protected def createRows: Iterator[ImmutableMap[String, Any]] = r.toIterator.map(m => m.toMap)
+
+  private def source: Iterator[ImmutableMap[String, Any]] = {
+    if (rows == null) {
+      rows = createRows
+      memoizing = state == null || !state.holdsResources
+    }
+    rows
+  }
 
   def javaColumns: java.util.List[String] = columns.asJava
 
@@ -71,9 +88,17 @@ class PipeExecutionResult(r: => Traversable[Map[String, Any]], val symbols: Symb
 
   protected def createTimedResults = {
     val start = System.currentTimeMillis()
-    val eagerResult = immutableResult.toList
+    val rowsLeft = source.toList
     val ms = System.currentTimeMillis() - start
 
+    val eagerResult = if (memoizing) {
+      readRows ++= rowsLeft
+      readRows.toList
+    } else {
+      // Dumping reads all the rows, keep them so they can still be iterated over afterwards
+      rows = rowsLeft.iterator
+      rowsLeft
+    }
     (eagerResult, ms.toString)
   }
 
@@ -147,17 +172,36 @@ class PipeExecutionResult(r: => Traversable[Map[String, Any]], val symbols: Symb
     }).mkString("| ", " | ", " |")
   }
 
-  lazy val iterator = immutableResult.toIterator
-
-  def hasNext: Boolean = iterator.hasNext
+  def hasNext: Boolean = if (position < readRows.size || source.hasNext) {
+    true
+  } else {
+    close()
+    false
+  }
 
-  def next(): ImmutableMap[String, Any] = iterator.next()
+  def next(): ImmutableMap[String, Any] = if (position < readRows.size) {
+    position += 1
+    readRows(position - 1)
+  } else {
+    val row = source.next()
+    if (memoizing) {
+      readRows += row
+      position += 1
+    }
+    row
+  }
 
   lazy val queryStatistics = QueryStatistics.empty
+
+  def close() {
+    if (state != null) {
+      state.close()
+    }
+  }
 }
 
 class EagerPipeExecutionResult(r: => Traversable[Map[String, Any]], symbols: SymbolTable, columns: List[String], state: QueryState)
-  extends PipeExecutionResult(r, symbols, columns) {
+  extends PipeExecutionResult(r, symbols, columns, state) {
 
   override lazy val queryStatistics = QueryStatistics(
     nodesCreated = state.createdNodes.count,
@@ -168,9 +212,12 @@ class EagerPipeExecutionResult(r: => Traversable[Map[String, Any]], symbols: Sym
 
   override val createTimedResults = {
     val start = System.currentTimeMillis()
-    val eagerResult = immutableResult.toList
+    val eagerResult = r.toList.map(m => m.toMap)
     val ms = System.currentTimeMillis() - start
+    close()
 
     (eagerResult, ms.toString)
   }
+
+  override protected def createRows = createTimedResults._1.iterator
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal
+
+import org.neo4j.jmx.{Description, ManagementInterface}
+import org.neo4j.jmx.impl.{Neo4jMBean, ManagementData, ManagementBeanProvider}
+
+@ManagementInterface(name = "Cypher plan cache")
+@Description("Statistics about the cache of Cypher execution plans")
+trait CypherPlanCache {
+  @Description("The number of queries that found their execution plan in the cache")
+  def getHits: Long
+
+  @Description("The number of queries that had to be planned because their plan wasn't cached")
+  def getMisses: Long
+
+  @Description("The number of plans thrown out of the cache to make room for others")
+  def getEvictions: Long
+
+  @Description("The share of queries that found their execution plan in the cache")
+  def getHitRatio: Double
+}
+
+class CypherPlanCacheBean extends ManagementBeanProvider(classOf[CypherPlanCache]) {
+  protected def createMBean(management: ManagementData): Neo4jMBean =
+    new CypherPlanCacheImpl(management, PlanCacheStatistics.forGraph(management.getKernelData.graphDatabase()))
+}
+
+class CypherPlanCacheImpl(management: ManagementData, statistics: PlanCacheStatistics)
+  extends Neo4jMBean(management) with CypherPlanCache {
+  def getHits = statistics.hits.get()
+
+  def getMisses = statistics.misses.get()
+
+  def getEvictions = statistics.evictions.get()
+
+  def getHitRatio = {
+    val hits = getHits
+    val total = hits + getMisses
+    if (total == 0) 0 else hits.toDouble / total
+  }
+}
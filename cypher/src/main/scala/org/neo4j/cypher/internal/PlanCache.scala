@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal
+
+import java.util.Map.Entry
+import java.util.WeakHashMap
+import java.util.concurrent.atomic.AtomicLong
+import org.neo4j.graphdb.GraphDatabaseService
+
+/**
+ * A thread safe LRU cache of query plans. Queries are looked up by their text
+ * with insignificant whitespace removed, so the same query written slightly
+ * differently shares a plan. Parameters are not part of the key - a plan works
+ * for any parameter values.
+ *
+ * Plans are created outside of the lock, so two threads missing on the same
+ * query at the same time may both plan it. The last one wins.
+ */
+class PlanCache[V](maxSize: Int, val statistics: PlanCacheStatistics = new PlanCacheStatistics) {
+  require(maxSize > 0, "The plan cache must be able to hold at least one plan")
+
+  private val plans = new LRUCache[String, V](maxSize) {
+    override def removeEldestEntry(eldest: Entry[String, V]): Boolean = {
+      val evict = super.removeEldestEntry(eldest)
+      if (evict) {
+        statistics.evictions.incrementAndGet()
+      }
+      evict
+    }
+  }
+
+  def getOrElseUpdate(query: String, plan: => V): V = {
+    val key = PlanCache.normalize(query)
+    val cached = plans.synchronized {
+      if (plans.containsKey(key)) Some(plans.get(key)) else None
+    }
+
+    cached match {
+      case Some(value) =>
+        statistics.hits.incrementAndGet()
+        value
+      case None =>
+        statistics.misses.incrementAndGet()
+        val value = plan
+        plans.synchronized {
+          plans.put(key, value)
+        }
+        value
+    }
+  }
+
+  def size: Int = plans.synchronized {
+    plans.size
+  }
+
+  def clear() {
+    plans.synchronized {
+      plans.clear()
+    }
+  }
+}
+
+object PlanCache {
+  /**
+   * Collapses runs of whitespace into a single space and trims the ends. Whitespace
+   * inside string literals, regular expression literals and escaped identifiers is
+   * left alone, as are characters escaped with a backslash inside literals.
+   */
+  def normalize(query: String): String = {
+    val text = query.trim
+    val result = new StringBuilder(text.length)
+    var quote: Option[Char] = None
+    var pendingSpace = false
+    var i = 0
+
+    while (i < text.length) {
+      val c = text.charAt(i)
+      quote match {
+        case Some(q) =>
+          result += c
+          if (c == '\\' && q != '`' && i + 1 < text.length) {
+            i += 1
+            result += text.charAt(i)
+          } else if (c == q) {
+            quote = None
+          }
+        case None if Character.isWhitespace(c) =>
+          pendingSpace = true
+        case None =>
+          // A slash only starts a regular expression right after =~, elsewhere it divides
+          if (c == '"' || c == '\'' || c == '`' || (c == '/' && endsWithRegexMatch(result))) quote = Some(c)
+          if (pendingSpace) {
+            result += ' '
+            pendingSpace = false
+          }
+          result += c
+      }
+      i += 1
+    }
+
+    result.toString()
+  }
+
+  private def endsWithRegexMatch(text: StringBuilder): Boolean =
+    text.length >= 2 && text.charAt(text.length - 2) == '=' && text.charAt(text.length - 1) == '~'
+}
+
+/**
+ * Hit, miss and eviction counts of the plan caches of one database. All the
+ * execution engines of a database share the same counters.
+ */
+class PlanCacheStatistics {
+  val hits = new AtomicLong
+  val misses = new AtomicLong
+  val evictions = new AtomicLong
+}
+
+object PlanCacheStatistics {
+  private val statistics = new WeakHashMap[GraphDatabaseService, PlanCacheStatistics]()
+
+  def forGraph(graph: GraphDatabaseService): PlanCacheStatistics = statistics.synchronized {
+    if (!statistics.containsKey(graph)) {
+      statistics.put(graph, new PlanCacheStatistics)
+    }
+    statistics.get(graph)
+  }
+}
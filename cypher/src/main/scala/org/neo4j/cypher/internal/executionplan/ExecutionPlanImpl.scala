@@ -92,7 +92,7 @@ class ExecutionPlanImpl(inputQuery: Query, graph: GraphDatabaseService) extends
   private def getLazyReadonlyQuery(pipe: Pipe, columns: List[String]): Map[String, Any] => ExecutionResult = {
     val func = (params: Map[String, Any]) => {
       val state = new QueryState(graph, MutableMaps.create ++ params)
-      new PipeExecutionResult(pipe.createResults(state), pipe.symbols, columns)
+      new PipeExecutionResult(pipe.createResults(state), pipe.symbols, columns, state)
     }
 
     func
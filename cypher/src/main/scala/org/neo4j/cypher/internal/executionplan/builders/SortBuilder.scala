@@ -19,7 +19,8 @@
  */
 package org.neo4j.cypher.internal.executionplan.builders
 
-import org.neo4j.cypher.internal.pipes.SortPipe
+import org.neo4j.cypher.internal.pipes.{TopPipe, SortPipe}
+import org.neo4j.cypher.internal.commands.Slice
 import org.neo4j.cypher.internal.executionplan.{ExecutionPlanInProgress, PlanBuilder}
 
 class SortBuilder extends PlanBuilder {
@@ -30,7 +31,13 @@ class SortBuilder extends PlanBuilder {
 
     val q = newPlan.query
     val sortItems = q.sort.map(_.token)
-    val resultPipe = new SortPipe(newPlan.pipe, sortItems.toList)
+
+    // With a LIMIT after the sort we only need to keep the top rows around.
+    // The slice is left unsolved - the SliceBuilder still has to do the slicing.
+    val resultPipe = q.slice.filter(_.unsolved).map(_.token).headOption match {
+      case Some(Slice(skip, Some(limit))) => new TopPipe(newPlan.pipe, sortItems.toList, skip, limit)
+      case _ => new SortPipe(newPlan.pipe, sortItems.toList)
+    }
 
     val resultQ = q.copy(sort = q.sort.map(_.solve))
 
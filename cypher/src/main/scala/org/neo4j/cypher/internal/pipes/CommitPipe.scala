@@ -27,7 +27,8 @@ class CommitPipe(source: Pipe, graph: GraphDatabaseService) extends PipeWithSour
   lazy val still_has_relationships = "Node record Node\\[(\\d),.*] still has relationships".r
 
   def createResults(state: QueryState) = {
-    val result = source.createResults(state)
+    // The rows are produced lazily, read them all before committing
+    val result = source.createResults(state).toList
 
     state.transaction match {
       case None => throw new InternalException("Expected to be in a transaction but wasn't")
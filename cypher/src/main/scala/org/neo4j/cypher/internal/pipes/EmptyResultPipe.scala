@@ -25,7 +25,8 @@ class EmptyResultPipe(source: Pipe)
   extends PipeWithSource(source) {
 
   def createResults(state: QueryState) = {
-    source.createResults(state)
+    // The rows are produced lazily, so they have to be read for the updates to happen
+    source.createResults(state).foreach(row => {})
 
     Seq()
   }
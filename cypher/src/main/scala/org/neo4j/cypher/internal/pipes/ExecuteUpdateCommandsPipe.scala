@@ -31,7 +31,8 @@ class ExecuteUpdateCommandsPipe(source: Pipe, db: GraphDatabaseService, commands
     val deletedNodes = MutableHashSet[Long]()
     val deletedRelationships = MutableHashSet[Long]()
 
-    if (commands.size == 1) {
+    // Materialized, so that reading the rows more than once doesn't run the commands again
+    val result = if (commands.size == 1) {
       source.createResults(state).flatMap {
         case ctx => executeMutationCommands(ctx, state, deletedNodes, deletedRelationships).flatten
       }
@@ -44,6 +45,8 @@ class ExecuteUpdateCommandsPipe(source: Pipe, db: GraphDatabaseService, commands
         }
       }
     }
+
+    result.toList
   }
 
   // TODO: Make it better
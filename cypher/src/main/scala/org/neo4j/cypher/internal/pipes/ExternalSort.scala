@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.pipes
+
+import java.io._
+import java.util.{Comparator, PriorityQueue}
+import collection.mutable.ArrayBuffer
+import org.neo4j.graphdb.{GraphDatabaseService, Relationship, Node}
+
+/**
+ * Sorts rows keeping at most maxRowsInMemory of them on the heap. Once the
+ * buffer fills up it is sorted and spilled to a temporary file as a sorted run,
+ * and the runs are k-way merged when the rows are read back. Nodes and
+ * relationships are spilled as ids and looked up again from the database.
+ *
+ * Rows that can't be spilled - rows with pending mutation commands or values
+ * that aren't serializable - make the sort fall back to sorting in memory.
+ */
+class ExternalSort(lessThan: (ExecutionContext, ExecutionContext) => Boolean, maxRowsInMemory: Int, db: GraphDatabaseService) {
+  require(maxRowsInMemory > 0, "Must keep at least one row in memory")
+
+  def sort(input: Traversable[ExecutionContext]): Traversable[ExecutionContext] = {
+    val buffer = new ArrayBuffer[ExecutionContext]()
+    val runs = new ArrayBuffer[File]()
+    var spillable = true
+
+    try {
+      input.foreach(row => {
+        spillable = spillable && row.mutationCommands.isEmpty
+        buffer += row
+        if (spillable && buffer.size >= maxRowsInMemory) {
+          writeRun(buffer) match {
+            case Some(run) =>
+              runs += run
+              buffer.clear()
+            case None => spillable = false
+          }
+        }
+      })
+    } catch {
+      case e: Throwable =>
+        runs.foreach(_.delete())
+        throw e
+    }
+
+    val lastRun = buffer.sortWith(lessThan)
+    if (runs.isEmpty) {
+      lastRun.toList
+    } else {
+      merge(runs, lastRun)
+    }
+  }
+
+  private def writeRun(rows: Seq[ExecutionContext]): Option[File] = {
+    val file = File.createTempFile("cypher-sort", ".run")
+    val out = new RowOutputStream(new BufferedOutputStream(new FileOutputStream(file)))
+    try {
+      rows.sortWith(lessThan).foreach(row => {
+        out.writeInt(row.size)
+        row.foreach {
+          case (key, value) =>
+            out.writeUTF(key)
+            out.writeObject(value.asInstanceOf[AnyRef])
+        }
+        // Forget the references written so far, they'd pile up for the whole run otherwise
+        out.reset()
+      })
+      out.writeInt(-1)
+      out.close()
+      Some(file)
+    } catch {
+      case e: NotSerializableException =>
+        out.close()
+        file.delete()
+        None
+    }
+  }
+
+  private def merge(runs: Seq[File], lastRun: Seq[ExecutionContext]): Traversable[ExecutionContext] = new MergedRuns(runs, lastRun)
+
+  private val order = new Comparator[RunHead] {
+    def compare(a: RunHead, b: RunHead) =
+      if (lessThan(a.row, b.row)) -1
+      else if (lessThan(b.row, a.row)) 1
+      else a.run - b.run // keep the sort stable: earlier runs first
+  }
+
+  /**
+   * The merged rows aren't memoized, every traversal merges the runs again so that
+   * rows already read can be garbage collected. The readers of a merge are closed
+   * when it's exhausted; close() closes the ones of abandoned merges and deletes
+   * the runs.
+   */
+  private class MergedRuns(runs: Seq[File], lastRun: Seq[ExecutionContext]) extends Iterable[ExecutionContext] with Closeable {
+    private val openReaders = new collection.mutable.HashSet[RunReader]()
+    private var closed = false
+
+    def iterator: Iterator[ExecutionContext] = merge()
+
+    override def foreach[U](f: ExecutionContext => U) {
+      val rows = merge()
+      try {
+        rows.foreach(f)
+      } finally {
+        rows.close()
+      }
+    }
+
+    def close() {
+      closed = true
+      openReaders.toList.foreach(_.close())
+      openReaders.clear()
+      runs.foreach(_.delete())
+    }
+
+    private def merge(): MergeIterator = {
+      if (closed) {
+        throw new IllegalStateException("The sorted rows have already been closed")
+      }
+      new MergeIterator
+    }
+
+    private class MergeIterator extends Iterator[ExecutionContext] {
+      private val fileReaders = runs.map(new RunReader(_))
+      openReaders ++= fileReaders
+
+      private val readers: Seq[Run] = fileReaders :+ new InMemoryRun(lastRun.iterator)
+      private val heads = new PriorityQueue[RunHead](readers.size, order)
+
+      readers.zipWithIndex.foreach {
+        case (reader, index) => reader.next().foreach(row => heads.add(RunHead(row, index)))
+      }
+
+      def hasNext = if (heads.isEmpty) {
+        close()
+        false
+      } else {
+        true
+      }
+
+      def next() = {
+        if (!hasNext) {
+          throw new NoSuchElementException
+        }
+        val head = heads.poll()
+        readers(head.run).next().foreach(row => heads.add(RunHead(row, head.run)))
+        head.row
+      }
+
+      def close() {
+        fileReaders.foreach(_.close())
+        openReaders --= fileReaders
+      }
+    }
+  }
+
+  private case class RunHead(row: ExecutionContext, run: Int)
+
+  private trait Run {
+    def next(): Option[ExecutionContext]
+  }
+
+  private class InMemoryRun(rows: Iterator[ExecutionContext]) extends Run {
+    def next() = if (rows.hasNext) Some(rows.next()) else None
+  }
+
+  private class RunReader(file: File) extends Run with Closeable {
+    private var in: RowInputStream = new RowInputStream(new BufferedInputStream(new FileInputStream(file)), db)
+
+    def next(): Option[ExecutionContext] = {
+      if (in == null) {
+        return None
+      }
+
+      val size = in.readInt()
+      if (size == -1) {
+        close()
+        None
+      } else {
+        val row = MutableMaps.create(size)
+        (0 until size).foreach(_ => {
+          val key = in.readUTF()
+          row += key -> in.readObject()
+        })
+        Some(ExecutionContext(row))
+      }
+    }
+
+    def close() {
+      if (in != null) {
+        in.close()
+        in = null
+      }
+    }
+  }
+}
+
+private case class SpilledNode(id: Long)
+
+private case class SpilledRelationship(id: Long)
+
+private class RowOutputStream(out: OutputStream) extends ObjectOutputStream(out) {
+  enableReplaceObject(true)
+
+  override def replaceObject(obj: AnyRef): AnyRef = obj match {
+    case n: Node => SpilledNode(n.getId)
+    case r: Relationship => SpilledRelationship(r.getId)
+    case x => x
+  }
+}
+
+private class RowInputStream(in: InputStream, db: GraphDatabaseService) extends ObjectInputStream(in) {
+  enableResolveObject(true)
+
+  override def resolveObject(obj: AnyRef): AnyRef = obj match {
+    case SpilledNode(id) => db.getNodeById(id)
+    case SpilledRelationship(id) => db.getRelationshipById(id)
+    case x => x
+  }
+}
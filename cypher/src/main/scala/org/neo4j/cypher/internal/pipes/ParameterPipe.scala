@@ -29,7 +29,8 @@ class ParameterPipe() extends Pipe {
     val map: Map[String, Any] = state.params.map {
       case (k, v) => "-=PARAMETER=-" + k + "-=PARAMETER=-" -> ParameterValue(v)
     }
-    Seq(ExecutionContext(map))
+    // A view, so the pipes built on top of this one produce their rows lazily
+    Seq(ExecutionContext(map)).view
   }
 
   val identifiers = Seq()
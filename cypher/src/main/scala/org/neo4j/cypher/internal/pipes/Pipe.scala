@@ -24,9 +24,10 @@ import org.neo4j.cypher.internal.symbols.SymbolTable
 import collection.Iterator
 import org.neo4j.cypher.internal.mutation.UpdateAction
 import org.neo4j.graphdb.{GraphDatabaseService, Transaction}
-import collection.mutable.{Queue, Map => MutableMap}
+import collection.mutable.{ArrayBuffer, Queue, Map => MutableMap}
 import scala.collection.JavaConverters._
 import java.util.HashMap
+import java.io.Closeable
 
 /**
  * Pipe is a central part of Cypher. Most pipes are decorators - they
@@ -43,7 +44,7 @@ trait Pipe {
 }
 
 class NullPipe extends Pipe {
-  def createResults(state: QueryState) = Seq(ExecutionContext.empty)
+  def createResults(state: QueryState) = Seq(ExecutionContext.empty).view
 
   def symbols: SymbolTable = new SymbolTable()
 
@@ -74,6 +75,22 @@ class QueryState(val db:GraphDatabaseService,
   val propertySet = new Counter
   val deletedNodes = new Counter
   val deletedRelationships = new Counter
+
+  private val resources = new ArrayBuffer[Closeable]()
+
+  /**
+   * Registers a resource, like rows spilled to disk, to be released when the query is done.
+   */
+  def closeWhenDone(resource: Closeable) {
+    resources += resource
+  }
+
+  def holdsResources: Boolean = resources.nonEmpty
+
+  def close() {
+    resources.foreach(_.close())
+    resources.clear()
+  }
 }
 
 class Counter {
@@ -29,12 +29,13 @@ class SlicePipe(source:Pipe, skip:Option[Expression], limit:Option[Expression])
 
   //TODO: Make this nicer. I'm sure it's expensive and silly.
   def createResults(state: QueryState): Traversable[ExecutionContext] = {
-    val sourceTraversable = source.createResults(state)
-
-    if(sourceTraversable.isEmpty)
+    // Reads the source once, the first row is put back in front of the rest after the slice bounds are evaluated
+    val rows = source.createResults(state).toIterator
+    if (!rows.hasNext) {
       return Seq()
-
-    val first: Map[String, Any] = sourceTraversable.head
+    }
+    val first = rows.next()
+    val sourceTraversable = (Iterator(first) ++ rows).toStream
 
     def asInt(v:Expression)=v(first).asInstanceOf[Int]
 
@@ -19,31 +19,29 @@
  */
 package org.neo4j.cypher.internal.pipes
 
-import scala.math.signum
 import org.neo4j.cypher.internal.commands.SortItem
 import java.lang.String
-import org.neo4j.cypher.internal.Comparer
-import collection.mutable.Map
+import java.io.Closeable
+import collection.JavaConverters._
+import org.neo4j.graphdb.GraphDatabaseService
+import org.neo4j.graphdb.factory.GraphDatabaseSettings
+import org.neo4j.kernel.AbstractGraphDatabase
 
-class SortPipe(source: Pipe, sortDescription: List[SortItem]) extends Pipe with Comparer {
+class SortPipe(source: Pipe, sortDescription: List[SortItem], maxRowsInMemory: Option[Int] = None) extends Pipe with SortItemComparer {
   val symbols = source.symbols
 
   assertDependenciesAreMet()
 
-  def createResults(state:QueryState) = source.createResults(state).toList.sortWith((a, b) => compareBy(a, b, sortDescription))
-
-  def compareBy(a: Map[String, Any], b: Map[String, Any], order: Seq[SortItem]): Boolean = order match {
-    case Nil => false
-    case head :: tail => {
-      val key = head.expression.identifier.name
-      val aVal = a(key)
-      val bVal = b(key)
-      signum(compare(aVal, bVal)) match {
-        case 1 => !head.ascending
-        case -1 => head.ascending
-        case 0 => compareBy(a, b, tail)
-      }
+  def createResults(state: QueryState) = {
+    val maxRows = maxRowsInMemory.getOrElse(SortPipe.maxRowsInMemory(state.db))
+    val sort = new ExternalSort((a, b) => compareBy(a, b, sortDescription), maxRows, state.db)
+    val sorted = sort.sort(source.createResults(state))
+    sorted match {
+      case spilled: Closeable => state.closeWhenDone(spilled)
+      case _ =>
     }
+    // A view keeps the pipes after this one from copying the merged runs into memory
+    sorted.view
   }
 
   override def executionPlan(): String = source.executionPlan() + "\r\nSort(" + sortDescription.mkString(",") + ")"
@@ -51,4 +49,19 @@ class SortPipe(source: Pipe, sortDescription: List[SortItem]) extends Pipe with
   private def assertDependenciesAreMet() {
     sortDescription.map(_.expression.identifier).foreach( source.symbols.assertHas )
   }
-}
\ No newline at end of file
+}
+
+object SortPipe {
+  val defaultMaxRowsInMemory = 100000
+
+  def maxRowsInMemory(db: GraphDatabaseService): Int = if (db.isInstanceOf[AbstractGraphDatabase]) {
+    val database = db.asInstanceOf[AbstractGraphDatabase]
+    database.getConfig.getParams.asScala.get(GraphDatabaseSettings.cypher_sort_max_rows_in_memory.name()) match {
+      case None => defaultMaxRowsInMemory
+      case Some(v) => v.toInt
+    }
+  }
+  else {
+    defaultMaxRowsInMemory
+  }
+}
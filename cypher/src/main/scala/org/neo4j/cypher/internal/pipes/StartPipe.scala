@@ -36,7 +36,7 @@ abstract class StartPipe[T <: PropertyContainer](inner: Pipe, name: String, crea
   def createResults(state: QueryState): Traversable[ExecutionContext] = {
     val map = inner.createResults(state).flatMap(ctx => {
       val source: Iterable[T] = createSource(ctx)
-      source.map(x => {
+      source.view.map(x => {
         ctx.newWith(name -> x)
       })
     })
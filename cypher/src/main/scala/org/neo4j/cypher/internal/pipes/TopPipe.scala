@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.pipes
+
+import org.neo4j.cypher.internal.commands.{Expression, SortItem}
+import java.lang.String
+import java.util.{Comparator, PriorityQueue}
+import collection.JavaConverters._
+
+/**
+ * Sorts its input and keeps only the first skip + limit rows. Used instead of a
+ * SortPipe when the sort is followed by a LIMIT, so that only the rows that can
+ * end up in the result are kept around - the rest are thrown away as they come.
+ * The SlicePipe that follows still does the actual slicing.
+ */
+class TopPipe(source: Pipe, sortDescription: List[SortItem], skip: Option[Expression], limit: Expression) extends Pipe with SortItemComparer {
+  val symbols = source.symbols
+
+  assertDependenciesAreMet()
+
+  def createResults(state: QueryState): Traversable[ExecutionContext] = {
+    // The worst row kept so far is at the head of the queue
+    val top = new PriorityQueue[RankedRow](11, new Comparator[RankedRow] {
+      def compare(a: RankedRow, b: RankedRow) = if (before(a, b)) 1 else if (before(b, a)) -1 else 0
+    })
+
+    var count = -1
+    var index = 0L
+
+    source.createResults(state).foreach(row => {
+      if (count == -1) {
+        count = asInt(limit(row)) + skip.map(s => asInt(s(row))).getOrElse(0)
+      }
+
+      val ranked = RankedRow(row, index)
+      index += 1
+
+      if (top.size < count) {
+        top.add(ranked)
+      } else if (count > 0 && before(ranked, top.peek())) {
+        top.poll()
+        top.add(ranked)
+      }
+    })
+
+    top.asScala.toList.sortWith(before).map(_.row)
+  }
+
+  // Rows that compare equal keep their input order, just like in SortPipe
+  private def before(a: RankedRow, b: RankedRow): Boolean =
+    compareBy(a.row, b.row, sortDescription) || (!compareBy(b.row, a.row, sortDescription) && a.index < b.index)
+
+  private def asInt(v: Any) = v.asInstanceOf[Number].intValue()
+
+  override def executionPlan(): String = {
+    val info = skip match {
+      case None => "Limit: " + limit.toString()
+      case Some(s) => "Skip: " + s.toString() + ", " + "Limit: " + limit.toString()
+    }
+    source.executionPlan() + "\r\nTop(" + sortDescription.mkString(",") + "; " + info + ")"
+  }
+
+  private def assertDependenciesAreMet() {
+    sortDescription.map(_.expression.identifier).foreach( source.symbols.assertHas )
+  }
+
+  private case class RankedRow(row: ExecutionContext, index: Long)
+}
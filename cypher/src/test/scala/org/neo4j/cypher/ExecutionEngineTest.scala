@@ -1442,6 +1442,16 @@ order by a.COL1
     assert(List(Map("a" -> a)) === result.toList)
   }
 
+  @Test def shouldNotShareCachedPlansBetweenRegularExpressionsDifferingInWhitespace() {
+    val a = createNode("name" -> "a b")
+
+    val wide = engine.execute("start a = node(1) where a.name =~ /a  b/ return a")
+    val narrow = engine.execute("start a = node(1) where a.name =~ /a b/ return a")
+
+    assert(List() === wide.toList)
+    assert(List(Map("a" -> a)) === narrow.toList)
+  }
+
   @Test def shouldBeAbleToCompareWithTrue() {
     val a = createNode("first" -> true)
 
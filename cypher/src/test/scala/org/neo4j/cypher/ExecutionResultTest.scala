@@ -23,6 +23,8 @@ import org.scalatest.Assertions
 import org.junit.Test
 import org.junit.Assert._
 import java.util.regex.Pattern
+import internal.pipes.{QueryState, NullPipe, NodeStartPipe}
+import org.neo4j.graphdb.Node
 
 class ExecutionResultTest extends ExecutionEngineHelper with Assertions {
   @Test def columnOrderIsPreserved() {
@@ -41,4 +43,21 @@ class ExecutionResultTest extends ExecutionEngineHelper with Assertions {
 
     assertTrue( "Columns did not apperar in the expected order: \n" + result.dumpToString(), pattern.matcher(result.dumpToString()).find() );
   }
+
+  @Test def firstRowIsReadWithoutProducingTheRest() {
+    var produced = 0
+    val nodes = new Iterable[Node] {
+      def iterator = Iterator.continually({
+        produced += 1
+        null: Node
+      }).take(1000000)
+    }
+    val pipe = new NodeStartPipe(new NullPipe(), "n", (ctx) => nodes)
+    val result = new PipeExecutionResult(pipe.createResults(QueryState()), pipe.symbols, List("n"))
+
+    assertTrue(result.hasNext)
+    result.next()
+
+    assertTrue("Produced " + produced + " rows to read the first one", produced < 10)
+  }
 }
\ No newline at end of file
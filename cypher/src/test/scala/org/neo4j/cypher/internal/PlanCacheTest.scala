@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal
+
+import org.scalatest.Assertions
+import org.junit.Test
+import org.junit.Assert._
+
+class PlanCacheTest extends Assertions {
+  @Test def shouldOnlyPlanOnce() {
+    val cache = new PlanCache[String](5)
+    var planned = 0
+
+    cache.getOrElseUpdate("start n=node(0) return n", { planned += 1; "plan" })
+    cache.getOrElseUpdate("start n=node(0) return n", { planned += 1; "plan" })
+
+    assert(planned === 1)
+    assert(cache.statistics.hits.get() === 1)
+    assert(cache.statistics.misses.get() === 1)
+  }
+
+  @Test def shouldIgnoreInsignificantWhitespace() {
+    val cache = new PlanCache[String](5)
+    cache.getOrElseUpdate("start n=node(0)\n  return n", "plan")
+
+    assert(cache.getOrElseUpdate("  start n=node(0) return n ", "other plan") === "plan")
+  }
+
+  @Test def shouldKeepWhitespaceInStrings() {
+    assert(PlanCache.normalize("start n=node(0)  where n.name = 'a  b' return n") ===
+      "start n=node(0) where n.name = 'a  b' return n")
+    assert(PlanCache.normalize("start n=node(0) return n.`a  b`") === "start n=node(0) return n.`a  b`")
+    assertFalse(PlanCache.normalize("return \"a  b\"") == PlanCache.normalize("return \"a b\""))
+  }
+
+  @Test def shouldKeepWhitespaceInRegularExpressions() {
+    assert(PlanCache.normalize("start n=node(0) where n.name =~  /a  b/ return n") ===
+      "start n=node(0) where n.name =~ /a  b/ return n")
+    assertFalse(PlanCache.normalize("return n.name =~ /a  b/") == PlanCache.normalize("return n.name =~ /a b/"))
+    assert(PlanCache.normalize("return n.x  /  2") === "return n.x / 2")
+  }
+
+  @Test def shouldNotEndLiteralsAtEscapedQuotes() {
+    assert(PlanCache.normalize("return 'it\\'s  a', \"a\\\"  b\"") === "return 'it\\'s  a', \"a\\\"  b\"")
+    assertFalse(PlanCache.normalize("return 'a\\'  b'") == PlanCache.normalize("return 'a\\' b'"))
+    assert(PlanCache.normalize("return n.name =~ /a\\/  b/") === "return n.name =~ /a\\/  b/")
+  }
+
+  @Test def shouldCountEvictions() {
+    val cache = new PlanCache[String](2)
+    cache.getOrElseUpdate("1", "1")
+    cache.getOrElseUpdate("2", "2")
+    cache.getOrElseUpdate("3", "3")
+
+    assert(cache.size === 2)
+    assert(cache.statistics.evictions.get() === 1)
+  }
+
+  @Test def shouldPlanAgainAfterClear() {
+    val cache = new PlanCache[String](5)
+    cache.getOrElseUpdate("1", "old")
+    cache.clear()
+
+    assert(cache.getOrElseUpdate("1", "new") === "new")
+  }
+
+  @Test def shouldBeSafeToUseFromManyThreads() {
+    val cache = new PlanCache[String](10)
+    val threads = (0 until 8).map(t => new Thread() {
+      override def run() {
+        (0 until 1000).foreach(i => {
+          val query = "query " + (i % 20)
+          assert(cache.getOrElseUpdate(query, query) === query)
+        })
+      }
+    })
+
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+
+    assert(cache.size === 10)
+    assert(cache.statistics.hits.get() + cache.statistics.misses.get() === 8000)
+  }
+}
@@ -21,7 +21,8 @@ package org.neo4j.cypher.internal.executionplan.builders
 
 import org.junit.Test
 import org.junit.Assert._
-import org.neo4j.cypher.internal.commands.{CachedExpression, Property, SortItem}
+import org.neo4j.cypher.internal.commands.{Literal, Slice, CachedExpression, Property, SortItem}
+import org.neo4j.cypher.internal.pipes.{SortPipe, TopPipe}
 import org.neo4j.cypher.internal.symbols.{ScalarType, Identifier}
 import org.neo4j.cypher.internal.executionplan.PartiallySolvedQuery
 
@@ -56,4 +57,31 @@ class SortBuilderTest extends BuilderTest {
 
     assertFalse("Builder should accept this", builder.canWorkWith(plan(p, q)))
   }
-}
\ No newline at end of file
+
+  @Test def should_use_a_top_pipe_when_followed_by_a_limit() {
+    val q = PartiallySolvedQuery().copy(
+      sort = Seq(Unsolved(SortItem(Property("x", "foo"), true))),
+      slice = Seq(Unsolved(Slice(None, Some(Literal(10))))),
+      extracted = true
+    )
+
+    val p = createPipe(nodes = Seq("x"))
+
+    val resultPlan = builder(plan(p, q))
+
+    assertTrue("Expected a TopPipe", resultPlan.pipe.isInstanceOf[TopPipe])
+    assert(resultPlan.query.slice === q.slice)
+  }
+
+  @Test def should_use_a_sort_pipe_when_only_skipping() {
+    val q = PartiallySolvedQuery().copy(
+      sort = Seq(Unsolved(SortItem(Property("x", "foo"), true))),
+      slice = Seq(Unsolved(Slice(Some(Literal(10)), None))),
+      extracted = true
+    )
+
+    val p = createPipe(nodes = Seq("x"))
+
+    assertTrue("Expected a SortPipe", builder(plan(p, q)).pipe.isInstanceOf[SortPipe])
+  }
+}
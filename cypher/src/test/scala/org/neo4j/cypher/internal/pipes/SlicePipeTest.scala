@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.pipes
+
+import org.junit.Assert
+import org.junit.Test
+import org.scalatest.junit.JUnitSuite
+import org.neo4j.cypher.internal.commands.Literal
+import collection.mutable.Map
+
+class SlicePipeTest extends JUnitSuite {
+  @Test def shouldProduceEachSourceRowOnce() {
+    var produced = 0
+    val rows = (1 to 5).view.map(i => {
+      produced += 1
+      Map[String, Any]("x" -> i)
+    })
+    val slice = new SlicePipe(new FakePipe(rows), Some(Literal(1)), Some(Literal(10)))
+
+    Assert.assertEquals(List(2, 3, 4, 5), slice.createResults(QueryState()).map(_("x")).toList)
+    Assert.assertEquals(5, produced)
+  }
+
+  @Test def shouldReturnNothingForAnEmptySource() {
+    val slice = new SlicePipe(new FakePipe(Seq()), None, Some(Literal(10)))
+
+    Assert.assertEquals(List(), slice.createResults(QueryState()).toList)
+  }
+}
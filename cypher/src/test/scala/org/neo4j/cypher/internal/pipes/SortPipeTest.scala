@@ -25,6 +25,7 @@ import org.scalatest.junit.JUnitSuite
 import org.neo4j.cypher.internal.commands.{Entity, SortItem}
 import org.neo4j.cypher.internal.symbols.{Identifier, SymbolTable}
 import collection.mutable.Map
+import java.io.File
 
 class SortPipeTest extends JUnitSuite {
   @Test def emptyInIsEmptyOut() {
@@ -87,6 +88,86 @@ class SortPipeTest extends JUnitSuite {
       Map("y" -> null)), sortPipe.createResults(QueryState()).toList)
   }
 
+  @Test def sortingSpilledRunsGivesSameResultAsSortingInMemory() {
+    val data = (0 until 50).map(i => Map[String, Any]("x" -> (i * 37) % 50, "y" -> i))
+    val sortItems = List(SortItem(Entity("x"), false))
+
+    val inMemory = new SortPipe(new FakePipe(data), sortItems)
+    val spilled = new SortPipe(new FakePipe(data), sortItems, Some(7))
+
+    assertEquals(inMemory.createResults(QueryState()).toList, spilled.createResults(QueryState()).toList)
+  }
+
+  @Test def spilledSortIsStable() {
+    val source = new FakePipe(List(
+      Map("x" -> "B", "y" -> 1),
+      Map("x" -> "A", "y" -> 2),
+      Map("x" -> "B", "y" -> 3),
+      Map("x" -> "A", "y" -> 4),
+      Map("x" -> "B", "y" -> 5)))
+
+    val sortPipe = new SortPipe(source, List(SortItem(Entity("x"), true)), Some(2))
+
+    assertEquals(List(
+      Map("x" -> "A", "y" -> 2),
+      Map("x" -> "A", "y" -> 4),
+      Map("x" -> "B", "y" -> 1),
+      Map("x" -> "B", "y" -> 3),
+      Map("x" -> "B", "y" -> 5)), sortPipe.createResults(QueryState()).toList)
+  }
+
+  @Test def spilledSortHandlesNullValues() {
+    val source = new FakePipe(List(
+      Map("y" -> 3),
+      Map("y" -> null),
+      Map("y" -> 2),
+      Map("y" -> 1)))
+
+    val sortPipe = new SortPipe(source, List(SortItem(Entity("y"), true)), Some(1))
+
+    assertEquals(List(
+      Map("y" -> 1),
+      Map("y" -> 2),
+      Map("y" -> 3),
+      Map("y" -> null)), sortPipe.createResults(QueryState()).toList)
+  }
+
+  @Test def spilledRunsAreDeletedWhenTheQueryIsClosed() {
+    val source = new FakePipe((0 until 20).reverse.map(i => Map[String, Any]("x" -> i)))
+    val sortPipe = new SortPipe(source, List(SortItem(Entity("x"), true)), Some(3))
+    val runsBefore = sortRuns
+    val state = QueryState()
+
+    val rows = sortPipe.createResults(state).toIterator
+    assertEquals(0, rows.next()("x"))
+    assertTrue(sortRuns.size > runsBefore.size)
+
+    state.close()
+
+    assertEquals(runsBefore, sortRuns)
+  }
+
+  @Test def spilledRowsCanBeTraversedMoreThanOnce() {
+    val source = new FakePipe(List(Map("x" -> 3), Map("x" -> 1), Map("x" -> 2)))
+    val sorted = new SortPipe(source, List(SortItem(Entity("x"), true)), Some(1)).createResults(QueryState())
+
+    assertEquals(List(1, 2, 3), sorted.map(_("x")).toList)
+    assertEquals(List(1, 2, 3), sorted.map(_("x")).toList)
+  }
+
+  @Test def rowsThatCantBeSpilledAreSortedInMemory() {
+    val source = new FakePipe(List(
+      Map("x" -> 2, "o" -> new Object),
+      Map("x" -> 1, "o" -> new Object),
+      Map("x" -> 3, "o" -> new Object)))
+
+    val sortPipe = new SortPipe(source, List(SortItem(Entity("x"), true)), Some(1))
+
+    assertEquals(List(1, 2, 3), sortPipe.createResults(QueryState()).map(_("x")).toList)
+  }
+
+  private def sortRuns = new File(System.getProperty("java.io.tmpdir")).listFiles().
+    filter(_.getName.startsWith("cypher-sort")).map(_.getName).toSet
 }
 
 class FakePipe(data: Seq[Map[String, Any]], val symbols: SymbolTable) extends Pipe {
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.pipes
+
+import org.junit.Test
+import org.junit.Assert._
+import org.scalatest.junit.JUnitSuite
+import org.neo4j.cypher.internal.commands.{Literal, Entity, SortItem}
+import collection.mutable.Map
+
+class TopPipeTest extends JUnitSuite {
+  @Test def emptyInIsEmptyOut() {
+    val source = new FakePipe(List())
+    val topPipe = new TopPipe(source, List(SortItem(Entity("x"), true)), None, Literal(5))
+
+    assertEquals(List(), topPipe.createResults(QueryState()).toList)
+  }
+
+  @Test def keepsOnlyTheTopRows() {
+    val source = new FakePipe((0 until 20).map(i => Map[String, Any]("x" -> (i * 7) % 20)))
+    val topPipe = new TopPipe(source, List(SortItem(Entity("x"), true)), None, Literal(3))
+
+    assertEquals(List(0, 1, 2), topPipe.createResults(QueryState()).map(_("x")).toList)
+  }
+
+  @Test def keepsRowsForTheSkipToo() {
+    val source = new FakePipe((0 until 20).map(i => Map[String, Any]("x" -> (i * 7) % 20)))
+    val topPipe = new TopPipe(source, List(SortItem(Entity("x"), false)), Some(Literal(2)), Literal(3))
+
+    assertEquals(List(19, 18, 17, 16, 15), topPipe.createResults(QueryState()).map(_("x")).toList)
+  }
+
+  @Test def givesSameResultAsSortingEverything() {
+    val data = (0 until 50).map(i => Map[String, Any]("x" -> (i * 37) % 10, "y" -> i))
+    val sortItems = List(SortItem(Entity("x"), true))
+
+    val sorted = new SortPipe(new FakePipe(data), sortItems).createResults(QueryState()).take(12).toList
+    val top = new TopPipe(new FakePipe(data), sortItems, None, Literal(12)).createResults(QueryState()).toList
+
+    assertEquals(sorted, top)
+  }
+
+  @Test def limitLargerThanInput() {
+    val source = new FakePipe(List(Map("x" -> "B"), Map("x" -> "A")))
+    val topPipe = new TopPipe(source, List(SortItem(Entity("x"), true)), None, Literal(10))
+
+    assertEquals(List(Map("x" -> "A"), Map("x" -> "B")), topPipe.createResults(QueryState()).toList)
+  }
+
+  @Test def limitOfZeroGivesNothing() {
+    val source = new FakePipe(List(Map("x" -> "B"), Map("x" -> "A")))
+    val topPipe = new TopPipe(source, List(SortItem(Entity("x"), true)), None, Literal(0))
+
+    assertEquals(List(), topPipe.createResults(QueryState()).toList)
+  }
+}
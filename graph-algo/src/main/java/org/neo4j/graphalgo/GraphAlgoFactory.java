@@ -19,9 +19,12 @@
  */
 package org.neo4j.graphalgo;
 
+import java.util.concurrent.ExecutorService;
+
 import org.neo4j.graphalgo.impl.path.AStar;
 import org.neo4j.graphalgo.impl.path.AllPaths;
 import org.neo4j.graphalgo.impl.path.AllSimplePaths;
+import org.neo4j.graphalgo.impl.path.BidirectionalDijkstra;
 import org.neo4j.graphalgo.impl.path.Dijkstra;
 import org.neo4j.graphalgo.impl.path.ShortestPath;
 import org.neo4j.graphalgo.impl.util.DoubleEvaluator;
@@ -109,6 +112,33 @@ public abstract class GraphAlgoFactory
     {
         return new ShortestPath( maxDepth, expander, maxHitCount );
     }
+
+    /**
+     * See {@link #shortestPath(RelationshipExpander, int, int)}.
+     * 
+     * Levels with many nodes, as found in graphs where nodes have lots of
+     * relationships, have their relationships expanded on the threads of
+     * the supplied {@link ExecutorService}. Its threads only see committed
+     * data, so while the calling thread has a transaction open, which may
+     * hold changes they wouldn't see, levels are expanded on the calling
+     * thread instead.
+     * 
+     * @param expander the {@link RelationshipExpander} to use for expanding
+     *            {@link Relationship}s for each {@link Node}. It is called
+     *            from the threads of the executor.
+     * @param maxDepth the max {@link Path#length()} returned paths are allowed
+     *            to have.
+     * @param maxHitCount the maximum number of {@link Path}s to return.
+     * If this number of found paths are encountered the traversal will stop.
+     * @param executor the {@link ExecutorService} to expand levels on. It is
+     * not shut down by the returned algorithm.
+     * @return an algorithm which finds shortest paths between two nodes.
+     */
+    public static PathFinder<Path> shortestPath( RelationshipExpander expander, int maxDepth, int maxHitCount,
+            ExecutorService executor )
+    {
+        return new ShortestPath( maxDepth, expander, maxHitCount, false, executor );
+    }
     
     /**
      * Returns an algorithm which can find simple all paths of a certain length
@@ -198,4 +228,73 @@ public abstract class GraphAlgoFactory
     {
         return dijkstra( expander, new DoubleEvaluator( relationshipPropertyRepresentingCost ) );
     }
+
+    /**
+     * Returns an {@link PathFinder} which finds the cheapest path between two
+     * nodes, like {@link #dijkstra(RelationshipExpander, CostEvaluator)}, but
+     * searches from both nodes at the same time until the searches meet.
+     * This visits considerably fewer nodes when the path is short compared
+     * to the size of the graph. Costs must not be negative.
+     * 
+     * @see BidirectionalDijkstra
+     * @param expander the {@link RelationshipExpander} to use for expanding
+     * {@link Relationship}s for each {@link Node}, from the start node. It is
+     * {@link RelationshipExpander#reversed() reversed} for the search from
+     * the end node.
+     * @param costEvaluator evaluator that can return the cost represented
+     * by each relationship the algorithm traverses.
+     * @return an algorithm which finds the cheapest path between two nodes
+     * using the Dijkstra algorithm from both ends.
+     */
+    public static PathFinder<WeightedPath> bidirectionalDijkstra( RelationshipExpander expander,
+            CostEvaluator<Double> costEvaluator )
+    {
+        return new BidirectionalDijkstra( expander, costEvaluator );
+    }
+
+    /**
+     * See {@link #bidirectionalDijkstra(RelationshipExpander, CostEvaluator)}.
+     * 
+     * Uses a cost evaluator which uses the supplied property key to
+     * represent the cost (values of type <bold>double</bold>).
+     * 
+     * @param expander the {@link RelationshipExpander} to use for expanding
+     * {@link Relationship}s for each {@link Node}.
+     * @param relationshipPropertyRepresentingCost the property to represent cost
+     * on each relationship the algorithm traverses.
+     * @return an algorithm which finds the cheapest path between two nodes
+     * using the Dijkstra algorithm from both ends.
+     */
+    public static PathFinder<WeightedPath> bidirectionalDijkstra( RelationshipExpander expander,
+            String relationshipPropertyRepresentingCost )
+    {
+        return bidirectionalDijkstra( expander, new DoubleEvaluator( relationshipPropertyRepresentingCost ) );
+    }
+
+    /**
+     * Returns an {@link PathFinder} which uses the A* algorithm from both the
+     * start and the end node to find the cheapest path between them. The
+     * estimate is used in both directions, so it has to be symmetric, i.e.
+     * give the same estimate from a to b as from b to a, like a geographical
+     * distance does. It must also be consistent: the estimate from a node may
+     * never exceed the cost of a relationship from it plus the estimate from
+     * the node at the other end. Settled nodes are never reopened, so an
+     * estimate that only never overestimates, but isn't consistent, can make
+     * it return a path that isn't the cheapest.
+     * 
+     * @see BidirectionalDijkstra
+     * @param expander the {@link RelationshipExpander} to use for expanding
+     * {@link Relationship}s for each {@link Node}, from the start node.
+     * @param lengthEvaluator evaluator that can return the cost represented
+     * by each relationship the algorithm traverses.
+     * @param estimateEvaluator evaluator that returns an (optimistic)
+     * estimation of the cost to get from one node to another.
+     * @return an algorithm which finds the cheapest path between two nodes
+     * using the A* algorithm from both ends.
+     */
+    public static PathFinder<WeightedPath> bidirectionalAStar( RelationshipExpander expander,
+            CostEvaluator<Double> lengthEvaluator, EstimateEvaluator<Double> estimateEvaluator )
+    {
+        return new BidirectionalDijkstra( expander, lengthEvaluator, estimateEvaluator );
+    }
 }
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.centrality;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.graphdb.Node;
+
+/**
+ * The changes a {@link ShortestPathBasedCentrality} made to its centrality
+ * values while processing the shortest paths from one start node, kept in
+ * the order they were made so that they can be applied later on, with the
+ * same result as if they had been applied right away.
+ */
+class CentralityUpdates<CentralityType>
+{
+    private final ShortestPathBasedCentrality<CentralityType,?> calculation;
+    private final List<Node> nodes = new ArrayList<Node>();
+    private final List<CentralityType> values = new ArrayList<CentralityType>();
+    // For each update, true if the value is added and false if it is set
+    private final List<Boolean> additions = new ArrayList<Boolean>();
+
+    CentralityUpdates( ShortestPathBasedCentrality<CentralityType,?> calculation )
+    {
+        this.calculation = calculation;
+    }
+
+    void add( Node node, CentralityType value )
+    {
+        nodes.add( node );
+        values.add( value );
+        additions.add( Boolean.TRUE );
+    }
+
+    void set( Node node, CentralityType value )
+    {
+        nodes.add( node );
+        values.add( value );
+        additions.add( Boolean.FALSE );
+    }
+
+    void apply()
+    {
+        for ( int i = 0; i < nodes.size(); i++ )
+        {
+            if ( additions.get( i ) )
+            {
+                calculation.addCentralityToNode( nodes.get( i ), values.get( i ) );
+            }
+            else
+            {
+                calculation.setCentralityForNode( nodes.get( i ), values.get( i ) );
+            }
+        }
+    }
+}
@@ -78,6 +78,16 @@ public class NetworkDiameter<ShortestPathCostType> extends
         }
     }
 
+    /**
+     * Updates the diameter as it goes, so start nodes have to be processed one at
+     * a time.
+     */
+    @Override
+    protected boolean canProcessConcurrently()
+    {
+        return false;
+    }
+
     @Override
     public ShortestPathCostType getCentrality( Node node )
     {
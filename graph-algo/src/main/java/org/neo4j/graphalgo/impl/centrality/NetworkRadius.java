@@ -76,6 +76,16 @@ public class NetworkRadius<ShortestPathCostType> extends
         }
     }
 
+    /**
+     * Updates the radius as it goes, so start nodes have to be processed one at
+     * a time.
+     */
+    @Override
+    protected boolean canProcessConcurrently()
+    {
+        return false;
+    }
+
     @Override
     public ShortestPathCostType getCentrality( Node node )
     {
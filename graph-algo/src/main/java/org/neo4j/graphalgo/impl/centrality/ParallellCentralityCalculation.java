@@ -19,12 +19,20 @@
  */
 package org.neo4j.graphalgo.impl.centrality;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.neo4j.graphalgo.impl.shortestpath.SingleSourceShortestPath;
 import org.neo4j.graphdb.Node;
+import org.neo4j.helpers.DaemonThreadFactory;
 
 /**
  * This is a utility class used to group together a number of centrality measure
@@ -32,7 +40,11 @@ import org.neo4j.graphdb.Node;
  * the results of the underlying {@link SingleSourceShortestPath} algorithm,
  * instead of re-running it for each centrality measure. We do it by collecting
  * a number of {@link ShortestPathBasedCentrality} and then running the
- * {@link SingleSourceShortestPath} for every node.
+ * {@link SingleSourceShortestPath} for every node. Given a
+ * {@link SingleSourceShortestPathFactory} and more than one thread, the start
+ * nodes are processed on several threads, each with a
+ * {@link SingleSourceShortestPath} of its own. The results are the same as
+ * when processing them one at a time.
  * @complexity The sum of the complexities of the centrality measures to
  *             compute, except that all the n*A terms implode into one single
  *             n*A term.
@@ -48,6 +60,8 @@ public class ParallellCentralityCalculation<ShortestPathCostType>
     protected Set<Node> nodeSet;
     List<ShortestPathBasedCentrality<?,ShortestPathCostType>> calculations = new LinkedList<ShortestPathBasedCentrality<?,ShortestPathCostType>>();
     protected boolean doneCalculation = false;
+    protected SingleSourceShortestPathFactory<ShortestPathCostType> singleSourceShortestPathFactory;
+    protected int numberOfThreads = 1;
 
     /**
      * Default constructor.
@@ -66,6 +80,26 @@ public class ParallellCentralityCalculation<ShortestPathCostType>
         this.nodeSet = nodeSet;
     }
 
+    /**
+     * Constructor for processing start nodes on several threads.
+     * @param singleSourceShortestPathFactory
+     *            Creates the underlying singleSourceShortestPath of each
+     *            thread.
+     * @param nodeSet
+     *            A set containing the nodes for which centrality values should
+     *            be computed.
+     * @param numberOfThreads
+     *            The number of threads to process start nodes on.
+     */
+    public ParallellCentralityCalculation(
+        SingleSourceShortestPathFactory<ShortestPathCostType> singleSourceShortestPathFactory,
+        Set<Node> nodeSet, int numberOfThreads )
+    {
+        this( singleSourceShortestPathFactory.newSingleSourceShortestPath(), nodeSet );
+        this.singleSourceShortestPathFactory = singleSourceShortestPathFactory;
+        this.numberOfThreads = numberOfThreads;
+    }
+
     /**
      * This adds a centrality measure to be included in the calculation.
      * @param shortestPathBasedCentrality
@@ -95,6 +129,11 @@ public class ParallellCentralityCalculation<ShortestPathCostType>
             return;
         }
         doneCalculation = true;
+        if ( canCalculateConcurrently() )
+        {
+            calculateConcurrently();
+            return;
+        }
         // For all nodes...
         for ( Node startNode : nodeSet )
         {
@@ -109,4 +148,99 @@ public class ParallellCentralityCalculation<ShortestPathCostType>
             }
         }
     }
+
+    private boolean canCalculateConcurrently()
+    {
+        if ( singleSourceShortestPathFactory == null || numberOfThreads < 2 )
+        {
+            return false;
+        }
+        for ( ShortestPathBasedCentrality<?,ShortestPathCostType> calculation : calculations )
+        {
+            if ( !calculation.canProcessConcurrently() )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Processes the start nodes on a pool of threads, but applies the
+     * resulting updates in the order of the node set, so that values summed
+     * up over several start nodes come out exactly as in the sequential case.
+     */
+    protected void calculateConcurrently()
+    {
+        final ThreadLocal<SingleSourceShortestPath<ShortestPathCostType>> threadShortestPath = new ThreadLocal<SingleSourceShortestPath<ShortestPathCostType>>()
+        {
+            @Override
+            protected SingleSourceShortestPath<ShortestPathCostType> initialValue()
+            {
+                return singleSourceShortestPathFactory.newSingleSourceShortestPath();
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool( numberOfThreads,
+            new DaemonThreadFactory( "Centrality calculation" ) );
+        // Bounds the memory held by updates waiting to be applied
+        int maxPending = numberOfThreads * 4;
+        LinkedList<Future<List<CentralityUpdates<?>>>> pending = new LinkedList<Future<List<CentralityUpdates<?>>>>();
+        Iterator<Node> startNodes = nodeSet.iterator();
+        try
+        {
+            while ( true )
+            {
+                while ( pending.size() < maxPending && startNodes.hasNext() )
+                {
+                    final Node startNode = startNodes.next();
+                    pending.add( executor.submit( new Callable<List<CentralityUpdates<?>>>()
+                    {
+                        @Override
+                        public List<CentralityUpdates<?>> call()
+                        {
+                            SingleSourceShortestPath<ShortestPathCostType> shortestPath = threadShortestPath.get();
+                            shortestPath.reset();
+                            shortestPath.setStartNode( startNode );
+                            List<CentralityUpdates<?>> updates = new ArrayList<CentralityUpdates<?>>(
+                                calculations.size() );
+                            for ( ShortestPathBasedCentrality<?,ShortestPathCostType> calculation : calculations )
+                            {
+                                updates.add( calculation.recordShortestPaths( startNode, shortestPath ) );
+                            }
+                            return updates;
+                        }
+                    } ) );
+                }
+                if ( pending.isEmpty() )
+                {
+                    break;
+                }
+                for ( CentralityUpdates<?> updates : pending.removeFirst().get() )
+                {
+                    updates.apply();
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( "Interrupted while calculating centrality", e );
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            if ( e.getCause() instanceof Error )
+            {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException( e.getCause() );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -57,6 +57,11 @@ public abstract class ShortestPathBasedCentrality<CentralityType,ShortestPathCos
      * addCentralityToNode.
      */
     protected Map<Node,CentralityType> centralities = null;
+    /**
+     * Set while processing shortest paths on behalf of a calculation running
+     * on several threads, which applies the recorded updates afterwards.
+     */
+    private final ThreadLocal<CentralityUpdates<CentralityType>> recordedUpdates = new ThreadLocal<CentralityUpdates<CentralityType>>();
 
     /**
      * Default constructor.
@@ -106,6 +111,12 @@ public abstract class ShortestPathBasedCentrality<CentralityType,ShortestPathCos
      */
     protected void addCentralityToNode( Node node, CentralityType value )
     {
+        CentralityUpdates<CentralityType> updates = recordedUpdates.get();
+        if ( updates != null )
+        {
+            updates.add( node, value );
+            return;
+        }
         CentralityType centrality = centralities.get( node );
         if ( centrality == null )
         {
@@ -123,6 +134,12 @@ public abstract class ShortestPathBasedCentrality<CentralityType,ShortestPathCos
      */
     protected void setCentralityForNode( Node node, CentralityType value )
     {
+        CentralityUpdates<CentralityType> updates = recordedUpdates.get();
+        if ( updates != null )
+        {
+            updates.set( node, value );
+            return;
+        }
         centralities.put( node, value );
     }
 
@@ -162,6 +179,44 @@ public abstract class ShortestPathBasedCentrality<CentralityType,ShortestPathCos
         }
     }
 
+    /**
+     * Runs {@link #processShortestPaths(Node, SingleSourceShortestPath)} without
+     * changing any centrality values, instead returning the changes it would
+     * have made. Used to process several start nodes at the same time.
+     * @param node
+     * @param singleSourceShortestPath
+     * @return The changes to apply, in order, once the changes for all start
+     *         nodes processed before this one have been applied.
+     */
+    CentralityUpdates<CentralityType> recordShortestPaths( Node node,
+        SingleSourceShortestPath<ShortestPathCostType> singleSourceShortestPath )
+    {
+        CentralityUpdates<CentralityType> updates = new CentralityUpdates<CentralityType>( this );
+        recordedUpdates.set( updates );
+        try
+        {
+            processShortestPaths( node, singleSourceShortestPath );
+        }
+        finally
+        {
+            recordedUpdates.remove();
+        }
+        return updates;
+    }
+
+    /**
+     * Whether {@link #processShortestPaths(Node, SingleSourceShortestPath)}
+     * only reads the state of this object, and changes it through
+     * {@link #addCentralityToNode(Node, Object)} and
+     * {@link #setCentralityForNode(Node, Object)} alone, so that it can run
+     * for several start nodes at the same time.
+     * @return true unless overridden.
+     */
+    protected boolean canProcessConcurrently()
+    {
+        return true;
+    }
+
     /**
      * This is the abstract method all centrality algorithms based on this class
      * need to implement. It is called once for every node in the node set,
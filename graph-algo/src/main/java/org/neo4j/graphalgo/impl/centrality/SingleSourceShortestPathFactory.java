@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.centrality;
+
+import org.neo4j.graphalgo.impl.shortestpath.SingleSourceShortestPath;
+
+/**
+ * Creates {@link SingleSourceShortestPath} instances, so that a calculation
+ * running on several threads can give each thread an instance of its own.
+ * @param <CostType>
+ *            The datatype the edge weights are represented by.
+ */
+public interface SingleSourceShortestPathFactory<CostType>
+{
+    /**
+     * @return A new instance, set up the same way as every other instance
+     *         returned.
+     */
+    SingleSourceShortestPath<CostType> newSingleSourceShortestPath();
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.csr;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra on a {@link CsrGraph}, finding the distance from a start node to
+ * every other node, the way
+ * {@link org.neo4j.graphalgo.impl.shortestpath.SingleSourceShortestPathDijkstra}
+ * does for double weights. Uses a binary heap over node indexes and can be
+ * run again from another start node without allocating anything. Not thread
+ * safe, use one instance per thread. Weights must not be negative.
+ * @complexity O(m * log(n)) for each start node.
+ */
+public class CsrDijkstra
+{
+    private final CsrGraph graph;
+    private final double[] distances;
+    private static final int NOT_SEEN = -1;
+    private static final int DONE = -2;
+
+    // Binary heap of node indexes ordered by distance, and the position of
+    // each node in it
+    private final int[] heap;
+    private final int[] positions;
+    private int heapSize;
+
+    public CsrDijkstra( CsrGraph graph )
+    {
+        this.graph = graph;
+        this.distances = new double[graph.nodeCount()];
+        this.heap = new int[graph.nodeCount()];
+        this.positions = new int[graph.nodeCount()];
+    }
+
+    /**
+     * Calculates the distance from the given node to all other nodes.
+     * @param startNode
+     *            The index of the start node.
+     * @return The distance to each node, by index, which is
+     *         {@link Double#POSITIVE_INFINITY} for nodes that can't be
+     *         reached. Overwritten by the next calculation.
+     */
+    public double[] calculate( int startNode )
+    {
+        Arrays.fill( distances, Double.POSITIVE_INFINITY );
+        Arrays.fill( positions, NOT_SEEN );
+        heapSize = 0;
+        distances[startNode] = 0;
+        push( startNode );
+        while ( heapSize > 0 )
+        {
+            int node = pop();
+            double distance = distances[node];
+            for ( int relationship = graph.firstRelationship( node ), end = graph.endRelationship( node ); relationship < end; relationship++ )
+            {
+                int target = graph.target( relationship );
+                double newDistance = distance + graph.weight( relationship );
+                if ( newDistance < distances[target] && positions[target] != DONE )
+                {
+                    distances[target] = newDistance;
+                    if ( positions[target] == NOT_SEEN )
+                    {
+                        push( target );
+                    }
+                    else
+                    {
+                        siftUp( positions[target] );
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * @return The largest finite distance from the given node, i.e. its
+     *         eccentricity within the part of the graph it can reach.
+     */
+    public double eccentricity( int startNode )
+    {
+        double max = 0;
+        for ( double distance : calculate( startNode ) )
+        {
+            if ( distance > max && distance != Double.POSITIVE_INFINITY )
+            {
+                max = distance;
+            }
+        }
+        return max;
+    }
+
+    private void push( int node )
+    {
+        heap[heapSize] = node;
+        positions[node] = heapSize;
+        siftUp( heapSize++ );
+    }
+
+    private int pop()
+    {
+        int top = heap[0];
+        positions[top] = DONE;
+        if ( --heapSize > 0 )
+        {
+            heap[0] = heap[heapSize];
+            positions[heap[0]] = 0;
+            siftDown( 0 );
+        }
+        return top;
+    }
+
+    private void siftUp( int position )
+    {
+        int node = heap[position];
+        double distance = distances[node];
+        while ( position > 0 )
+        {
+            int parent = ( position - 1 ) >>> 1;
+            if ( distances[heap[parent]] <= distance )
+            {
+                break;
+            }
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = node;
+        positions[node] = position;
+    }
+
+    private void siftDown( int position )
+    {
+        int node = heap[position];
+        double distance = distances[node];
+        while ( true )
+        {
+            int child = 2 * position + 1;
+            if ( child >= heapSize )
+            {
+                break;
+            }
+            if ( child + 1 < heapSize && distances[heap[child + 1]] < distances[heap[child]] )
+            {
+                child++;
+            }
+            if ( distances[heap[child]] >= distance )
+            {
+                break;
+            }
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = node;
+        positions[node] = position;
+    }
+}
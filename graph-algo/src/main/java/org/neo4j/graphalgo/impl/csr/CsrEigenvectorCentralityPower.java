@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.csr;
+
+import java.util.Arrays;
+
+/**
+ * Eigenvector centrality with the power method on a {@link CsrGraph}, like
+ * {@link org.neo4j.graphalgo.impl.centrality.EigenvectorCentralityPower}.
+ * Each iteration lets every node pass its value, times the weight, along
+ * each of its projected relationships. Starts from a uniform vector rather
+ * than a random one, so the result is the same from run to run.
+ * @complexity O(i(n + m)) when i iterations are done.
+ */
+public class CsrEigenvectorCentralityPower
+{
+    private final CsrGraph graph;
+    private final double precision;
+    private int maxIterations = Integer.MAX_VALUE;
+    private int iterations;
+
+    /**
+     * @param graph
+     *            The graph to calculate centrality for.
+     * @param precision
+     *            Precision factor (ex. 0.01 for 1% error), the amount of
+     *            change tolerated in one iteration.
+     */
+    public CsrEigenvectorCentralityPower( CsrGraph graph, double precision )
+    {
+        this.graph = graph;
+        this.precision = precision;
+    }
+
+    public void setMaxIterations( int maxIterations )
+    {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * @return The number of iterations done in the last calculation.
+     */
+    public int getIterations()
+    {
+        return iterations;
+    }
+
+    /**
+     * @return The centrality of each node, by index.
+     */
+    public double[] calculate()
+    {
+        int nodeCount = graph.nodeCount();
+        double[] values = new double[nodeCount];
+        double[] newValues = new double[nodeCount];
+        Arrays.fill( values, 1.0 );
+        normalize( values );
+        iterations = 0;
+        while ( iterations < maxIterations )
+        {
+            iterations++;
+            Arrays.fill( newValues, 0.0 );
+            // "matrix multiplication"
+            for ( int node = 0; node < nodeCount; node++ )
+            {
+                double value = values[node];
+                for ( int relationship = graph.firstRelationship( node ), end = graph.endRelationship( node ); relationship < end; relationship++ )
+                {
+                    newValues[graph.target( relationship )] += value * graph.weight( relationship );
+                }
+            }
+            normalize( newValues );
+            boolean done = timeToStop( values, newValues );
+            double[] swap = values;
+            values = newValues;
+            newValues = swap;
+            if ( done )
+            {
+                break;
+            }
+        }
+        return values;
+    }
+
+    private boolean timeToStop( double[] oldValues, double[] newValues )
+    {
+        for ( int i = 0; i < oldValues.length; i++ )
+        {
+            if ( oldValues[i] == 0.0 )
+            {
+                if ( Math.abs( newValues[i] ) > precision )
+                {
+                    return false;
+                }
+                continue;
+            }
+            double factor = Math.abs( newValues[i] / oldValues[i] );
+            if ( factor - precision > 1.0 || factor + precision < 1.0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void normalize( double[] vector )
+    {
+        double sum = 0;
+        for ( double d : vector )
+        {
+            sum += d * d;
+        }
+        sum = Math.sqrt( sum );
+        if ( sum > 0.0 )
+        {
+            for ( int i = 0; i < vector.length; i++ )
+            {
+                vector[i] /= sum;
+            }
+        }
+    }
+}
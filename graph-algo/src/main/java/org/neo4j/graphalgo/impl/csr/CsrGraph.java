@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.csr;
+
+import java.util.Arrays;
+
+/**
+ * A read only projection of (a part of) a graph into primitive arrays, in
+ * compressed sparse row form. Nodes are numbered 0 to nodeCount - 1 in the
+ * order of their ids, and the relationships of node i are numbered
+ * firstRelationship( i ) to endRelationship( i ) - 1. Algorithms working on
+ * this never touch node or relationship objects, nor box any values.
+ * Created by {@link CsrGraphLoader}.
+ */
+public class CsrGraph
+{
+    private final long[] nodeIds;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+
+    /**
+     * @param nodeIds
+     *            The ids of the nodes, in ascending order.
+     * @param offsets
+     *            The index of the first relationship of each node, followed
+     *            by the total number of relationships.
+     * @param targets
+     *            The node each relationship leads to.
+     * @param weights
+     *            The weight of each relationship, or null if all weigh 1.
+     */
+    CsrGraph( long[] nodeIds, int[] offsets, int[] targets, double[] weights )
+    {
+        this.nodeIds = nodeIds;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    public int nodeCount()
+    {
+        return nodeIds.length;
+    }
+
+    public int relationshipCount()
+    {
+        return offsets[nodeIds.length];
+    }
+
+    /**
+     * @return The id of the node with the given index.
+     */
+    public long nodeId( int node )
+    {
+        return nodeIds[node];
+    }
+
+    /**
+     * @return The index of the node with the given id, or -1 if it isn't
+     *         part of this graph.
+     */
+    public int indexOf( long nodeId )
+    {
+        int index = Arrays.binarySearch( nodeIds, nodeId );
+        return index < 0 ? -1 : index;
+    }
+
+    public int degree( int node )
+    {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int firstRelationship( int node )
+    {
+        return offsets[node];
+    }
+
+    public int endRelationship( int node )
+    {
+        return offsets[node + 1];
+    }
+
+    /**
+     * @return The index of the node the given relationship leads to.
+     */
+    public int target( int relationship )
+    {
+        return targets[relationship];
+    }
+
+    public double weight( int relationship )
+    {
+        return weights == null ? 1.0 : weights[relationship];
+    }
+}
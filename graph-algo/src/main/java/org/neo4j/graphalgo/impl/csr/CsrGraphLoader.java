@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.csr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+/**
+ * Projects a set of nodes and the relationships between them into a
+ * {@link CsrGraph}. Relationships are followed in the given direction, and
+ * only if of one of the given types. Relationships leading out of the node
+ * set are left out. With {@link Direction#BOTH} every relationship is
+ * projected twice, once from each end.
+ */
+public class CsrGraphLoader
+{
+    private static final int INITIAL_RELATIONSHIPS = 1024;
+
+    private final Direction direction;
+    private final RelationshipType[] relationshipTypes;
+    private String weightProperty;
+    private double defaultWeight;
+
+    /**
+     * @param direction
+     *            The direction to follow relationships in.
+     * @param relationshipTypes
+     *            The types of relationships to project, or none for all.
+     */
+    public CsrGraphLoader( Direction direction, RelationshipType... relationshipTypes )
+    {
+        this.direction = direction;
+        this.relationshipTypes = relationshipTypes;
+    }
+
+    /**
+     * Projects the weight of each relationship from a property, instead of
+     * letting all relationships weigh 1.
+     * @param propertyName
+     *            The numeric property holding the weight.
+     * @param defaultWeight
+     *            The weight of relationships without the property.
+     * @return this loader.
+     */
+    public CsrGraphLoader weightedBy( String propertyName, double defaultWeight )
+    {
+        this.weightProperty = propertyName;
+        this.defaultWeight = defaultWeight;
+        return this;
+    }
+
+    public CsrGraph load( Iterable<Node> nodes )
+    {
+        List<Node> sorted = new ArrayList<Node>();
+        for ( Node node : nodes )
+        {
+            sorted.add( node );
+        }
+        Collections.sort( sorted, new Comparator<Node>()
+        {
+            public int compare( Node first, Node second )
+            {
+                long difference = first.getId() - second.getId();
+                return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+            }
+        } );
+        long[] nodeIds = new long[sorted.size()];
+        for ( int i = 0; i < nodeIds.length; i++ )
+        {
+            nodeIds[i] = sorted.get( i ).getId();
+        }
+
+        // Nodes are visited in index order, so the relationships come out
+        // grouped by node, as compressed sparse row wants them
+        int[] offsets = new int[nodeIds.length + 1];
+        int[] targets = new int[INITIAL_RELATIONSHIPS];
+        double[] weights = weightProperty == null ? null : new double[INITIAL_RELATIONSHIPS];
+        int count = 0;
+        for ( int i = 0; i < nodeIds.length; i++ )
+        {
+            Node node = sorted.get( i );
+            if ( i > 0 && nodeIds[i] == nodeIds[i - 1] )
+            {
+                throw new IllegalArgumentException( "Node " + node + " given more than once" );
+            }
+            offsets[i] = count;
+            for ( Relationship relationship : relationships( node ) )
+            {
+                int target = Arrays.binarySearch( nodeIds, relationship.getOtherNode( node ).getId() );
+                if ( target < 0 )
+                {
+                    continue;
+                }
+                if ( count == targets.length )
+                {
+                    targets = Arrays.copyOf( targets, count * 2 );
+                    if ( weights != null )
+                    {
+                        weights = Arrays.copyOf( weights, count * 2 );
+                    }
+                }
+                targets[count] = target;
+                if ( weights != null )
+                {
+                    weights[count] = weight( relationship );
+                }
+                count++;
+            }
+        }
+        offsets[nodeIds.length] = count;
+        return new CsrGraph( nodeIds, offsets, Arrays.copyOf( targets, count ),
+            weights == null ? null : Arrays.copyOf( weights, count ) );
+    }
+
+    private Iterable<Relationship> relationships( Node node )
+    {
+        if ( relationshipTypes.length == 0 )
+        {
+            return node.getRelationships( direction );
+        }
+        return node.getRelationships( direction, relationshipTypes );
+    }
+
+    private double weight( Relationship relationship )
+    {
+        Object value = relationship.getProperty( weightProperty, null );
+        if ( value == null )
+        {
+            return defaultWeight;
+        }
+        if ( value instanceof Number )
+        {
+            return ( (Number) value ).doubleValue();
+        }
+        return Double.parseDouble( value.toString() );
+    }
+}
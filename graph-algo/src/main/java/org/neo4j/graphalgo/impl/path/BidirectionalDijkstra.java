@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.path;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+
+import org.neo4j.graphalgo.CostEvaluator;
+import org.neo4j.graphalgo.EstimateEvaluator;
+import org.neo4j.graphalgo.PathFinder;
+import org.neo4j.graphalgo.WeightedPath;
+import org.neo4j.graphalgo.impl.util.PathImpl;
+import org.neo4j.graphalgo.impl.util.PrimitiveLongPriorityQueue;
+import org.neo4j.graphalgo.impl.util.WeightedPathImpl;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipExpander;
+import org.neo4j.kernel.impl.util.PrimitiveLongObjectMap;
+
+/**
+ * Finds the cheapest path between two nodes by searching from both ends at
+ * once, expanding the side whose next node is closest, until the two
+ * searches can no longer find anything cheaper than the best meeting point
+ * seen. On graphs where the cheapest path is short compared to the size of
+ * the graph this settles far fewer nodes than searching from one end.
+ * 
+ * With an {@link EstimateEvaluator} this is bidirectional A*. Both sides
+ * then use the average of the estimate to the end node and the negated
+ * estimate to the start node, which keeps the two searches consistent with
+ * each other, so the estimate has to be symmetric. It also has to be
+ * consistent (monotone), i.e. never estimate more from a node than the cost
+ * of a relationship from it plus the estimate from its other node, since
+ * a node that has been settled is never reopened. Never
+ * overestimating alone is not enough. Costs must not be negative.
+ */
+public class BidirectionalDijkstra implements PathFinder<WeightedPath>
+{
+    private final RelationshipExpander expander;
+    private final CostEvaluator<Double> costEvaluator;
+    private final EstimateEvaluator<Double> estimateEvaluator;
+
+    public BidirectionalDijkstra( RelationshipExpander expander, CostEvaluator<Double> costEvaluator )
+    {
+        this( expander, costEvaluator, null );
+    }
+
+    public BidirectionalDijkstra( RelationshipExpander expander, CostEvaluator<Double> costEvaluator,
+            EstimateEvaluator<Double> estimateEvaluator )
+    {
+        this.expander = expander;
+        this.costEvaluator = costEvaluator;
+        this.estimateEvaluator = estimateEvaluator;
+    }
+
+    public WeightedPath findSinglePath( Node start, Node end )
+    {
+        if ( start.equals( end ) )
+        {
+            return new WeightedPathImpl( 0, PathImpl.singular( start ) );
+        }
+        GraphDatabaseService graphDb = start.getGraphDatabase();
+        Side forward = new Side( start, end, expander );
+        Side backward = new Side( end, start, expander.reversed() );
+        Meeting meeting = new Meeting();
+        while ( !forward.queue.isEmpty() && !backward.queue.isEmpty() )
+        {
+            if ( forward.queue.peekPriority() + backward.queue.peekPriority() >= meeting.cost )
+            {
+                break;
+            }
+            if ( forward.queue.peekPriority() <= backward.queue.peekPriority() )
+            {
+                forward.expandNext( graphDb, backward, meeting );
+            }
+            else
+            {
+                backward.expandNext( graphDb, forward, meeting );
+            }
+        }
+        if ( meeting.node == -1 )
+        {
+            return null;
+        }
+
+        LinkedList<Relationship> relationships = new LinkedList<Relationship>();
+        Node node = graphDb.getNodeById( meeting.node );
+        for ( Visit visit = forward.visits.get( meeting.node ); visit.via != null; visit = forward.visits.get( node.getId() ) )
+        {
+            relationships.addFirst( visit.via );
+            node = visit.via.getOtherNode( node );
+        }
+        node = graphDb.getNodeById( meeting.node );
+        for ( Visit visit = backward.visits.get( meeting.node ); visit.via != null; visit = backward.visits.get( node.getId() ) )
+        {
+            relationships.addLast( visit.via );
+            node = visit.via.getOtherNode( node );
+        }
+        PathImpl.Builder builder = new PathImpl.Builder( start );
+        for ( Relationship relationship : relationships )
+        {
+            builder = builder.push( relationship );
+        }
+        return new WeightedPathImpl( meeting.cost, builder.build() );
+    }
+
+    public Iterable<WeightedPath> findAllPaths( Node start, Node end )
+    {
+        WeightedPath path = findSinglePath( start, end );
+        return path != null ? Arrays.asList( path ) : Collections.<WeightedPath>emptyList();
+    }
+
+    private static class Visit
+    {
+        private double cost;
+        private Relationship via;
+        private boolean settled;
+
+        Visit( double cost, Relationship via )
+        {
+            this.cost = cost;
+            this.via = via;
+        }
+    }
+
+    private static class Meeting
+    {
+        private double cost = Double.POSITIVE_INFINITY;
+        private long node = -1;
+    }
+
+    private class Side
+    {
+        private final Node from;
+        private final Node to;
+        private final RelationshipExpander expander;
+        private final PrimitiveLongPriorityQueue queue = new PrimitiveLongPriorityQueue();
+        private final PrimitiveLongObjectMap<Visit> visits = new PrimitiveLongObjectMap<Visit>();
+
+        Side( Node from, Node to, RelationshipExpander expander )
+        {
+            this.from = from;
+            this.to = to;
+            this.expander = expander;
+            visits.put( from.getId(), new Visit( 0, null ) );
+            queue.insertOrDecrease( from.getId(), potential( from ) );
+        }
+
+        /**
+         * The estimate added to the cost of getting to a node. Since from and
+         * to are swapped for the other side, it is the same there but with the
+         * opposite sign.
+         */
+        private double potential( Node node )
+        {
+            if ( estimateEvaluator == null )
+            {
+                return 0;
+            }
+            return ( estimateEvaluator.getCost( node, to ) - estimateEvaluator.getCost( node, from ) ) / 2;
+        }
+
+        void expandNext( GraphDatabaseService graphDb, Side other, Meeting meeting )
+        {
+            long id = queue.pop();
+            Visit visit = visits.get( id );
+            visit.settled = true;
+            Node node = graphDb.getNodeById( id );
+            for ( Relationship relationship : expander.expand( node ) )
+            {
+                double cost = costEvaluator.getCost( relationship, Direction.OUTGOING );
+                if ( cost < 0 )
+                {
+                    throw new IllegalArgumentException( "Negative cost " + cost + " on " + relationship );
+                }
+                Node otherNode = relationship.getOtherNode( node );
+                long otherId = otherNode.getId();
+                double newCost = visit.cost + cost;
+                Visit otherVisit = visits.get( otherId );
+                if ( otherVisit == null )
+                {
+                    visits.put( otherId, new Visit( newCost, relationship ) );
+                    queue.insertOrDecrease( otherId, newCost + potential( otherNode ) );
+                }
+                else if ( !otherVisit.settled && newCost < otherVisit.cost )
+                {
+                    otherVisit.cost = newCost;
+                    otherVisit.via = relationship;
+                    queue.insertOrDecrease( otherId, newCost + potential( otherNode ) );
+                }
+                else
+                {
+                    continue;
+                }
+                Visit reached = other.visits.get( otherId );
+                if ( reached != null && newCost + reached.cost < meeting.cost )
+                {
+                    meeting.cost = newCost + reached.cost;
+                    meeting.node = otherId;
+                }
+            }
+        }
+    }
+}
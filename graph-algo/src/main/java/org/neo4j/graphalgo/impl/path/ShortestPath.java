@@ -27,7 +27,14 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.transaction.SystemException;
 
 import org.neo4j.graphalgo.PathFinder;
 import org.neo4j.graphalgo.impl.util.PathImpl;
@@ -41,6 +48,7 @@ import org.neo4j.graphdb.RelationshipExpander;
 import org.neo4j.helpers.collection.IterableWrapper;
 import org.neo4j.helpers.collection.NestingIterator;
 import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.kernel.GraphDatabaseAPI;
 
 /**
  * Find (all or one) simple shortest path(s) between two nodes. It starts
@@ -52,13 +60,28 @@ import org.neo4j.helpers.collection.PrefetchingIterator;
  * Relationships are traversed in the specified directions from the start node,
  * but in the reverse direction ( {@link Direction#reverse()} ) from the
  * end node. This doesn't affect {@link Direction#BOTH}.
+ * 
+ * Given an {@link ExecutorService} the relationships of the nodes in a large
+ * level are expanded on its threads, in chunks, before the level is gone
+ * through. Hits are still looked for one node at the time, in the same order.
+ * The threads of the executor only see committed data, so levels are expanded
+ * on the calling thread while it has a transaction open, which may hold
+ * changes they wouldn't see.
  */
 public class ShortestPath implements PathFinder<Path>
 {
+    /**
+     * The number of nodes expanded by each task when a level is expanded
+     * concurrently. Levels with fewer nodes than this are expanded on the
+     * calling thread.
+     */
+    static final int EXPAND_CHUNK_SIZE = 50;
+
     private final int maxDepth;
     private final int maxResultCount;
     private final RelationshipExpander relExpander;
     private final HitDecider hitDecider;
+    private final ExecutorService executor;
     
     /**
      * Constructs a new shortest path algorithm.
@@ -99,11 +122,32 @@ public class ShortestPath implements PathFinder<Path>
      */
     public ShortestPath( int maxDepth, RelationshipExpander relExpander, int maxResultCount,
             boolean findPathsOnMaxDepthOnly )
+    {
+        this( maxDepth, relExpander, maxResultCount, findPathsOnMaxDepthOnly, null );
+    }
+    
+    /**
+     * Constructs a new shortest path algorithm.
+     * @param maxDepth the maximum depth for the traversal. Returned paths
+     * will never have a greater {@link Path#length()} than {@code maxDepth}.
+     * @param relExpander the {@link RelationshipExpander} to use for deciding
+     * which relationships to expand for each {@link Node}.
+     * @param maxResultCount the maximum number of hits to return. If this number
+     * of hits are encountered the traversal will stop.
+     * @param findPathsOnMaxDepthOnly if {@code true} then it will only try to
+     * find paths on that particular depth ({@code maxDepth}).
+     * @param executor the {@link ExecutorService} to expand large levels on,
+     * or {@code null} to do everything on the calling thread. It is not shut
+     * down by this algorithm.
+     */
+    public ShortestPath( int maxDepth, RelationshipExpander relExpander, int maxResultCount,
+            boolean findPathsOnMaxDepthOnly, ExecutorService executor )
     {
         this.maxDepth = maxDepth;
         this.relExpander = relExpander;
         this.maxResultCount = maxResultCount;
         this.hitDecider = findPathsOnMaxDepthOnly ? new DepthHitDecider( maxDepth ) : YES_HIT_DECIDER;
+        this.executor = executor;
     }
     
     public Iterable<Path> findAllPaths( Node start, Node end )
@@ -273,20 +317,151 @@ public class ShortestPath implements PathFinder<Path>
             Collection<Node> nodesToIterate = new ArrayList<Node>(
                     filterNextLevelNodes( this.nextNodes ) );
             this.nextNodes.clear();
-            this.nextRelationships = new NestingIterator<Relationship, Node>(
-                    nodesToIterate.iterator() )
+            if ( executor != null && nodesToIterate.size() > EXPAND_CHUNK_SIZE
+                 && !inTransaction( nodesToIterate.iterator().next().getGraphDatabase() ) )
             {
-                @Override
-                protected Iterator<Relationship> createNestedIterator( Node node )
+                this.nextRelationships = new NestingIterator<Relationship, Expansion>(
+                        expandConcurrently( nodesToIterate ).iterator() )
                 {
-                    lastParentTraverserNode = node;
-                    return expander.expand( node ).iterator();
-                }
-            };
+                    @Override
+                    protected Iterator<Relationship> createNestedIterator( Expansion expansion )
+                    {
+                        lastParentTraverserNode = expansion.node;
+                        return expansion.relationships.iterator();
+                    }
+                };
+            }
+            else
+            {
+                this.nextRelationships = new NestingIterator<Relationship, Node>(
+                        nodesToIterate.iterator() )
+                {
+                    @Override
+                    protected Iterator<Relationship> createNestedIterator( Node node )
+                    {
+                        lastParentTraverserNode = node;
+                        return expander.expand( node ).iterator();
+                    }
+                };
+            }
             this.currentDepth++;
             this.sharedCurrentDepth.value = this.sharedCurrentDepth.value + 1;
         }
         
+        /**
+         * Expands the nodes in chunks on the executor and returns the
+         * expansions in the order of the nodes. The visited nodes aren't
+         * modified until all chunks are done, so the tasks can read them
+         * and leave out relationships to nodes already visited on this side,
+         * which wouldn't lead anywhere new. That can't be done if the visited
+         * relationships are kept track of, since they are shared with the
+         * other side.
+         */
+        private List<Expansion> expandConcurrently( Collection<Node> nodes )
+        {
+            final boolean skipVisited = hitDecider == YES_HIT_DECIDER;
+            List<Future<List<Expansion>>> chunks = new ArrayList<Future<List<Expansion>>>();
+            List<Node> chunk = new ArrayList<Node>( EXPAND_CHUNK_SIZE );
+            for ( Node node : nodes )
+            {
+                chunk.add( node );
+                if ( chunk.size() == EXPAND_CHUNK_SIZE )
+                {
+                    chunks.add( executor.submit( new ExpandTask( chunk, skipVisited ) ) );
+                    chunk = new ArrayList<Node>( EXPAND_CHUNK_SIZE );
+                }
+            }
+            if ( !chunk.isEmpty() )
+            {
+                chunks.add( executor.submit( new ExpandTask( chunk, skipVisited ) ) );
+            }
+
+            List<Expansion> result = new ArrayList<Expansion>( nodes.size() );
+            try
+            {
+                for ( Future<List<Expansion>> future : chunks )
+                {
+                    result.addAll( future.get() );
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException( "Interrupted while expanding level " + ( currentDepth + 1 ), e );
+            }
+            catch ( ExecutionException e )
+            {
+                if ( e.getCause() instanceof RuntimeException )
+                {
+                    throw (RuntimeException) e.getCause();
+                }
+                if ( e.getCause() instanceof Error )
+                {
+                    throw (Error) e.getCause();
+                }
+                throw new RuntimeException( e.getCause() );
+            }
+            finally
+            {
+                for ( Future<List<Expansion>> future : chunks )
+                {
+                    future.cancel( false );
+                }
+            }
+            return result;
+        }
+        
+        /**
+         * @return whether the calling thread has a transaction open, or if
+         * that can't be told.
+         */
+        private boolean inTransaction( GraphDatabaseService graphDb )
+        {
+            if ( !( graphDb instanceof GraphDatabaseAPI ) )
+            {
+                return true;
+            }
+            try
+            {
+                return ( (GraphDatabaseAPI) graphDb ).getTxManager().getTransaction() != null;
+            }
+            catch ( SystemException e )
+            {
+                return true;
+            }
+        }
+
+        private class ExpandTask implements Callable<List<Expansion>>
+        {
+            private final List<Node> nodes;
+            private final boolean skipVisited;
+
+            ExpandTask( List<Node> nodes, boolean skipVisited )
+            {
+                this.nodes = nodes;
+                this.skipVisited = skipVisited;
+            }
+
+            @Override
+            public List<Expansion> call()
+            {
+                List<Expansion> result = new ArrayList<Expansion>( nodes.size() );
+                for ( Node node : nodes )
+                {
+                    List<Relationship> relationships = new ArrayList<Relationship>();
+                    for ( Relationship relationship : expander.expand( node ) )
+                    {
+                        if ( !skipVisited || !visitedNodes.containsKey( relationship.getOtherNode( node ) ) )
+                        {
+                            relationships.add( relationship );
+                        }
+                    }
+                    result.add( new Expansion( node, relationships ) );
+                }
+                return result;
+            }
+        }
+        
         @Override
         protected Node fetchNextOrNull()
         {
@@ -384,6 +559,19 @@ public class ShortestPath implements PathFinder<Path>
         private boolean value;
     }
     
+    // One instance per node in a level expanded concurrently
+    private static class Expansion
+    {
+        private final Node node;
+        private final List<Relationship> relationships;
+        
+        Expansion( Node node, List<Relationship> relationships )
+        {
+            this.node = node;
+            this.relationships = relationships;
+        }
+    }
+    
     // Many long-lived instances
     private static class LevelData
     {
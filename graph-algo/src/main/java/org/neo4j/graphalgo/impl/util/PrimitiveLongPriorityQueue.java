@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A priority queue of primitive long keys, f.ex. node ids, with double
+ * priorities, lowest first. It is a binary heap kept in arrays, together
+ * with an open addressing table from key to heap position, so that the
+ * priority of a queued key can be lowered in O(log(n)). Nothing is boxed,
+ * and no objects are created per key. Not thread safe.
+ */
+public class PrimitiveLongPriorityQueue
+{
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int FREE = -1;
+
+    private long[] heapKeys;
+    private double[] heapPriorities;
+    private int size;
+
+    // Position in the heap of each queued key
+    private long[] tableKeys;
+    private int[] tablePositions;
+
+    public PrimitiveLongPriorityQueue()
+    {
+        heapKeys = new long[DEFAULT_CAPACITY];
+        heapPriorities = new double[DEFAULT_CAPACITY];
+        allocateTable( DEFAULT_CAPACITY * 2 );
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public boolean contains( long key )
+    {
+        return tablePositions[slotOf( key )] != FREE;
+    }
+
+    /**
+     * Adds the key with the given priority, or lowers the priority of the
+     * key if already queued with a higher one.
+     * @return true if the key was added or its priority lowered.
+     */
+    public boolean insertOrDecrease( long key, double priority )
+    {
+        int slot = slotOf( key );
+        int position = tablePositions[slot];
+        if ( position != FREE )
+        {
+            if ( priority >= heapPriorities[position] )
+            {
+                return false;
+            }
+            heapPriorities[position] = priority;
+            siftUp( position );
+            return true;
+        }
+        if ( size == heapKeys.length )
+        {
+            long[] keys = new long[size * 2];
+            double[] priorities = new double[size * 2];
+            System.arraycopy( heapKeys, 0, keys, 0, size );
+            System.arraycopy( heapPriorities, 0, priorities, 0, size );
+            heapKeys = keys;
+            heapPriorities = priorities;
+        }
+        heapKeys[size] = key;
+        heapPriorities[size] = priority;
+        tableKeys[slot] = key;
+        tablePositions[slot] = size;
+        siftUp( size++ );
+        // Keep the load factor of the table at 0.5 at most
+        if ( size * 2 > tableKeys.length )
+        {
+            rehash( tableKeys.length * 2 );
+        }
+        return true;
+    }
+
+    /**
+     * @return the key with the lowest priority, without removing it.
+     */
+    public long peek()
+    {
+        if ( size == 0 )
+        {
+            throw new NoSuchElementException();
+        }
+        return heapKeys[0];
+    }
+
+    /**
+     * @return the lowest priority in the queue.
+     */
+    public double peekPriority()
+    {
+        if ( size == 0 )
+        {
+            throw new NoSuchElementException();
+        }
+        return heapPriorities[0];
+    }
+
+    /**
+     * Removes the key with the lowest priority.
+     * @return the removed key.
+     */
+    public long pop()
+    {
+        long top = peek();
+        removeFromTable( top );
+        if ( --size > 0 )
+        {
+            heapKeys[0] = heapKeys[size];
+            heapPriorities[0] = heapPriorities[size];
+            tablePositions[slotOf( heapKeys[0] )] = 0;
+            siftDown( 0 );
+        }
+        return top;
+    }
+
+    private void siftUp( int position )
+    {
+        long key = heapKeys[position];
+        double priority = heapPriorities[position];
+        while ( position > 0 )
+        {
+            int parent = ( position - 1 ) >>> 1;
+            if ( heapPriorities[parent] <= priority )
+            {
+                break;
+            }
+            move( parent, position );
+            position = parent;
+        }
+        place( key, priority, position );
+    }
+
+    private void siftDown( int position )
+    {
+        long key = heapKeys[position];
+        double priority = heapPriorities[position];
+        while ( true )
+        {
+            int child = 2 * position + 1;
+            if ( child >= size )
+            {
+                break;
+            }
+            if ( child + 1 < size && heapPriorities[child + 1] < heapPriorities[child] )
+            {
+                child++;
+            }
+            if ( heapPriorities[child] >= priority )
+            {
+                break;
+            }
+            move( child, position );
+            position = child;
+        }
+        place( key, priority, position );
+    }
+
+    private void move( int from, int to )
+    {
+        heapKeys[to] = heapKeys[from];
+        heapPriorities[to] = heapPriorities[from];
+        tablePositions[slotOf( heapKeys[to] )] = to;
+    }
+
+    private void place( long key, double priority, int position )
+    {
+        heapKeys[position] = key;
+        heapPriorities[position] = priority;
+        tablePositions[slotOf( key )] = position;
+    }
+
+    private static int hash( long key )
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) ( h ^ ( h >>> 32 ) );
+    }
+
+    private void allocateTable( int capacity )
+    {
+        tableKeys = new long[capacity];
+        tablePositions = new int[capacity];
+        Arrays.fill( tablePositions, FREE );
+    }
+
+    private int slotOf( long key )
+    {
+        int mask = tableKeys.length - 1;
+        int slot = hash( key ) & mask;
+        while ( tablePositions[slot] != FREE && tableKeys[slot] != key )
+        {
+            slot = ( slot + 1 ) & mask;
+        }
+        return slot;
+    }
+
+    private void removeFromTable( long key )
+    {
+        // Shift back following entries that probed past the freed slot, so
+        // that lookups don't need tombstones
+        int mask = tableKeys.length - 1;
+        int hole = slotOf( key );
+        for ( int i = ( hole + 1 ) & mask; tablePositions[i] != FREE; i = ( i + 1 ) & mask )
+        {
+            int home = hash( tableKeys[i] ) & mask;
+            boolean reachableFromHome = hole <= i ? home <= hole || home > i : home <= hole && home > i;
+            if ( reachableFromHome )
+            {
+                tableKeys[hole] = tableKeys[i];
+                tablePositions[hole] = tablePositions[i];
+                hole = i;
+            }
+        }
+        tablePositions[hole] = FREE;
+    }
+
+    private void rehash( int capacity )
+    {
+        long[] oldKeys = tableKeys;
+        int[] oldPositions = tablePositions;
+        allocateTable( capacity );
+        for ( int i = 0; i < oldKeys.length; i++ )
+        {
+            if ( oldPositions[i] != FREE )
+            {
+                int slot = slotOf( oldKeys[i] );
+                tableKeys[slot] = oldKeys[i];
+                tablePositions[slot] = oldPositions[i];
+            }
+        }
+    }
+}
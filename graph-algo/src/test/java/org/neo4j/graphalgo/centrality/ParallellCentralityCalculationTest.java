@@ -19,8 +19,12 @@
  */
 package org.neo4j.graphalgo.centrality;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 import org.neo4j.graphalgo.CostEvaluator;
 import org.neo4j.graphalgo.impl.centrality.BetweennessCentrality;
@@ -28,11 +32,13 @@ import org.neo4j.graphalgo.impl.centrality.ClosenessCentrality;
 import org.neo4j.graphalgo.impl.centrality.CostDivider;
 import org.neo4j.graphalgo.impl.centrality.ParallellCentralityCalculation;
 import org.neo4j.graphalgo.impl.centrality.ShortestPathBasedCentrality;
+import org.neo4j.graphalgo.impl.centrality.SingleSourceShortestPathFactory;
 import org.neo4j.graphalgo.impl.centrality.StressCentrality;
 import org.neo4j.graphalgo.impl.shortestpath.SingleSourceShortestPath;
 import org.neo4j.graphalgo.impl.shortestpath.SingleSourceShortestPathDijkstra;
 import org.neo4j.graphalgo.impl.util.DoubleAdder;
 import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 
 import common.Neo4jAlgoTestCase;
@@ -110,4 +116,70 @@ public class ParallellCentralityCalculationTest extends Neo4jAlgoTestCase
         assertCentrality( closenessCentrality, "d", 1.0 / 7 );
         assertCentrality( closenessCentrality, "e", 1.0 / 7 );
     }
+
+    @Test
+    public void shouldCalculateTheSameOnSeveralThreadsAsOnOne()
+    {
+        // A grid, so that there are many shortest paths between most nodes
+        int size = 6;
+        for ( int i = 0; i < size; i++ )
+        {
+            StringBuilder row = new StringBuilder();
+            StringBuilder column = new StringBuilder();
+            for ( int j = 0; j < size; j++ )
+            {
+                row.append( j > 0 ? "," : "" ).append( "n" ).append( i ).append( "_" ).append( j );
+                column.append( j > 0 ? "," : "" ).append( "n" ).append( j ).append( "_" ).append( i );
+            }
+            graph.makeEdgeChain( row.toString() );
+            graph.makeEdgeChain( column.toString() );
+        }
+        SingleSourceShortestPathFactory<Double> factory = new SingleSourceShortestPathFactory<Double>()
+        {
+            public SingleSourceShortestPath<Double> newSingleSourceShortestPath()
+            {
+                return getSingleSourceShortestPath();
+            }
+        };
+
+        List<ShortestPathBasedCentrality<Double,Double>> sequential = calculate(
+            new ParallellCentralityCalculation<Double>( getSingleSourceShortestPath(), graph.getAllNodes() ) );
+        List<ShortestPathBasedCentrality<Double,Double>> concurrent = calculate(
+            new ParallellCentralityCalculation<Double>( factory, graph.getAllNodes(), 4 ) );
+
+        for ( int i = 0; i < sequential.size(); i++ )
+        {
+            for ( Node node : graph.getAllNodes() )
+            {
+                assertEquals( sequential.get( i ).getCentrality( node ), concurrent.get( i ).getCentrality( node ) );
+            }
+        }
+    }
+
+    private List<ShortestPathBasedCentrality<Double,Double>> calculate( ParallellCentralityCalculation<Double> pcc )
+    {
+        SingleSourceShortestPath<Double> singleSourceShortestPath = getSingleSourceShortestPath();
+        List<ShortestPathBasedCentrality<Double,Double>> calculations = new ArrayList<ShortestPathBasedCentrality<Double,Double>>();
+        calculations.add( new BetweennessCentrality<Double>( singleSourceShortestPath, graph.getAllNodes() ) );
+        calculations.add( new StressCentrality<Double>( singleSourceShortestPath, graph.getAllNodes() ) );
+        calculations.add( new ClosenessCentrality<Double>( singleSourceShortestPath, new DoubleAdder(), 0.0,
+            graph.getAllNodes(), new CostDivider<Double>()
+            {
+                public Double divideByCost( Double d, Double c )
+                {
+                    return d / c;
+                }
+
+                public Double divideCost( Double c, Double d )
+                {
+                    return c / d;
+                }
+            } ) );
+        for ( ShortestPathBasedCentrality<Double,Double> calculation : calculations )
+        {
+            pcc.addCalculation( calculation );
+        }
+        pcc.calculate();
+        return calculations;
+    }
 }
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.csr;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.neo4j.graphalgo.CostEvaluator;
+import org.neo4j.graphalgo.impl.centrality.EigenvectorCentralityPower;
+import org.neo4j.graphalgo.impl.shortestpath.SingleSourceShortestPathDijkstra;
+import org.neo4j.graphalgo.impl.util.DoubleAdder;
+import org.neo4j.graphalgo.impl.util.DoubleComparator;
+import org.neo4j.graphalgo.impl.util.DoubleEvaluatorWithDefault;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import common.Neo4jAlgoTestCase;
+
+public class CsrGraphTest extends Neo4jAlgoTestCase
+{
+    @Test
+    public void shouldProjectRelationshipsOfTheGivenTypesAndDirection()
+    {
+        graph.makeEdgeChain( "a,b,c" );
+        graph.setCurrentRelType( MyRelTypes.R2 );
+        graph.makeEdge( "a", "c" );
+        graph.setCurrentRelType( MyRelTypes.R1 );
+        // Leads out of the projected nodes
+        Node outside = graphDb.createNode();
+        graph.getNode( "a" ).createRelationshipTo( outside, MyRelTypes.R1 );
+
+        CsrGraph outgoing = new CsrGraphLoader( Direction.OUTGOING, MyRelTypes.R1 ).load( graph.getAllNodes() );
+        CsrGraph both = new CsrGraphLoader( Direction.BOTH ).load( graph.getAllNodes() );
+
+        assertEquals( 3, outgoing.nodeCount() );
+        assertEquals( 2, outgoing.relationshipCount() );
+        int a = outgoing.indexOf( graph.getNode( "a" ).getId() );
+        assertEquals( 1, outgoing.degree( a ) );
+        assertEquals( graph.getNode( "b" ).getId(),
+            outgoing.nodeId( outgoing.target( outgoing.firstRelationship( a ) ) ) );
+        assertEquals( -1, outgoing.indexOf( outside.getId() ) );
+        assertEquals( 6, both.relationshipCount() );
+        assertEquals( 2, both.degree( a ) );
+    }
+
+    @Test
+    public void shouldFindTheSameDistancesAsDijkstraOnObjects()
+    {
+        graph.makeEdge( "a", "b", "cost", 1.0 );
+        graph.makeEdge( "b", "c", "cost", 2.5 );
+        graph.makeEdge( "a", "c", "cost", 4.0 );
+        graph.makeEdge( "c", "d", "cost", 1.5 );
+        graph.makeEdge( "d", "e" );
+        graph.makeEdge( "b", "e", "cost", 7.0 );
+        graph.makeNode( "f" );
+
+        CsrGraph csr = new CsrGraphLoader( Direction.BOTH, MyRelTypes.R1 ).weightedBy( "cost", 1.0 ).load(
+            graph.getAllNodes() );
+        double[] distances = new CsrDijkstra( csr ).calculate( csr.indexOf( graph.getNode( "a" ).getId() ) );
+
+        SingleSourceShortestPathDijkstra<Double> dijkstra = new SingleSourceShortestPathDijkstra<Double>( 0.0,
+            graph.getNode( "a" ), new DoubleEvaluatorWithDefault( "cost", 1.0 ), new DoubleAdder(),
+            new DoubleComparator(), Direction.BOTH, MyRelTypes.R1 );
+        for ( Node node : graph.getAllNodes() )
+        {
+            Double expected = dijkstra.getCost( node );
+            double actual = distances[csr.indexOf( node.getId() )];
+            assertEquals( expected == null ? Double.POSITIVE_INFINITY : expected, actual, 0.0 );
+        }
+    }
+
+    @Test
+    public void shouldFindTheSameEigenvectorCentralityAsThePowerMethodOnObjects()
+    {
+        graph.makeEdgeChain( "a,b,c,d,a" );
+        graph.makeEdgeChain( "b,d,e,a" );
+        graph.makeEdge( "c", "e" );
+
+        CsrGraph csr = new CsrGraphLoader( Direction.OUTGOING, MyRelTypes.R1 ).load( graph.getAllNodes() );
+        double[] values = new CsrEigenvectorCentralityPower( csr, 0.0001 ).calculate();
+
+        EigenvectorCentralityPower power = new EigenvectorCentralityPower( Direction.OUTGOING,
+            new CostEvaluator<Double>()
+            {
+                public Double getCost( Relationship relationship, Direction direction )
+                {
+                    return 1.0;
+                }
+            }, graph.getAllNodes(), graph.getAllEdges(), 0.0001 );
+        for ( Node node : graph.getAllNodes() )
+        {
+            assertEquals( power.getCentrality( node ), values[csr.indexOf( node.getId() )], 0.01 );
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.csr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.neo4j.graphalgo.impl.shortestpath.SingleSourceShortestPathDijkstra;
+import org.neo4j.graphalgo.impl.util.DoubleAdder;
+import org.neo4j.graphalgo.impl.util.DoubleComparator;
+import org.neo4j.graphalgo.impl.util.DoubleEvaluatorWithDefault;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.ImpermanentGraphDatabase;
+
+/**
+ * Compares the time of single source Dijkstra from a number of start nodes
+ * on node and relationship objects with the time of projecting the graph
+ * into a {@link CsrGraph} and running {@link CsrDijkstra} on that. Run it as
+ * a main class, it's not a unit test, {@link CsrGraphTest} checks that both
+ * find the same distances. Optional arguments are the number of nodes, of
+ * start nodes and of rounds.
+ */
+public class CsrPerformance
+{
+    private static final int RELATIONSHIPS_PER_NODE = 5;
+    private static final RelationshipType KNOWS = DynamicRelationshipType.withName( "KNOWS" );
+
+    public static void main( String[] args )
+    {
+        int nodeCount = args.length > 0 ? Integer.parseInt( args[0] ) : 2000;
+        int startNodes = args.length > 1 ? Integer.parseInt( args[1] ) : 50;
+        int rounds = args.length > 2 ? Integer.parseInt( args[2] ) : 3;
+        ImpermanentGraphDatabase gdb = new ImpermanentGraphDatabase();
+        try
+        {
+            List<Node> nodes = createGraph( gdb, nodeCount );
+            for ( int round = 0; round < rounds; round++ )
+            {
+                compareDijkstraOnObjectsAndOnProjection( nodes, Math.min( startNodes, nodeCount ) );
+            }
+        }
+        finally
+        {
+            gdb.shutdown();
+        }
+    }
+
+    private static List<Node> createGraph( GraphDatabaseService gdb, int nodeCount )
+    {
+        List<Node> nodes = new ArrayList<Node>();
+        Random random = new Random( 42 );
+        Transaction tx = gdb.beginTx();
+        try
+        {
+            for ( int i = 0; i < nodeCount; i++ )
+            {
+                nodes.add( gdb.createNode() );
+            }
+            for ( Node node : nodes )
+            {
+                for ( int i = 0; i < RELATIONSHIPS_PER_NODE; i++ )
+                {
+                    node.createRelationshipTo( nodes.get( random.nextInt( nodeCount ) ), KNOWS ).setProperty( "cost",
+                        1.0 + random.nextInt( 10 ) );
+                }
+            }
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        return nodes;
+    }
+
+    private static void compareDijkstraOnObjectsAndOnProjection( List<Node> nodes, int startNodes )
+    {
+        long start = System.currentTimeMillis();
+        double objectSum = 0;
+        for ( int i = 0; i < startNodes; i++ )
+        {
+            SingleSourceShortestPathDijkstra<Double> dijkstra = new SingleSourceShortestPathDijkstra<Double>( 0.0,
+                nodes.get( i ), new DoubleEvaluatorWithDefault( "cost", 1.0 ), new DoubleAdder(),
+                new DoubleComparator(), Direction.OUTGOING, KNOWS );
+            for ( Node node : nodes )
+            {
+                Double cost = dijkstra.getCost( node );
+                objectSum += cost == null ? 0 : cost;
+            }
+        }
+        long objectTime = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        CsrGraph graph = new CsrGraphLoader( Direction.OUTGOING, KNOWS ).weightedBy( "cost", 1.0 ).load( nodes );
+        long loadTime = System.currentTimeMillis() - start;
+        CsrDijkstra dijkstra = new CsrDijkstra( graph );
+        double csrSum = 0;
+        for ( int i = 0; i < startNodes; i++ )
+        {
+            for ( double distance : dijkstra.calculate( graph.indexOf( nodes.get( i ).getId() ) ) )
+            {
+                csrSum += distance == Double.POSITIVE_INFINITY ? 0 : distance;
+            }
+        }
+        long csrTime = System.currentTimeMillis() - start;
+
+        System.out.println( String.format( "Dijkstra from %d of %d nodes, objects: %d ms, projection: %d ms "
+                                           + "(%d ms of which loading), sums %.1f and %.1f", startNodes,
+            nodes.size(), objectTime, csrTime, loadTime, objectSum, csrSum ) );
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestPrimitiveLongPriorityQueue
+{
+    @Test
+    public void shouldPopInPriorityOrder()
+    {
+        PrimitiveLongPriorityQueue queue = new PrimitiveLongPriorityQueue();
+        assertTrue( queue.insertOrDecrease( 10, 5d ) );
+        assertTrue( queue.insertOrDecrease( 11, 4d ) );
+        assertFalse( queue.insertOrDecrease( 11, 4d ) );
+        assertTrue( queue.insertOrDecrease( 11, 3d ) );
+        assertFalse( queue.insertOrDecrease( 10, 6d ) );
+        assertEquals( 2, queue.size() );
+
+        assertEquals( 3d, queue.peekPriority(), 0d );
+        assertEquals( 11, queue.pop() );
+        assertFalse( queue.contains( 11 ) );
+        assertEquals( 10, queue.pop() );
+        assertTrue( queue.isEmpty() );
+    }
+
+    @Test( expected = NoSuchElementException.class )
+    public void shouldNotPopFromEmptyQueue()
+    {
+        new PrimitiveLongPriorityQueue().pop();
+    }
+
+    @Test
+    public void shouldAgreeWithMapOfPriorities()
+    {
+        Random random = new Random( 42 );
+        PrimitiveLongPriorityQueue queue = new PrimitiveLongPriorityQueue();
+        Map<Long, Double> expected = new HashMap<Long, Double>();
+        for ( int i = 0; i < 100000; i++ )
+        {
+            if ( random.nextInt( 3 ) > 0 || expected.isEmpty() )
+            {
+                long key = random.nextInt( 2000 ) * 1000003L;
+                double priority = random.nextDouble();
+                Double current = expected.get( key );
+                boolean changed = current == null || priority < current;
+                assertEquals( changed, queue.insertOrDecrease( key, priority ) );
+                if ( changed ) expected.put( key, priority );
+            }
+            else
+            {
+                double lowest = queue.peekPriority();
+                long key = queue.pop();
+                assertEquals( lowest, expected.remove( key ), 0d );
+                for ( double priority : expected.values() )
+                {
+                    assertTrue( priority >= lowest );
+                }
+            }
+            assertEquals( expected.size(), queue.size() );
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.path;
+
+import static org.neo4j.helpers.collection.IteratorUtil.count;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.neo4j.graphalgo.GraphAlgoFactory;
+import org.neo4j.graphalgo.PathFinder;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.RelationshipExpander;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.Traversal;
+import org.neo4j.test.ImpermanentGraphDatabase;
+
+/**
+ * Compares the time of finding all shortest paths between random pairs of
+ * nodes in a graph where nodes have many relationships, with the levels
+ * expanded on an increasing number of threads. Run it as a main class, it's
+ * not a unit test, {@link TestShortestPath} checks that the paths found are
+ * the same with and without threads. Optional arguments are the number of
+ * nodes and of searches.
+ */
+public class ShortestPathPerformance
+{
+    private static final int RELATIONSHIPS_PER_NODE = 30;
+    private static final int[] THREADS = { 1, 2, 4, 8 };
+    private static final RelationshipType KNOWS = DynamicRelationshipType.withName( "KNOWS" );
+
+    public static void main( String[] args )
+    {
+        int nodeCount = args.length > 0 ? Integer.parseInt( args[0] ) : 5000;
+        int searches = args.length > 1 ? Integer.parseInt( args[1] ) : 20;
+        ImpermanentGraphDatabase gdb = new ImpermanentGraphDatabase();
+        try
+        {
+            List<Node> nodes = createGraph( gdb, nodeCount );
+            for ( int threads : THREADS )
+            {
+                findShortestPaths( nodes, searches, threads );
+            }
+        }
+        finally
+        {
+            gdb.shutdown();
+        }
+    }
+
+    private static List<Node> createGraph( GraphDatabaseService gdb, int nodeCount )
+    {
+        List<Node> nodes = new ArrayList<Node>();
+        Random random = new Random( 42 );
+        Transaction tx = gdb.beginTx();
+        try
+        {
+            for ( int i = 0; i < nodeCount; i++ )
+            {
+                nodes.add( gdb.createNode() );
+            }
+            for ( Node node : nodes )
+            {
+                for ( int i = 0; i < RELATIONSHIPS_PER_NODE; i++ )
+                {
+                    node.createRelationshipTo( nodes.get( random.nextInt( nodeCount ) ), KNOWS );
+                }
+            }
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        return nodes;
+    }
+
+    private static void findShortestPaths( List<Node> nodes, int searches, int threads )
+    {
+        RelationshipExpander expander = Traversal.expanderForTypes( KNOWS, Direction.BOTH );
+        ExecutorService executor = threads == 1 ? null : Executors.newFixedThreadPool( threads );
+        try
+        {
+            PathFinder<Path> finder = GraphAlgoFactory.shortestPath( expander, 6, Integer.MAX_VALUE, executor );
+            // The same pairs for every number of threads
+            Random random = new Random( 1234 );
+            long start = System.currentTimeMillis();
+            int pathCount = 0;
+            for ( int i = 0; i < searches; i++ )
+            {
+                pathCount += count( finder.findAllPaths( nodes.get( random.nextInt( nodes.size() ) ),
+                        nodes.get( random.nextInt( nodes.size() ) ) ) );
+            }
+            long time = System.currentTimeMillis() - start;
+
+            System.out.println( String.format( "All shortest paths between %d pairs of %d nodes on %d thread(s): "
+                                               + "%d ms, %d paths", searches, nodes.size(), threads, time,
+                    pathCount ) );
+        }
+        finally
+        {
+            if ( executor != null )
+            {
+                executor.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.neo4j.graphalgo.path.TestAStar.ESTIMATE_EVALUATOR;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.neo4j.graphalgo.CommonEvaluators;
+import org.neo4j.graphalgo.GraphAlgoFactory;
+import org.neo4j.graphalgo.PathFinder;
+import org.neo4j.graphalgo.WeightedPath;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipExpander;
+import org.neo4j.kernel.Traversal;
+
+import common.Neo4jAlgoTestCase;
+
+public class TestBidirectionalDijkstra extends Neo4jAlgoTestCase
+{
+    private static final int SIZE = 8;
+
+    private PathFinder<WeightedPath> dijkstra( RelationshipExpander expander )
+    {
+        return GraphAlgoFactory.dijkstra( expander, CommonEvaluators.doubleCostEvaluator( "length" ) );
+    }
+
+    private PathFinder<WeightedPath> bidirectionalDijkstra( RelationshipExpander expander )
+    {
+        return GraphAlgoFactory.bidirectionalDijkstra( expander, "length" );
+    }
+
+    private PathFinder<WeightedPath> bidirectionalAStar( RelationshipExpander expander )
+    {
+        return GraphAlgoFactory.bidirectionalAStar( expander,
+                CommonEvaluators.doubleCostEvaluator( "length" ), ESTIMATE_EVALUATOR );
+    }
+
+    @Test
+    public void testSimplest()
+    {
+        Node nodeA = graph.makeNode( "A", "x", 0d, "y", 0d );
+        graph.makeNode( "B", "x", 2d, "y", 1d );
+        Node nodeC = graph.makeNode( "C", "x", 7d, "y", 0d );
+        graph.makeEdge( "A", "B", "length", 2d );
+        graph.makeEdge( "A", "B", "length", 2d );
+        graph.makeEdge( "B", "C", "length", 3d );
+        graph.makeEdge( "A", "C", "length", 10d );
+
+        RelationshipExpander expander = Traversal.expanderForAllTypes();
+        assertSimplest( bidirectionalDijkstra( expander ), nodeA, nodeC );
+        assertSimplest( bidirectionalAStar( expander ), nodeA, nodeC );
+    }
+
+    private void assertSimplest( PathFinder<WeightedPath> finder, Node nodeA, Node nodeC )
+    {
+        WeightedPath path = finder.findSinglePath( nodeA, nodeC );
+        assertPathDef( path, "A", "B", "C" );
+        assertEquals( 5d, path.weight(), 0d );
+
+        path = finder.findSinglePath( nodeC, nodeA );
+        assertPathDef( path, "C", "B", "A" );
+        assertEquals( 5d, path.weight(), 0d );
+    }
+
+    @Test
+    public void shouldFindPathFromNodeToItself()
+    {
+        Node nodeA = graph.makeNode( "A", "x", 0d, "y", 0d );
+        graph.makeNode( "B", "x", 1d, "y", 0d );
+        graph.makeEdge( "A", "B", "length", 1d );
+
+        WeightedPath path = bidirectionalDijkstra( Traversal.expanderForAllTypes() ).findSinglePath( nodeA, nodeA );
+        assertPathDef( path, "A" );
+        assertEquals( 0d, path.weight(), 0d );
+    }
+
+    @Test
+    public void shouldNotFindPathAgainstDirection()
+    {
+        Node nodeA = graph.makeNode( "A", "x", 0d, "y", 0d );
+        graph.makeNode( "B", "x", 1d, "y", 0d );
+        Node nodeC = graph.makeNode( "C", "x", 2d, "y", 0d );
+        graph.makeEdgeChain( "A,B,C", "length", 1d );
+
+        RelationshipExpander expander = Traversal.expanderForTypes( MyRelTypes.R1, Direction.OUTGOING );
+        assertNotNull( bidirectionalDijkstra( expander ).findSinglePath( nodeA, nodeC ) );
+        assertNull( bidirectionalDijkstra( expander ).findSinglePath( nodeC, nodeA ) );
+        assertNull( bidirectionalAStar( expander ).findSinglePath( nodeC, nodeA ) );
+    }
+
+    @Test
+    public void shouldFindAsCheapPathsAsDijkstra()
+    {
+        // A grid where every relationship costs at least the distance it
+        // spans, so that the euclidean estimate never overestimates
+        Random random = new Random( 1234 );
+        for ( int x = 0; x < SIZE; x++ )
+        {
+            for ( int y = 0; y < SIZE; y++ )
+            {
+                graph.makeNode( name( x, y ), "x", (double) x, "y", (double) y );
+                if ( x > 0 ) graph.makeEdge( name( x - 1, y ), name( x, y ), "length", 1d + random.nextDouble() * 3 );
+                if ( y > 0 ) graph.makeEdge( name( x, y - 1 ), name( x, y ), "length", 1d + random.nextDouble() * 3 );
+            }
+        }
+
+        for ( RelationshipExpander expander : new RelationshipExpander[] {
+                Traversal.expanderForAllTypes(), Traversal.expanderForTypes( MyRelTypes.R1, Direction.OUTGOING ) } )
+        {
+            for ( int i = 0; i < 20; i++ )
+            {
+                Node start = graph.getNode( name( random.nextInt( SIZE ), random.nextInt( SIZE ) ) );
+                Node end = graph.getNode( name( random.nextInt( SIZE ), random.nextInt( SIZE ) ) );
+                WeightedPath expected = dijkstra( expander ).findSinglePath( start, end );
+                assertSameCost( expected, bidirectionalDijkstra( expander ).findSinglePath( start, end ) );
+                assertSameCost( expected, bidirectionalAStar( expander ).findSinglePath( start, end ) );
+            }
+        }
+    }
+
+    private void assertSameCost( WeightedPath expected, WeightedPath actual )
+    {
+        if ( expected == null )
+        {
+            assertNull( actual );
+            return;
+        }
+        assertNotNull( actual );
+        assertEquals( expected.startNode(), actual.startNode() );
+        assertEquals( expected.endNode(), actual.endNode() );
+        assertEquals( expected.weight(), actual.weight(), 0.0001 );
+    }
+
+    private static String name( int x, int y )
+    {
+        return x + "_" + y;
+    }
+}
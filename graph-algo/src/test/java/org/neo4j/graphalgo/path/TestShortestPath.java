@@ -34,6 +34,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -390,6 +392,89 @@ public class TestShortestPath extends Neo4jAlgoTestCase
         assertPathDef( shortestPath( expanderForTypes( R1, INCOMING ), 2 ).findSinglePath( c, a ), "c", "a" );
     }
     
+    @Test
+    public void shouldFindSamePathsWhenExpandingLevelsConcurrently() throws Exception
+    {
+        /*
+         * (s) --> 120 (aN) --> 120 (bN) --> (e), where each (aN) has relationships
+         * to two (bN) and to the next (aN), so that the levels are large enough to
+         * be expanded in chunks and there are many paths of the same length.
+         */
+        int width = 120;
+        for ( int i = 0; i < width; i++ )
+        {
+            graph.makeEdge( "s", "a" + i );
+            graph.makeEdge( "a" + i, "b" + i );
+            graph.makeEdge( "a" + i, "b" + ( ( i * 7 ) % width ) );
+            graph.makeEdge( "a" + i, "a" + ( ( i + 1 ) % width ) );
+            graph.makeEdge( "b" + i, "e" );
+        }
+        Node s = graph.getNode( "s" );
+        Node e = graph.getNode( "e" );
+        // The executor only expands concurrently when there's no transaction open
+        tx.success();
+        tx.finish();
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            for ( RelationshipExpander expander : asList( expanderForTypes( R1, OUTGOING ), expanderForTypes( R1 ) ) )
+            {
+                for ( int maxHitCount : new int[] { 1, 10, Integer.MAX_VALUE } )
+                {
+                    assertSamePaths( new ShortestPath( 5, expander, maxHitCount ).findAllPaths( s, e ),
+                            shortestPath( expander, 5, maxHitCount, executor ).findAllPaths( s, e ) );
+                }
+                assertSamePaths( new ShortestPath( 4, expander, Integer.MAX_VALUE, true ).findAllPaths( s, e ),
+                        new ShortestPath( 4, expander, Integer.MAX_VALUE, true, executor ).findAllPaths( s, e ) );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            tx = graphDb.beginTx();
+        }
+    }
+
+    @Test
+    public void shouldSeeUncommittedChangesWhenGivenAnExecutor() throws Exception
+    {
+        int width = 120;
+        for ( int i = 0; i < width; i++ )
+        {
+            graph.makeEdge( "s", "a" + i );
+        }
+        graph.makeEdge( "a" + ( width - 1 ), "b" );
+        graph.makeEdge( "b", "e" );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            PathFinder<Path> finder = shortestPath( expanderForTypes( R1, OUTGOING ), 5, 1, executor );
+            assertPaths( finder.findAllPaths( graph.getNode( "s" ), graph.getNode( "e" ) ),
+                    "s,a" + ( width - 1 ) + ",b,e" );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void assertSamePaths( Iterable<Path> expected, Iterable<Path> actual )
+    {
+        Collection<String> expectedDefs = new HashSet<String>();
+        for ( Path path : expected )
+        {
+            expectedDefs.add( getPathDef( path ) );
+        }
+        Collection<String> actualDefs = new HashSet<String>();
+        for ( Path path : actual )
+        {
+            actualDefs.add( getPathDef( path ) );
+        }
+        assertEquals( expectedDefs, actualDefs );
+    }
+    
     @Ignore( "Exposes a problem where the expected path isn't returned" )
     @Test
     public void pathsWithLengthProblem() throws Exception
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.jmx;
+
+@ManagementInterface( name = GroupCommit.NAME )
+@Description( "Statistics about transactions sharing forces of the logical log (group commit)" )
+public interface GroupCommit
+{
+    final String NAME = "Group commit";
+
+    @Description( "The number of times the logical log has been forced for committing transactions" )
+    long getNumberOfForces();
+
+    @Description( "The number of committed transactions covered by the forces of the logical log" )
+    long getNumberOfForcedCommits();
+
+    @Description( "The average number of transactions committed by each force of the logical log" )
+    double getAverageBatchSize();
+
+    @Description( "The largest number of transactions committed by a single force of the logical log" )
+    long getLargestBatchSize();
+
+    @Description( "The number of forces of the logical log per second since this was last asked for" )
+    double getForcesPerSecond();
+
+    @Description( "The maximum time in milliseconds a force waits for more transactions to join it" )
+    long getMaxDelay();
+
+    @Description( "The number of transactions that makes a force stop waiting for more to join it" )
+    int getMaxBatchSize();
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.jmx.impl;
+
+import javax.management.NotCompliantMBeanException;
+import org.neo4j.helpers.Service;
+import org.neo4j.jmx.GroupCommit;
+import org.neo4j.kernel.GraphDatabaseAPI;
+
+@Service.Implementation( ManagementBeanProvider.class )
+public final class GroupCommitBean extends ManagementBeanProvider
+{
+    public GroupCommitBean()
+    {
+        super( GroupCommit.class );
+    }
+
+    @Override
+    protected Neo4jMBean createMBean( ManagementData management ) throws NotCompliantMBeanException
+    {
+        org.neo4j.kernel.impl.transaction.xaframework.GroupCommit groupCommit = ((GraphDatabaseAPI) management
+                .getKernelData().graphDatabase()).getXaDataSourceManager().getNeoStoreDataSource()
+                .getXaContainer().getLogicalLog().getGroupCommit();
+        if ( groupCommit == null ) return null;
+        return new GroupCommitImpl( management, groupCommit );
+    }
+
+    private static class GroupCommitImpl extends Neo4jMBean implements GroupCommit
+    {
+        private final org.neo4j.kernel.impl.transaction.xaframework.GroupCommit groupCommit;
+        private long lastSampleTime = System.currentTimeMillis();
+        private long lastSampleForces;
+
+        GroupCommitImpl( ManagementData management,
+                org.neo4j.kernel.impl.transaction.xaframework.GroupCommit groupCommit )
+                throws NotCompliantMBeanException
+        {
+            super( management );
+            this.groupCommit = groupCommit;
+        }
+
+        public long getNumberOfForces()
+        {
+            return groupCommit.getNumberOfForces();
+        }
+
+        public long getNumberOfForcedCommits()
+        {
+            return groupCommit.getNumberOfForcedCommits();
+        }
+
+        public double getAverageBatchSize()
+        {
+            long forces = groupCommit.getNumberOfForces();
+            return forces == 0 ? 0 : (double) groupCommit.getNumberOfForcedCommits() / forces;
+        }
+
+        public long getLargestBatchSize()
+        {
+            return groupCommit.getLargestBatchSize();
+        }
+
+        public synchronized double getForcesPerSecond()
+        {
+            long now = System.currentTimeMillis();
+            long forces = groupCommit.getNumberOfForces();
+            long elapsed = now - lastSampleTime;
+            double result = elapsed == 0 ? 0 : (forces - lastSampleForces) * 1000d / elapsed;
+            lastSampleTime = now;
+            lastSampleForces = forces;
+            return result;
+        }
+
+        public long getMaxDelay()
+        {
+            return groupCommit.getMaxDelay();
+        }
+
+        public int getMaxBatchSize()
+        {
+            return groupCommit.getMaxBatchSize();
+        }
+    }
+}
@@ -38,6 +38,14 @@ public abstract class GraphDatabaseSettings
     @Default( CacheTypeSetting.soft )
     public static final CacheTypeSetting cache_type = new CacheTypeSetting();
 
+    @Description( "The number of relationships the off-heap cache keeps as objects on the heap" )
+    @Default("10000")
+    public static final IntegerSetting offheap_cache_heap_size = new IntegerSetting( "offheap_cache_heap_size", "Must be a number", 1, null );
+
+    @Description( "The amount of memory outside of the heap the off-heap cache uses for relationships (at most 2G)" )
+    @Default("100M")
+    public static final StringSetting relationship_cache_offheap_memory = new StringSetting( "relationship_cache_offheap_memory", SIZE, "Invalid value %s, must be e.g. 100M" );
+
     @Default( TRUE)
     public static final BooleanSetting load_kernel_extensions = new BooleanSetting("load_kernel_extensions");
 
@@ -64,6 +72,14 @@ public abstract class GraphDatabaseSettings
     @Description( "Enable this to specify a parser other than the default one. 1.5 and 1.6 are available" )
     public static final OptionsSetting cypher_parser_version = new CypherParserSetting();
 
+    @Description( "The number of rows Cypher keeps in memory when sorting (ORDER BY). Larger results are sorted in runs spilled to temporary files, which are then merged" )
+    @Default("100000")
+    public static final IntegerSetting cypher_sort_max_rows_in_memory = new IntegerSetting( "cypher_sort_max_rows_in_memory", "Must be a number", 1, null );
+
+    @Description( "The number of Cypher execution plans kept in the plan cache of each execution engine" )
+    @Default("100")
+    public static final IntegerSetting cypher_plan_cache_size = new IntegerSetting( "cypher_plan_cache_size", "Must be a number", 1, null );
+
     // Remote logging
     @Description( "Whether to enable logging to a remote server or not" )
     @Default(FALSE)
@@ -103,6 +119,26 @@ public abstract class GraphDatabaseSettings
     @Default(Integer.MAX_VALUE+"")
     public static IntegerSetting lucene_writer_cache_size = new IntegerSetting( "lucene_writer_cache_size", "Must be a number", 1, null );
 
+    @Description( "Reopen lucene index searchers in a background thread after index changes are committed, instead of in the first query that follows." )
+    @Default(TRUE)
+    public static final BooleanSetting lucene_searcher_background_refresh = new BooleanSetting( "lucene_searcher_background_refresh" );
+
+    @Description( "The amount of memory the results of exact lookups in lucene indexes may take, for the keys which have caching enabled" )
+    @Default("20M")
+    public static final StringSetting lucene_hit_cache_memory = new StringSetting( "lucene_hit_cache_memory", SIZE, "Invalid value %s, must be e.g. 20M" );
+
+    @Description( "Let lucene index changes of many committed transactions be written to the index together, instead of once per transaction. Reading an index first writes its pending changes" )
+    @Default(FALSE)
+    public static final BooleanSetting lucene_batched_commits_enabled = new BooleanSetting( "lucene_batched_commits_enabled" );
+
+    @Description( "The maximum amount of time lucene index changes of committed transactions are batched before they're written to the index" )
+    @Default("1s")
+    public static final StringSetting lucene_batched_commits_window = new StringSetting( "lucene_batched_commits_window", DURATION, "Must be a valid duration" );
+
+    @Description( "The number of changed lucene documents that makes a batch of committed transactions be written to the index" )
+    @Default("10000")
+    public static final IntegerSetting lucene_batched_commits_max_documents = new IntegerSetting( "lucene_batched_commits_max_documents", "Must be a number", 1, null );
+
     // NeoStore settings
     @Description( "Determines whether any TransactionInterceptors loaded will intercept prepared transactions before they reach the logical log" )
     @Default(FALSE)
@@ -111,6 +147,18 @@ public abstract class GraphDatabaseSettings
     @Description( "Make Neo4j keep the logical transaction logs for being able to backup the database" )
     public static final StringSetting keep_logical_logs = new StringSetting( "keep_logical_logs", ANY, "No value=don't store,true=store all logs,comma separated list=store logs from listed sources" );
 
+    @Description( "Let transactions committing concurrently share a single force of the logical log, instead of forcing it once per transaction" )
+    @Default(FALSE)
+    public static final BooleanSetting group_commit_enabled = new BooleanSetting( "group_commit_enabled" );
+
+    @Description( "The maximum amount of time a group commit waits for more transactions to join it before forcing the logical log" )
+    @Default("0ms")
+    public static final StringSetting group_commit_max_delay = new StringSetting( "group_commit_max_delay", DURATION, "Must be a valid duration" );
+
+    @Description( "The number of transactions in a group commit that makes it stop waiting for more transactions to join it" )
+    @Default("100")
+    public static final IntegerSetting group_commit_max_batch_size = new IntegerSetting( "group_commit_max_batch_size", "Must be a number", 1, null );
+
     @Description( "Use a quick approach for rebuilding the ID generators. This give quicker recovery time, but will limit the ability to reuse the space of deleted entities." )
     @Default(TRUE)
     public static final BooleanSetting rebuild_idgenerators_fast = new BooleanSetting( "rebuild_idgenerators_fast" );
@@ -150,6 +198,10 @@ public abstract class GraphDatabaseSettings
     @Default("100")
     public static final IntegerSetting relationship_grab_size = new IntegerSetting( "relationship_grab_size", "Must be a number" );
 
+    @Description( "Number of relationship records to read per batch for nodes that have more relationships than relationship_grab_size" )
+    @Default("10000")
+    public static final IntegerSetting dense_node_relationship_grab_size = new IntegerSetting( "dense_node_relationship_grab_size", "Must be a number", 1, null );
+
     @Description( "Whether to grab locks on files or not" )
     @Default(TRUE)
     public static final BooleanSetting grab_file_lock = new BooleanSetting( "grab_file_lock" );
@@ -217,6 +269,12 @@ public abstract class GraphDatabaseSettings
         @Description("Use strong references")
         public static final String strong = "strong";
 
+        @Description("Keeps a bounded number of relationships on the heap and the ones that don't fit \n" +
+                     "in memory outside of the heap, where they don't add to GC pauses. Only their ids, nodes \n" +
+                     "and types are kept there, properties are loaded again when needed. Only relationships \n" +
+                     "are kept off the heap, nodes are cached as with the soft cache." )
+        public static final String offheap = "offheap";
+
         @Description("GC resistant cache. Gets assigned a configurable amount of space in the JVM heap \n" +
         		"and will evict objects whenever it grows bigger than that, instead of relying on GC for eviction. \n" +
         		"It has got the fastest insert/lookup times and should be optimal for most use cases. \n" +
@@ -233,10 +291,10 @@ public abstract class GraphDatabaseSettings
             try
             {
                 GraphDatabaseSettings.class.getClassLoader().loadClass( "org.neo4j.kernel.impl.cache.GCResistantCacheProvider" );
-                return new String[]{gcr,soft,weak,strong,none};
+                return new String[]{gcr,soft,weak,strong,offheap,none};
             } catch( ClassNotFoundException e )
             {
-                return new String[]{soft,weak,strong,none};
+                return new String[]{soft,weak,strong,offheap,none};
             }
         }
     }
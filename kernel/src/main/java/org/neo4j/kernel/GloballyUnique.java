@@ -19,14 +19,14 @@
  */
 package org.neo4j.kernel;
 
-import java.util.HashSet;
-import java.util.Set;
-
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.traversal.TraversalBranch;
+import org.neo4j.kernel.impl.util.PrimitiveLongBitmap;
 
 class GloballyUnique extends AbstractUniquenessFilter
 {
-    private final Set<Long> visited = new HashSet<Long>();
+    // Created on the first check, when the database to size it from is known
+    private PrimitiveLongBitmap visited;
     
     GloballyUnique( PrimitiveTypeFetcher type )
     {
@@ -35,6 +35,16 @@ class GloballyUnique extends AbstractUniquenessFilter
 
     public boolean check( TraversalBranch branch )
     {
-        return visited.add( type.getId( branch ) );
+        long id = type.getId( branch );
+        if ( visited == null )
+        {
+            visited = new PrimitiveLongBitmap( highId( branch.node().getGraphDatabase() ) );
+        }
+        return visited.add( id );
+    }
+
+    private long highId( GraphDatabaseService graphDb )
+    {
+        return graphDb instanceof GraphDatabaseAPI ? type.getHighId( ((GraphDatabaseAPI) graphDb).getNodeManager() ) : 0;
     }
 }
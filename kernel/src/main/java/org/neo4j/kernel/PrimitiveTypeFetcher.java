@@ -19,8 +19,10 @@
  */
 package org.neo4j.kernel;
 
+import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.traversal.TraversalBranch;
+import org.neo4j.kernel.impl.core.NodeManager;
 
 enum PrimitiveTypeFetcher
 {
@@ -37,6 +39,12 @@ enum PrimitiveTypeFetcher
         {
             return getId( source ) == idToCompare;
         }
+
+        @Override
+        long getHighId( NodeManager nodeManager )
+        {
+            return nodeManager.getHighestPossibleIdInUse( Node.class );
+        }
     },
     RELATIONSHIP
     {
@@ -52,8 +60,16 @@ enum PrimitiveTypeFetcher
             Relationship relationship = source.relationship();
             return relationship != null && relationship.getId() == idToCompare;
         }
+
+        @Override
+        long getHighId( NodeManager nodeManager )
+        {
+            return nodeManager.getHighestPossibleIdInUse( Relationship.class );
+        }
     };
     abstract long getId( TraversalBranch source );
 
     abstract boolean idEquals( TraversalBranch source, long idToCompare );
+
+    abstract long getHighId( NodeManager nodeManager );
 }
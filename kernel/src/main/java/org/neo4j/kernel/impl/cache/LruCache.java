@@ -46,7 +46,7 @@ public class LruCache<K,E>
             if ( super.size() > maxSize )
             {
                 super.remove( eldest.getKey() );
-                elementCleaned( eldest.getValue() );
+                elementCleaned( eldest.getKey(), eldest.getValue() );
             }
             return false;
         }
@@ -182,8 +182,8 @@ public class LruCache<K,E>
 				java.util.Iterator<Map.Entry<K,E>> itr = cache.entrySet().iterator();
                 while ( itr.hasNext())
                 {
-                    E element = itr.next().getValue();
-                    elementCleaned( element );
+                    Map.Entry<K,E> entry = itr.next();
+                    elementCleaned( entry.getKey(), entry.getValue() );
                 }
                 cache.clear();
             }
@@ -194,9 +194,9 @@ public class LruCache<K,E>
                     .iterator();
                 while ( itr.hasNext() && cache.size() > maxSize )
                 {
-                    E element = itr.next().getValue();
+                    Map.Entry<K,E> entry = itr.next();
                     itr.remove();
-                    elementCleaned( element );
+                    elementCleaned( entry.getKey(), entry.getValue() );
                 }
             }
         }
@@ -215,6 +215,19 @@ public class LruCache<K,E>
     {
     }
 
+    /**
+     * Invoked with the key of the element as well, for caches that need it
+     * to clean up after the element. Calls {@link #elementCleaned(Object)}
+     * unless overridden.
+     *
+     * @param key the key of the removed element
+     * @param element the removed element
+     */
+    public void elementCleaned( K key, E element )
+    {
+        elementCleaned( element );
+    }
+
     public boolean isAdaptive()
     {
         return adaptive;
@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * A cache that keeps a bounded number of entities as live objects on the heap
+ * and moves the ones that fall out of that into a direct (off-heap) buffer,
+ * keyed by their id. Only what the {@link Codec} writes is kept off-heap, an
+ * entity read back from there is a new instance that loads the rest of its
+ * state lazily, like one loaded from the store.
+ * <p>
+ * The off-heap part is set associative: an id maps to a set of {@link #WAYS}
+ * slots, and when all slots of a set are taken they are replaced in the order
+ * they were filled. An entity read from off-heap moves back to the heap part,
+ * freeing its slot. Entities only move between the two parts while holding the
+ * lock of the heap part, which guards the off-heap part as well.
+ */
+public class OffHeapCache<E extends EntityWithSize> implements Cache<E>
+{
+    /**
+     * Writes the state of an entity to, and creates an entity from, the
+     * off-heap record of a fixed size.
+     */
+    public interface Codec<E>
+    {
+        int recordSize();
+
+        void write( E entity, ByteBuffer buffer, int offset );
+
+        E read( long id, ByteBuffer buffer, int offset );
+    }
+
+    static final int WAYS = 8;
+    private static final long EMPTY = -1;
+
+    private final String name;
+    private final Codec<E> codec;
+    private final LruCache<Long,E> heap;
+    private final ByteBuffer slots;
+    private final int slotSize;
+    private final int sets;
+    private final byte[] nextVictim;
+    private long offHeapSize;
+    private final HitCounter counter = new HitCounter();
+
+    public OffHeapCache( String name, Codec<E> codec, int heapSize, long offHeapMemory )
+    {
+        this.name = name;
+        this.codec = codec;
+        this.heap = new LruCache<Long,E>( name, heapSize )
+        {
+            @Override
+            public void elementCleaned( E element )
+            {
+                // clear() cleans out everything, that should not end up off-heap
+                if ( !isResizing() ) putOffHeap( element );
+            }
+        };
+        this.slotSize = 8 + codec.recordSize();
+        // A direct buffer is indexed by int
+        long setCount = Math.min( offHeapMemory, Integer.MAX_VALUE ) / ((long) slotSize * WAYS);
+        this.sets = (int) Math.max( 1, setCount );
+        this.nextVictim = new byte[sets];
+        this.slots = ByteBuffer.allocateDirect( sets * WAYS * slotSize );
+        clearOffHeap();
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void put( E value )
+    {
+        heap.put( value.getId(), value );
+    }
+
+    public void putAll( Collection<E> values )
+    {
+        for ( E value : values )
+        {
+            put( value );
+        }
+    }
+
+    public E get( long key )
+    {
+        // Holding the heap lock while moving an entity back from off-heap makes
+        // sure no other thread creates a second instance of it meanwhile
+        synchronized ( heap )
+        {
+            E entity = heap.get( key );
+            if ( entity == null )
+            {
+                entity = removeOffHeap( key );
+                if ( entity != null ) heap.put( key, entity );
+            }
+            return counter.count( entity );
+        }
+    }
+
+    public E remove( long key )
+    {
+        synchronized ( heap )
+        {
+            E entity = heap.remove( key );
+            E offHeap = removeOffHeap( key );
+            return entity != null ? entity : offHeap;
+        }
+    }
+
+    public void clear()
+    {
+        synchronized ( heap )
+        {
+            heap.clear();
+            clearOffHeap();
+        }
+    }
+
+    public long size()
+    {
+        synchronized ( heap )
+        {
+            return heap.size() + offHeapSize;
+        }
+    }
+
+    public long hitCount()
+    {
+        return counter.getHitsCount();
+    }
+
+    public long missCount()
+    {
+        return counter.getMissCount();
+    }
+
+    public void updateSize( E entity, int newSize )
+    {
+        // do nothing, the heap part is bounded by number of entities
+    }
+
+    public void printStatistics()
+    {
+        // do nothing
+    }
+
+    private void putOffHeap( E entity )
+    {
+        long key = entity.getId();
+        int set = setOf( key );
+        int slot = findSlot( set, key );
+        if ( slot == -1 ) slot = findSlot( set, EMPTY );
+        if ( slot == -1 )
+        {
+            slot = set * WAYS + nextVictim[set];
+            nextVictim[set] = (byte) ((nextVictim[set] + 1) % WAYS);
+        }
+        else if ( slots.getLong( slot * slotSize ) == EMPTY )
+        {
+            offHeapSize++;
+        }
+        slots.putLong( slot * slotSize, key );
+        codec.write( entity, slots, slot * slotSize + 8 );
+    }
+
+    private E removeOffHeap( long key )
+    {
+        int slot = findSlot( setOf( key ), key );
+        if ( slot == -1 ) return null;
+        E entity = codec.read( key, slots, slot * slotSize + 8 );
+        slots.putLong( slot * slotSize, EMPTY );
+        offHeapSize--;
+        return entity;
+    }
+
+    private int findSlot( int set, long key )
+    {
+        for ( int slot = set * WAYS; slot < (set + 1) * WAYS; slot++ )
+        {
+            if ( slots.getLong( slot * slotSize ) == key ) return slot;
+        }
+        return -1;
+    }
+
+    private void clearOffHeap()
+    {
+        for ( int slot = 0; slot < sets * WAYS; slot++ )
+        {
+            slots.putLong( slot * slotSize, EMPTY );
+        }
+        offHeapSize = 0;
+    }
+
+    private int setOf( long key )
+    {
+        // Spread the bits so that ids close to each other end up in different sets
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 32) % sets);
+    }
+}
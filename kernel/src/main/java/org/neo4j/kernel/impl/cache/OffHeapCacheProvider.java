@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.Service;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.core.NodeImpl;
+import org.neo4j.kernel.impl.core.OffHeapEntityCodecs;
+import org.neo4j.kernel.impl.core.RelationshipImpl;
+import org.neo4j.kernel.impl.util.StringLogger;
+
+@Service.Implementation( CacheProvider.class )
+public class OffHeapCacheProvider extends CacheProvider
+{
+    public static final String NAME = "offheap";
+
+    public OffHeapCacheProvider()
+    {
+        super( NAME, "off-heap cache" );
+    }
+
+    /**
+     * Nodes have no state that stays the same for an id other than the id itself,
+     * so there is nothing worth keeping off the heap. They are kept in a soft
+     * reference cache.
+     */
+    @Override
+    public Cache<NodeImpl> newNodeCache( StringLogger logger, Config config )
+    {
+        return new SoftLruCache<NodeImpl>( NODE_CACHE_NAME );
+    }
+
+    @Override
+    public Cache<RelationshipImpl> newRelationshipCache( StringLogger logger, Config config )
+    {
+        return new OffHeapCache<RelationshipImpl>( RELATIONSHIP_CACHE_NAME, OffHeapEntityCodecs.RELATIONSHIP,
+                config.getInteger( GraphDatabaseSettings.offheap_cache_heap_size ),
+                config.getSize( GraphDatabaseSettings.relationship_cache_offheap_memory ) );
+    }
+}
@@ -21,10 +21,7 @@ package org.neo4j.kernel.impl.core;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map.Entry;
-import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -43,6 +40,8 @@ import org.neo4j.kernel.impl.nioneo.store.Record;
 import org.neo4j.kernel.impl.transaction.LockManager;
 import org.neo4j.kernel.impl.transaction.LockType;
 import org.neo4j.kernel.impl.util.ArrayMap;
+import org.neo4j.kernel.impl.util.PrimitiveLongObjectMap;
+import org.neo4j.kernel.impl.util.PrimitiveLongSet;
 import org.neo4j.kernel.impl.util.RelIdArray;
 import org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper;
 import org.neo4j.kernel.impl.util.RelIdArrayWithLoops;
@@ -74,10 +73,10 @@ public class LockReleaser
     {
         PrimitiveElement() {}
 
-        private final ArrayMap<Long,CowNodeElement> nodes =
-            new ArrayMap<Long,CowNodeElement>();
-        private final ArrayMap<Long,CowRelElement> relationships =
-            new ArrayMap<Long,CowRelElement>();
+        private final PrimitiveLongObjectMap<CowNodeElement> nodes =
+            new PrimitiveLongObjectMap<CowNodeElement>();
+        private final PrimitiveLongObjectMap<CowRelElement> relationships =
+            new PrimitiveLongObjectMap<CowRelElement>();
         private CowGraphElement graph;
 
         public CowNodeElement nodeElement( long id, boolean create )
@@ -185,7 +184,7 @@ public class LockReleaser
             Collection<Long> result = map.get( type );
             if ( result == null && create )
             {
-                result = new HashSet<Long>();
+                result = new PrimitiveLongSet();
                 map.put( type, result );
             }
             return result;
@@ -335,7 +334,7 @@ public class LockReleaser
         PrimitiveElement primitiveElement = cowMap.get( getTransaction() );
         if ( primitiveElement != null )
         {
-            ArrayMap<Long,CowNodeElement> cowElements =
+            PrimitiveLongObjectMap<CowNodeElement> cowElements =
                 primitiveElement.nodes;
             CowNodeElement element = cowElements.get( node.getId() );
             if ( element != null && element.relationshipRemoveMap != null )
@@ -433,15 +432,11 @@ public class LockReleaser
         {
             return;
         }
-        ArrayMap<Long,CowNodeElement> cowNodeElements = element.nodes;
-        Set<Entry<Long,CowNodeElement>> nodeEntrySet =
-            cowNodeElements.entrySet();
-        for ( Entry<Long,CowNodeElement> entry : nodeEntrySet )
+        for ( CowNodeElement nodeElement : element.nodes.values() )
         {
-            NodeImpl node = nodeManager.getNodeIfCached( entry.getKey() );
+            NodeImpl node = nodeManager.getNodeIfCached( nodeElement.id );
             if ( node != null )
             {
-                CowNodeElement nodeElement = entry.getValue();
                 if ( param == Status.STATUS_COMMITTED )
                 {
                     node.commitRelationshipMaps( nodeElement.relationshipAddMap,
@@ -456,15 +451,11 @@ public class LockReleaser
                 }
             }
         }
-        ArrayMap<Long,CowRelElement> cowRelElements = element.relationships;
-        Set<Entry<Long,CowRelElement>> relEntrySet =
-            cowRelElements.entrySet();
-        for ( Entry<Long,CowRelElement> entry : relEntrySet )
+        for ( CowRelElement relElement : element.relationships.values() )
         {
-            RelationshipImpl rel = nodeManager.getRelIfCached( entry.getKey() );
+            RelationshipImpl rel = nodeManager.getRelIfCached( relElement.id );
             if ( rel != null )
             {
-                CowRelElement relElement = entry.getValue();
                 if ( param == Status.STATUS_COMMITTED )
                 {
                     rel.commitPropertyMaps( relElement.propertyAddMap,
@@ -659,9 +650,9 @@ public class LockReleaser
     private void populateRelationshipPropertyEvents( PrimitiveElement element,
             TransactionDataImpl result )
     {
-        for ( long relId : element.relationships.keySet() )
+        for ( CowRelElement relElement : element.relationships.values() )
         {
-            CowRelElement relElement = element.relationships.get( relId );
+            long relId = relElement.id;
             RelationshipProxy rel = nodeManager.newRelationshipProxyById( relId );
             RelationshipImpl relImpl = nodeManager.getRelationshipForProxy( relId, null );
             if ( relElement.deleted )
@@ -702,9 +693,9 @@ public class LockReleaser
     private void populateNodeRelEvent( PrimitiveElement element,
             TransactionDataImpl result )
     {
-        for ( long nodeId : element.nodes.keySet() )
+        for ( CowNodeElement nodeElement : element.nodes.values() )
         {
-            CowNodeElement nodeElement = element.nodes.get( nodeId );
+            long nodeId = nodeElement.id;
             NodeProxy node = nodeManager.newNodeProxyById( nodeId );
             NodeImpl nodeImpl = nodeManager.getNodeForProxy( nodeId, null );
             if ( nodeElement.deleted )
@@ -816,7 +807,7 @@ public class LockReleaser
         PrimitiveElement primitiveElement = cowMap.get( tx );
         if ( primitiveElement != null )
         {
-            ArrayMap<Long,CowNodeElement> cowElements =
+            PrimitiveLongObjectMap<CowNodeElement> cowElements =
                 primitiveElement.nodes;
             CowNodeElement element = cowElements.get( node.getId() );
             if ( element != null && (element.relationshipAddMap != null || element.relationshipRemoveMap != null) )
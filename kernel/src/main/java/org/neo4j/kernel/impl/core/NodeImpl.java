@@ -27,6 +27,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
@@ -431,6 +432,15 @@ public class NodeImpl extends ArrayBasedPrimitive
         return getRelChainPosition() != Record.NO_NEXT_RELATIONSHIP.intValue();
     }
 
+    /*
+     * Loads the next batch of relationships of a node that has more than the
+     * relationship grab size, reading dense node sized batches. Loads are
+     * serialized per node, but the node itself is only locked while the loaded
+     * batch is merged so that readers and committers aren't held up by the
+     * store reads. If relationships were committed into the node while the
+     * batch was read it may contain relationships since deleted, in which case
+     * it is reread under the node lock.
+     */
     boolean getMoreRelationships( NodeManager nodeManager )
     {
 //        Triplet<ArrayMap<String,RelIdArray>,Map<Long,RelationshipImpl>,Long> rels;
@@ -439,39 +449,58 @@ public class NodeImpl extends ArrayBasedPrimitive
         {
             return false;
         }
-        synchronized ( this )
+        ReentrantLock loadLock = nodeManager.lockRelationshipLoading( this );
+        try
         {
-            if ( !hasMoreRelationshipsToLoad() )
-            {
-                return false;
-            }
-            rels = nodeManager.getMoreRelationships( this );
-            ArrayMap<String,RelIdArray> addMap = rels.first();
-            if ( addMap.size() == 0 )
+            long position;
+            long commitCount;
+            synchronized ( this )
             {
-                return false;
+                if ( !hasMoreRelationshipsToLoad() )
+                {
+                    return false;
+                }
+                position = getRelChainPosition();
+                commitCount = nodeManager.getRelationshipCommitCount( this );
             }
-            for ( String type : addMap.keySet() )
+            int grabSize = nodeManager.getDenseNodeRelationshipGrabSize();
+            rels = nodeManager.getMoreRelationships( this, position, grabSize );
+            synchronized ( this )
             {
-                RelIdArray addRels = addMap.get( type );
-                // IntArray srcRels = tmpRelMap.get( type );
-                RelIdArray srcRels = getRelIdArray( type );
-                if ( srcRels == null )
+                if ( nodeManager.getRelationshipCommitCount( this ) != commitCount )
                 {
-                    putRelIdArray( addRels );
+                    rels = nodeManager.getMoreRelationships( this, position, grabSize );
                 }
-                else
+                ArrayMap<String,RelIdArray> addMap = rels.first();
+                if ( addMap.size() == 0 )
                 {
-                    RelIdArray newSrcRels = srcRels.addAll( addRels );
-                    // This can happen if srcRels gets upgraded to a RelIdArrayWithLoops
-                    if ( newSrcRels != srcRels )
+                    return false;
+                }
+                for ( String type : addMap.keySet() )
+                {
+                    RelIdArray addRels = addMap.get( type );
+                    RelIdArray srcRels = getRelIdArray( type );
+                    if ( srcRels == null )
+                    {
+                        putRelIdArray( addRels );
+                    }
+                    else
                     {
-                        putRelIdArray( newSrcRels );
+                        RelIdArray newSrcRels = srcRels.addAll( addRels );
+                        // This can happen if srcRels gets upgraded to a RelIdArrayWithLoops
+                        if ( newSrcRels != srcRels )
+                        {
+                            putRelIdArray( newSrcRels );
+                        }
                     }
                 }
+                setRelChainPosition( rels.third() );
+                updateSize( nodeManager );
             }
-            setRelChainPosition( rels.third() );
-            updateSize( nodeManager );
+        }
+        finally
+        {
+            loadLock.unlock();
         }
         nodeManager.putAllInRelCache( rels.second() );
         return true;
@@ -621,6 +650,7 @@ public class NodeImpl extends ArrayBasedPrimitive
                     }
                 }
             }
+            nodeManager.relationshipsCommitted( this );
             updateSize( nodeManager );
         }
     }
@@ -26,6 +26,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -37,6 +38,7 @@ import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.graphdb.index.Index;
 import org.neo4j.helpers.Pair;
 import org.neo4j.helpers.Triplet;
@@ -95,6 +97,15 @@ public class NodeManager
     private static final int LOCK_STRIPE_COUNT = 32;
     private final ReentrantLock loadLocks[] =
         new ReentrantLock[LOCK_STRIPE_COUNT];
+
+    // Relationship chain loading of a node is serialized on these, separately
+    // from loadLocks, while the node itself is only held when merging a batch
+    private static final int RELATIONSHIP_LOAD_STRIPE_COUNT = 64;
+    private final ReentrantLock relationshipLoadLocks[] =
+        new ReentrantLock[RELATIONSHIP_LOAD_STRIPE_COUNT];
+    private final AtomicLongArray relationshipCommitCounts =
+        new AtomicLongArray( RELATIONSHIP_LOAD_STRIPE_COUNT );
+    private final int denseNodeRelGrabSize;
     private GraphProperties graphProperties;
 
     public NodeManager( Config config, GraphDatabaseService graphDb, LockManager lockManager,
@@ -123,6 +134,11 @@ public class NodeManager
         {
             loadLocks[i] = new ReentrantLock();
         }
+        for ( int i = 0; i < relationshipLoadLocks.length; i++ )
+        {
+            relationshipLoadLocks[i] = new ReentrantLock();
+        }
+        this.denseNodeRelGrabSize = config.getInteger( GraphDatabaseSettings.dense_node_relationship_grab_size );
         nodePropertyTrackers = new LinkedList<PropertyTracker<Node>>();
         relationshipPropertyTrackers = new LinkedList<PropertyTracker<Relationship>>();
         this.graphProperties = instantiateGraphProperties();
@@ -334,6 +350,39 @@ public class NodeManager
         return lock;
     }
 
+    private static int relationshipLoadStripe( long nodeId )
+    {
+        return (int) (nodeId % RELATIONSHIP_LOAD_STRIPE_COUNT);
+    }
+
+    ReentrantLock lockRelationshipLoading( NodeImpl node )
+    {
+        ReentrantLock lock = relationshipLoadLocks[relationshipLoadStripe( node.getId() )];
+        lock.lock();
+        return lock;
+    }
+
+    /*
+     * Changes whenever relationship changes are committed into a node sharing
+     * a relationship load stripe with the given node. A loader comparing it
+     * before and after reading a batch of relationships outside of the node
+     * lock can tell if the batch may contain relationships deleted meanwhile.
+     */
+    long getRelationshipCommitCount( NodeImpl node )
+    {
+        return relationshipCommitCounts.get( relationshipLoadStripe( node.getId() ) );
+    }
+
+    void relationshipsCommitted( NodeImpl node )
+    {
+        relationshipCommitCounts.incrementAndGet( relationshipLoadStripe( node.getId() ) );
+    }
+
+    int getDenseNodeRelationshipGrabSize()
+    {
+        return denseNodeRelGrabSize;
+    }
+
     protected Node getNodeByIdOrNull( long nodeId )
     {
         NodeImpl node = nodeCache.get( nodeId );
@@ -604,10 +653,20 @@ public class NodeManager
     // Triplet<ArrayMap<String,RelIdArray>,Map<Long,RelationshipImpl>,Long> getMoreRelationships( NodeImpl node )
     Triplet<ArrayMap<String,RelIdArray>,List<RelationshipImpl>,Long> getMoreRelationships( NodeImpl node )
     {
-        long nodeId = node.getId();
-        long position = node.getRelChainPosition();
-        Pair<Map<DirectionWrapper, Iterable<RelationshipRecord>>, Long> rels =
-            persistenceManager.getMoreRelationships( nodeId, position );
+        return receiveMoreRelationships( node.getId(),
+                persistenceManager.getMoreRelationships( node.getId(), node.getRelChainPosition() ) );
+    }
+
+    Triplet<ArrayMap<String,RelIdArray>,List<RelationshipImpl>,Long> getMoreRelationships( NodeImpl node,
+            long position, int grabSize )
+    {
+        return receiveMoreRelationships( node.getId(),
+                persistenceManager.getMoreRelationships( node.getId(), position, grabSize ) );
+    }
+
+    private Triplet<ArrayMap<String,RelIdArray>,List<RelationshipImpl>,Long> receiveMoreRelationships( long nodeId,
+            Pair<Map<DirectionWrapper, Iterable<RelationshipRecord>>, Long> rels )
+    {
         ArrayMap<String,RelIdArray> newRelationshipMap =
             new ArrayMap<String,RelIdArray>();
         // Map<Long,RelationshipImpl> relsMap = new HashMap<Long,RelationshipImpl>( 150 );
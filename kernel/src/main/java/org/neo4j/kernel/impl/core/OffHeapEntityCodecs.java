@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.core;
+
+import java.nio.ByteBuffer;
+
+import org.neo4j.kernel.impl.cache.OffHeapCache;
+
+/**
+ * The off-heap representations of entities used by {@link OffHeapCache}. Only
+ * the state that never changes for an id is kept, properties are loaded again
+ * when needed. Nodes have no such state besides their id, so only relationships
+ * have a representation.
+ */
+public class OffHeapEntityCodecs
+{
+    public static final OffHeapCache.Codec<RelationshipImpl> RELATIONSHIP = new OffHeapCache.Codec<RelationshipImpl>()
+    {
+        public int recordSize()
+        {
+            return 8 + 8 + 4;
+        }
+
+        public void write( RelationshipImpl relationship, ByteBuffer buffer, int offset )
+        {
+            buffer.putLong( offset, relationship.getStartNodeId() );
+            buffer.putLong( offset + 8, relationship.getEndNodeId() );
+            buffer.putInt( offset + 16, relationship.getTypeId() );
+        }
+
+        public RelationshipImpl read( long id, ByteBuffer buffer, int offset )
+        {
+            return new RelationshipImpl( id, buffer.getLong( offset ), buffer.getLong( offset + 8 ),
+                    buffer.getInt( offset + 16 ), false );
+        }
+    };
+
+    private OffHeapEntityCodecs()
+    {
+    }
+}
@@ -21,12 +21,12 @@ package org.neo4j.kernel.impl.core;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.event.PropertyEntry;
 import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.kernel.impl.util.PrimitiveLongSet;
 
 class TransactionDataImpl implements TransactionData
 {
@@ -35,8 +35,10 @@ class TransactionDataImpl implements TransactionData
             newCollection();
     private final Collection<Node> createdNodes = newCollection();
     private final Collection<Relationship> createdRelationships = newCollection();
-    private final Collection<Node> deletedNodes = new HashSet<Node>();
-    private final Collection<Relationship> deletedRelationships = new HashSet<Relationship>();
+    private final Collection<Node> deletedNodes = newCollection();
+    private final Collection<Relationship> deletedRelationships = newCollection();
+    private final PrimitiveLongSet deletedNodeIds = new PrimitiveLongSet();
+    private final PrimitiveLongSet deletedRelationshipIds = new PrimitiveLongSet();
     private final Collection<PropertyEntry<Node>> removedNodeProperties = newCollection();
     private final Collection<PropertyEntry<Relationship>> removedRelationshipProperties =
             newCollection();
@@ -74,7 +76,7 @@ class TransactionDataImpl implements TransactionData
     
     public boolean isDeleted( Node node )
     {
-        return this.deletedNodes.contains( node );
+        return this.deletedNodeIds.contains( node.getId() );
     }
 
     public Iterable<Relationship> deletedRelationships()
@@ -84,7 +86,7 @@ class TransactionDataImpl implements TransactionData
     
     public boolean isDeleted( Relationship relationship )
     {
-        return this.deletedRelationships.contains( relationship );
+        return this.deletedRelationshipIds.contains( relationship.getId() );
     }
 
     public Iterable<PropertyEntry<Node>> removedNodeProperties()
@@ -137,11 +139,17 @@ class TransactionDataImpl implements TransactionData
     
     void deleted( Node node )
     {
-        this.deletedNodes.add( node );
+        if ( this.deletedNodeIds.add( node.getId() ) )
+        {
+            this.deletedNodes.add( node );
+        }
     }
     
     void deleted( Relationship relationship )
     {
-        this.deletedRelationships.add( relationship );
+        if ( this.deletedRelationshipIds.add( relationship.getId() ) )
+        {
+            this.deletedRelationships.add( relationship );
+        }
     }
 }
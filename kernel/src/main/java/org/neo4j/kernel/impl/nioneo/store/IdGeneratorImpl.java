@@ -76,8 +76,9 @@ public class IdGeneratorImpl implements IdGenerator
     private long readPosition;
     // marks how much this session is allowed to read from previously released id batches.
     private long maxReadPosition = HEADER_SIZE;
-    // used to calculate number of ids actually in use
-    private long defraggedIdCount = -1;
+    // used to calculate number of ids actually in use, volatile so that
+    // getNumberOfIdsInUse() can be read by statistics without taking the lock
+    private volatile long defraggedIdCount = -1;
 
     private final String fileName;
     private final FileSystemAbstraction fs;
@@ -592,7 +593,7 @@ public class IdGeneratorImpl implements IdGenerator
         close( true );
     }
 
-    public synchronized long getNumberOfIdsInUse()
+    public long getNumberOfIdsInUse()
     {
         return highId.get() - defraggedIdCount;
     }
@@ -49,6 +49,7 @@ abstract class LockableWindow implements PersistenceWindow
         new LinkedList<LockElement>();
     private int lockCount = 0;
     private int marked = 0;
+    private boolean evicted = false;
 
     LockableWindow( FileChannel fileChannel )
     {
@@ -87,6 +88,44 @@ abstract class LockableWindow implements PersistenceWindow
         return marked > 0;
     }
 
+    /**
+     * Marks this window, unless it has been evicted from the pool. Used by
+     * threads that looked the window up without holding the pool lock.
+     *
+     * @return <CODE>true</CODE> if the window was marked
+     */
+    synchronized boolean markIfNotEvicted()
+    {
+        if ( evicted )
+        {
+            return false;
+        }
+        this.marked++;
+        return true;
+    }
+
+    /**
+     * Evicts this window from the pool if no thread is using it, or about to.
+     * Once evicted a window can't be marked again, so it will not be used.
+     *
+     * @param writeOut whether to write out the contents of the window before
+     * any thread can look up the same position elsewhere
+     * @return <CODE>true</CODE> if the window was evicted
+     */
+    synchronized boolean evictIfUnused( boolean writeOut )
+    {
+        if ( evicted || marked > 0 || lockCount > 0 || !waitingThreadList.isEmpty() )
+        {
+            return false;
+        }
+        if ( writeOut )
+        {
+            writeOut();
+        }
+        evicted = true;
+        return true;
+    }
+
     private static class LockElement
     {
         private final Thread thread;
@@ -98,12 +137,21 @@ abstract class LockableWindow implements PersistenceWindow
         }
     }
     
-    synchronized void lock()
+    /**
+     * @return the number of nanoseconds spent waiting for another thread to
+     * release the window, <CODE>0</CODE> if it wasn't locked
+     */
+    synchronized long lock()
     {
         Thread currentThread = Thread.currentThread();
         LockElement le = new LockElement( currentThread );
+        long waitStart = 0;
         while ( lockCount > 0 && lockingThread != currentThread )
         {
+            if ( waitStart == 0 )
+            {
+                waitStart = System.nanoTime();
+            }
             waitingThreadList.addFirst( le );
             try
             {
@@ -118,6 +166,7 @@ abstract class LockableWindow implements PersistenceWindow
         lockingThread = currentThread;
         le.movedOn = true;
         marked--;
+        return waitStart == 0 ? 0 : System.nanoTime() - waitStart;
     }
 
     synchronized void unLock()
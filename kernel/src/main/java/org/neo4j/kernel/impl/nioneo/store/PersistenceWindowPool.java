@@ -28,6 +28,9 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -53,8 +56,9 @@ public class PersistenceWindowPool
     private long memUsed = 0;
     private int brickCount = 0;
     private int brickSize = 0;
-    private BrickElement brickArray[] = new BrickElement[0];
+    private volatile BrickElement brickArray[] = new BrickElement[0];
     private int brickMiss = 0;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
 
     private static Logger log = Logger.getLogger( PersistenceWindowPool.class
         .getName() );
@@ -65,6 +69,10 @@ public class PersistenceWindowPool
     private int miss = 0;
     private int switches = 0;
     private int ooe = 0;
+    private int refreshes = 0;
+    private long refreshTime = 0;
+    private final AtomicLong windowLockWaitTime = new AtomicLong();
+    private final AtomicLong rowLockWaitTime = new AtomicLong();
     private boolean useMemoryMapped = true;
 
     private final boolean readOnly;
@@ -114,64 +122,72 @@ public class PersistenceWindowPool
     {
         LockableWindow window = null;
         boolean readPos = false;
-//        synchronized ( activeRowWindows )
-//        {
-            if ( brickMiss >= REFRESH_BRICK_COUNT )
+        if ( brickMiss >= REFRESH_BRICK_COUNT && refreshing.compareAndSet( false, true ) )
+        {
+            // Threads that don't do the refresh carry on without waiting for it
+            try
             {
-//                brickMiss = 0;
                 refreshBricks();
             }
-            if ( brickSize > 0 )
+            finally
             {
-                int brickIndex = (int) (position * blockSize / brickSize);
-                if ( brickIndex < brickArray.length )
-                {
-                    synchronized ( this )
-                    {
-                        window = brickArray[brickIndex].getWindow();
-                        if ( window != null )
-                        {
-                            window.mark();
-                        }
-                    }
-                    // assert window == null || window.encapsulates( position );
-                    brickArray[brickIndex].setHit();
-                }
-                else
-                {
-                    expandBricks( brickIndex + 1 );
-                    window = brickArray[brickIndex].getWindow();
-                }
+                refreshing.set( false );
             }
-            if ( window == null )
+        }
+        if ( brickSize > 0 )
+        {
+            int brickIndex = (int) (position * blockSize / brickSize);
+            BrickElement[] bricks = brickArray;
+            if ( brickIndex >= bricks.length )
             {
-                synchronized ( this )
-                {
-                    miss++;
-                    brickMiss++;
+                expandBricks( brickIndex + 1 );
+                bricks = brickArray;
+            }
+            BrickElement brick = bricks[brickIndex];
+            // Looked up without the pool lock, the window can only be used if
+            // it hasn't been evicted by a refresh meanwhile
+            window = brick.getWindow();
+            if ( window != null && !window.markIfNotEvicted() )
+            {
+                window = null;
+            }
+            // assert window == null || window.encapsulates( position );
+            brick.setHit();
+        }
+        if ( window == null )
+        {
+            long start = System.nanoTime();
+            synchronized ( activeRowWindows )
+            {
+                miss++;
+                brickMiss++;
 
-                    PersistenceRow dpw = activeRowWindows.get( (int) position );
+                PersistenceRow dpw = activeRowWindows.get( (int) position );
 
-                    if ( dpw == null )
-                    {
-                        dpw = new PersistenceRow( position, blockSize,
-                            fileChannel );
-                    }
-                    if ( operationType == OperationType.READ )
-                    {
-                        readPos = true;
-                    }
-                    window = dpw;
-                    activeRowWindows.put( (int) position, dpw );
-                    window.mark();
+                if ( dpw == null )
+                {
+                    dpw = new PersistenceRow( position, blockSize,
+                        fileChannel );
                 }
+                if ( operationType == OperationType.READ )
+                {
+                    readPos = true;
+                }
+                window = dpw;
+                activeRowWindows.put( (int) position, dpw );
+                window.mark();
             }
-            else
-            {
-                hit++;
-            }
-//        }
-        window.lock();
+            rowLockWaitTime.addAndGet( System.nanoTime() - start );
+        }
+        else
+        {
+            hit++;
+        }
+        long waited = window.lock();
+        if ( waited > 0 )
+        {
+            windowLockWaitTime.addAndGet( waited );
+        }
         if ( readPos )
         {
             ((PersistenceRow) window).readPosition();
@@ -201,7 +217,7 @@ public class PersistenceWindowPool
         {
             PersistenceRow dpw = (PersistenceRow) window;
             dpw.writeOut();
-            synchronized ( this )
+            synchronized ( activeRowWindows )
             {
                 if ( dpw.getWaitingThreadsCount() == 0 && !dpw.isMarked() )
                 {
@@ -231,7 +247,10 @@ public class PersistenceWindowPool
                 }
             }
             fileChannel = null;
-            activeRowWindows.clear();
+            synchronized ( activeRowWindows )
+            {
+                activeRowWindows.clear();
+            }
 //        }
         // activeRowWindows = null;
         dumpStatistics();
@@ -267,7 +286,7 @@ public class PersistenceWindowPool
     {
         private final int index;
         private int hitCount;
-        private LockableWindow window = null;
+        private volatile LockableWindow window = null;
 
         BrickElement( int index )
         {
@@ -434,9 +453,8 @@ public class PersistenceWindowPool
         {
             BrickElement mappedBrick = mappedBricks.get( i );
             LockableWindow window = mappedBrick.getWindow();
-            if ( window.getWaitingThreadsCount() == 0 && !window.isMarked() )
+            if ( window.evictIfUnused( !readOnly ) )
             {
-                if ( !readOnly ) window.writeOut();
                 mappedBrick.setWindow( null );
                 memUsed -= brickSize;
             }
@@ -455,6 +473,20 @@ public class PersistenceWindowPool
             // memory mapped turned off
             return;
         }
+        long start = System.currentTimeMillis();
+        try
+        {
+            rebalanceBricks();
+        }
+        finally
+        {
+            refreshes++;
+            refreshTime += System.currentTimeMillis() - start;
+        }
+    }
+
+    private void rebalanceBricks()
+    {
         ArrayList<BrickElement> nonMappedBricks = new ArrayList<BrickElement>();
         ArrayList<BrickElement> mappedBricks = new ArrayList<BrickElement>();
         for ( int i = 0; i < brickCount; i++ )
@@ -512,9 +544,8 @@ public class PersistenceWindowPool
                 break;
             }
             LockableWindow window = mappedBrick.getWindow();
-            if ( window.getWaitingThreadsCount() == 0 && !window.isMarked() )
+            if ( window.evictIfUnused( !readOnly ) )
             {
-                if ( !readOnly ) window.writeOut();
                 mappedBrick.setWindow( null );
                 memUsed -= brickSize;
                 try
@@ -641,9 +672,11 @@ public class PersistenceWindowPool
         log.log( Level.WARNING, "[" + storeName + "] " + logMessage, cause );
     }
 
-    WindowPoolStats getStats()
+    synchronized WindowPoolStats getStats()
     {
         return new WindowPoolStats( storeName, availableMem, memUsed, brickCount,
-                brickSize, hit, miss, ooe );
+                brickSize, hit, miss, ooe, refreshes, refreshTime,
+                TimeUnit.NANOSECONDS.toMillis( windowLockWaitTime.get() ),
+                TimeUnit.NANOSECONDS.toMillis( rowLockWaitTime.get() ) );
     }
 }
\ No newline at end of file
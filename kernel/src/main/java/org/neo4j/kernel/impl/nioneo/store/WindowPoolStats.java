@@ -32,9 +32,21 @@ public class WindowPoolStats
     private final int hitCount;
     private final int missCount;
     private final int oomCount;
+
+    private final int refreshCount;
+    private final long refreshTime;
+    private final long windowLockWaitTime;
+    private final long rowLockWaitTime;
     
     public WindowPoolStats( String name, long memAvail, long memUsed, int windowCount,
             int windowSize, int hitCount, int missCount, int oomCount )
+    {
+        this( name, memAvail, memUsed, windowCount, windowSize, hitCount, missCount, oomCount, 0, 0, 0, 0 );
+    }
+
+    public WindowPoolStats( String name, long memAvail, long memUsed, int windowCount,
+            int windowSize, int hitCount, int missCount, int oomCount, int refreshCount,
+            long refreshTime, long windowLockWaitTime, long rowLockWaitTime )
     {
         this.name = name;
         this.memAvail = memAvail;
@@ -44,6 +56,10 @@ public class WindowPoolStats
         this.hitCount = hitCount;
         this.missCount = missCount;
         this.oomCount = oomCount;
+        this.refreshCount = refreshCount;
+        this.refreshTime = refreshTime;
+        this.windowLockWaitTime = windowLockWaitTime;
+        this.rowLockWaitTime = rowLockWaitTime;
     }
     
     public String getName()
@@ -85,4 +101,38 @@ public class WindowPoolStats
     {
         return oomCount;
     }
+
+    /**
+     * @return the number of times the pool has rebalanced which bricks are mapped
+     */
+    public int getRefreshCount()
+    {
+        return refreshCount;
+    }
+
+    /**
+     * @return the total time in milliseconds spent rebalancing the pool
+     */
+    public long getRefreshTime()
+    {
+        return refreshTime;
+    }
+
+    /**
+     * @return the total time in milliseconds threads have waited for a window
+     * locked by another thread
+     */
+    public long getWindowLockWaitTime()
+    {
+        return windowLockWaitTime;
+    }
+
+    /**
+     * @return the total time in milliseconds spent getting a window for a
+     * position that isn't mapped, including waiting for other threads doing the same
+     */
+    public long getRowLockWaitTime()
+    {
+        return rowLockWaitTime;
+    }
 }
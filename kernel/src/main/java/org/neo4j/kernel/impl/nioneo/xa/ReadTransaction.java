@@ -105,6 +105,13 @@ class ReadTransaction implements NeoStoreTransaction
         return getMoreRelationships( nodeId, position, getRelGrabSize(), getRelationshipStore() );
     }
 
+    @Override
+    public Pair<Map<DirectionWrapper, Iterable<RelationshipRecord>>, Long> getMoreRelationships(
+            long nodeId, long position, int grabSize )
+    {
+        return getMoreRelationships( nodeId, position, grabSize, getRelationshipStore() );
+    }
+
     static Pair<Map<DirectionWrapper, Iterable<RelationshipRecord>>, Long> getMoreRelationships(
             long nodeId, long position, int grabSize, RelationshipStore relStore )
     {
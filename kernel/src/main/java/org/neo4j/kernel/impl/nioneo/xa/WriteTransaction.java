@@ -69,6 +69,7 @@ import org.neo4j.kernel.impl.transaction.xaframework.XaConnection;
 import org.neo4j.kernel.impl.transaction.xaframework.XaLogicalLog;
 import org.neo4j.kernel.impl.transaction.xaframework.XaTransaction;
 import org.neo4j.kernel.impl.util.ArrayMap;
+import org.neo4j.kernel.impl.util.PrimitiveLongObjectMap;
 import org.neo4j.kernel.impl.util.RelIdArray;
 import org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper;
 
@@ -80,9 +81,9 @@ import static org.neo4j.kernel.impl.nioneo.store.PropertyStore.encodeString;
  */
 public class WriteTransaction extends XaTransaction implements NeoStoreTransaction
 {
-    private final Map<Long,NodeRecord> nodeRecords = new HashMap<Long,NodeRecord>();
-    private final Map<Long,PropertyRecord> propertyRecords = new HashMap<Long,PropertyRecord>();
-    private final Map<Long,RelationshipRecord> relRecords = new HashMap<Long,RelationshipRecord>();
+    private final PrimitiveLongObjectMap<NodeRecord> nodeRecords = new PrimitiveLongObjectMap<NodeRecord>();
+    private final PrimitiveLongObjectMap<PropertyRecord> propertyRecords = new PrimitiveLongObjectMap<PropertyRecord>();
+    private final PrimitiveLongObjectMap<RelationshipRecord> relRecords = new PrimitiveLongObjectMap<RelationshipRecord>();
     private Map<Integer,RelationshipTypeRecord> relTypeRecords;
     private Map<Integer,PropertyIndexRecord> propIndexRecords;
     private NeoStoreRecord neoStoreRecord;
@@ -922,6 +923,12 @@ public class WriteTransaction extends XaTransaction implements NeoStoreTransacti
         return ReadTransaction.getMoreRelationships( nodeId, position, getRelGrabSize(), getRelationshipStore() );
     }
 
+    public Pair<Map<DirectionWrapper, Iterable<RelationshipRecord>>, Long> getMoreRelationships( long nodeId,
+        long position, int grabSize )
+    {
+        return ReadTransaction.getMoreRelationships( nodeId, position, grabSize, getRelationshipStore() );
+    }
+
     private void updateNodes( RelationshipRecord rel )
     {
         if ( rel.getFirstPrevRel() == Record.NO_PREV_RELATIONSHIP.intValue() )
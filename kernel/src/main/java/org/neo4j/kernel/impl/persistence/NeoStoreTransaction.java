@@ -299,6 +299,13 @@ public interface NeoStoreTransaction
     public Pair<Map<DirectionWrapper, Iterable<RelationshipRecord>>, Long> getMoreRelationships(
             long nodeId, long position );
 
+    /*
+     * Same as above, but reads at most grabSize relationship records instead
+     * of the configured relationship grab size.
+     */
+    public Pair<Map<DirectionWrapper, Iterable<RelationshipRecord>>, Long> getMoreRelationships(
+            long nodeId, long position, int grabSize );
+
     /**
      * Returns an array view of the ids of the nodes that have been created in
      * this transaction.
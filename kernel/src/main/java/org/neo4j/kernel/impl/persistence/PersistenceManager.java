@@ -108,6 +108,12 @@ public class PersistenceManager
         return getReadOnlyResource().getMoreRelationships( nodeId, position );
     }
 
+    public Pair<Map<DirectionWrapper, Iterable<RelationshipRecord>>, Long> getMoreRelationships(
+            long nodeId, long position, int grabSize )
+    {
+        return getReadOnlyResource().getMoreRelationships( nodeId, position, grabSize );
+    }
+
     public ArrayMap<Integer,PropertyData> loadNodeProperties( long nodeId, boolean light )
     {
         return getReadOnlyResourceIfPossible().nodeLoadProperties( nodeId, light );
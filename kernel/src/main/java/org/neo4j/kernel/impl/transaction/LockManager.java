@@ -47,18 +47,59 @@ import org.neo4j.kernel.info.WaitingThread;
  * must invoke <CODE>releaseReadLock</CODE> x times to release all the locks.
  * <p>
  * LockManager just maps locks to resources and they do all the hard work
- * together with a resource allocation graph.
+ * together with a resource allocation graph. The mapping is split up in a
+ * number of stripes, each guarded by its own monitor, so that acquiring and
+ * releasing locks on unrelated resources don't contend with each other.
  */
 public class LockManager
 {
-    private final Map<Object,RWLock> resourceLockMap =
-        new HashMap<Object,RWLock>();
+    private static final int DEFAULT_NUMBER_OF_STRIPES = 128;
+
+    private final Map<Object,RWLock>[] resourceLockMaps;
+    private final int stripeMask;
 
     private final RagManager ragManager;
 
-    public LockManager( RagManager ragManager)
+    public LockManager( RagManager ragManager )
+    {
+        this( ragManager, DEFAULT_NUMBER_OF_STRIPES );
+    }
+
+    /**
+     * @param ragManager the resource allocation graph used for deadlock
+     *            detection.
+     * @param numberOfStripes the number of independently guarded parts the
+     *            resource to lock mapping is split up in, rounded up to the
+     *            nearest power of two.
+     */
+    @SuppressWarnings( "unchecked" )
+    public LockManager( RagManager ragManager, int numberOfStripes )
     {
+        if ( numberOfStripes < 1 )
+        {
+            throw new IllegalArgumentException( "Number of stripes must be at least 1, was " + numberOfStripes );
+        }
         this.ragManager = ragManager;
+        int stripes = Integer.highestOneBit( numberOfStripes );
+        if ( stripes < numberOfStripes )
+        {
+            stripes <<= 1;
+        }
+        this.resourceLockMaps = new Map[stripes];
+        for ( int i = 0; i < stripes; i++ )
+        {
+            resourceLockMaps[i] = new HashMap<Object,RWLock>();
+        }
+        this.stripeMask = stripes - 1;
+    }
+
+    private Map<Object,RWLock> stripeFor( Object resource )
+    {
+        int hash = resource.hashCode();
+        // Spread the bits since resource hash codes, like node ids, tend to be sequential
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return resourceLockMaps[hash & stripeMask];
     }
 
     public long getDetectedDeadlockCount()
@@ -87,6 +128,7 @@ public class LockManager
         }
 
         RWLock lock = null;
+        Map<Object,RWLock> resourceLockMap = stripeFor( resource );
         synchronized ( resourceLockMap )
         {
             lock = resourceLockMap.get( resource );
@@ -121,6 +163,7 @@ public class LockManager
         }
 
         RWLock lock = null;
+        Map<Object,RWLock> resourceLockMap = stripeFor( resource );
         synchronized ( resourceLockMap )
         {
             lock = resourceLockMap.get( resource );
@@ -153,6 +196,7 @@ public class LockManager
         }
 
         RWLock lock = null;
+        Map<Object,RWLock> resourceLockMap = stripeFor( resource );
         synchronized ( resourceLockMap )
         {
             lock = resourceLockMap.get( resource );
@@ -190,6 +234,7 @@ public class LockManager
         }
 
         RWLock lock = null;
+        Map<Object,RWLock> resourceLockMap = stripeFor( resource );
         synchronized ( resourceLockMap )
         {
             lock = resourceLockMap.get( resource );
@@ -218,6 +263,7 @@ public class LockManager
     public void dumpLocksOnResource( Object resource )
     {
         RWLock lock = null;
+        Map<Object,RWLock> resourceLockMap = stripeFor( resource );
         synchronized ( resourceLockMap )
         {
             if ( !resourceLockMap.containsKey( resource ) )
@@ -241,7 +287,8 @@ public class LockManager
     }
 
     /**
-     * Visit all locks.
+     * Visit all locks. Each stripe is visited under its own monitor, so
+     * this isn't an atomic snapshot of all locks.
      * 
      * The supplied visitor may not block.
      * 
@@ -249,11 +296,14 @@ public class LockManager
      */
     private <V extends Visitor<LockInfo>> V eachLock( V visitor )
     {
-        synchronized ( resourceLockMap )
+        for ( Map<Object,RWLock> resourceLockMap : resourceLockMaps )
         {
-            for ( RWLock lock : resourceLockMap.values() )
+            synchronized ( resourceLockMap )
             {
-                if ( visitor.visit( lock.info() ) ) break;
+                for ( RWLock lock : resourceLockMap.values() )
+                {
+                    if ( visitor.visit( lock.info() ) ) return visitor;
+                }
             }
         }
         return visitor;
@@ -273,11 +323,14 @@ public class LockManager
     private <V extends Visitor<LockInfo>> V eachAwaitedLock( V visitor, long minWaitTime )
     {
         long waitStart = System.currentTimeMillis() - minWaitTime;
-        synchronized ( resourceLockMap )
+        for ( Map<Object,RWLock> resourceLockMap : resourceLockMaps )
         {
-            for ( RWLock lock : resourceLockMap.values() )
+            synchronized ( resourceLockMap )
             {
-                if ( lock.acceptVisitorIfWaitedSinceBefore( visitor, waitStart ) ) break;
+                for ( RWLock lock : resourceLockMap.values() )
+                {
+                    if ( lock.acceptVisitorIfWaitedSinceBefore( visitor, waitStart ) ) return visitor;
+                }
             }
         }
         return visitor;
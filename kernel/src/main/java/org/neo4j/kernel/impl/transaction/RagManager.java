@@ -26,12 +26,13 @@ import org.neo4j.kernel.impl.util.ArrayMap;
 import javax.transaction.SystemException;
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -71,9 +72,15 @@ public class RagManager
     // in a DeadlockDetectedException the transaction must wait
     // o When the transaction wakes up from waiting on a resource the
     // stopWaitOn( resource ) method must be invoked
+    // o lockAcquired( resource ) and lockReleased( resource ) must be invoked
+    // while holding the monitor of the resource, which serializes all changes
+    // to the locking tx list of a resource. They don't synchronize on this
+    // RagManager, so that transactions locking unrelated resources never
+    // contend here. Deadlock detection still sees every lock held by a
+    // waiting transaction since those were acquired before it started to wait.
 
     private final Map<Object,List<Transaction>> resourceMap =
-        new HashMap<Object,List<Transaction>>();
+        new ConcurrentHashMap<Object,List<Transaction>>();
 
     private final ArrayMap<Transaction,Object> waitingTxMap =
         new ArrayMap<Transaction,Object>( (byte)5, false, true );
@@ -92,7 +99,7 @@ public class RagManager
         return deadlockCount.longValue();
     }
 
-    synchronized void lockAcquired( Object resource, Transaction tx )
+    void lockAcquired( Object resource, Transaction tx )
     {
         List<Transaction> lockingTxList = resourceMap.get( resource );
         if ( lockingTxList != null )
@@ -102,13 +109,13 @@ public class RagManager
         }
         else
         {
-            lockingTxList = new LinkedList<Transaction>();
+            lockingTxList = new CopyOnWriteArrayList<Transaction>();
             lockingTxList.add( tx );
             resourceMap.put( resource, lockingTxList );
         }
     }
 
-    synchronized void lockReleased( Object resource, Transaction tx )
+    void lockReleased( Object resource, Transaction tx )
     {
         List<Transaction> lockingTxList = resourceMap.get( resource );
         if ( lockingTxList == null )
@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.xaframework;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Force barrier shared by concurrently committing transactions. Committers
+ * register their commit entry with {@link #appended()} once it has been
+ * written out to the log and then call {@link #awaitForced(Force)}. One of the
+ * waiting threads becomes the leader and forces the log on behalf of every
+ * commit appended so far, the others just wait for that force to complete.
+ * <p>
+ * The leader may wait up to a configured delay for more commits to join the
+ * batch, but never longer than it takes for the batch to reach its maximum
+ * size. With a delay of zero, batching still happens naturally: commits
+ * appended while a force is in progress are covered by the next one.
+ */
+public class GroupCommit
+{
+    /**
+     * Forces the log and reports how far it got.
+     */
+    public interface Force
+    {
+        /**
+         * Forces everything written out to the log so far.
+         *
+         * @return the {@link GroupCommit#appended() append sequence number} of
+         * the last commit covered by this force.
+         * @throws IOException if the log couldn't be forced.
+         */
+        long force() throws IOException;
+    }
+
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+
+    private long appended;
+    private long forced;
+    private boolean forcing;
+
+    private long numberOfForces;
+    private long numberOfForcedCommits;
+    private long largestBatchSize;
+
+    public GroupCommit( long maxDelayMillis, int maxBatchSize )
+    {
+        if ( maxDelayMillis < 0 )
+        {
+            throw new IllegalArgumentException( "Negative max delay " + maxDelayMillis );
+        }
+        if ( maxBatchSize < 1 )
+        {
+            throw new IllegalArgumentException( "Max batch size must be at least 1, was " + maxBatchSize );
+        }
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos( maxDelayMillis );
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Registers a commit entry which has been written out to, but not yet
+     * forced in, the log. Must be called while holding the lock that orders
+     * writes to the log so that the sequence numbers follow log order.
+     *
+     * @return the append sequence number of the registered commit.
+     */
+    public synchronized long appended()
+    {
+        appended++;
+        if ( forcing && appended - forced >= maxBatchSize )
+        {
+            notifyAll();
+        }
+        return appended;
+    }
+
+    /**
+     * @return the append sequence number of the last registered commit.
+     */
+    public synchronized long getAppended()
+    {
+        return appended;
+    }
+
+    /**
+     * Waits until every commit registered before this call has been forced,
+     * forcing the log using {@code force} if no other thread is already
+     * doing so.
+     *
+     * @param force the way to force the log, if this thread becomes leader.
+     * @throws IOException if this thread became leader and failed to force the
+     * log. Threads waiting on a failed force will retry it themselves.
+     */
+    public void awaitForced( Force force ) throws IOException
+    {
+        boolean interrupted = false;
+        try
+        {
+            synchronized ( this )
+            {
+                long target = appended;
+                while ( forced < target )
+                {
+                    if ( !forcing )
+                    {
+                        forcing = true;
+                        interrupted |= waitForBatchToFill();
+                        break;
+                    }
+                    try
+                    {
+                        wait();
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        interrupted = true;
+                    }
+                }
+                if ( forced >= target )
+                {
+                    return;
+                }
+            }
+            forceAsLeader( force );
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean waitForBatchToFill()
+    {
+        if ( maxDelayNanos == 0 )
+        {
+            return false;
+        }
+        long deadline = System.nanoTime() + maxDelayNanos;
+        long remaining = maxDelayNanos;
+        while ( appended - forced < maxBatchSize && remaining > 0 )
+        {
+            try
+            {
+                TimeUnit.NANOSECONDS.timedWait( this, remaining );
+            }
+            catch ( InterruptedException e )
+            {
+                return true;
+            }
+            remaining = deadline - System.nanoTime();
+        }
+        return false;
+    }
+
+    private void forceAsLeader( Force force ) throws IOException
+    {
+        long covered = -1;
+        try
+        {
+            covered = force.force();
+        }
+        finally
+        {
+            synchronized ( this )
+            {
+                if ( covered > forced )
+                {
+                    long batchSize = covered - forced;
+                    forced = covered;
+                    numberOfForces++;
+                    numberOfForcedCommits += batchSize;
+                    largestBatchSize = Math.max( largestBatchSize, batchSize );
+                }
+                forcing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    public synchronized long getNumberOfForces()
+    {
+        return numberOfForces;
+    }
+
+    public synchronized long getNumberOfForcedCommits()
+    {
+        return numberOfForcedCommits;
+    }
+
+    public synchronized long getLargestBatchSize()
+    {
+        return largestBatchSize;
+    }
+
+    public long getMaxDelay()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( maxDelayNanos );
+    }
+
+    public int getMaxBatchSize()
+    {
+        return maxBatchSize;
+    }
+}
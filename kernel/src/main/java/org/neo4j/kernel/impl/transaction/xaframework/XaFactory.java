@@ -38,6 +38,9 @@ public class XaFactory
     public static abstract class Configuration
     {
         public static final GraphDatabaseSetting.BooleanSetting intercept_deserialized_transactions = GraphDatabaseSettings.intercept_deserialized_transactions;
+        public static final GraphDatabaseSetting.BooleanSetting group_commit_enabled = GraphDatabaseSettings.group_commit_enabled;
+        public static final GraphDatabaseSetting.StringSetting group_commit_max_delay = GraphDatabaseSettings.group_commit_max_delay;
+        public static final GraphDatabaseSetting.IntegerSetting group_commit_max_batch_size = GraphDatabaseSettings.group_commit_max_batch_size;
     }
     
     private Config config;
@@ -85,6 +88,12 @@ public class XaFactory
             log = new XaLogicalLog( logicalLog, rm, cf, tf, logBufferFactory, fileSystemAbstraction, stringLogger );
         }
 
+        if ( config.getBoolean( Configuration.group_commit_enabled ) )
+        {
+            log.setGroupCommit( new GroupCommit( config.getDuration( Configuration.group_commit_max_delay ),
+                    config.getInteger( Configuration.group_commit_max_batch_size ) ) );
+        }
+
         // TODO These setters should be removed somehow
         rm.setLogicalLog( log );
         tf.setLogicalLog( log );
@@ -25,6 +25,7 @@ import static org.neo4j.kernel.impl.transaction.xaframework.LogExtractor.newLogR
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.util.HashMap;
@@ -110,6 +111,7 @@ public class XaLogicalLog implements LogLoader
 
     private final LogPositionCache positionCache = new LogPositionCache();
     private final FileSystemAbstraction fileSystem;
+    private volatile GroupCommit groupCommit;
 
     public XaLogicalLog( String fileName, XaResourceManager xaRm, XaCommandFactory cf,
             XaTransactionFactory xaTf, LogBufferFactory logBufferFactory, FileSystemAbstraction fileSystem, StringLogger stringLogger )
@@ -355,7 +357,7 @@ public class XaLogicalLog implements LogLoader
         {
             cacheTxStartPosition( txId, startEntry );
             LogIoUtils.writeCommit( false, writeBuffer, identifier, txId, System.currentTimeMillis() );
-            forceMode.force( writeBuffer );
+            force( forceMode );
         }
         catch ( IOException e )
         {
@@ -364,6 +366,102 @@ public class XaLogicalLog implements LogLoader
         }
     }
 
+    /*
+     * With group commit the force of a commit entry is deferred to
+     * awaitGroupCommit(), which the committer calls once it has let go of
+     * the resource manager, so that others can append meanwhile. The
+     * transaction is applied to the store after that. Recovery always forces
+     * directly since nobody waits for it afterwards.
+     */
+    private void force( ForceMode forceMode ) throws IOException
+    {
+        if ( defersForce( forceMode ) )
+        {
+            writeBuffer.writeOut();
+            groupCommit.appended();
+        }
+        else
+        {
+            forceMode.force( writeBuffer );
+        }
+    }
+
+    /**
+     * @return whether commit entries written with {@code forceMode} are only
+     * forced by {@link #awaitGroupCommit()}, rather than as they're written.
+     */
+    synchronized boolean defersForce( ForceMode forceMode )
+    {
+        return groupCommit != null && forceMode == ForceMode.forced && !doingRecovery;
+    }
+
+    /**
+     * Waits for all commit entries written by this log so far to be forced
+     * to disk. Returns immediately unless group commit is enabled, since
+     * commit entries are forced as they are written otherwise.
+     *
+     * @throws XAException if the log couldn't be forced.
+     */
+    public void awaitGroupCommit() throws XAException
+    {
+        GroupCommit groupCommit = this.groupCommit;
+        if ( groupCommit == null )
+        {
+            return;
+        }
+        try
+        {
+            groupCommit.awaitForced( new GroupCommit.Force()
+            {
+                @Override
+                public long force() throws IOException
+                {
+                    return forceGroup();
+                }
+            } );
+        }
+        catch ( IOException e )
+        {
+            throw Exceptions.withCause( new XAException( "Logical log unable to force group commit" ), e );
+        }
+    }
+
+    private long forceGroup() throws IOException
+    {
+        FileChannel channel;
+        long covered;
+        synchronized ( this )
+        {
+            writeBuffer.writeOut();
+            channel = writeBuffer.getFileChannel();
+            covered = groupCommit.getAppended();
+        }
+        try
+        {
+            channel.force( false );
+        }
+        catch ( ClosedChannelException e )
+        {
+            // The log was rotated or closed under us, both of which force it first
+        }
+        return covered;
+    }
+
+    /**
+     * Makes concurrent committers share forces of this log, see
+     * {@link GroupCommit}. Pass {@code null} to force every commit entry as
+     * it is written.
+     */
+    public synchronized void setGroupCommit( GroupCommit groupCommit )
+    {
+        this.groupCommit = groupCommit;
+    }
+
+    public GroupCommit getGroupCommit()
+    {
+        return groupCommit;
+    }
+
     private synchronized void cacheTxStartPosition( long txId, LogEntry.Start startEntry )
     {
         cacheTxStartPosition( txId, startEntry, logVersion );
@@ -430,7 +528,7 @@ public class XaLogicalLog implements LogLoader
         {
             cacheTxStartPosition( txId, startEntry );
             LogIoUtils.writeCommit( true, writeBuffer, identifier, txId, System.currentTimeMillis() );
-            forceMode.force( writeBuffer );
+            force( forceMode );
         }
         catch ( IOException e )
         {
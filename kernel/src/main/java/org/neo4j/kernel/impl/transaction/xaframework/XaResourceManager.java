@@ -31,6 +31,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.logging.Logger;
 
 import javax.transaction.xa.XAException;
@@ -51,6 +53,8 @@ public class XaResourceManager
         new ArrayMap<Xid,XidStatus>();
     private int recoveredTxCount = 0;
     private final Set<TransactionInfo> recoveredTransactions = new HashSet<TransactionInfo>();
+    // Ids of transactions whose commit entry is written but not forced yet, with group commit
+    private final SortedSet<Long> awaitingForce = new TreeSet<Long>();
 
     private XaLogicalLog log = null;
     private final XaTransactionFactory tf;
@@ -414,7 +418,32 @@ public class XaResourceManager
         return xaTransaction;
     }
 
-    synchronized XaTransaction commit( Xid xid, boolean onePhase )
+    /**
+     * Commits the transaction of {@code xid}. With group commit its commit
+     * entry is forced together with those of other transactions, and this
+     * resource manager is let go of while waiting for the force so that they
+     * can append theirs. Either way the transaction is applied to the store
+     * only once its commit entry is forced, in commit order.
+     */
+    XaTransaction commit( Xid xid, boolean onePhase ) throws XAException
+    {
+        XaTransaction xaTransaction = writeCommit( xid, onePhase );
+        if ( awaitsForce( xaTransaction ) )
+        {
+            try
+            {
+                log.awaitGroupCommit();
+            }
+            catch ( XAException e )
+            {
+                abandonCommit( xaTransaction );
+                throw e;
+            }
+        }
+        return applyCommit( xid, onePhase, xaTransaction );
+    }
+
+    private synchronized XaTransaction writeCommit( Xid xid, boolean onePhase )
         throws XAException
     {
         XidStatus status = xidMap.get( xid );
@@ -434,11 +463,10 @@ public class XaResourceManager
                 {
                     xaTransaction.prepare();
 
-                    long txId = txIdGenerator.generate( dataSource,
-                            xaTransaction.getIdentifier() );
-                    xaTransaction.setCommitTxId( txId );
+                    xaTransaction.setCommitTxId( generateTxId( xaTransaction ) );
                     log.commitOnePhase( xaTransaction.getIdentifier(),
                             xaTransaction.getCommitTxId(), getForceMode() );
+                    deferApplyUntilForced( xaTransaction );
                 }
             }
         }
@@ -453,11 +481,10 @@ public class XaResourceManager
             {
                 if ( !onePhase )
                 {
-                    long txId = txIdGenerator.generate( dataSource,
-                            xaTransaction.getIdentifier() );
-                    xaTransaction.setCommitTxId( txId );
+                    xaTransaction.setCommitTxId( generateTxId( xaTransaction ) );
                     log.commitTwoPhase( xaTransaction.getIdentifier(),
                             xaTransaction.getCommitTxId(), getForceMode() );
+                    deferApplyUntilForced( xaTransaction );
                 }
             }
             txStatus.markCommitStarted();
@@ -473,7 +500,77 @@ public class XaResourceManager
                     dataSource.setRecovered( previousRecoveredValue );
                 }
             }
-            xaTransaction.commit();
+        }
+        return xaTransaction;
+    }
+
+    /*
+     * Transaction ids are generated from the last transaction applied to the
+     * store, which transactions still waiting for their commit entry to be
+     * forced haven't moved yet.
+     */
+    private long generateTxId( XaTransaction xaTransaction )
+    {
+        long txId = txIdGenerator.generate( dataSource, xaTransaction.getIdentifier() );
+        return awaitingForce.isEmpty() ? txId : Math.max( txId, awaitingForce.last() + 1 );
+    }
+
+    private void deferApplyUntilForced( XaTransaction xaTransaction )
+    {
+        if ( log.defersForce( getForceMode() ) )
+        {
+            awaitingForce.add( xaTransaction.getCommitTxId() );
+        }
+    }
+
+    private synchronized boolean awaitsForce( XaTransaction xaTransaction )
+    {
+        return awaitingForce.contains( xaTransaction.getCommitTxId() );
+    }
+
+    private synchronized void abandonCommit( XaTransaction xaTransaction )
+    {
+        awaitingForce.remove( xaTransaction.getCommitTxId() );
+        notifyAll();
+    }
+
+    private synchronized XaTransaction applyCommit( Xid xid, boolean onePhase, XaTransaction xaTransaction )
+        throws XAException
+    {
+        long txId = xaTransaction.getCommitTxId();
+        if ( awaitingForce.contains( txId ) )
+        {
+            // Transactions are applied in the order of their ids, wait for the ones before this
+            boolean interrupted = false;
+            while ( awaitingForce.first() != txId )
+            {
+                try
+                {
+                    wait();
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+            }
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try
+        {
+            if ( !xaTransaction.isReadOnly() )
+            {
+                xaTransaction.commit();
+            }
+        }
+        finally
+        {
+            if ( awaitingForce.remove( txId ) )
+            {
+                notifyAll();
+            }
         }
         if ( !xaTransaction.isRecovered() )
         {
@@ -696,6 +793,7 @@ public class XaResourceManager
                     }
                     log.doneInternal( recoveredTx.getIdentifier() );
                 }
+                log.awaitGroupCommit();
                 recoveredTransactions.clear();
             }
             catch ( IOException e )
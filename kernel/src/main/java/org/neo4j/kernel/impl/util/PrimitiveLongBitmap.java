@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import java.util.Arrays;
+
+/**
+ * Set of non-negative primitive longs, like node or relationship ids, in the
+ * manner of a roaring bitmap. The ids are split into chunks of 65536
+ * consecutive values. A chunk with few ids keeps them as a sorted array of
+ * their lower 16 bits, two bytes per id. Once it gets more than
+ * {@link #MAX_ARRAY_SIZE} ids it is turned into a bitmap of 8 kB, one bit per
+ * possible id. So a set of all ids in a store takes about one bit per id,
+ * and a few scattered ids don't take a bitmap each. Not thread safe.
+ */
+public class PrimitiveLongBitmap
+{
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    private static final int BITMAP_WORDS = (1 << CHUNK_BITS) / 64;
+    /**
+     * Above this number of ids an array chunk is larger than a bitmap chunk.
+     */
+    static final int MAX_ARRAY_SIZE = 4096;
+    private static final int MIN_ARRAY_SIZE = 4;
+
+    // For each chunk either the sorted array, or the bitmap, or neither
+    private char[][] arrays;
+    private long[][] bitmaps;
+    private int[] chunkSizes;
+    private long size;
+
+    public PrimitiveLongBitmap()
+    {
+        this( 0 );
+    }
+
+    /**
+     * @param highId the expected highest id, f.ex. the high id of the store
+     * the ids come from. Only the table of chunks is sized from it, higher
+     * ids can still be added.
+     */
+    public PrimitiveLongBitmap( long highId )
+    {
+        allocate( chunkOf( Math.max( highId, 0 ) ) + 1 );
+    }
+
+    private void allocate( int chunks )
+    {
+        arrays = new char[chunks][];
+        bitmaps = new long[chunks][];
+        chunkSizes = new int[chunks];
+    }
+
+    private static int chunkOf( long id )
+    {
+        return (int) (id >>> CHUNK_BITS);
+    }
+
+    public long size()
+    {
+        return size;
+    }
+
+    public boolean contains( long id )
+    {
+        int chunk = chunkOf( id );
+        if ( id < 0 || chunk >= chunkSizes.length )
+        {
+            return false;
+        }
+        int low = (int) (id & CHUNK_MASK);
+        long[] bitmap = bitmaps[chunk];
+        if ( bitmap != null )
+        {
+            return (bitmap[low >>> 6] & (1L << low)) != 0;
+        }
+        char[] array = arrays[chunk];
+        return array != null && Arrays.binarySearch( array, 0, chunkSizes[chunk], (char) low ) >= 0;
+    }
+
+    /**
+     * @return true if the id wasn't already in the set.
+     */
+    public boolean add( long id )
+    {
+        if ( id < 0 )
+        {
+            throw new IllegalArgumentException( "Negative id " + id );
+        }
+        int chunk = chunkOf( id );
+        if ( chunk >= chunkSizes.length )
+        {
+            grow( Math.max( chunk + 1, chunkSizes.length * 2 ) );
+        }
+        int low = (int) (id & CHUNK_MASK);
+        long[] bitmap = bitmaps[chunk];
+        if ( bitmap != null )
+        {
+            long bit = 1L << low;
+            if ( (bitmap[low >>> 6] & bit) != 0 )
+            {
+                return false;
+            }
+            bitmap[low >>> 6] |= bit;
+        }
+        else
+        {
+            char[] array = arrays[chunk];
+            int count = chunkSizes[chunk];
+            int index = array == null ? -1 : Arrays.binarySearch( array, 0, count, (char) low );
+            if ( index >= 0 )
+            {
+                return false;
+            }
+            if ( count == MAX_ARRAY_SIZE )
+            {
+                toBitmap( chunk )[low >>> 6] |= 1L << low;
+            }
+            else
+            {
+                int insertAt = -index - 1;
+                if ( array == null )
+                {
+                    array = new char[MIN_ARRAY_SIZE];
+                }
+                else if ( count == array.length )
+                {
+                    array = Arrays.copyOf( array, Math.min( count * 2, MAX_ARRAY_SIZE ) );
+                }
+                System.arraycopy( array, insertAt, array, insertAt + 1, count - insertAt );
+                array[insertAt] = (char) low;
+                arrays[chunk] = array;
+            }
+        }
+        chunkSizes[chunk]++;
+        size++;
+        return true;
+    }
+
+    private long[] toBitmap( int chunk )
+    {
+        long[] bitmap = new long[BITMAP_WORDS];
+        char[] array = arrays[chunk];
+        for ( int i = 0; i < chunkSizes[chunk]; i++ )
+        {
+            bitmap[array[i] >>> 6] |= 1L << array[i];
+        }
+        arrays[chunk] = null;
+        bitmaps[chunk] = bitmap;
+        return bitmap;
+    }
+
+    private void grow( int chunks )
+    {
+        char[][] oldArrays = arrays;
+        long[][] oldBitmaps = bitmaps;
+        int[] oldChunkSizes = chunkSizes;
+        allocate( chunks );
+        System.arraycopy( oldArrays, 0, arrays, 0, oldArrays.length );
+        System.arraycopy( oldBitmaps, 0, bitmaps, 0, oldBitmaps.length );
+        System.arraycopy( oldChunkSizes, 0, chunkSizes, 0, oldChunkSizes.length );
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Map from primitive long keys, f.ex. node or relationship ids, to objects.
+ * Keys and values are kept in two arrays using open addressing with linear
+ * probing, so there's neither a boxed key nor an entry object per mapping.
+ * A slot is free if its value is null, so null values aren't allowed. Not
+ * thread safe.
+ */
+public class PrimitiveLongObjectMap<V>
+{
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    public PrimitiveLongObjectMap()
+    {
+        this( DEFAULT_CAPACITY );
+    }
+
+    /**
+     * @param expectedSize number of mappings to make room for up front.
+     */
+    public PrimitiveLongObjectMap( int expectedSize )
+    {
+        allocate( capacityFor( expectedSize ) );
+    }
+
+    static int capacityFor( int size )
+    {
+        int capacity = DEFAULT_CAPACITY;
+        // Keep the load factor at 0.75 at most
+        while ( capacity * 3 < size * 4 )
+        {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    static int hash( long key )
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate( int capacity )
+    {
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    private int slotOf( long key )
+    {
+        int mask = keys.length - 1;
+        int slot = hash( key ) & mask;
+        while ( values[slot] != null && keys[slot] != key )
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    public V get( long key )
+    {
+        return (V) values[slotOf( key )];
+    }
+
+    public boolean containsKey( long key )
+    {
+        return values[slotOf( key )] != null;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    public V put( long key, V value )
+    {
+        if ( value == null )
+        {
+            throw new IllegalArgumentException( "Null value for key " + key );
+        }
+        int slot = slotOf( key );
+        V previous = (V) values[slot];
+        keys[slot] = key;
+        values[slot] = value;
+        if ( previous == null && ++size * 4 > keys.length * 3 )
+        {
+            rehash( keys.length << 1 );
+        }
+        return previous;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    public V remove( long key )
+    {
+        int slot = slotOf( key );
+        V previous = (V) values[slot];
+        if ( previous == null )
+        {
+            return null;
+        }
+        // Shift back following entries that probed past the freed slot, so
+        // that lookups don't need tombstones
+        int mask = keys.length - 1;
+        int hole = slot;
+        for ( int i = (hole + 1) & mask; values[i] != null; i = (i + 1) & mask )
+        {
+            int home = hash( keys[i] ) & mask;
+            boolean reachableFromHome = hole <= i ? home <= hole || home > i : home <= hole && home > i;
+            if ( reachableFromHome )
+            {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        values[hole] = null;
+        size--;
+        return previous;
+    }
+
+    private void rehash( int capacity )
+    {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate( capacity );
+        for ( int i = 0; i < oldValues.length; i++ )
+        {
+            if ( oldValues[i] != null )
+            {
+                int slot = slotOf( oldKeys[i] );
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void clear()
+    {
+        if ( size == 0 )
+        {
+            return;
+        }
+        size = 0;
+        if ( keys.length > DEFAULT_CAPACITY * 16 )
+        {
+            // Don't let one large transaction keep a large table around
+            allocate( DEFAULT_CAPACITY );
+        }
+        else
+        {
+            Arrays.fill( values, null );
+        }
+    }
+
+    /**
+     * @return the values in this map, in no particular order. The map must
+     * not be modified while iterating.
+     */
+    public Iterable<V> values()
+    {
+        return new Iterable<V>()
+        {
+            @Override
+            public Iterator<V> iterator()
+            {
+                return new ValueIterator();
+            }
+        };
+    }
+
+    private class ValueIterator implements Iterator<V>
+    {
+        private final Object[] snapshot = values;
+        private int slot = advance( 0 );
+
+        private int advance( int from )
+        {
+            while ( from < snapshot.length && snapshot[from] == null )
+            {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return slot < snapshot.length;
+        }
+
+        @Override
+        @SuppressWarnings( "unchecked" )
+        public V next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+            V value = (V) snapshot[slot];
+            slot = advance( slot + 1 );
+            return value;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder( "{" );
+        for ( int i = 0; i < values.length; i++ )
+        {
+            if ( values[i] != null )
+            {
+                builder.append( builder.length() > 1 ? ", " : "" ).append( keys[i] ).append( '=' ).append( values[i] );
+            }
+        }
+        return builder.append( '}' ).toString();
+    }
+}
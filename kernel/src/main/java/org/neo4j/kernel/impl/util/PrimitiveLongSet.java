@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of primitive longs kept in a single open addressing table, see
+ * {@link PrimitiveLongObjectMap}. The primitive methods don't box, the
+ * {@link java.util.Set} methods are there so that it can be handed to code
+ * expecting a {@code Collection<Long>}. Not thread safe.
+ */
+public class PrimitiveLongSet extends AbstractSet<Long>
+{
+    private long[] keys;
+    private boolean[] used;
+    private int size;
+
+    public PrimitiveLongSet()
+    {
+        this( 0 );
+    }
+
+    public PrimitiveLongSet( int expectedSize )
+    {
+        allocate( PrimitiveLongObjectMap.capacityFor( expectedSize ) );
+    }
+
+    private void allocate( int capacity )
+    {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    private int slotOf( long key )
+    {
+        int mask = keys.length - 1;
+        int slot = PrimitiveLongObjectMap.hash( key ) & mask;
+        while ( used[slot] && keys[slot] != key )
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    public boolean contains( long key )
+    {
+        return used[slotOf( key )];
+    }
+
+    public boolean add( long key )
+    {
+        int slot = slotOf( key );
+        if ( used[slot] )
+        {
+            return false;
+        }
+        keys[slot] = key;
+        used[slot] = true;
+        if ( ++size * 4 > keys.length * 3 )
+        {
+            rehash( keys.length << 1 );
+        }
+        return true;
+    }
+
+    public boolean remove( long key )
+    {
+        int slot = slotOf( key );
+        if ( !used[slot] )
+        {
+            return false;
+        }
+        // Same backward shift deletion as in PrimitiveLongObjectMap
+        int mask = keys.length - 1;
+        int hole = slot;
+        for ( int i = (hole + 1) & mask; used[i]; i = (i + 1) & mask )
+        {
+            int home = PrimitiveLongObjectMap.hash( keys[i] ) & mask;
+            boolean reachableFromHome = hole <= i ? home <= hole || home > i : home <= hole && home > i;
+            if ( reachableFromHome )
+            {
+                keys[hole] = keys[i];
+                hole = i;
+            }
+        }
+        used[hole] = false;
+        size--;
+        return true;
+    }
+
+    private void rehash( int capacity )
+    {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        allocate( capacity );
+        for ( int i = 0; i < oldUsed.length; i++ )
+        {
+            if ( oldUsed[i] )
+            {
+                int slot = slotOf( oldKeys[i] );
+                keys[slot] = oldKeys[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    /**
+     * @return an iterator over the values in this set, in no particular order,
+     * which doesn't box them. The set must not be modified while iterating.
+     */
+    public PrimitiveLongIterator primitiveIterator()
+    {
+        return new PrimitiveLongIterator()
+        {
+            private final long[] keySnapshot = keys;
+            private final boolean[] usedSnapshot = used;
+            private int slot = advance( 0 );
+
+            private int advance( int from )
+            {
+                while ( from < usedSnapshot.length && !usedSnapshot[from] )
+                {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return slot < usedSnapshot.length;
+            }
+
+            @Override
+            public long next()
+            {
+                if ( !hasNext() )
+                {
+                    throw new NoSuchElementException();
+                }
+                long value = keySnapshot[slot];
+                slot = advance( slot + 1 );
+                return value;
+            }
+        };
+    }
+
+    @Override
+    public boolean contains( Object o )
+    {
+        return o instanceof Long && contains( ((Long) o).longValue() );
+    }
+
+    @Override
+    public boolean add( Long value )
+    {
+        return add( value.longValue() );
+    }
+
+    @Override
+    public boolean remove( Object o )
+    {
+        return o instanceof Long && remove( ((Long) o).longValue() );
+    }
+
+    @Override
+    public Iterator<Long> iterator()
+    {
+        final PrimitiveLongIterator source = primitiveIterator();
+        return new Iterator<Long>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return source.hasNext();
+            }
+
+            @Override
+            public Long next()
+            {
+                return source.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public void clear()
+    {
+        size = 0;
+        Arrays.fill( used, false );
+    }
+}
@@ -840,7 +840,7 @@ public class RelIdArray implements SizeOf
                 for ( RelIdIteratorImpl fromIterator = (RelIdIteratorImpl) add.iterator( DirectionWrapper.BOTH ); fromIterator.hasNext();)
                 {
                     long value = fromIterator.next();
-                    if ( !remove.contains( value ) )
+                    if ( !contains( remove, value ) )
                     {
                         newArray.add( value, fromIterator.currentDirection );
                     }
@@ -850,12 +850,19 @@ public class RelIdArray implements SizeOf
         }
     }
 
+    private static boolean contains( Collection<Long> ids, long id )
+    {
+        // Removed relationships are kept in a PrimitiveLongSet, look them up
+        // without boxing
+        return ids instanceof PrimitiveLongSet ? ((PrimitiveLongSet) ids).contains( id ) : ids.contains( id );
+    }
+
     private static void evictExcluded( RelIdArray ids, Collection<Long> excluded )
     {
         for ( RelIdIteratorImpl iterator = (RelIdIteratorImpl) DirectionWrapper.BOTH.iterator( ids ); iterator.hasNext(); )
         {
             long value = iterator.next();
-            if ( excluded.contains( value ) )
+            if ( contains( excluded, value ) )
             {
                 boolean swapSuccessful = false;
                 IteratorState state = iterator.currentState;
@@ -864,7 +871,7 @@ public class RelIdArray implements SizeOf
                 {
                     long backValue = block.get( j );
                     block.ids[0] = block.ids[0]-1;
-                    if ( !excluded.contains( backValue) )
+                    if ( !contains( excluded, backValue ) )
                     {
                         block.set( backValue, state.relativePosition-1 );
                         swapSuccessful = true;
@@ -278,12 +278,7 @@ public class BatchInserterImpl implements BatchInserter
     {
         boolean result = false;
         long nextProp = primitive.getNextProp();
-        int index = indexHolder.getKeyId( name );
-
-        if ( index == -1 )
-        {
-            index = createNewPropertyIndex( name );
-        }
+        int index = getOrCreatePropertyKeyId( name );
         PropertyBlock block = new PropertyBlock();
         getPropertyStore().encodeValue( block, index, value );
         int size = block.getSize();
@@ -440,21 +435,32 @@ public class BatchInserterImpl implements BatchInserter
     {
         NodeRecord firstNode = getNodeRecord( node1 );
         NodeRecord secondNode = getNodeRecord( node2 );
-        int typeId = typeHolder.getTypeId( type.name() );
-        if ( typeId == -1 )
-        {
-            typeId = createNewRelationshipType( type.name() );
-        }
+        int typeId = getOrCreateRelationshipTypeId( type.name() );
         long id = getRelationshipStore().nextId();
-        RelationshipRecord record = new RelationshipRecord( id, node1, node2, typeId );
+        createRelationship( id, firstNode, secondNode, typeId, createPropertyChain( properties ) );
+        return id;
+    }
+
+    /**
+     * Creates a relationship with an already reserved id, resolved type and
+     * already written property chain.
+     */
+    void createRelationship( long id, long node1, long node2, int typeId, long firstPropertyId )
+    {
+        createRelationship( id, getNodeRecord( node1 ), getNodeRecord( node2 ), typeId, firstPropertyId );
+    }
+
+    private void createRelationship( long id, NodeRecord firstNode, NodeRecord secondNode, int typeId,
+            long firstPropertyId )
+    {
+        RelationshipRecord record = new RelationshipRecord( id, firstNode.getId(), secondNode.getId(), typeId );
         record.setInUse( true );
         record.setCreated();
         connectRelationship( firstNode, secondNode, record );
         getNodeStore().updateRecord( firstNode );
         getNodeStore().updateRecord( secondNode );
-        record.setNextProp( createPropertyChain( properties ) );
+        record.setNextProp( firstPropertyId );
         getRelationshipStore().updateRecord( record );
-        return id;
     }
 
     private void connectRelationship( NodeRecord firstNode,
@@ -729,22 +735,49 @@ public class BatchInserterImpl implements BatchInserter
         {
             return Record.NO_NEXT_PROPERTY.intValue();
         }
+        int[] keyIds = new int[properties.size()];
+        Object[] values = new Object[properties.size()];
+        int i = 0;
+        for ( Entry<String,Object> entry : properties.entrySet() )
+        {
+            keyIds[i] = getOrCreatePropertyKeyId( entry.getKey() );
+            values[i++] = entry.getValue();
+        }
+        List<PropertyRecord> propRecords = createPropertyRecords( keyIds, values );
+        /*
+         * Add the property records in reverse order, which means largest
+         * id first. That is to make sure we expand the property store file
+         * only once.
+         */
+        PropertyStore propStore = getPropertyStore();
+        for ( i = propRecords.size() - 1; i >=0; i-- )
+        {
+            propStore.updateRecord( propRecords.get( i ) );
+        }
+        /*
+         *  0 will always exist, if the map was empty we wouldn't be here
+         *  and even one property will create at least one record.
+         */
+        return propRecords.get( 0 ).getId();
+    }
+
+    /**
+     * Encodes already resolved property keys and their values into a chain of
+     * property records, without writing them. Only allocates ids from the
+     * stores and so may be called from multiple threads concurrently.
+     */
+    List<PropertyRecord> createPropertyRecords( int[] keyIds, Object[] values )
+    {
         PropertyStore propStore = getPropertyStore();
         List<PropertyRecord> propRecords = new ArrayList<PropertyRecord>();
         PropertyRecord currentRecord = new PropertyRecord( propStore.nextId() );
         currentRecord.setInUse( true );
         currentRecord.setCreated();
         propRecords.add( currentRecord );
-        for ( Entry<String,Object> entry : properties.entrySet() )
+        for ( int i = 0; i < keyIds.length; i++ )
         {
-            int keyId = indexHolder.getKeyId( entry.getKey() );
-            if ( keyId == -1 )
-            {
-                keyId = createNewPropertyIndex( entry.getKey() );
-            }
-
             PropertyBlock block = new PropertyBlock();
-            propStore.encodeValue( block, keyId, entry.getValue() );
+            propStore.encodeValue( block, keyIds[i], values[i] );
             if ( currentRecord.size() + block.getSize() > PropertyType.getPayloadSize() )
             {
                 // Here it means the current block is done for
@@ -762,20 +795,7 @@ public class BatchInserterImpl implements BatchInserter
             }
             currentRecord.addPropertyBlock( block );
         }
-        /*
-         * Add the property records in reverse order, which means largest
-         * id first. That is to make sure we expand the property store file
-         * only once.
-         */
-        for ( int i = propRecords.size() - 1; i >=0; i-- )
-        {
-            propStore.updateRecord( propRecords.get( i ) );
-        }
-        /*
-         *  0 will always exist, if the map was empty we wouldn't be here
-         *  and even one property will create at least one record.
-         */
-        return propRecords.get( 0 ).getId();
+        return propRecords;
     }
 
     private void deletePropertyChain( long nextProp )
@@ -830,6 +850,26 @@ public class BatchInserterImpl implements BatchInserter
         return properties;
     }
 
+    int getOrCreatePropertyKeyId( String stringKey )
+    {
+        int keyId = indexHolder.getKeyId( stringKey );
+        if ( keyId == -1 )
+        {
+            keyId = createNewPropertyIndex( stringKey );
+        }
+        return keyId;
+    }
+
+    int getOrCreateRelationshipTypeId( String name )
+    {
+        int typeId = typeHolder.getTypeId( name );
+        if ( typeId == -1 )
+        {
+            typeId = createNewRelationshipType( name );
+        }
+        return typeId;
+    }
+
     private int createNewPropertyIndex( String stringKey )
     {
         PropertyIndexStore idxStore = getPropertyIndexStore();
@@ -869,12 +909,12 @@ public class BatchInserterImpl implements BatchInserter
         return id;
     }
 
-    private NodeStore getNodeStore()
+    NodeStore getNodeStore()
     {
         return neoStore.getNodeStore();
     }
 
-    private PropertyStore getPropertyStore()
+    PropertyStore getPropertyStore()
     {
         return neoStore.getPropertyStore();
     }
@@ -884,7 +924,7 @@ public class BatchInserterImpl implements BatchInserter
         return getPropertyStore().getIndexStore();
     }
 
-    private RelationshipStore getRelationshipStore()
+    RelationshipStore getRelationshipStore()
     {
         return neoStore.getRelationshipStore();
     }
@@ -57,6 +57,40 @@ public final class BatchInserters
         return new BatchInserterImpl( storeDir, config );
     }
 
+    /**
+     * Get a {@link ParallelBatchImporter} importing through the given batch
+     * inserter, using one worker thread per available processor and
+     * {@link ParallelBatchImporter#DEFAULT_BATCH_SIZE} entities per batch.
+     * 
+     * @param inserter a batch inserter retrieved from one of the
+     *            {@code inserter} methods
+     * @return a new {@link ParallelBatchImporter}
+     */
+    public static ParallelBatchImporter parallelImporter( BatchInserter inserter )
+    {
+        return parallelImporter( inserter, Runtime.getRuntime().availableProcessors(),
+                ParallelBatchImporter.DEFAULT_BATCH_SIZE );
+    }
+
+    /**
+     * Get a {@link ParallelBatchImporter} importing through the given batch
+     * inserter.
+     * 
+     * @param inserter a batch inserter retrieved from one of the
+     *            {@code inserter} methods
+     * @param workers the number of threads encoding properties
+     * @param batchSize the number of nodes or relationships per batch
+     * @return a new {@link ParallelBatchImporter}
+     */
+    public static ParallelBatchImporter parallelImporter( BatchInserter inserter, int workers, int batchSize )
+    {
+        if ( !(inserter instanceof BatchInserterImpl) )
+        {
+            throw new IllegalArgumentException( inserter + " isn't a batch inserter from BatchInserters" );
+        }
+        return new ParallelBatchImporter( (BatchInserterImpl) inserter, workers, batchSize );
+    }
+
     /**
      * Get a {@link GraphDatabaseService} that does not support deletions and
      * transactions.
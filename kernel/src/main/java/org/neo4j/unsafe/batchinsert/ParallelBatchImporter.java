@@ -0,0 +1,464 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.batchinsert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.helpers.DaemonThreadFactory;
+import org.neo4j.kernel.impl.nioneo.store.CommonAbstractStore;
+import org.neo4j.kernel.impl.nioneo.store.IdGeneratorImpl;
+import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.nioneo.store.NodeStore;
+import org.neo4j.kernel.impl.nioneo.store.PropertyRecord;
+import org.neo4j.kernel.impl.nioneo.store.PropertyStore;
+import org.neo4j.kernel.impl.nioneo.store.Record;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipStore;
+import org.neo4j.kernel.impl.nioneo.store.UnderlyingStorageException;
+
+/**
+ * Imports streams of nodes and relationships through a {@link BatchInserter}
+ * using a staged pipeline:
+ * <ol>
+ * <li>The calling thread reads the input in batches, resolves property keys
+ * and relationship types and reserves a range of ids for each batch.</li>
+ * <li>Worker threads encode the properties of the batches into property
+ * records.</li>
+ * <li>A single writer thread writes the records of each batch, in the order
+ * the batches were read and in id order within each batch, linking the
+ * relationships into the relationship chains of their nodes.</li>
+ * </ol>
+ * The batch inserter must not be used by anyone else while an import is
+ * running. Like for the batch inserter itself a failed import leaves the
+ * store in a non consistent state and the insertion has to be re-done from
+ * scratch. {@link #shutdown()} stops the threads of the importer, it doesn't
+ * shut down the batch inserter.
+ */
+public class ParallelBatchImporter
+{
+    public static final int DEFAULT_BATCH_SIZE = 10000;
+
+    private static final Comparator<PropertyRecord> LARGEST_ID_FIRST = new Comparator<PropertyRecord>()
+    {
+        @Override
+        public int compare( PropertyRecord o1, PropertyRecord o2 )
+        {
+            return o1.getId() < o2.getId() ? 1 : o1.getId() > o2.getId() ? -1 : 0;
+        }
+    };
+
+    private final BatchInserterImpl inserter;
+    private final int batchSize;
+    private final ExecutorService workers;
+    private final ExecutorService writer;
+    private final Semaphore batchesInFlight;
+    private volatile Throwable failure;
+
+    ParallelBatchImporter( BatchInserterImpl inserter, int workerCount, int batchSize )
+    {
+        if ( workerCount < 1 )
+        {
+            throw new IllegalArgumentException( "workerCount=" + workerCount );
+        }
+        if ( batchSize < 1 )
+        {
+            throw new IllegalArgumentException( "batchSize=" + batchSize );
+        }
+        this.inserter = inserter;
+        this.batchSize = batchSize;
+        this.workers = Executors.newFixedThreadPool( workerCount,
+                new DaemonThreadFactory( "Batch import worker" ) );
+        this.writer = Executors.newSingleThreadExecutor( new DaemonThreadFactory( "Batch import writer" ) );
+        // Bounds the memory held by read but not yet written batches
+        this.batchesInFlight = new Semaphore( workerCount * 2 );
+    }
+
+    /**
+     * Creates a node for each map of properties, a map may be empty or
+     * <code>null</code> for nodes without properties. The nodes get
+     * consecutive ids in the order they are read from the iterator, starting
+     * from the returned id. When this method returns all nodes are written.
+     *
+     * @param nodes the properties of the nodes to create.
+     * @return the id of the first created node.
+     */
+    public long importNodes( Iterator<Map<String,Object>> nodes )
+    {
+        assertNotFailed();
+        NodeStore nodeStore = inserter.getNodeStore();
+        long firstId = nodeStore.getHighId();
+        try
+        {
+            while ( nodes.hasNext() && failure == null )
+            {
+                List<Map<String,Object>> properties = new ArrayList<Map<String,Object>>( batchSize );
+                for ( int i = 0; i < batchSize && nodes.hasNext(); i++ )
+                {
+                    properties.add( nodes.next() );
+                }
+                long startId = nodeStore.getHighId();
+                if ( startId <= IdGeneratorImpl.INTEGER_MINUS_ONE &&
+                        startId + properties.size() > IdGeneratorImpl.INTEGER_MINUS_ONE )
+                {
+                    throw new IllegalStateException( "Node ids " + startId + "-" +
+                            (startId + properties.size() - 1) + " would include reserved id " +
+                            IdGeneratorImpl.INTEGER_MINUS_ONE + ", import these nodes in a separate call" );
+                }
+                nodeStore.setHighId( startId + properties.size() );
+                submit( new NodeBatch( startId, properties.size() ), encode( properties ) );
+            }
+        }
+        finally
+        {
+            awaitWrites();
+        }
+        assertNotFailed();
+        return firstId;
+    }
+
+    /**
+     * Creates the given relationships between already existing nodes. When
+     * this method returns all relationships are written.
+     *
+     * @param relationships the relationships to create.
+     */
+    public void importRelationships( Iterator<RelationshipData> relationships )
+    {
+        assertNotFailed();
+        RelationshipStore relStore = inserter.getRelationshipStore();
+        try
+        {
+            while ( relationships.hasNext() && failure == null )
+            {
+                List<RelationshipData> batch = new ArrayList<RelationshipData>( batchSize );
+                for ( int i = 0; i < batchSize && relationships.hasNext(); i++ )
+                {
+                    batch.add( relationships.next() );
+                }
+                int[] typeIds = new int[batch.size()];
+                List<Map<String,Object>> properties = new ArrayList<Map<String,Object>>( batch.size() );
+                for ( int i = 0; i < typeIds.length; i++ )
+                {
+                    typeIds[i] = inserter.getOrCreateRelationshipTypeId( batch.get( i ).getType().name() );
+                    properties.add( batch.get( i ).getProperties() );
+                }
+                long startId = reserveIds( relStore, batch.size() );
+                submit( new RelationshipBatch( startId, batch, typeIds ), encode( properties ) );
+            }
+        }
+        finally
+        {
+            awaitWrites();
+        }
+        assertNotFailed();
+    }
+
+    /**
+     * Stops the worker and writer threads of this importer. The batch
+     * inserter is left open.
+     */
+    public void shutdown()
+    {
+        workers.shutdown();
+        writer.shutdown();
+    }
+
+    private long reserveIds( CommonAbstractStore store, int count )
+    {
+        long startId = store.getHighId();
+        if ( startId <= IdGeneratorImpl.INTEGER_MINUS_ONE && startId + count > IdGeneratorImpl.INTEGER_MINUS_ONE )
+        {
+            // Skip the integer -1, it represents the end of chains
+            startId = IdGeneratorImpl.INTEGER_MINUS_ONE + 1;
+        }
+        store.setHighId( startId + count );
+        return startId;
+    }
+
+    /*
+     * Resolves the property keys on the calling thread, since new keys are
+     * written to the property index store, and hands the encoding of the
+     * values over to a worker.
+     */
+    private Future<List<PropertyRecord>[]> encode( List<Map<String,Object>> properties )
+    {
+        final int[][] keyIds = new int[properties.size()][];
+        final Object[][] values = new Object[properties.size()][];
+        for ( int i = 0; i < keyIds.length; i++ )
+        {
+            Map<String,Object> entityProperties = properties.get( i );
+            if ( entityProperties == null || entityProperties.isEmpty() )
+            {
+                continue;
+            }
+            keyIds[i] = new int[entityProperties.size()];
+            values[i] = new Object[entityProperties.size()];
+            int p = 0;
+            for ( Entry<String,Object> property : entityProperties.entrySet() )
+            {
+                keyIds[i][p] = inserter.getOrCreatePropertyKeyId( property.getKey() );
+                values[i][p++] = property.getValue();
+            }
+        }
+        return workers.submit( new Callable<List<PropertyRecord>[]>()
+        {
+            @Override
+            @SuppressWarnings( "unchecked" )
+            public List<PropertyRecord>[] call()
+            {
+                List<PropertyRecord>[] result = new List[keyIds.length];
+                for ( int i = 0; i < keyIds.length; i++ )
+                {
+                    if ( keyIds[i] != null )
+                    {
+                        result[i] = inserter.createPropertyRecords( keyIds[i], values[i] );
+                    }
+                }
+                return result;
+            }
+        } );
+    }
+
+    private void submit( final Batch batch, final Future<List<PropertyRecord>[]> properties )
+    {
+        try
+        {
+            batchesInFlight.acquire();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            properties.cancel( false );
+            throw new UnderlyingStorageException( "Interrupted while importing", e );
+        }
+        writer.submit( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    if ( failure == null )
+                    {
+                        batch.write( properties.get() );
+                    }
+                }
+                catch ( ExecutionException e )
+                {
+                    failure = e.getCause();
+                }
+                catch ( Throwable e )
+                {
+                    failure = e;
+                }
+                finally
+                {
+                    batchesInFlight.release();
+                }
+            }
+        } );
+    }
+
+    private void awaitWrites()
+    {
+        try
+        {
+            // The writer is single threaded so this runs after all batches submitted so far
+            writer.submit( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                }
+            } ).get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new UnderlyingStorageException( "Interrupted while importing", e );
+        }
+        catch ( ExecutionException e )
+        {
+            throw new UnderlyingStorageException( e.getCause() );
+        }
+    }
+
+    private void assertNotFailed()
+    {
+        Throwable cause = failure;
+        if ( cause == null )
+        {
+            return;
+        }
+        if ( cause instanceof RuntimeException )
+        {
+            throw (RuntimeException) cause;
+        }
+        if ( cause instanceof Error )
+        {
+            throw (Error) cause;
+        }
+        throw new UnderlyingStorageException( cause );
+    }
+
+    private void writePropertyRecords( List<PropertyRecord>[] properties )
+    {
+        List<PropertyRecord> records = new ArrayList<PropertyRecord>();
+        for ( List<PropertyRecord> chain : properties )
+        {
+            if ( chain != null )
+            {
+                records.addAll( chain );
+            }
+        }
+        // Largest id first, to expand the property store file only once
+        Collections.sort( records, LARGEST_ID_FIRST );
+        PropertyStore propStore = inserter.getPropertyStore();
+        for ( PropertyRecord record : records )
+        {
+            propStore.updateRecord( record );
+        }
+    }
+
+    private static long firstPropertyId( List<PropertyRecord> chain )
+    {
+        return chain != null ? chain.get( 0 ).getId() : Record.NO_NEXT_PROPERTY.intValue();
+    }
+
+    private interface Batch
+    {
+        void write( List<PropertyRecord>[] properties );
+    }
+
+    private class NodeBatch implements Batch
+    {
+        private final long startId;
+        private final int count;
+
+        NodeBatch( long startId, int count )
+        {
+            this.startId = startId;
+            this.count = count;
+        }
+
+        @Override
+        public void write( List<PropertyRecord>[] properties )
+        {
+            writePropertyRecords( properties );
+            NodeStore nodeStore = inserter.getNodeStore();
+            for ( int i = 0; i < count; i++ )
+            {
+                NodeRecord record = new NodeRecord( startId + i, Record.NO_NEXT_RELATIONSHIP.intValue(),
+                        firstPropertyId( properties[i] ) );
+                record.setInUse( true );
+                record.setCreated();
+                nodeStore.updateRecord( record );
+            }
+        }
+    }
+
+    private class RelationshipBatch implements Batch
+    {
+        private final long startId;
+        private final List<RelationshipData> relationships;
+        private final int[] typeIds;
+
+        RelationshipBatch( long startId, List<RelationshipData> relationships, int[] typeIds )
+        {
+            this.startId = startId;
+            this.relationships = relationships;
+            this.typeIds = typeIds;
+        }
+
+        @Override
+        public void write( List<PropertyRecord>[] properties )
+        {
+            writePropertyRecords( properties );
+            // Linking into the relationship chains reads and updates the
+            // nodes and their previous first relationships, so it's done
+            // here in id order rather than on the workers
+            for ( int i = 0; i < typeIds.length; i++ )
+            {
+                RelationshipData data = relationships.get( i );
+                inserter.createRelationship( startId + i, data.getStartNode(), data.getEndNode(), typeIds[i],
+                        firstPropertyId( properties[i] ) );
+            }
+        }
+    }
+
+    /**
+     * A relationship to import with {@link ParallelBatchImporter#importRelationships(Iterator)}.
+     */
+    public static class RelationshipData
+    {
+        private final long startNode;
+        private final long endNode;
+        private final RelationshipType type;
+        private final Map<String,Object> properties;
+
+        /**
+         * @param startNode the id of the start node.
+         * @param endNode the id of the end node.
+         * @param type the type of the relationship.
+         * @param properties the properties of the relationship, or
+         *            <code>null</code> if it has none.
+         */
+        public RelationshipData( long startNode, long endNode, RelationshipType type,
+                Map<String,Object> properties )
+        {
+            this.startNode = startNode;
+            this.endNode = endNode;
+            this.type = type;
+            this.properties = properties;
+        }
+
+        public long getStartNode()
+        {
+            return startNode;
+        }
+
+        public long getEndNode()
+        {
+            return endNode;
+        }
+
+        public RelationshipType getType()
+        {
+            return type;
+        }
+
+        public Map<String,Object> getProperties()
+        {
+            return properties;
+        }
+    }
+}
@@ -86,6 +86,14 @@ public class TestCacheTypes extends AbstractNeo4jTestCase
         db.shutdown();
     }
     
+    @Test
+    public void testOffHeapCache()
+    {
+        GraphDatabaseAPI db = newDb( OffHeapCacheProvider.NAME );
+        assertEquals( OffHeapCacheProvider.NAME, db.getNodeManager().getCacheType().getName() );
+        db.shutdown();
+    }
+
     @Test
     public void testInvalidCache()
     {
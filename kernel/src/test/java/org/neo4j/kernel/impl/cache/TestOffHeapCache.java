@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class TestOffHeapCache
+{
+    @Test
+    public void keepsRecentEntitiesOnTheHeap()
+    {
+        OffHeapCache<Entity> cache = newCache( 2, 1024 );
+        Entity entity = new Entity( 1, 10 );
+        cache.put( entity );
+
+        assertSame( entity, cache.get( 1 ) );
+    }
+
+    @Test
+    public void movesEntitiesThatDontFitOnTheHeapOffHeap()
+    {
+        OffHeapCache<Entity> cache = newCache( 2, 1024 );
+        Entity first = new Entity( 1, 10 );
+        cache.put( first );
+        cache.put( new Entity( 2, 20 ) );
+        cache.put( new Entity( 3, 30 ) );
+
+        assertEquals( 3, cache.size() );
+        Entity fromOffHeap = cache.get( 1 );
+        assertNotSame( first, fromOffHeap );
+        assertEquals( 10, fromOffHeap.value );
+        assertSame( fromOffHeap, cache.get( 1 ) );
+        assertEquals( 3, cache.size() );
+    }
+
+    @Test
+    public void evictsWhenOffHeapMemoryIsFull()
+    {
+        // a single set of slots
+        OffHeapCache<Entity> cache = newCache( 1, OffHeapCache.WAYS * (8 + 8) );
+        for ( int id = 0; id < OffHeapCache.WAYS * 4; id++ )
+        {
+            cache.put( new Entity( id, id ) );
+        }
+
+        assertEquals( 1 + OffHeapCache.WAYS, cache.size() );
+        assertNull( cache.get( 0 ) );
+        assertEquals( OffHeapCache.WAYS * 4 - 2, cache.get( OffHeapCache.WAYS * 4 - 2 ).value );
+    }
+
+    @Test
+    public void removesFromBothParts()
+    {
+        OffHeapCache<Entity> cache = newCache( 1, 1024 );
+        cache.put( new Entity( 1, 10 ) );
+        cache.put( new Entity( 2, 20 ) );
+
+        assertEquals( 10, cache.remove( 1 ).value );
+        assertEquals( 20, cache.remove( 2 ).value );
+        assertNull( cache.get( 1 ) );
+        assertNull( cache.get( 2 ) );
+        assertEquals( 0, cache.size() );
+    }
+
+    @Test
+    public void clearEmptiesBothParts()
+    {
+        OffHeapCache<Entity> cache = newCache( 1, 1024 );
+        cache.put( new Entity( 1, 10 ) );
+        cache.put( new Entity( 2, 20 ) );
+        cache.clear();
+
+        assertEquals( 0, cache.size() );
+        assertNull( cache.get( 1 ) );
+        assertNull( cache.get( 2 ) );
+        assertTrue( cache.missCount() > 0 );
+    }
+
+    private OffHeapCache<Entity> newCache( int heapSize, long offHeapMemory )
+    {
+        return new OffHeapCache<Entity>( "TestCache", new EntityCodec(), heapSize, offHeapMemory );
+    }
+
+    private static class Entity implements EntityWithSize
+    {
+        private final long id;
+        private final long value;
+
+        Entity( long id, long value )
+        {
+            this.id = id;
+            this.value = value;
+        }
+
+        public long getId()
+        {
+            return id;
+        }
+
+        public int size()
+        {
+            return 32;
+        }
+
+        public void setRegisteredSize( int size )
+        {
+        }
+
+        public int getRegisteredSize()
+        {
+            return 0;
+        }
+    }
+
+    private static class EntityCodec implements OffHeapCache.Codec<Entity>
+    {
+        public int recordSize()
+        {
+            return 8;
+        }
+
+        public void write( Entity entity, ByteBuffer buffer, int offset )
+        {
+            buffer.putLong( offset, entity.value );
+        }
+
+        public Entity read( long id, ByteBuffer buffer, int offset )
+        {
+            return new Entity( id, buffer.getLong( offset ) );
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.neo4j.helpers.collection.IteratorUtil.addToCollection;
 import static org.neo4j.helpers.collection.IteratorUtil.count;
 import static org.neo4j.helpers.collection.MapUtil.stringMap;
@@ -43,13 +44,15 @@ import org.neo4j.test.ImpermanentGraphDatabase;
 public class TestRelationshipGrabSize
 {
     private static final int GRAB_SIZE = 10;
+    private static final int DENSE_NODE_GRAB_SIZE = 20;
     private static ImpermanentGraphDatabase db;
     private Transaction tx;
 
     @BeforeClass
     public static void doBefore() throws Exception
     {
-        db = new ImpermanentGraphDatabase( stringMap( "relationship_grab_size", String.valueOf( GRAB_SIZE ) ) );
+        db = new ImpermanentGraphDatabase( stringMap( "relationship_grab_size", String.valueOf( GRAB_SIZE ),
+                "dense_node_relationship_grab_size", String.valueOf( DENSE_NODE_GRAB_SIZE ) ) );
     }
     
     @AfterClass
@@ -187,6 +190,34 @@ public class TestRelationshipGrabSize
         assertEquals( expectedCount, count( node1.getRelationships() ) );
     }
 
+    @Test
+    public void loadsRemainingRelationshipsOfDenseNodeInDenseNodeSizedBatches()
+    {
+        beginTx();
+        Node node1 = db.createNode();
+        Node node2 = db.createNode();
+        int expectedCount = GRAB_SIZE + DENSE_NODE_GRAB_SIZE + 5;
+        for ( int i = 0; i < expectedCount; i++ )
+        {
+            node1.createRelationshipTo( node2, TEST );
+        }
+        finishTx( true );
+        clearCache();
+
+        beginTx();
+        node1.getRelationships().iterator().next();
+        NodeManager nodeManager = db.getNodeManager();
+        NodeImpl nodeImpl = nodeManager.getNodeForProxy( node1.getId(), null );
+        assertTrue( nodeImpl.hasMoreRelationshipsToLoad() );
+        assertTrue( nodeImpl.getMoreRelationships( nodeManager ) );
+        assertTrue( nodeImpl.hasMoreRelationshipsToLoad() );
+        assertTrue( nodeImpl.getMoreRelationships( nodeManager ) );
+        assertFalse( nodeImpl.hasMoreRelationshipsToLoad() );
+        assertFalse( nodeImpl.getMoreRelationships( nodeManager ) );
+        assertEquals( expectedCount, count( node1.getRelationships() ) );
+        finishTx( true );
+    }
+
     @Test
     public void grabSizeWithTwoTypesDeleteAndCount()
     {
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.kernel.impl.AbstractNeo4jTestCase;
+
+public class TestPersistenceWindowPool
+{
+    private static final int RECORD_SIZE = 9;
+    private static final int RECORDS = 1000;
+
+    private RandomAccessFile file;
+    private PersistenceWindowPool pool;
+
+    @Before
+    public void createPool() throws IOException
+    {
+        File path = new File( AbstractNeo4jTestCase.getStorePath( "windowpool" ) );
+        path.mkdirs();
+        File storeFile = new File( path, "store.db" );
+        storeFile.delete();
+        file = new RandomAccessFile( storeFile, "rw" );
+        file.setLength( RECORD_SIZE * RECORDS );
+        FileChannel channel = file.getChannel();
+        pool = new PersistenceWindowPool( "store.db", RECORD_SIZE, channel, 1024 * 1024, true, false );
+    }
+
+    @After
+    public void closePool() throws IOException
+    {
+        pool.close();
+        file.close();
+    }
+
+    @Test
+    public void readsWhatWasWritten()
+    {
+        for ( int id = 0; id < RECORDS * 2; id++ )
+        {
+            write( id, id );
+        }
+        for ( int id = 0; id < RECORDS * 2; id++ )
+        {
+            assertEquals( id, read( id ) );
+        }
+
+        WindowPoolStats stats = pool.getStats();
+        assertEquals( RECORDS * 4, stats.getHitCount() + stats.getMissCount() );
+        assertEquals( 0, stats.getWindowLockWaitTime() );
+    }
+
+    @Test
+    public void concurrentReadersAndWritersSeeTheirOwnRecords() throws Exception
+    {
+        final int threadCount = 8;
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for ( int t = 0; t < threadCount; t++ )
+        {
+            final int offset = t;
+            threads.add( new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        for ( int round = 0; round < 10; round++ )
+                        {
+                            for ( int id = offset; id < RECORDS * 2; id += threadCount )
+                            {
+                                write( id, id * 10 + round );
+                                assertEquals( id * 10 + round, read( id ) );
+                            }
+                        }
+                    }
+                    catch ( Throwable e )
+                    {
+                        failure.compareAndSet( null, e );
+                    }
+                }
+            } );
+        }
+        for ( Thread thread : threads )
+        {
+            thread.start();
+        }
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+        if ( failure.get() != null )
+        {
+            throw new AssertionError( failure.get() );
+        }
+    }
+
+    private void write( long id, long value )
+    {
+        PersistenceWindow window = pool.acquire( id, OperationType.WRITE );
+        try
+        {
+            window.getOffsettedBuffer( id ).putLong( value );
+        }
+        finally
+        {
+            pool.release( window );
+        }
+    }
+
+    private long read( long id )
+    {
+        PersistenceWindow window = pool.acquire( id, OperationType.READ );
+        try
+        {
+            return window.getOffsettedBuffer( id ).getLong();
+        }
+        finally
+        {
+            pool.release( window );
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures lock acquire/release throughput of {@link LockManager} for an
+ * increasing number of threads, each locking resources of its own, comparing
+ * a single stripe (all threads going through one monitor) with the default
+ * striping. Run it as a main class, it's not a unit test.
+ */
+public class LockManagerPerformance
+{
+    private static final int[] THREADS = { 1, 2, 4, 8, 16, 32, 64 };
+    private static final int RESOURCES_PER_THREAD = 1000;
+    private static final long RUN_TIME = TimeUnit.SECONDS.toMillis( 2 );
+
+    public static void main( String[] args ) throws Exception
+    {
+        System.out.println( "threads\tsingle stripe (ops/s)\tstriped (ops/s)" );
+        for ( int threads : THREADS )
+        {
+            long single = measure( new LockManager( new RagManager( new PlaceboTm() ), 1 ), threads );
+            long striped = measure( new LockManager( new RagManager( new PlaceboTm() ) ), threads );
+            System.out.println( threads + "\t" + single + "\t" + striped );
+        }
+    }
+
+    private static long measure( final LockManager lockManager, int threads ) throws InterruptedException
+    {
+        final AtomicLong operations = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final long[] endTime = new long[1];
+        Thread[] workers = new Thread[threads];
+        for ( int i = 0; i < threads; i++ )
+        {
+            final int offset = i * RESOURCES_PER_THREAD;
+            workers[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    awaitStart( start );
+                    long count = 0;
+                    while ( System.currentTimeMillis() < endTime[0] )
+                    {
+                        for ( int r = 0; r < RESOURCES_PER_THREAD; r++ )
+                        {
+                            Long resource = Long.valueOf( offset + r );
+                            lockManager.getWriteLock( resource );
+                            lockManager.releaseWriteLock( resource, null );
+                        }
+                        count += RESOURCES_PER_THREAD;
+                    }
+                    operations.addAndGet( count );
+                }
+            };
+            workers[i].start();
+        }
+        endTime[0] = System.currentTimeMillis() + RUN_TIME;
+        start.countDown();
+        for ( Thread worker : workers )
+        {
+            worker.join();
+        }
+        return operations.get() * 1000 / RUN_TIME;
+    }
+
+    private static void awaitStart( CountDownLatch start )
+    {
+        try
+        {
+            start.await();
+        }
+        catch ( InterruptedException e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+}
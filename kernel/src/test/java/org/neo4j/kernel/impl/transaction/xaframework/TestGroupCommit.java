@@ -0,0 +1,328 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.xaframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.helpers.collection.MapUtil;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.test.ImpermanentGraphDatabase;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+public class TestGroupCommit
+{
+    @Test
+    public void singleCommitterForcesItself() throws Exception
+    {
+        final GroupCommit groupCommit = new GroupCommit( 0, 10 );
+        final AtomicInteger forces = new AtomicInteger();
+        groupCommit.appended();
+        groupCommit.awaitForced( new GroupCommit.Force()
+        {
+            @Override
+            public long force()
+            {
+                forces.incrementAndGet();
+                return groupCommit.getAppended();
+            }
+        } );
+
+        assertEquals( 1, forces.get() );
+        assertEquals( 1, groupCommit.getNumberOfForces() );
+        assertEquals( 1, groupCommit.getNumberOfForcedCommits() );
+    }
+
+    @Test
+    public void commitsAppendedDuringForceShareTheNextForce() throws Exception
+    {
+        final GroupCommit groupCommit = new GroupCommit( 0, 10 );
+        final CountDownLatch forceStarted = new CountDownLatch( 1 );
+        final CountDownLatch releaseForce = new CountDownLatch( 1 );
+        final AtomicInteger forces = new AtomicInteger();
+        final GroupCommit.Force force = new GroupCommit.Force()
+        {
+            @Override
+            public long force() throws IOException
+            {
+                long covered = groupCommit.getAppended();
+                if ( forces.incrementAndGet() == 1 )
+                {
+                    forceStarted.countDown();
+                    await( releaseForce );
+                }
+                return covered;
+            }
+        };
+
+        groupCommit.appended();
+        Thread first = committer( groupCommit, force, false );
+        first.start();
+        await( forceStarted );
+
+        Thread[] others = new Thread[5];
+        for ( int i = 0; i < others.length; i++ )
+        {
+            others[i] = committer( groupCommit, force, true );
+            others[i].start();
+        }
+        while ( groupCommit.getAppended() < 1 + others.length )
+        {
+            Thread.sleep( 1 );
+        }
+        releaseForce.countDown();
+        first.join();
+        for ( Thread other : others )
+        {
+            other.join();
+        }
+
+        assertEquals( 2, forces.get() );
+        assertEquals( 1 + others.length, groupCommit.getNumberOfForcedCommits() );
+        assertEquals( others.length, groupCommit.getLargestBatchSize() );
+    }
+
+    @Test
+    public void waitingCommitterRetriesFailedForce() throws Exception
+    {
+        final GroupCommit groupCommit = new GroupCommit( 0, 10 );
+        final AtomicInteger forces = new AtomicInteger();
+        GroupCommit.Force failingOnce = new GroupCommit.Force()
+        {
+            @Override
+            public long force() throws IOException
+            {
+                if ( forces.incrementAndGet() == 1 )
+                {
+                    throw new IOException( "Simulated failure" );
+                }
+                return groupCommit.getAppended();
+            }
+        };
+
+        groupCommit.appended();
+        try
+        {
+            groupCommit.awaitForced( failingOnce );
+            fail( "Should have failed to force" );
+        }
+        catch ( IOException e )
+        {   // Good
+        }
+        assertEquals( 0, groupCommit.getNumberOfForcedCommits() );
+
+        groupCommit.awaitForced( failingOnce );
+        assertEquals( 2, forces.get() );
+        assertEquals( 1, groupCommit.getNumberOfForcedCommits() );
+    }
+
+    @Test
+    public void leaderWaitsForBatchToFillUpWithinMaxDelay() throws Exception
+    {
+        final GroupCommit groupCommit = new GroupCommit( TimeUnit.SECONDS.toMillis( 10 ), 3 );
+        final AtomicInteger forces = new AtomicInteger();
+        GroupCommit.Force force = new GroupCommit.Force()
+        {
+            @Override
+            public long force()
+            {
+                forces.incrementAndGet();
+                return groupCommit.getAppended();
+            }
+        };
+        Thread[] committers = new Thread[3];
+        for ( int i = 0; i < committers.length; i++ )
+        {
+            committers[i] = committer( groupCommit, force, true );
+            committers[i].start();
+        }
+        for ( Thread committer : committers )
+        {
+            committer.join( TimeUnit.SECONDS.toMillis( 5 ) );
+            assertTrue( "Batch was full, but leader kept waiting", !committer.isAlive() );
+        }
+        assertEquals( 1, forces.get() );
+        assertEquals( 3, groupCommit.getLargestBatchSize() );
+    }
+
+    @Test
+    public void concurrentTransactionsAreAllCommittedWithGroupCommit() throws Exception
+    {
+        final GraphDatabaseAPI db = new ImpermanentGraphDatabase( MapUtil.stringMap(
+                GraphDatabaseSettings.group_commit_enabled.name(), "true" ) );
+        try
+        {
+            Thread[] committers = new Thread[10];
+            final int txPerThread = 50;
+            for ( int i = 0; i < committers.length; i++ )
+            {
+                committers[i] = new Thread()
+                {
+                    @Override
+                    public void run()
+                    {
+                        for ( int j = 0; j < txPerThread; j++ )
+                        {
+                            Transaction tx = db.beginTx();
+                            db.createNode();
+                            tx.success();
+                            tx.finish();
+                        }
+                    }
+                };
+                committers[i].start();
+            }
+            for ( Thread committer : committers )
+            {
+                committer.join();
+            }
+
+            GroupCommit groupCommit = db.getXaDataSourceManager().getNeoStoreDataSource().getXaContainer()
+                    .getLogicalLog().getGroupCommit();
+            int transactions = committers.length * txPerThread;
+            assertEquals( transactions, groupCommit.getNumberOfForcedCommits() );
+            assertTrue( groupCommit.getNumberOfForces() <= transactions );
+            assertEquals( transactions + 1 /*reference node*/,
+                    IteratorUtil.count( GlobalGraphOperations.at( db ).getAllNodes() ) );
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+
+    @Test
+    public void storeIsNotUpdatedBeforeTheCommitIsForced() throws Exception
+    {
+        final GraphDatabaseAPI db = new ImpermanentGraphDatabase( MapUtil.stringMap(
+                GraphDatabaseSettings.group_commit_enabled.name(), "true" ) );
+        try
+        {
+            XaDataSource dataSource = db.getXaDataSourceManager().getNeoStoreDataSource();
+            // The force of a single commit waits for the batch to fill up
+            dataSource.getXaContainer().getLogicalLog().setGroupCommit(
+                    new GroupCommit( TimeUnit.SECONDS.toMillis( 3 ), 2 ) );
+            long lastCommittedTx = dataSource.getLastCommittedTxId();
+
+            Thread committer = nodeCreator( db );
+            committer.start();
+            committer.join( 500 );
+            assertTrue( "Committed before waiting for the force", committer.isAlive() );
+            assertEquals( lastCommittedTx, dataSource.getLastCommittedTxId() );
+
+            committer.join();
+            assertEquals( lastCommittedTx + 1, dataSource.getLastCommittedTxId() );
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+
+    @Test
+    public void transactionsShareAForceWhileWaitingForIt() throws Exception
+    {
+        final GraphDatabaseAPI db = new ImpermanentGraphDatabase( MapUtil.stringMap(
+                GraphDatabaseSettings.group_commit_enabled.name(), "true" ) );
+        try
+        {
+            XaDataSource dataSource = db.getXaDataSourceManager().getNeoStoreDataSource();
+            GroupCommit groupCommit = new GroupCommit( TimeUnit.SECONDS.toMillis( 30 ), 2 );
+            dataSource.getXaContainer().getLogicalLog().setGroupCommit( groupCommit );
+            long lastCommittedTx = dataSource.getLastCommittedTxId();
+
+            Thread first = nodeCreator( db );
+            Thread second = nodeCreator( db );
+            first.start();
+            second.start();
+            first.join( TimeUnit.SECONDS.toMillis( 10 ) );
+            second.join( TimeUnit.SECONDS.toMillis( 10 ) );
+            assertTrue( "The second commit couldn't join the force of the first",
+                    !first.isAlive() && !second.isAlive() );
+
+            assertEquals( 1, groupCommit.getNumberOfForces() );
+            assertEquals( lastCommittedTx + 2, dataSource.getLastCommittedTxId() );
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+
+    private Thread nodeCreator( final GraphDatabaseAPI db )
+    {
+        return new Thread()
+        {
+            @Override
+            public void run()
+            {
+                Transaction tx = db.beginTx();
+                db.createNode();
+                tx.success();
+                tx.finish();
+            }
+        };
+    }
+
+    private Thread committer( final GroupCommit groupCommit, final GroupCommit.Force force, final boolean append )
+    {
+        return new Thread()
+        {
+            @Override
+            public void run()
+            {
+                if ( append )
+                {
+                    groupCommit.appended();
+                }
+                try
+                {
+                    groupCommit.awaitForced( force );
+                }
+                catch ( IOException e )
+                {
+                    throw new RuntimeException( e );
+                }
+            }
+        };
+    }
+
+    private static void await( CountDownLatch latch ) throws IOException
+    {
+        try
+        {
+            latch.await();
+        }
+        catch ( InterruptedException e )
+        {
+            throw new IOException( e );
+        }
+    }
+}
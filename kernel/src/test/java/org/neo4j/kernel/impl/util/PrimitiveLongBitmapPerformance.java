@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares {@link PrimitiveLongBitmap} with {@link PrimitiveLongSet} and
+ * {@link HashSet} of boxed longs the way a globally unique traversal uses
+ * them: add ids in the order they're visited and check for each one whether
+ * it was already there. Both a traversal of all ids in a store, in random
+ * order, and one visiting every hundredth id are measured. Prints time per
+ * round and the heap retained by a full set. Run it as a main class, it's
+ * not a unit test. Optional arguments are the number of ids and of rounds.
+ */
+public class PrimitiveLongBitmapPerformance
+{
+    private static final int SPARSENESS = 100;
+
+    public static void main( String[] args )
+    {
+        int size = args.length > 0 ? Integer.parseInt( args[0] ) : 1000000;
+        int rounds = args.length > 1 ? Integer.parseInt( args[1] ) : 10;
+        System.out.println( size + " ids, " + rounds + " rounds" );
+        System.out.println( "collection\tids\tms/round\tbytes/entry" );
+        long[] dense = visitOrder( size, 1 );
+        long[] sparse = visitOrder( size, SPARSENESS );
+        for ( int warmup = 0; warmup < 2; warmup++ )
+        {
+            for ( long[] ids : new long[][] { dense, sparse } )
+            {
+                String kind = ids == dense ? "all" : "1/" + SPARSENESS;
+                measureBitmap( ids, rounds, warmup == 1 ? kind : null );
+                measureSet( ids, rounds, warmup == 1 ? kind : null );
+                measureHashSet( ids, rounds, warmup == 1 ? kind : null );
+            }
+        }
+    }
+
+    /**
+     * @return the ids 0, step, 2*step and so on, shuffled.
+     */
+    private static long[] visitOrder( int size, int step )
+    {
+        long[] ids = new long[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            ids[i] = (long) i * step;
+        }
+        Random random = new Random( 42 );
+        for ( int i = size - 1; i > 0; i-- )
+        {
+            int other = random.nextInt( i + 1 );
+            long id = ids[i];
+            ids[i] = ids[other];
+            ids[other] = id;
+        }
+        return ids;
+    }
+
+    private static void measureBitmap( long[] ids, int rounds, String kind )
+    {
+        long highId = (long) ids.length * SPARSENESS;
+        long time = System.currentTimeMillis();
+        long found = 0;
+        for ( int round = 0; round < rounds; round++ )
+        {
+            PrimitiveLongBitmap set = new PrimitiveLongBitmap( highId );
+            for ( long id : ids )
+            {
+                found += set.add( id ) ? 0 : 1;
+                found += set.contains( id ) ? 1 : 0;
+            }
+        }
+        time = System.currentTimeMillis() - time;
+        long before = usedMemory();
+        PrimitiveLongBitmap set = new PrimitiveLongBitmap( highId );
+        for ( long id : ids )
+        {
+            set.add( id );
+        }
+        long retained = usedMemory() - before;
+        print( kind, "PrimitiveLongBitmap", time, rounds, retained, set.size(), found );
+    }
+
+    private static void measureSet( long[] ids, int rounds, String kind )
+    {
+        long time = System.currentTimeMillis();
+        long found = 0;
+        for ( int round = 0; round < rounds; round++ )
+        {
+            PrimitiveLongSet set = new PrimitiveLongSet();
+            for ( long id : ids )
+            {
+                found += set.add( id ) ? 0 : 1;
+                found += set.contains( id ) ? 1 : 0;
+            }
+        }
+        time = System.currentTimeMillis() - time;
+        long before = usedMemory();
+        PrimitiveLongSet set = new PrimitiveLongSet();
+        for ( long id : ids )
+        {
+            set.add( id );
+        }
+        long retained = usedMemory() - before;
+        print( kind, "PrimitiveLongSet", time, rounds, retained, set.size(), found );
+    }
+
+    private static void measureHashSet( long[] ids, int rounds, String kind )
+    {
+        long time = System.currentTimeMillis();
+        long found = 0;
+        for ( int round = 0; round < rounds; round++ )
+        {
+            Set<Long> set = new HashSet<Long>();
+            for ( long id : ids )
+            {
+                found += set.add( id ) ? 0 : 1;
+                found += set.contains( id ) ? 1 : 0;
+            }
+        }
+        time = System.currentTimeMillis() - time;
+        long before = usedMemory();
+        Set<Long> set = new HashSet<Long>();
+        for ( long id : ids )
+        {
+            set.add( id );
+        }
+        long retained = usedMemory() - before;
+        print( kind, "HashSet<Long>", time, rounds, retained, set.size(), found );
+    }
+
+    private static long usedMemory()
+    {
+        for ( int i = 0; i < 3; i++ )
+        {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void print( String kind, String name, long time, int rounds, long retained, long size,
+            long found )
+    {
+        if ( kind != null )
+        {
+            // found is printed so that the lookups can't be optimized away
+            System.out.println( name + "\t" + kind + "\t" + time / rounds + "\t" + (double) retained / size + "\t("
+                                + found + ")" );
+        }
+    }
+}
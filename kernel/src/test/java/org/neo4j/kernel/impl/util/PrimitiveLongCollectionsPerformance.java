@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares {@link PrimitiveLongObjectMap} and {@link PrimitiveLongSet} with
+ * {@link HashMap} and {@link HashSet} keyed by boxed longs, the way
+ * transaction state used them: put/add a range of ids, look each one up,
+ * iterate over everything and then clear. Prints time per round and the heap
+ * retained by a full collection. Run it as a main class, it's not a unit
+ * test. Optional arguments are the number of ids and of rounds.
+ */
+public class PrimitiveLongCollectionsPerformance
+{
+    private static final Object VALUE = new Object();
+
+    public static void main( String[] args )
+    {
+        int size = args.length > 0 ? Integer.parseInt( args[0] ) : 1000000;
+        int rounds = args.length > 1 ? Integer.parseInt( args[1] ) : 20;
+        System.out.println( size + " ids, " + rounds + " rounds" );
+        System.out.println( "collection\tms/round\tbytes/entry" );
+        for ( int warmup = 0; warmup < 2; warmup++ )
+        {
+            measureMap( size, rounds, warmup == 1 );
+            measureHashMap( size, rounds, warmup == 1 );
+            measureSet( size, rounds, warmup == 1 );
+            measureHashSet( size, rounds, warmup == 1 );
+        }
+    }
+
+    private static void measureMap( int size, int rounds, boolean print )
+    {
+        PrimitiveLongObjectMap<Object> map = new PrimitiveLongObjectMap<Object>();
+        long time = System.currentTimeMillis();
+        long found = 0;
+        for ( int round = 0; round < rounds; round++ )
+        {
+            map.clear();
+            for ( long id = 0; id < size; id++ )
+            {
+                map.put( id, VALUE );
+            }
+            for ( long id = 0; id < size; id++ )
+            {
+                found += map.get( id ) != null ? 1 : 0;
+            }
+            for ( Object value : map.values() )
+            {
+                found += value != null ? 1 : 0;
+            }
+        }
+        time = System.currentTimeMillis() - time;
+        long before = usedMemory();
+        map = new PrimitiveLongObjectMap<Object>();
+        for ( long id = 0; id < size; id++ )
+        {
+            map.put( id, VALUE );
+        }
+        long retained = usedMemory() - before;
+        print( print, "PrimitiveLongObjectMap", time, rounds, retained, map.size(), found );
+    }
+
+    private static void measureHashMap( int size, int rounds, boolean print )
+    {
+        Map<Long,Object> map = new HashMap<Long,Object>();
+        long time = System.currentTimeMillis();
+        long found = 0;
+        for ( int round = 0; round < rounds; round++ )
+        {
+            map.clear();
+            for ( long id = 0; id < size; id++ )
+            {
+                map.put( id, VALUE );
+            }
+            for ( long id = 0; id < size; id++ )
+            {
+                found += map.get( id ) != null ? 1 : 0;
+            }
+            for ( Object value : map.values() )
+            {
+                found += value != null ? 1 : 0;
+            }
+        }
+        time = System.currentTimeMillis() - time;
+        long before = usedMemory();
+        map = new HashMap<Long,Object>();
+        for ( long id = 0; id < size; id++ )
+        {
+            map.put( id, VALUE );
+        }
+        long retained = usedMemory() - before;
+        print( print, "HashMap<Long,Object>", time, rounds, retained, map.size(), found );
+    }
+
+    private static void measureSet( int size, int rounds, boolean print )
+    {
+        PrimitiveLongSet set = new PrimitiveLongSet();
+        long time = System.currentTimeMillis();
+        long found = 0;
+        for ( int round = 0; round < rounds; round++ )
+        {
+            set.clear();
+            for ( long id = 0; id < size; id++ )
+            {
+                set.add( id );
+            }
+            for ( long id = 0; id < size; id++ )
+            {
+                found += set.contains( id ) ? 1 : 0;
+            }
+            for ( PrimitiveLongIterator iterator = set.primitiveIterator(); iterator.hasNext(); )
+            {
+                found += iterator.next();
+            }
+        }
+        time = System.currentTimeMillis() - time;
+        long before = usedMemory();
+        set = new PrimitiveLongSet();
+        for ( long id = 0; id < size; id++ )
+        {
+            set.add( id );
+        }
+        long retained = usedMemory() - before;
+        print( print, "PrimitiveLongSet", time, rounds, retained, set.size(), found );
+    }
+
+    private static void measureHashSet( int size, int rounds, boolean print )
+    {
+        Set<Long> set = new HashSet<Long>();
+        long time = System.currentTimeMillis();
+        long found = 0;
+        for ( int round = 0; round < rounds; round++ )
+        {
+            set.clear();
+            for ( long id = 0; id < size; id++ )
+            {
+                set.add( id );
+            }
+            for ( long id = 0; id < size; id++ )
+            {
+                found += set.contains( id ) ? 1 : 0;
+            }
+            for ( long value : set )
+            {
+                found += value;
+            }
+        }
+        time = System.currentTimeMillis() - time;
+        long before = usedMemory();
+        set = new HashSet<Long>();
+        for ( long id = 0; id < size; id++ )
+        {
+            set.add( id );
+        }
+        long retained = usedMemory() - before;
+        print( print, "HashSet<Long>", time, rounds, retained, set.size(), found );
+    }
+
+    private static long usedMemory()
+    {
+        for ( int i = 0; i < 3; i++ )
+        {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void print( boolean print, String name, long time, int rounds, long retained, int size,
+            long found )
+    {
+        if ( print )
+        {
+            // found is printed so that the lookups can't be optimized away
+            System.out.println( name + "\t" + time / rounds + "\t" + retained / size + "\t(" + found + ")" );
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TestPrimitiveLongBitmap
+{
+    @Test
+    public void addAndContains()
+    {
+        PrimitiveLongBitmap set = new PrimitiveLongBitmap( 100 );
+        assertTrue( set.add( 5 ) );
+        assertTrue( set.add( 0 ) );
+        assertTrue( set.add( 1L << 34 ) );
+        assertFalse( set.add( 5 ) );
+        assertEquals( 3, set.size() );
+        assertTrue( set.contains( 5 ) );
+        assertTrue( set.contains( 1L << 34 ) );
+        assertFalse( set.contains( 6 ) );
+        assertFalse( set.contains( -5 ) );
+        assertFalse( set.contains( (1L << 34) + 1 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void doesNotAcceptNegativeIds()
+    {
+        new PrimitiveLongBitmap().add( -1 );
+    }
+
+    @Test
+    public void keepsAllIdsWhenChunksTurnIntoBitmaps()
+    {
+        PrimitiveLongBitmap set = new PrimitiveLongBitmap();
+        for ( long id = 0; id < 200000; id += 3 )
+        {
+            assertTrue( set.add( id ) );
+        }
+        for ( long id = 0; id < 200000; id++ )
+        {
+            assertEquals( id % 3 == 0, set.contains( id ) );
+        }
+        assertEquals( 66667, set.size() );
+    }
+
+    @Test
+    public void behavesLikeHashSetUnderRandomOperations()
+    {
+        Random random = new Random( 4321 );
+        PrimitiveLongBitmap set = new PrimitiveLongBitmap();
+        Set<Long> expected = new HashSet<Long>();
+        for ( int i = 0; i < 200000; i++ )
+        {
+            // A few dense chunks that turn into bitmaps and many sparse ones
+            long value = random.nextBoolean() ? random.nextInt( 3 << 16 ) : random.nextInt( 1 << 30 );
+            if ( random.nextBoolean() )
+            {
+                assertEquals( expected.contains( value ), set.contains( value ) );
+            }
+            else
+            {
+                assertEquals( expected.add( value ), set.add( value ) );
+            }
+            assertEquals( expected.size(), set.size() );
+        }
+        for ( long value : expected )
+        {
+            assertTrue( set.contains( value ) );
+        }
+    }
+}
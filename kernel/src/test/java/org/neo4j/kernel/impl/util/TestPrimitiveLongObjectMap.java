@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestPrimitiveLongObjectMap
+{
+    @Test
+    public void putGetAndRemove()
+    {
+        PrimitiveLongObjectMap<String> map = new PrimitiveLongObjectMap<String>();
+        assertTrue( map.isEmpty() );
+        assertNull( map.put( 1, "one" ) );
+        assertNull( map.put( -1, "minus one" ) );
+        assertNull( map.put( Long.MAX_VALUE, "max" ) );
+        assertEquals( "one", map.put( 1, "uno" ) );
+        assertEquals( 3, map.size() );
+        assertEquals( "uno", map.get( 1 ) );
+        assertEquals( "minus one", map.get( -1 ) );
+        assertEquals( "max", map.get( Long.MAX_VALUE ) );
+        assertNull( map.get( 2 ) );
+        assertTrue( map.containsKey( -1 ) );
+
+        assertEquals( "minus one", map.remove( -1 ) );
+        assertNull( map.remove( -1 ) );
+        assertFalse( map.containsKey( -1 ) );
+        assertEquals( 2, map.size() );
+
+        map.clear();
+        assertTrue( map.isEmpty() );
+        assertNull( map.get( 1 ) );
+    }
+
+    @Test
+    public void behavesLikeHashMapUnderRandomOperations()
+    {
+        // Keys from a small range so that there are lots of collisions,
+        // overwrites and removals of keys in the middle of probe chains
+        Random random = new Random( 1234 );
+        PrimitiveLongObjectMap<Long> map = new PrimitiveLongObjectMap<Long>();
+        Map<Long,Long> expected = new HashMap<Long,Long>();
+        for ( int i = 0; i < 100000; i++ )
+        {
+            long key = random.nextInt( 2000 ) * 1024L;
+            if ( random.nextInt( 3 ) == 0 )
+            {
+                assertEquals( expected.remove( key ), map.remove( key ) );
+            }
+            else
+            {
+                long value = random.nextLong();
+                assertEquals( expected.put( key, value ), map.put( key, value ) );
+            }
+            assertEquals( expected.size(), map.size() );
+        }
+        for ( long key = 0; key < 2000 * 1024L; key += 1024 )
+        {
+            assertEquals( expected.get( key ), map.get( key ) );
+        }
+        int count = 0;
+        for ( Long value : map.values() )
+        {
+            assertTrue( expected.containsValue( value ) );
+            count++;
+        }
+        assertEquals( expected.size(), count );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void doesNotAcceptNullValues()
+    {
+        new PrimitiveLongObjectMap<Object>().put( 1, null );
+    }
+}
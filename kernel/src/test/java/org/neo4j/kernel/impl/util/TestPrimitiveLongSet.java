@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TestPrimitiveLongSet
+{
+    @Test
+    public void addContainsAndRemove()
+    {
+        PrimitiveLongSet set = new PrimitiveLongSet();
+        assertTrue( set.add( 5 ) );
+        assertTrue( set.add( -5 ) );
+        assertTrue( set.add( Long.MIN_VALUE ) );
+        assertFalse( set.add( 5 ) );
+        assertEquals( 3, set.size() );
+        assertTrue( set.contains( 5 ) );
+        assertTrue( set.contains( Long.valueOf( -5 ) ) );
+        assertFalse( set.contains( 6 ) );
+        assertFalse( set.contains( "5" ) );
+
+        assertTrue( set.remove( Long.MIN_VALUE ) );
+        assertFalse( set.remove( Long.MIN_VALUE ) );
+        assertEquals( 2, set.size() );
+
+        Set<Long> values = new HashSet<Long>();
+        for ( PrimitiveLongIterator iterator = set.primitiveIterator(); iterator.hasNext(); )
+        {
+            values.add( iterator.next() );
+        }
+        assertEquals( new HashSet<Long>( Arrays.asList( 5L, -5L ) ), values );
+        assertEquals( values, set );
+    }
+
+    @Test
+    public void behavesLikeHashSetUnderRandomOperations()
+    {
+        Random random = new Random( 4321 );
+        PrimitiveLongSet set = new PrimitiveLongSet();
+        Set<Long> expected = new HashSet<Long>();
+        for ( int i = 0; i < 100000; i++ )
+        {
+            long value = random.nextInt( 3000 ) << 16;
+            if ( random.nextBoolean() )
+            {
+                assertEquals( expected.remove( value ), set.remove( value ) );
+            }
+            else
+            {
+                assertEquals( expected.add( value ), set.add( value ) );
+            }
+            assertEquals( expected.size(), set.size() );
+        }
+        assertEquals( expected, set );
+        set.clear();
+        assertTrue( set.isEmpty() );
+        assertFalse( set.iterator().hasNext() );
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.batchinsert;
+
+import static org.neo4j.helpers.collection.MapUtil.map;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.kernel.impl.AbstractNeo4jTestCase;
+import org.neo4j.unsafe.batchinsert.ParallelBatchImporter.RelationshipData;
+
+/**
+ * Measures import throughput of a synthetic graph, random relationships
+ * between nodes with a few properties each, through the single threaded
+ * {@link BatchInserter} and through a {@link ParallelBatchImporter} with an
+ * increasing number of workers. Run it as a main class, it's not a unit test.
+ * Optional arguments are the number of nodes and of relationships.
+ */
+public class ParallelBatchImporterPerformance
+{
+    private static final RelationshipType[] TYPES = {
+        DynamicRelationshipType.withName( "KNOWS" ), DynamicRelationshipType.withName( "LIKES" ),
+        DynamicRelationshipType.withName( "OWNS" ) };
+
+    public static void main( String[] args )
+    {
+        int nodeCount = args.length > 0 ? Integer.parseInt( args[0] ) : 1000000;
+        int relationshipCount = args.length > 1 ? Integer.parseInt( args[1] ) : 5000000;
+        System.out.println( nodeCount + " nodes, " + relationshipCount + " relationships" );
+        System.out.println( "workers\tnodes/s\trelationships/s" );
+        measureBatchInserter( nodeCount, relationshipCount );
+        for ( int workers = 1; workers <= Runtime.getRuntime().availableProcessors(); workers *= 2 )
+        {
+            measureParallelImporter( workers, nodeCount, relationshipCount );
+        }
+    }
+
+    private static void measureBatchInserter( int nodeCount, int relationshipCount )
+    {
+        BatchInserter inserter = BatchInserters.inserter( newStorePath() );
+        long time = System.currentTimeMillis();
+        for ( Iterator<Map<String,Object>> nodes = nodes( nodeCount ); nodes.hasNext(); )
+        {
+            inserter.createNode( nodes.next() );
+        }
+        long nodeTime = System.currentTimeMillis() - time;
+        time = System.currentTimeMillis();
+        for ( Iterator<RelationshipData> rels = relationships( 0, nodeCount, relationshipCount ); rels.hasNext(); )
+        {
+            RelationshipData rel = rels.next();
+            inserter.createRelationship( rel.getStartNode(), rel.getEndNode(), rel.getType(), rel.getProperties() );
+        }
+        long relationshipTime = System.currentTimeMillis() - time;
+        inserter.shutdown();
+        print( "-", nodeCount, nodeTime, relationshipCount, relationshipTime );
+    }
+
+    private static void measureParallelImporter( int workers, int nodeCount, int relationshipCount )
+    {
+        BatchInserter inserter = BatchInserters.inserter( newStorePath() );
+        ParallelBatchImporter importer = BatchInserters.parallelImporter( inserter, workers,
+                ParallelBatchImporter.DEFAULT_BATCH_SIZE );
+        long time = System.currentTimeMillis();
+        long firstNode = importer.importNodes( nodes( nodeCount ) );
+        long nodeTime = System.currentTimeMillis() - time;
+        time = System.currentTimeMillis();
+        importer.importRelationships( relationships( firstNode, nodeCount, relationshipCount ) );
+        long relationshipTime = System.currentTimeMillis() - time;
+        importer.shutdown();
+        inserter.shutdown();
+        print( String.valueOf( workers ), nodeCount, nodeTime, relationshipCount, relationshipTime );
+    }
+
+    private static void print( String workers, int nodeCount, long nodeTime, int relationshipCount,
+            long relationshipTime )
+    {
+        System.out.println( workers + "\t" + perSecond( nodeCount, nodeTime ) + "\t" +
+                perSecond( relationshipCount, relationshipTime ) );
+    }
+
+    private static long perSecond( int count, long millis )
+    {
+        return count * 1000L / Math.max( 1, millis );
+    }
+
+    private static String newStorePath()
+    {
+        String storePath = AbstractNeo4jTestCase.getStorePath( "parallel-batch-performance" );
+        AbstractNeo4jTestCase.deleteFileOrDirectory( new File( storePath ) );
+        return storePath;
+    }
+
+    private static Iterator<Map<String,Object>> nodes( final int count )
+    {
+        return new PrefetchingIterator<Map<String,Object>>()
+        {
+            private int i;
+
+            @Override
+            protected Map<String,Object> fetchNextOrNull()
+            {
+                if ( i == count )
+                {
+                    return null;
+                }
+                i++;
+                return map( "name", "Node number " + i + " with a name that doesn't fit inline", "id", (long) i,
+                        "score", i / 3.0d );
+            }
+        };
+    }
+
+    private static Iterator<RelationshipData> relationships( final long firstNode, final int nodeCount,
+            final int count )
+    {
+        final Random random = new Random( 42 );
+        return new PrefetchingIterator<RelationshipData>()
+        {
+            private int i;
+
+            @Override
+            protected RelationshipData fetchNextOrNull()
+            {
+                if ( i == count )
+                {
+                    return null;
+                }
+                i++;
+                return new RelationshipData( firstNode + random.nextInt( nodeCount ),
+                        firstNode + random.nextInt( nodeCount ), TYPES[i % TYPES.length],
+                        map( "since", i ) );
+            }
+        };
+    }
+}
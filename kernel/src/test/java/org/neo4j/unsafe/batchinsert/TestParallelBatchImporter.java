@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.batchinsert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.neo4j.helpers.collection.IteratorUtil.count;
+import static org.neo4j.helpers.collection.MapUtil.map;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.kernel.EmbeddedGraphDatabase;
+import org.neo4j.kernel.impl.AbstractNeo4jTestCase;
+import org.neo4j.unsafe.batchinsert.ParallelBatchImporter.RelationshipData;
+
+public class TestParallelBatchImporter
+{
+    private static final RelationshipType KNOWS = DynamicRelationshipType.withName( "KNOWS" );
+    private static final RelationshipType LIKES = DynamicRelationshipType.withName( "LIKES" );
+    private static final int NODE_COUNT = 1000;
+
+    private String newStorePath()
+    {
+        String storePath = AbstractNeo4jTestCase.getStorePath( "neo-parallel-batch" );
+        AbstractNeo4jTestCase.deleteFileOrDirectory( new File( storePath ) );
+        return storePath;
+    }
+
+    private static Map<String,Object> nodeProperties( int i )
+    {
+        if ( i % 10 == 0 )
+        {
+            return null;
+        }
+        return map( "name", "node " + i, "index", i,
+                "description", "a string which is too long to be stored inline in the property record " + i,
+                "values", new long[] { i, i * 2L, i * 3L } );
+    }
+
+    private static List<RelationshipData> relationships( long firstNode )
+    {
+        // Every node gets a relationship to each of the next three nodes and
+        // one to itself, alternating types
+        List<RelationshipData> relationships = new ArrayList<RelationshipData>();
+        for ( int i = 0; i < NODE_COUNT; i++ )
+        {
+            for ( int j = 1; j <= 3; j++ )
+            {
+                relationships.add( new RelationshipData( firstNode + i, firstNode + (i + j) % NODE_COUNT,
+                        j % 2 == 0 ? LIKES : KNOWS, map( "weight", i * j ) ) );
+            }
+            relationships.add( new RelationshipData( firstNode + i, firstNode + i, KNOWS, null ) );
+        }
+        return relationships;
+    }
+
+    @Test
+    public void importsNodesAndRelationships()
+    {
+        String storePath = newStorePath();
+        BatchInserter inserter = BatchInserters.inserter( storePath );
+        ParallelBatchImporter importer = BatchInserters.parallelImporter( inserter, 4, 64 );
+        List<Map<String,Object>> nodes = new ArrayList<Map<String,Object>>();
+        for ( int i = 0; i < NODE_COUNT; i++ )
+        {
+            nodes.add( nodeProperties( i ) );
+        }
+        long firstNode = importer.importNodes( nodes.iterator() );
+        importer.importRelationships( relationships( firstNode ).iterator() );
+        importer.shutdown();
+
+        for ( int i = 0; i < NODE_COUNT; i += 7 )
+        {
+            Map<String,Object> expected = nodeProperties( i );
+            Map<String,Object> actual = inserter.getNodeProperties( firstNode + i );
+            if ( expected == null )
+            {
+                assertEquals( 0, actual.size() );
+            }
+            else
+            {
+                assertEquals( expected.get( "description" ), actual.get( "description" ) );
+                assertArrayEquals( (long[]) expected.get( "values" ), (long[]) actual.get( "values" ) );
+            }
+            // Three outgoing, three incoming and the loop
+            assertEquals( 7, count( inserter.getRelationships( firstNode + i ) ) );
+        }
+        inserter.shutdown();
+
+        GraphDatabaseService db = new EmbeddedGraphDatabase( storePath );
+        try
+        {
+            for ( int i = 0; i < NODE_COUNT; i++ )
+            {
+                Node node = db.getNodeById( firstNode + i );
+                assertEquals( 4, count( node.getRelationships( Direction.OUTGOING ) ) );
+                assertEquals( 4, count( node.getRelationships( Direction.INCOMING ) ) );
+                assertEquals( 2, count( node.getRelationships( LIKES ) ) );
+                for ( Relationship rel : node.getRelationships( Direction.OUTGOING, LIKES ) )
+                {
+                    assertEquals( firstNode + (i + 2) % NODE_COUNT, rel.getEndNode().getId() );
+                    assertEquals( i * 2, rel.getProperty( "weight" ) );
+                }
+                if ( i % 10 != 0 )
+                {
+                    assertEquals( "node " + i, node.getProperty( "name" ) );
+                    assertEquals( i, node.getProperty( "index" ) );
+                }
+            }
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+
+    @Test
+    public void importsRelationshipsBetweenNodesCreatedByTheInserter()
+    {
+        String storePath = newStorePath();
+        BatchInserter inserter = BatchInserters.inserter( storePath );
+        long node1 = inserter.createNode( null );
+        long node2 = inserter.createNode( map( "name", "two" ) );
+        long existing = inserter.createRelationship( node1, node2, KNOWS, null );
+        ParallelBatchImporter importer = BatchInserters.parallelImporter( inserter, 2, 3 );
+        List<RelationshipData> relationships = new ArrayList<RelationshipData>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            relationships.add( new RelationshipData( node2, node1, LIKES, map( "i", i ) ) );
+        }
+        importer.importRelationships( relationships.iterator() );
+        importer.shutdown();
+        long created = inserter.createRelationship( node1, node2, KNOWS, null );
+
+        List<Long> node1Relationships = new ArrayList<Long>();
+        for ( long id : inserter.getRelationshipIds( node1 ) )
+        {
+            node1Relationships.add( id );
+        }
+        assertEquals( 12, node1Relationships.size() );
+        assertEquals( Long.valueOf( created ), node1Relationships.get( 0 ) );
+        assertEquals( Long.valueOf( existing ), node1Relationships.get( 11 ) );
+        assertEquals( 12, count( inserter.getRelationships( node2 ) ) );
+        inserter.shutdown();
+
+        GraphDatabaseService db = new EmbeddedGraphDatabase( storePath );
+        try
+        {
+            assertEquals( 10, count( db.getNodeById( node1 ).getRelationships( Direction.INCOMING, LIKES ) ) );
+            assertEquals( "two", db.getNodeById( node2 ).getProperty( "name" ) );
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+
+    @Test
+    public void failsOnRelationshipToMissingNode()
+    {
+        BatchInserter inserter = BatchInserters.inserter( newStorePath() );
+        long node = inserter.createNode( null );
+        ParallelBatchImporter importer = BatchInserters.parallelImporter( inserter, 2, 10 );
+        try
+        {
+            importer.importRelationships( Arrays.asList(
+                    new RelationshipData( node, node + 100, KNOWS, Collections.<String,Object>emptyMap() ) ).iterator() );
+            fail( "Should have failed on the missing node" );
+        }
+        catch ( NotFoundException e )
+        {   // Good
+        }
+        finally
+        {
+            importer.shutdown();
+            inserter.shutdown();
+        }
+    }
+}
@@ -19,51 +19,292 @@
  */
 package org.neo4j.index.impl.lucene;
 
-import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.neo4j.kernel.impl.cache.LruCache;
-
+/**
+ * Results of exact lookups, {@link LuceneIndex#get(String, Object)}, for
+ * the keys that have caching enabled through
+ * {@link LuceneIndex#setCacheCapacity(String, int)}. Each key keeps at most
+ * its capacity number of values, least recently used go first, and all of
+ * them share one memory budget. When over budget the key using the most
+ * memory gives up its least recently used values. Results are kept as
+ * {@link CompressedHits}, and a single result which would take more than a
+ * quarter of the budget isn't cached at all.
+ */
 public class Cache
 {
-    private final Map<IndexIdentifier, Map<String,LruCache<String,Collection<Long>>>> caching = 
-            Collections.synchronizedMap( 
-                    new HashMap<IndexIdentifier, Map<String,LruCache<String,Collection<Long>>>>() );
-    
-    public void setCapacity( IndexIdentifier identifier, String key, int size )
+    private final Map<IndexIdentifier, Map<String, KeyCache>> caching =
+            new HashMap<IndexIdentifier, Map<String, KeyCache>>();
+    private final long maxBytes;
+    private long bytesUsed;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public Cache( long maxBytes )
+    {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized void setCapacity( IndexIdentifier identifier, String key, int size )
     {
-        Map<String, LruCache<String, Collection<Long>>> map = caching.get( identifier );
+        Map<String, KeyCache> map = caching.get( identifier );
         if ( map == null )
         {
-            map = new HashMap<String, LruCache<String,Collection<Long>>>();
+            map = new HashMap<String, KeyCache>();
             caching.put( identifier, map );
         }
-        map.put( key, new LruCache<String, Collection<Long>>( key, size ) );
+        KeyCache previous = map.put( key, new KeyCache( size ) );
+        if ( previous != null )
+        {
+            bytesUsed -= previous.bytes;
+        }
     }
-    
-    public LruCache<String, Collection<Long>> get( IndexIdentifier identifier, String key )
+
+    /**
+     * @return the number of values cached at most for {@code key}, or
+     * {@code null} if caching isn't enabled for it.
+     */
+    public synchronized Integer getCapacity( IndexIdentifier identifier, String key )
     {
-        Map<String, LruCache<String, Collection<Long>>> map = caching.get( identifier );
+        KeyCache cache = keyCache( identifier, key );
+        return cache != null ? cache.capacity : null;
+    }
+
+    public synchronized boolean isEnabled( IndexIdentifier identifier, String key )
+    {
+        return keyCache( identifier, key ) != null;
+    }
+
+    private KeyCache keyCache( IndexIdentifier identifier, String key )
+    {
+        Map<String, KeyCache> map = caching.get( identifier );
         return map != null ? map.get( key ) : null;
     }
-    
-    public void disable( IndexIdentifier identifier, String key )
+
+    /**
+     * @return the ids cached for {@code value}, sorted, or {@code null} if
+     * there are none.
+     */
+    public long[] get( IndexIdentifier identifier, String key, String value )
+    {
+        CompressedHits cached;
+        synchronized ( this )
+        {
+            KeyCache cache = keyCache( identifier, key );
+            if ( cache == null )
+            {
+                return null;
+            }
+            cached = cache.get( value );
+        }
+        if ( cached == null )
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached.decompress();
+    }
+
+    /**
+     * @return whether a result of {@code hitCount} ids is small enough to be
+     * cached, so that larger ones needn't be read in full.
+     */
+    public boolean canCache( int hitCount )
+    {
+        return CompressedHits.minSizeInBytes( hitCount ) <= maxBytesPerResult();
+    }
+
+    private long maxBytesPerResult()
+    {
+        return maxBytes / 4;
+    }
+
+    /**
+     * Caches {@code ids} as the result for {@code value}, if caching is
+     * enabled for {@code key}. The caller must make sure that no transaction
+     * changing the index is committed concurrently.
+     */
+    public void put( IndexIdentifier identifier, String key, String value, long[] ids )
     {
-        Map<String, LruCache<String, Collection<Long>>> map = caching.get( identifier );
+        CompressedHits compressed = CompressedHits.compress( ids );
+        if ( compressed.sizeInBytes() > maxBytesPerResult() )
+        {
+            return;
+        }
+        synchronized ( this )
+        {
+            KeyCache cache = keyCache( identifier, key );
+            if ( cache == null )
+            {
+                return;
+            }
+            // Accounted for before it's put, the put may evict it right away
+            cache.added( compressed );
+            CompressedHits previous = cache.put( value, compressed );
+            if ( previous != null )
+            {
+                cache.removed( previous );
+            }
+            while ( bytesUsed > maxBytes )
+            {
+                evictFromLargest();
+            }
+        }
+    }
+
+    private void evictFromLargest()
+    {
+        KeyCache largest = null;
+        for ( Map<String, KeyCache> map : caching.values() )
+        {
+            for ( KeyCache cache : map.values() )
+            {
+                if ( largest == null || cache.bytes > largest.bytes )
+                {
+                    largest = cache;
+                }
+            }
+        }
+        Iterator<CompressedHits> eldest = largest.values().iterator();
+        largest.removed( eldest.next() );
+        eldest.remove();
+    }
+
+    public synchronized void remove( IndexIdentifier identifier, String key, String value )
+    {
+        KeyCache cache = keyCache( identifier, key );
+        if ( cache != null )
+        {
+            CompressedHits removed = cache.remove( value );
+            if ( removed != null )
+            {
+                cache.removed( removed );
+            }
+        }
+    }
+
+    /**
+     * Removes the cached results of all values of {@code key}, caching stays
+     * enabled for it.
+     */
+    public synchronized void clear( IndexIdentifier identifier, String key )
+    {
+        KeyCache cache = keyCache( identifier, key );
+        if ( cache != null )
+        {
+            bytesUsed -= cache.bytes;
+            cache.bytes = 0;
+            cache.clear();
+        }
+    }
+
+    /**
+     * Removes the cached results of all keys in an index, caching stays
+     * enabled for them.
+     */
+    public synchronized void clear( IndexIdentifier identifier )
+    {
+        Map<String, KeyCache> map = caching.get( identifier );
         if ( map != null )
         {
-            map.remove( key );
+            for ( String key : map.keySet() )
+            {
+                clear( identifier, key );
+            }
         }
     }
-    
-    public void disable( IndexIdentifier identifier )
+
+    public synchronized void disable( IndexIdentifier identifier, String key )
     {
-        Map<String, LruCache<String, Collection<Long>>> map = caching.get( identifier );
+        clear( identifier, key );
+        Map<String, KeyCache> map = caching.get( identifier );
         if ( map != null )
         {
-            map.clear();
+            map.remove( key );
+        }
+    }
+
+    public synchronized void disable( IndexIdentifier identifier )
+    {
+        clear( identifier );
+        caching.remove( identifier );
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return the share of lookups, of keys with caching enabled, which were
+     * answered from the cache.
+     */
+    public double getHitRatio()
+    {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public synchronized long getBytesUsed()
+    {
+        return bytesUsed;
+    }
+
+    public long getMaxBytes()
+    {
+        return maxBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[hits:" + getHits() + ", misses:" + getMisses() + ", bytes used:" +
+               getBytesUsed() + "/" + maxBytes + "]";
+    }
+
+    private class KeyCache extends LinkedHashMap<String, CompressedHits>
+    {
+        private final int capacity;
+        private long bytes;
+
+        KeyCache( int capacity )
+        {
+            super( 16, 0.75f, true );
+            this.capacity = capacity;
+        }
+
+        void added( CompressedHits entry )
+        {
+            bytes += entry.sizeInBytes();
+            bytesUsed += entry.sizeInBytes();
+        }
+
+        void removed( CompressedHits entry )
+        {
+            bytes -= entry.sizeInBytes();
+            bytesUsed -= entry.sizeInBytes();
+        }
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<String, CompressedHits> eldest )
+        {
+            if ( size() > capacity )
+            {
+                removed( eldest.getValue() );
+                return true;
+            }
+            return false;
         }
     }
 }
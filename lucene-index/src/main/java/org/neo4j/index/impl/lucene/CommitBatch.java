@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.impl.lucene;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.index.impl.lucene.CommitContext.DocumentContext;
+
+/**
+ * Documents changed by committed transactions which haven't been written to
+ * the index writers yet. Transactions committed in batched mode leave their
+ * documents here, where the next transaction touching the same entity picks
+ * them up instead of looking them up through a refreshed searcher. They're
+ * all written, and the searchers invalidated once, when the batch is full,
+ * its time window has passed or an index with documents in it is read.
+ * Except for {@link #hasDocuments(IndexIdentifier)} it must only be used
+ * holding the {@link LuceneDataSource} write lock.
+ */
+class CommitBatch
+{
+    private final ConcurrentMap<IndexIdentifier, Map<Long, DocumentContext>> documents =
+            new ConcurrentHashMap<IndexIdentifier, Map<Long, DocumentContext>>();
+    private final long windowMillis;
+    private final int maxDocuments;
+    private long firstCommitTime;
+
+    CommitBatch( long windowMillis, int maxDocuments )
+    {
+        this.windowMillis = windowMillis;
+        this.maxDocuments = maxDocuments;
+    }
+
+    /**
+     * @return the documents of {@code identifier} in this batch, to be
+     * modified by a committing transaction.
+     */
+    Map<Long, DocumentContext> documentsFor( IndexIdentifier identifier )
+    {
+        Map<Long, DocumentContext> result = documents.get( identifier );
+        if ( result == null )
+        {
+            if ( documents.isEmpty() )
+            {
+                firstCommitTime = System.currentTimeMillis();
+            }
+            result = new HashMap<Long, DocumentContext>();
+            documents.put( identifier, result );
+        }
+        return result;
+    }
+
+    boolean hasDocuments( IndexIdentifier identifier )
+    {
+        return documents.containsKey( identifier );
+    }
+
+    Set<IndexIdentifier> identifiers()
+    {
+        return documents.keySet();
+    }
+
+    Map<Long, DocumentContext> remove( IndexIdentifier identifier )
+    {
+        return documents.remove( identifier );
+    }
+
+    boolean isFull()
+    {
+        if ( documents.isEmpty() )
+        {
+            return false;
+        }
+        if ( System.currentTimeMillis() - firstCommitTime >= windowMillis )
+        {
+            return true;
+        }
+        int count = 0;
+        for ( Map<Long, DocumentContext> indexDocuments : documents.values() )
+        {
+            count += indexDocuments.size();
+        }
+        return count >= maxDocuments;
+    }
+}
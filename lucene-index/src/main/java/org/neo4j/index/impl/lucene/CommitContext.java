@@ -36,7 +36,7 @@ class CommitContext
     final LuceneDataSource dataSource;
     final IndexIdentifier identifier;
     final IndexType indexType;
-    final Map<Long, DocumentContext> documents = new HashMap<Long, DocumentContext>();
+    final Map<Long, DocumentContext> documents;
     final CommandList commandList;
     final boolean recovery;
     
@@ -45,6 +45,17 @@ class CommitContext
     
     CommitContext( LuceneDataSource dataSource, IndexIdentifier identifier, IndexType indexType, CommandList commandList )
     {
+        this( dataSource, identifier, indexType, commandList, new HashMap<Long, DocumentContext>() );
+    }
+
+    /**
+     * @param documents documents already changed, but not yet written, by
+     * earlier transactions, see {@link CommitBatch}.
+     */
+    CommitContext( LuceneDataSource dataSource, IndexIdentifier identifier, IndexType indexType,
+            CommandList commandList, Map<Long, DocumentContext> documents )
+    {
+        this.documents = documents;
         this.dataSource = dataSource;
         this.identifier = identifier;
         this.indexType = indexType;
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.impl.lucene;
+
+import java.util.Arrays;
+
+/**
+ * Entity ids of a query result, sorted and stored as variable length deltas.
+ * Ids of entities indexed with the same value are usually close to each
+ * other, so most deltas take one or two bytes instead of the eight a long
+ * takes, or the 24+ a boxed Long in a collection takes.
+ */
+final class CompressedHits
+{
+    private final byte[] data;
+    private final int count;
+
+    private CompressedHits( byte[] data, int count )
+    {
+        this.data = data;
+        this.count = count;
+    }
+
+    static CompressedHits compress( long[] ids )
+    {
+        long[] sorted = ids.clone();
+        Arrays.sort( sorted );
+        byte[] buffer = new byte[sorted.length * 2 + 8];
+        int position = 0;
+        long previous = 0;
+        for ( long id : sorted )
+        {
+            if ( buffer.length - position < 10 )
+            {
+                buffer = Arrays.copyOf( buffer, buffer.length * 2 );
+            }
+            // Ids are never negative and sorted, so the deltas aren't either
+            long delta = id - previous;
+            previous = id;
+            while ( (delta & ~0x7FL) != 0 )
+            {
+                buffer[position++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            buffer[position++] = (byte) delta;
+        }
+        return new CompressedHits( Arrays.copyOf( buffer, position ), sorted.length );
+    }
+
+    long[] decompress()
+    {
+        long[] ids = new long[count];
+        int position = 0;
+        long previous = 0;
+        for ( int i = 0; i < count; i++ )
+        {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = data[position++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while ( (b & 0x80) != 0 );
+            previous += delta;
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    int count()
+    {
+        return count;
+    }
+
+    /**
+     * @return the approximate number of bytes this instance occupies on the
+     * heap.
+     */
+    int sizeInBytes()
+    {
+        return sizeInBytes( data.length );
+    }
+
+    /**
+     * @return the number of bytes an instance holding {@code count} ids
+     * occupies at the least, every id takes at least one byte.
+     */
+    static long minSizeInBytes( int count )
+    {
+        return sizeInBytes( count );
+    }
+
+    private static int sizeInBytes( int dataLength )
+    {
+        return dataLength + 32;
+    }
+}
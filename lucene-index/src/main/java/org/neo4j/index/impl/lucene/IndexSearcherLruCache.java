@@ -19,19 +19,25 @@
  */
 package org.neo4j.index.impl.lucene;
 
-import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.neo4j.helpers.Pair;
 import org.neo4j.kernel.impl.cache.LruCache;
 
 /**
- * An Lru Cache for Lucene Index searchers.
+ * An Lru Cache for Lucene Index searchers. Searchers pushed out of the cache
+ * aren't closed here, another thread may still be using them, they're kept
+ * in {@link #evicted()} for the {@link LuceneDataSource} to close.
  *
  * @see LuceneDataSource
  */
 public class IndexSearcherLruCache extends LruCache<IndexIdentifier, Pair<IndexSearcherRef, AtomicBoolean>>
 {
+    private final ConcurrentMap<IndexIdentifier, Pair<IndexSearcherRef, AtomicBoolean>> evicted =
+            new ConcurrentHashMap<IndexIdentifier, Pair<IndexSearcherRef, AtomicBoolean>>();
+
     /**
      * Creates a LRU cache. If <CODE>maxSize < 1</CODE> an
      * IllegalArgumentException is thrown.
@@ -44,12 +50,16 @@ public class IndexSearcherLruCache extends LruCache<IndexIdentifier, Pair<IndexS
     }
 
     @Override
-    public void elementCleaned(Pair<IndexSearcherRef, AtomicBoolean> searcher)
+    public void elementCleaned( IndexIdentifier identifier, Pair<IndexSearcherRef, AtomicBoolean> searcher )
+    {
+        evicted.put( identifier, searcher );
+    }
+
+    /**
+     * @return the searchers pushed out of the cache that haven't been closed yet.
+     */
+    ConcurrentMap<IndexIdentifier, Pair<IndexSearcherRef, AtomicBoolean>> evicted()
     {
-        try {
-            searcher.first().dispose();
-        } catch (IOException e) {
-            throw new RuntimeException( e );
-        }
+        return evicted;
     }
-}
\ No newline at end of file
+}
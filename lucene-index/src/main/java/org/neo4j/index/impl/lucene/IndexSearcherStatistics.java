@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.impl.lucene;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for how index searchers are refreshed by a {@link LuceneDataSource}
+ * and for how often lookups have to wait for another thread working on the
+ * same index, f.ex. refreshing its searcher.
+ */
+public class IndexSearcherStatistics
+{
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong blockedLookups = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong backgroundRefreshes = new AtomicLong();
+    private final AtomicLong refreshNanos = new AtomicLong();
+    private final AtomicLong maxRefreshNanos = new AtomicLong();
+
+    void lookup( boolean blocked, long waitNanos )
+    {
+        lookups.incrementAndGet();
+        if ( blocked )
+        {
+            blockedLookups.incrementAndGet();
+            blockedNanos.addAndGet( waitNanos );
+        }
+    }
+
+    void refreshed( boolean background, long nanos )
+    {
+        refreshes.incrementAndGet();
+        if ( background )
+        {
+            backgroundRefreshes.incrementAndGet();
+        }
+        refreshNanos.addAndGet( nanos );
+        for ( long max = maxRefreshNanos.get(); nanos > max; max = maxRefreshNanos.get() )
+        {
+            if ( maxRefreshNanos.compareAndSet( max, nanos ) )
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return the number of searcher lookups made.
+     */
+    public long getLookups()
+    {
+        return lookups.get();
+    }
+
+    /**
+     * @return the number of searcher lookups which had to wait for another
+     * thread working on the same index.
+     */
+    public long getBlockedLookups()
+    {
+        return blockedLookups.get();
+    }
+
+    public long getBlockedTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( blockedNanos.get() );
+    }
+
+    /**
+     * @return the number of times a searcher was reopened to see committed
+     * changes, in the background or in a lookup.
+     */
+    public long getRefreshes()
+    {
+        return refreshes.get();
+    }
+
+    public long getBackgroundRefreshes()
+    {
+        return backgroundRefreshes.get();
+    }
+
+    public long getTotalRefreshTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( refreshNanos.get() );
+    }
+
+    public double getAverageRefreshTimeMillis()
+    {
+        long count = refreshes.get();
+        return count == 0 ? 0 : refreshNanos.get() / (count * 1000000d);
+    }
+
+    public long getMaxRefreshTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( maxRefreshNanos.get() );
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[lookups:" + getLookups() + ", blocked:" + getBlockedLookups() +
+               " (" + getBlockedTimeMillis() + "ms), refreshes:" + getRefreshes() + " (background:" +
+               getBackgroundRefreshes() + ", avg:" + getAverageRefreshTimeMillis() + "ms, max:" +
+               getMaxRefreshTimeMillis() + "ms)]";
+    }
+}
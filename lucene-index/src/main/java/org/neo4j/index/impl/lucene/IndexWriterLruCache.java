@@ -19,18 +19,24 @@
  */
 package org.neo4j.index.impl.lucene;
 
-import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.lucene.index.IndexWriter;
 import org.neo4j.kernel.impl.cache.LruCache;
 
 /**
- * An Lru Cache for Lucene Index Writers.
+ * An Lru Cache for Lucene Index Writers. Writers pushed out of the cache
+ * aren't closed here, another thread may still be using them, they're kept
+ * in {@link #evicted()} for the {@link LuceneDataSource} to close.
  *
  * @see LuceneDataSource
  */
 public class IndexWriterLruCache extends LruCache<IndexIdentifier, IndexWriter>
 {
+    private final ConcurrentMap<IndexIdentifier, IndexWriter> evicted =
+            new ConcurrentHashMap<IndexIdentifier, IndexWriter>();
+
     /**
      * Creates a LRU cache. If <CODE>maxSize < 1</CODE> an
      * IllegalArgumentException is thrown.
@@ -43,12 +49,16 @@ public class IndexWriterLruCache extends LruCache<IndexIdentifier, IndexWriter>
     }
 
     @Override
-    public void elementCleaned(IndexWriter writer)
+    public void elementCleaned( IndexIdentifier identifier, IndexWriter writer )
+    {
+        evicted.put( identifier, writer );
+    }
+
+    /**
+     * @return the writers pushed out of the cache that haven't been closed yet.
+     */
+    ConcurrentMap<IndexIdentifier, IndexWriter> evicted()
     {
-        try {
-            writer.close( true );
-        } catch (IOException e) {
-            throw new RuntimeException( e );
-        }
+        return evicted;
     }
 }
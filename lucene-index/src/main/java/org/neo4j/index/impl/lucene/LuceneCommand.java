@@ -187,7 +187,6 @@ abstract class LuceneCommand extends XaCommand
         {
             context.ensureWriterInstantiated();
             context.indexType.addToDocument( context.getDocument( entityId, true ).document, key, value );
-            context.dataSource.invalidateCache( context.identifier, key, value );
         }
         
         @Override
@@ -224,7 +223,6 @@ abstract class LuceneCommand extends XaCommand
         {
             context.ensureWriterInstantiated();
             context.indexType.addToDocument( context.getDocument( entityId, true ).document, key, value );
-            context.dataSource.invalidateCache( context.identifier, key, value );
         }
         
         @Override
@@ -256,7 +254,6 @@ abstract class LuceneCommand extends XaCommand
             if ( document != null )
             {
                 context.indexType.removeFromDocument( document.document, key, value );
-                context.dataSource.invalidateCache( context.identifier, key, value );
             }
         }
         
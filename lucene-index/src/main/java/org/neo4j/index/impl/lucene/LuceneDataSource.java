@@ -27,10 +27,18 @@ import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.KeywordAnalyzer;
@@ -52,6 +60,7 @@ import org.apache.lucene.search.Similarity;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.RAMDirectory;
@@ -65,12 +74,13 @@ import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.graphdb.index.Index;
 import org.neo4j.graphdb.index.IndexManager;
 import org.neo4j.graphdb.index.RelationshipIndex;
+import org.neo4j.helpers.DaemonThreadFactory;
 import org.neo4j.helpers.Pair;
 import org.neo4j.helpers.UTF8;
 import org.neo4j.helpers.collection.ClosableIterable;
+import org.neo4j.index.impl.lucene.CommitContext.DocumentContext;
 import org.neo4j.kernel.AbstractGraphDatabase;
 import org.neo4j.kernel.configuration.Config;
-import org.neo4j.kernel.impl.cache.LruCache;
 import org.neo4j.kernel.impl.index.IndexProviderStore;
 import org.neo4j.kernel.impl.index.IndexStore;
 import org.neo4j.kernel.impl.nioneo.store.FileSystemAbstraction;
@@ -100,6 +110,11 @@ public class LuceneDataSource extends LogBackedXaDataSource
     {
         public static final GraphDatabaseSetting.IntegerSetting lucene_searcher_cache_size = GraphDatabaseSettings.lucene_searcher_cache_size;
         public static final GraphDatabaseSetting.IntegerSetting lucene_writer_cache_size = GraphDatabaseSettings.lucene_writer_cache_size;
+        public static final GraphDatabaseSetting.BooleanSetting lucene_searcher_background_refresh = GraphDatabaseSettings.lucene_searcher_background_refresh;
+        public static final GraphDatabaseSetting.StringSetting lucene_hit_cache_memory = GraphDatabaseSettings.lucene_hit_cache_memory;
+        public static final GraphDatabaseSetting.BooleanSetting lucene_batched_commits_enabled = GraphDatabaseSettings.lucene_batched_commits_enabled;
+        public static final GraphDatabaseSetting.StringSetting lucene_batched_commits_window = GraphDatabaseSettings.lucene_batched_commits_window;
+        public static final GraphDatabaseSetting.IntegerSetting lucene_batched_commits_max_documents = GraphDatabaseSettings.lucene_batched_commits_max_documents;
         
         public static final GraphDatabaseSetting.BooleanSetting read_only = GraphDatabaseSettings.read_only;
         public static final GraphDatabaseSetting.BooleanSetting allow_store_upgrade = GraphDatabaseSettings.allow_store_upgrade;
@@ -158,13 +173,20 @@ public class LuceneDataSource extends LogBackedXaDataSource
     final IndexStore indexStore;
     final IndexProviderStore providerStore;
     private final IndexTypeCache typeCache;
-    private boolean closed;
+    private volatile boolean closed;
     private final Cache caching;
     EntityType nodeEntityType;
     EntityType relationshipEntityType;
     final Map<IndexIdentifier, LuceneIndex<? extends PropertyContainer>> indexes =
             new HashMap<IndexIdentifier, LuceneIndex<? extends PropertyContainer>>();
     private final DirectoryGetter directoryGetter;
+    // Opening writers and opening or refreshing searchers is done holding the
+    // lock of that index only, so that it doesn't hold up other indexes
+    private final ConcurrentMap<IndexIdentifier, ReentrantLock> indexLocks =
+            new ConcurrentHashMap<IndexIdentifier, ReentrantLock>();
+    private final ExecutorService searcherRefresher;
+    private final IndexSearcherStatistics searcherStatistics = new IndexSearcherStatistics();
+    private final CommitBatch commitBatch;
 
     /**
      * Constructs this data source.
@@ -177,7 +199,7 @@ public class LuceneDataSource extends LogBackedXaDataSource
         super( DEFAULT_BRANCH_ID, DEFAULT_NAME );
         indexSearchers = new IndexSearcherLruCache( config.getInteger( Configuration.lucene_searcher_cache_size ));
         indexWriters = new IndexWriterLruCache( config.getInteger( Configuration.lucene_writer_cache_size ));
-        caching = new Cache();
+        caching = new Cache( config.getSize( Configuration.lucene_hit_cache_memory ) );
         String storeDir = config.get( Configuration.store_dir );
         this.baseStorePath = getStoreDir( storeDir ).first();
         cleanWriteLocks( baseStorePath );
@@ -187,6 +209,11 @@ public class LuceneDataSource extends LogBackedXaDataSource
         this.typeCache = new IndexTypeCache( indexStore );
         boolean isReadOnly = config.getBoolean( Configuration.read_only );
         this.directoryGetter = config.getBoolean( Configuration.ephemeral ) ? DirectoryGetter.MEMORY : DirectoryGetter.FS;
+        this.searcherRefresher = config.getBoolean( Configuration.lucene_searcher_background_refresh ) ?
+                Executors.newSingleThreadExecutor( new DaemonThreadFactory( "Lucene searcher refresher" ) ) : null;
+        this.commitBatch = config.getBoolean( Configuration.lucene_batched_commits_enabled ) ?
+                new CommitBatch( config.getDuration( Configuration.lucene_batched_commits_window ),
+                        config.getInteger( Configuration.lucene_batched_commits_max_documents ) ) : null;
 
         nodeEntityType = new EntityType()
         {
@@ -297,32 +324,27 @@ public class LuceneDataSource extends LogBackedXaDataSource
             {
                 return;
             }
+            applyBatchedCommits();
             closed = true;
-            for ( Pair<IndexSearcherRef, AtomicBoolean> searcher : indexSearchers.values() )
+            if ( searcherRefresher != null )
             {
+                searcherRefresher.shutdown();
                 try
                 {
-                    searcher.first().dispose();
+                    searcherRefresher.awaitTermination( 10, TimeUnit.SECONDS );
                 }
-                catch ( IOException e )
+                catch ( InterruptedException e )
                 {
-                    e.printStackTrace();
+                    Thread.currentThread().interrupt();
                 }
             }
+            // Clearing the caches moves everything in them to the evicted ones
             indexSearchers.clear();
-
-            for ( Map.Entry<IndexIdentifier, IndexWriter> entry : indexWriters.entrySet() )
+            indexWriters.clear();
+            for ( IndexIdentifier identifier : evictedIdentifiers() )
             {
-                try
-                {
-                    entry.getValue().close( true );
-                }
-                catch ( IOException e )
-                {
-                    throw new RuntimeException( "Unable to close index writer " + entry.getKey(), e );
-                }
+                closeEvicted( identifier );
             }
-            indexWriters.clear();
         }
 
         if ( xaContainer != null )
@@ -401,16 +423,29 @@ public class LuceneDataSource extends LogBackedXaDataSource
         @Override
         public void flushAll()
         {
+            applyBatchedCommits();
             for ( Map.Entry<IndexIdentifier, IndexWriter> entry : getAllIndexWriters() )
             {
-                try
-                {
-                    entry.getValue().commit();
-                }
-                catch ( IOException e )
-                {
-                    throw new RuntimeException( "unable to commit changes to " + entry.getKey(), e );
-                }
+                commit( entry.getKey(), entry.getValue() );
+            }
+            for ( Map.Entry<IndexIdentifier, IndexWriter> entry : indexWriters.evicted().entrySet() )
+            {
+                commit( entry.getKey(), entry.getValue() );
+            }
+        }
+
+        private void commit( IndexIdentifier identifier, IndexWriter writer )
+        {
+            try
+            {
+                writer.commit();
+            }
+            catch ( AlreadyClosedException e )
+            {   // Pushed out of its cache and closed since, closing commits it too
+            }
+            catch ( IOException e )
+            {
+                throw new RuntimeException( "unable to commit changes to " + identifier, e );
             }
         }
 
@@ -438,15 +473,39 @@ public class LuceneDataSource extends LogBackedXaDataSource
         lock.readLock().lock();
     }
 
+    /**
+     * Gets the read lock once the changes batched for {@code identifier} have
+     * been written to its index writer. Committing needs the write lock, so no
+     * changes can be batched for the index while the read lock is held and its
+     * searcher and cached results can't miss a committed transaction.
+     */
+    void getReadLock( IndexIdentifier identifier )
+    {
+        while ( true )
+        {
+            applyBatchedCommits( identifier );
+            getReadLock();
+            if ( commitBatch == null || !commitBatch.hasDocuments( identifier ) )
+            {
+                return;
+            }
+            releaseReadLock();
+        }
+    }
+
     @SuppressWarnings( "rawtypes" )
-    private synchronized Map.Entry[] getAllIndexWriters()
+    private Map.Entry[] getAllIndexWriters()
     {
-        return indexWriters.entrySet().toArray( new Map.Entry[indexWriters.size()] );
+        synchronized ( indexWriters )
+        {
+            return indexWriters.entrySet().toArray( new Map.Entry[indexWriters.size()] );
+        }
     }
 
     void releaseReadLock()
     {
         lock.readLock().unlock();
+        closeEvicted();
     }
 
     void getWriteLock()
@@ -457,6 +516,7 @@ public class LuceneDataSource extends LogBackedXaDataSource
     void releaseWriteLock()
     {
         lock.writeLock().unlock();
+        closeEvicted();
     }
 
     /**
@@ -472,8 +532,10 @@ public class LuceneDataSource extends LogBackedXaDataSource
      * {@code null}.
      * @throws IOException if there's a problem with the index.
      */
-    private Pair<IndexSearcherRef, AtomicBoolean> refreshSearcher( Pair<IndexSearcherRef, AtomicBoolean> searcher, IndexWriter writer )
+    private Pair<IndexSearcherRef, AtomicBoolean> refreshSearcher( Pair<IndexSearcherRef, AtomicBoolean> searcher,
+            IndexWriter writer, boolean background )
     {
+        long start = System.nanoTime();
         try
         {
             IndexReader reader = searcher.first().getSearcher().getIndexReader();
@@ -490,6 +552,95 @@ public class LuceneDataSource extends LogBackedXaDataSource
         {
             throw new RuntimeException( e );
         }
+        finally
+        {
+            searcherStatistics.refreshed( background, System.nanoTime() - start );
+        }
+    }
+
+    private ReentrantLock lockFor( IndexIdentifier identifier )
+    {
+        ReentrantLock lock = indexLocks.get( identifier );
+        if ( lock == null )
+        {
+            ReentrantLock newLock = new ReentrantLock();
+            lock = indexLocks.putIfAbsent( identifier, newLock );
+            if ( lock == null )
+            {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * @return the batch committing transactions add their changes to, or
+     * {@code null} if batched commits aren't enabled.
+     */
+    CommitBatch getCommitBatch()
+    {
+        return commitBatch;
+    }
+
+    /**
+     * Writes the changes of batched transactions to the index writer of
+     * {@code identifier}, if there are any, so that they can be read.
+     */
+    void applyBatchedCommits( IndexIdentifier identifier )
+    {
+        if ( commitBatch == null || !commitBatch.hasDocuments( identifier ) )
+        {
+            return;
+        }
+        getWriteLock();
+        try
+        {
+            Map<Long, DocumentContext> documents = commitBatch.remove( identifier );
+            if ( documents != null && !documents.isEmpty() )
+            {
+                LuceneTransaction.applyDocuments( getIndexWriter( identifier ), getType( identifier ), documents );
+                invalidateIndexSearcher( identifier );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to write batched changes to " + identifier, e );
+        }
+        finally
+        {
+            releaseWriteLock();
+        }
+    }
+
+    /**
+     * Writes the changes of all batched transactions to the index writers.
+     */
+    void applyBatchedCommits()
+    {
+        if ( commitBatch == null )
+        {
+            return;
+        }
+        getWriteLock();
+        try
+        {
+            for ( IndexIdentifier identifier : new ArrayList<IndexIdentifier>( commitBatch.identifiers() ) )
+            {
+                applyBatchedCommits( identifier );
+            }
+        }
+        finally
+        {
+            releaseWriteLock();
+        }
+    }
+
+    /**
+     * @return counters for searcher lookups and refreshes in this data source.
+     */
+    public IndexSearcherStatistics getSearcherStatistics()
+    {
+        return searcherStatistics;
     }
 
     static File getFileDirectory( String storeDir, byte entityType )
@@ -528,11 +679,32 @@ public class LuceneDataSource extends LogBackedXaDataSource
         return TopFieldCollector.create( sorting, n, false, true, false, true );
     }
 
-    synchronized IndexSearcherRef getIndexSearcher( IndexIdentifier identifier, boolean incRef )
+    IndexSearcherRef getIndexSearcher( IndexIdentifier identifier, boolean incRef )
     {
+        ReentrantLock indexLock = lockFor( identifier );
+        if ( indexLock.tryLock() )
+        {
+            searcherStatistics.lookup( false, 0 );
+        }
+        else
+        {
+            long start = System.nanoTime();
+            indexLock.lock();
+            searcherStatistics.lookup( true, System.nanoTime() - start );
+        }
         try
         {
             Pair<IndexSearcherRef, AtomicBoolean> searcher = indexSearchers.get( identifier );
+            if ( searcher == null )
+            {
+                // Pushed out of the cache but not closed yet, changes it missed are picked up by a refresh
+                searcher = indexSearchers.evicted().remove( identifier );
+                if ( searcher != null )
+                {
+                    searcher.other().set( true );
+                    indexSearchers.put( identifier, searcher );
+                }
+            }
             IndexWriter writer = getIndexWriter( identifier );
             if ( searcher == null )
             {
@@ -545,7 +717,7 @@ public class LuceneDataSource extends LogBackedXaDataSource
             {
                 if ( searcher.other().compareAndSet( true, false ) )
                 {
-                    searcher = refreshSearcher( searcher, writer );
+                    searcher = refreshSearcher( searcher, writer, false );
                     if ( searcher != null )
                     {
                         indexSearchers.put( identifier, searcher );
@@ -562,6 +734,64 @@ public class LuceneDataSource extends LogBackedXaDataSource
         {
             throw new RuntimeException( e );
         }
+        finally
+        {
+            indexLock.unlock();
+            closeEvicted();
+        }
+    }
+
+    /**
+     * Reopens the searcher of an index, if it has been invalidated since, so
+     * that the next lookup doesn't have to. Holds the read lock so that it
+     * can't see changes of a transaction that is being committed, the
+     * committer invalidates the searcher again when it's done anyway.
+     */
+    private void refreshInBackground( final IndexIdentifier identifier )
+    {
+        try
+        {
+            searcherRefresher.execute( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    getReadLock();
+                    ReentrantLock indexLock = lockFor( identifier );
+                    indexLock.lock();
+                    try
+                    {
+                        if ( closed )
+                        {
+                            return;
+                        }
+                        Pair<IndexSearcherRef, AtomicBoolean> searcher = indexSearchers.get( identifier );
+                        IndexWriter writer = indexWriters.get( identifier );
+                        if ( searcher != null && writer != null && searcher.other().compareAndSet( true, false ) )
+                        {
+                            try
+                            {
+                                indexSearchers.put( identifier, refreshSearcher( searcher, writer, true ) );
+                            }
+                            catch ( RuntimeException e )
+                            {
+                                // Leave it for the next lookup to try again
+                                searcher.other().set( true );
+                                throw e;
+                            }
+                        }
+                    }
+                    finally
+                    {
+                        indexLock.unlock();
+                        releaseReadLock();
+                    }
+                }
+            } );
+        }
+        catch ( RejectedExecutionException e )
+        {   // Shut down, the searcher will be disposed of anyway
+        }
     }
 
     XaTransaction createTransaction( int identifier,
@@ -570,17 +800,21 @@ public class LuceneDataSource extends LogBackedXaDataSource
         return new LuceneTransaction( identifier, logicalLog, this );
     }
 
-    synchronized void invalidateIndexSearcher( IndexIdentifier identifier )
+    void invalidateIndexSearcher( IndexIdentifier identifier )
     {
         Pair<IndexSearcherRef, AtomicBoolean> searcher = indexSearchers.get( identifier );
-        if ( searcher != null )
+        if ( searcher != null && !searcher.other().getAndSet( true ) && searcherRefresher != null && !closed )
         {
-            searcher.other().set( true );
+            refreshInBackground( identifier );
         }
     }
 
     void deleteIndex( IndexIdentifier identifier, boolean recovery )
     {
+        if ( commitBatch != null )
+        {
+            commitBatch.remove( identifier );
+        }
         closeWriter( identifier );
         deleteFileOrDirectory( getFileDirectory( baseStorePath, identifier ) );
         invalidateCache( identifier );
@@ -616,7 +850,7 @@ public class LuceneDataSource extends LogBackedXaDataSource
         }
     }
 
-    synchronized IndexWriter getIndexWriter( IndexIdentifier identifier )
+    IndexWriter getIndexWriter( IndexIdentifier identifier )
     {
         if ( closed ) throw new IllegalStateException( "Index has been shut down" );
 
@@ -626,8 +860,23 @@ public class LuceneDataSource extends LogBackedXaDataSource
             return writer;
         }
 
+        ReentrantLock indexLock = lockFor( identifier );
+        indexLock.lock();
         try
         {
+            writer = indexWriters.get( identifier );
+            if ( writer != null )
+            {
+                return writer;
+            }
+            // Pushed out of the cache but not closed yet, a second writer couldn't lock the index
+            writer = indexWriters.evicted().remove( identifier );
+            if ( writer != null )
+            {
+                indexWriters.put( identifier, writer );
+                return writer;
+            }
+
             Directory dir = directoryGetter.getDirectory( baseStorePath, identifier ); //getDirectory( baseStorePath, identifier );
             directoryExists( dir );
             IndexType type = getType( identifier );
@@ -652,6 +901,78 @@ public class LuceneDataSource extends LogBackedXaDataSource
         {
             throw new RuntimeException( e );
         }
+        finally
+        {
+            indexLock.unlock();
+            closeEvicted();
+        }
+    }
+
+    /**
+     * Closes the writers and searchers pushed out of their caches. Until then
+     * another thread may be using them, so it's only done holding both the
+     * write lock, which keeps transactions and queries out, and the lock of
+     * the index. It doesn't wait for either, whoever releases them next tries
+     * again, and it's left for later if this thread is in a transaction or
+     * working on the index.
+     */
+    private void closeEvicted()
+    {
+        if ( ( indexWriters.evicted().isEmpty() && indexSearchers.evicted().isEmpty() )
+             || lock.isWriteLockedByCurrentThread() || !lock.writeLock().tryLock() )
+        {
+            return;
+        }
+        try
+        {
+            for ( IndexIdentifier identifier : evictedIdentifiers() )
+            {
+                ReentrantLock indexLock = lockFor( identifier );
+                if ( !indexLock.isHeldByCurrentThread() && indexLock.tryLock() )
+                {
+                    try
+                    {
+                        closeEvicted( identifier );
+                    }
+                    finally
+                    {
+                        indexLock.unlock();
+                    }
+                }
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Collection<IndexIdentifier> evictedIdentifiers()
+    {
+        Collection<IndexIdentifier> identifiers = new HashSet<IndexIdentifier>( indexWriters.evicted().keySet() );
+        identifiers.addAll( indexSearchers.evicted().keySet() );
+        return identifiers;
+    }
+
+    private void closeEvicted( IndexIdentifier identifier )
+    {
+        Pair<IndexSearcherRef, AtomicBoolean> searcher = indexSearchers.evicted().remove( identifier );
+        IndexWriter writer = indexWriters.evicted().remove( identifier );
+        try
+        {
+            if ( searcher != null )
+            {
+                searcher.first().detachOrClose();
+            }
+            if ( writer != null )
+            {
+                writer.close( true );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to close index writer " + identifier, e );
+        }
     }
 
     private boolean directoryExists( Directory dir )
@@ -710,30 +1031,40 @@ public class LuceneDataSource extends LogBackedXaDataSource
         }
     }
 
-    private synchronized void closeWriter( IndexIdentifier identifier )
+    private void closeWriter( IndexIdentifier identifier )
     {
+        ReentrantLock indexLock = lockFor( identifier );
+        indexLock.lock();
         try
         {
             Pair<IndexSearcherRef, AtomicBoolean> searcher = indexSearchers.remove( identifier );
             IndexWriter writer = indexWriters.remove( identifier );
             if ( searcher != null )
             {
-                searcher.first().dispose();
+                searcher.first().detachOrClose();
             }
             if ( writer != null )
             {
                 writer.close();
             }
+            closeEvicted( identifier );
         }
         catch ( IOException e )
         {
             throw new RuntimeException( "Unable to close lucene writer " + identifier, e );
         }
+        finally
+        {
+            indexLock.unlock();
+        }
     }
 
-    LruCache<String,Collection<Long>> getFromCache( IndexIdentifier identifier, String key )
+    /**
+     * @return the cache of exact lookups, with its hit ratio and memory usage.
+     */
+    public Cache getCache()
     {
-        return caching.get( identifier, key );
+        return caching;
     }
 
     void setCacheCapacity( IndexIdentifier identifier, String key, int maxNumberOfCachedEntries )
@@ -743,16 +1074,27 @@ public class LuceneDataSource extends LogBackedXaDataSource
 
     Integer getCacheCapacity( IndexIdentifier identifier, String key )
     {
-        LruCache<String,Collection<Long>> cache = this.caching.get( identifier, key );
-        return cache != null ? cache.maxSize() : null;
+        return this.caching.getCapacity( identifier, key );
     }
 
+    /**
+     * Removes cached results which a committed add or remove of
+     * {@code key}/{@code value} may have changed. A {@code null} value means
+     * all values of the key and a {@code null} key all keys.
+     */
     void invalidateCache( IndexIdentifier identifier, String key, Object value )
     {
-        LruCache<String, Collection<Long>> cache = caching.get( identifier, key );
-        if ( cache != null )
+        if ( key == null )
+        {
+            caching.clear( identifier );
+        }
+        else if ( value == null )
+        {
+            caching.clear( identifier, key );
+        }
+        else
         {
-            cache.remove( value.toString() );
+            caching.remove( identifier, key, value.toString() );
         }
     }
 
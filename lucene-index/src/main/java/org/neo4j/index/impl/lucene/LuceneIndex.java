@@ -45,7 +45,6 @@ import org.neo4j.graphdb.index.Index;
 import org.neo4j.graphdb.index.IndexHits;
 import org.neo4j.index.lucene.QueryContext;
 import org.neo4j.kernel.GraphDatabaseAPI;
-import org.neo4j.kernel.impl.cache.LruCache;
 import org.neo4j.kernel.impl.core.ReadOnlyDbException;
 import org.neo4j.kernel.impl.util.IoPrimitiveUtils;
 
@@ -259,7 +258,7 @@ public abstract class LuceneIndex<T extends PropertyContainer> implements Index<
                     luceneTx.getRemovedIds( this, keyForDirectLookup, valueForDirectLookup ) :
                     luceneTx.getRemovedIds( this, query );
         }
-        service.dataSource().getReadLock();
+        service.dataSource().getReadLock( identifier );
         IndexHits<Long> idIterator = null;
         IndexSearcherRef searcher = null;
         try
@@ -267,20 +266,14 @@ public abstract class LuceneIndex<T extends PropertyContainer> implements Index<
             searcher = service.dataSource().getIndexSearcher( identifier, true );
             if ( searcher != null )
             {
-                boolean foundInCache = false;
-                LruCache<String, Collection<Long>> cachedIdsMap = null;
-                if ( keyForDirectLookup != null )
-                {
-                    cachedIdsMap = service.dataSource().getFromCache(
-                            identifier, keyForDirectLookup );
-                    foundInCache = fillFromCache( cachedIdsMap, ids,
-                            keyForDirectLookup, valueForDirectLookup.toString(), removedIds );
-                }
+                IndexHits<Document> hits = keyForDirectLookup != null ?
+                        fillFromCache( searcher, query, ids, keyForDirectLookup,
+                                valueForDirectLookup.toString(), removedIds ) :
+                        search( searcher, query, additionalParametersOrNull, additionsSearcher, removedIds );
 
-                if ( !foundInCache )
+                if ( hits != null )
                 {
-                    DocToIdIterator searchedIds = new DocToIdIterator( search( searcher,
-                            query, additionalParametersOrNull, additionsSearcher, removedIds ), removedIds, searcher );
+                    DocToIdIterator searchedIds = new DocToIdIterator( hits, removedIds, searcher );
                     if ( ids.isEmpty() )
                     {
                         idIterator = searchedIds;
@@ -330,28 +323,64 @@ public abstract class LuceneIndex<T extends PropertyContainer> implements Index<
         };
     }
 
-    private boolean fillFromCache(
-            LruCache<String, Collection<Long>> cachedNodesMap,
+    /**
+     * Adds the committed ids for {@code key}/{@code valueAsString} to
+     * {@code ids} from the cache, if caching is enabled for the key. Results
+     * which aren't cached yet are read in full from {@code searcher} and put
+     * in the cache, unless they're too large to be cached. Must be called
+     * holding the data source read lock, taken with
+     * {@link LuceneDataSource#getReadLock(IndexIdentifier)} so that the cached
+     * results can't miss a batched commit.
+     *
+     * @return {@code null} if {@code ids} was filled in, or else the hits of
+     * {@code query} to be read lazily, when caching isn't enabled for the key
+     * or the result is too large to be cached.
+     */
+    private IndexHits<Document> fillFromCache( IndexSearcherRef searcher, Query query,
             List<Long> ids, String key, String valueAsString,
             Collection<Long> deletedNodes )
     {
-        boolean found = false;
-        if ( cachedNodesMap != null )
+        Cache cache = service.dataSource().getCache();
+        if ( !cache.isEnabled( identifier, key ) )
         {
-            Collection<Long> cachedNodes = cachedNodesMap.get( valueAsString );
-            if ( cachedNodes != null )
+            return search( searcher, query, null, null, deletedNodes );
+        }
+        long[] cachedNodes = cache.get( identifier, key, valueAsString );
+        if ( cachedNodes == null )
+        {
+            IndexHits<Document> hits = search( searcher, query, null, null, deletedNodes );
+            if ( !cache.canCache( hits.size() ) )
             {
-                found = true;
-                for ( Long cachedNodeId : cachedNodes )
-                {
-                    if ( !deletedNodes.contains( cachedNodeId ) )
-                    {
-                        ids.add( cachedNodeId );
-                    }
-                }
+                return hits;
+            }
+            cachedNodes = readAllIds( hits );
+            cache.put( identifier, key, valueAsString, cachedNodes );
+        }
+        for ( long cachedNodeId : cachedNodes )
+        {
+            if ( !deletedNodes.contains( cachedNodeId ) )
+            {
+                ids.add( cachedNodeId );
+            }
+        }
+        // No DocToIdIterator will close it
+        searcher.closeStrict();
+        return null;
+    }
+
+    private long[] readAllIds( IndexHits<Document> hits )
+    {
+        long[] result = new long[hits.size()];
+        int count = 0;
+        for ( Document document : hits )
+        {
+            if ( count == result.length )
+            {
+                result = Arrays.copyOf( result, result.length * 2 + 1 );
             }
+            result[count++] = Long.parseLong( document.get( KEY_DOC_ID ) );
         }
-        return found;
+        return count == result.length ? result : Arrays.copyOf( result, count );
     }
 
     private IndexHits<Document> search( IndexSearcherRef searcherRef, Query query,
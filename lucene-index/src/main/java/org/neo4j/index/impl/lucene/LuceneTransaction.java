@@ -256,19 +256,48 @@ class LuceneTransaction extends XaTransaction
                 CommandList commandList = entry.getValue();
                 IndexType type = identifier == LuceneCommand.CreateIndexCommand.FAKE_IDENTIFIER || !commandList.containsWrites() ? null :
                     dataSource.getType( identifier );
-                CommitContext context = new CommitContext( dataSource, identifier, type, commandList );
+                CommitBatch batch = type == null || commandList.isRecovery() ? null : dataSource.getCommitBatch();
+                CommitContext context;
+                if ( batch != null )
+                {
+                    context = new CommitContext( dataSource, identifier, type, commandList,
+                            batch.documentsFor( identifier ) );
+                }
+                else
+                {
+                    dataSource.applyBatchedCommits( identifier );
+                    context = new CommitContext( dataSource, identifier, type, commandList );
+                }
                 for ( LuceneCommand command : commandList.commands )
                 {
                     command.perform( context );
                 }
                 
-                applyDocuments( context.writer, type, context.documents );
+                if ( batch == null )
+                {
+                    applyDocuments( context.writer, type, context.documents );
+                }
                 if ( context.writer != null )
                 {
-                    dataSource.invalidateIndexSearcher( identifier );
+                    for ( LuceneCommand command : commandList.commands )
+                    {
+                        if ( command.isConsideredNormalWriteCommand() )
+                        {
+                            dataSource.invalidateCache( identifier, command.key, command.value );
+                        }
+                    }
+                    if ( batch == null )
+                    {
+                        dataSource.invalidateIndexSearcher( identifier );
+                    }
                 }
             }
             
+            CommitBatch batch = dataSource.getCommitBatch();
+            if ( batch != null && batch.isFull() )
+            {
+                dataSource.applyBatchedCommits();
+            }
             dataSource.setLastCommittedTxId( getCommitTxId() );
             closeTxData();
         }
@@ -282,7 +311,7 @@ class LuceneTransaction extends XaTransaction
         }
     }
 
-    private void applyDocuments( IndexWriter writer, IndexType type,
+    static void applyDocuments( IndexWriter writer, IndexType type,
             Map<Long, DocumentContext> documents ) throws IOException
     {
         for ( Map.Entry<Long, DocumentContext> entry : documents.entrySet() )
@@ -299,8 +328,9 @@ class LuceneTransaction extends XaTransaction
                     writer.updateDocument( type.idTerm( context.entityId ), context.document );
                 }
             }
-            else
+            else if ( !LuceneDataSource.documentIsEmpty( context.document ) )
             {
+                // Added and removed again by different transactions in a batch
                 writer.addDocument( context.document );
             }
         }
@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.impl.lucene;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.neo4j.index.Neo4jTestCase.assertContains;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.kernel.impl.util.FileUtils;
+
+public class TestBatchedCommits
+{
+    private static final String PATH = "target/test-data/batched-commits";
+
+    @Before
+    public void clean() throws IOException
+    {
+        FileUtils.deleteRecursively( new File( PATH ) );
+    }
+
+    private GraphDatabaseService startDb()
+    {
+        return new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( PATH )
+                .setConfig( GraphDatabaseSettings.lucene_batched_commits_enabled, "true" )
+                .setConfig( GraphDatabaseSettings.lucene_batched_commits_window, "1h" )
+                .newGraphDatabase();
+    }
+
+    private static LuceneDataSource dataSource( GraphDatabaseService db )
+    {
+        return (LuceneDataSource) ((GraphDatabaseAPI) db).getXaDataSourceManager().getXaDataSource(
+                LuceneDataSource.DEFAULT_NAME );
+    }
+
+    @Test
+    public void changesOfManyTransactionsAreWrittenTogether()
+    {
+        GraphDatabaseService db = startDb();
+        Node node;
+        Transaction tx = db.beginTx();
+        try
+        {
+            node = db.createNode();
+            db.index().forNodes( "batched" ).add( node, "name", "0" );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        // Make the index and its searcher exist before counting refreshes
+        assertContains( db.index().forNodes( "batched" ).get( "name", "0" ), node );
+        long refreshes = dataSource( db ).getSearcherStatistics().getRefreshes();
+
+        for ( int i = 1; i <= 20; i++ )
+        {
+            tx = db.beginTx();
+            try
+            {
+                Index<Node> index = db.index().forNodes( "batched" );
+                index.remove( node, "name", String.valueOf( i - 1 ) );
+                index.add( node, "name", String.valueOf( i ) );
+                index.add( db.createNode(), "other", String.valueOf( i ) );
+                tx.success();
+            }
+            finally
+            {
+                tx.finish();
+            }
+        }
+        Index<Node> index = db.index().forNodes( "batched" );
+        assertContains( index.get( "name", "19" ) );
+        assertContains( index.get( "name", "20" ), node );
+        assertEquals( 20, index.query( "other", "*" ).size() );
+        assertEquals( refreshes + 1, dataSource( db ).getSearcherStatistics().getRefreshes() );
+
+        tx = db.beginTx();
+        try
+        {
+            db.index().forNodes( "batched" ).add( node, "name", "21" );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        db.shutdown();
+
+        db = startDb();
+        try
+        {
+            index = db.index().forNodes( "batched" );
+            assertContains( index.get( "name", "21" ), node );
+            assertContains( index.get( "name", "20" ), node );
+            assertEquals( 20, index.query( "other", "*" ).size() );
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+
+    @Test
+    public void cachedHitsDontMissBatchedCommitsMadeWhileReading() throws Exception
+    {
+        final GraphDatabaseService db = startDb();
+        try
+        {
+            final Node node;
+            Transaction tx = db.beginTx();
+            try
+            {
+                node = db.createNode();
+                db.index().forNodes( "batched" ).add( node, "name", "0" );
+                tx.success();
+            }
+            finally
+            {
+                tx.finish();
+            }
+            ((LuceneIndex<Node>) db.index().forNodes( "batched" )).setCacheCapacity( "name", 1000 );
+
+            // Readers keep asking for the value about to be committed, so that
+            // they try to cache it while its transaction is committing
+            final AtomicInteger committed = new AtomicInteger();
+            final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+            Thread[] readers = new Thread[4];
+            for ( int i = 0; i < readers.length; i++ )
+            {
+                readers[i] = new Thread()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            Index<Node> index = db.index().forNodes( "batched" );
+                            while ( committed.get() >= 0 )
+                            {
+                                index.get( "name", String.valueOf( committed.get() + 1 ) ).size();
+                            }
+                        }
+                        catch ( Throwable e )
+                        {
+                            failure.set( e );
+                        }
+                    }
+                };
+                readers[i].start();
+            }
+
+            try
+            {
+                Index<Node> index = db.index().forNodes( "batched" );
+                for ( int i = 1; i <= 200; i++ )
+                {
+                    tx = db.beginTx();
+                    try
+                    {
+                        index.remove( node, "name", String.valueOf( i - 1 ) );
+                        index.add( node, "name", String.valueOf( i ) );
+                        tx.success();
+                    }
+                    finally
+                    {
+                        tx.finish();
+                    }
+                    committed.set( i );
+                    assertContains( index.get( "name", String.valueOf( i ) ), node );
+                    assertContains( index.get( "name", String.valueOf( i - 1 ) ) );
+                }
+            }
+            finally
+            {
+                committed.set( -1 );
+                for ( Thread reader : readers )
+                {
+                    reader.join();
+                }
+            }
+            assertNull( failure.get() );
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+}
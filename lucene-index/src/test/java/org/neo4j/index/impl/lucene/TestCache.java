@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.impl.lucene;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestCache
+{
+    private final IndexIdentifier identifier = new IndexIdentifier( LuceneCommand.NODE, null, "cached" );
+
+    @Test
+    public void resultsWhichCanBeCachedAreTheOnesWhichFitAQuarterOfTheBudget()
+    {
+        Cache cache = new Cache( 400 );
+        cache.setCapacity( identifier, "name", 10 );
+
+        // Consecutive ids take one byte each, and the hits 32 bytes on top
+        assertTrue( cache.canCache( 68 ) );
+        cache.put( identifier, "name", "small", ids( 68 ) );
+        assertNotNull( cache.get( identifier, "name", "small" ) );
+        assertEquals( 100, cache.getBytesUsed() );
+
+        assertFalse( cache.canCache( 69 ) );
+        cache.put( identifier, "name", "large", ids( 69 ) );
+        assertNull( cache.get( identifier, "name", "large" ) );
+        assertEquals( 100, cache.getBytesUsed() );
+    }
+
+    private static long[] ids( int count )
+    {
+        long[] ids = new long[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            ids[i] = i;
+        }
+        return ids;
+    }
+}
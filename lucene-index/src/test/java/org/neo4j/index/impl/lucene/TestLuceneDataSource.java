@@ -192,6 +192,50 @@ public class TestLuceneDataSource
         assertFalse( IndexWriterAccessor.isClosed( newFooIndexWriter ) );
     }
 
+    @Test
+    public void testDoesNotCloseAnEvictedWriterWhileQueriesCanUseIt() throws InstantiationException
+    {
+        addIndex( "bar" );
+        Map<String,String> config = config();
+        config.put( GraphDatabaseSettings.lucene_writer_cache_size.name(), "1");
+        Config config1 = new Config( new ConfigurationDefaults(GraphDatabaseSettings.class ).apply( config) );
+        dataSource = new LuceneDataSource( config1, indexStore, new DefaultFileSystemAbstraction(),
+                                           new XaFactory( config1, TxIdGenerator.DEFAULT, new PlaceboTm(), new DefaultLogBufferFactory(), new DefaultFileSystemAbstraction(), StringLogger.DEV_NULL, RecoveryVerifier.ALWAYS_VALID) );
+        IndexIdentifier fooIdentifier = identifier( "foo" );
+        IndexIdentifier barIdentifier = identifier( "bar" );
+        IndexWriter fooIndexWriter = dataSource.getIndexWriter( fooIdentifier );
+        dataSource.getReadLock();
+        try
+        {
+            dataSource.getIndexWriter( barIdentifier );
+            assertFalse( IndexWriterAccessor.isClosed( fooIndexWriter ) );
+            assertSame( fooIndexWriter, dataSource.getIndexWriter( fooIdentifier ) );
+            dataSource.getIndexWriter( barIdentifier );
+            assertFalse( IndexWriterAccessor.isClosed( fooIndexWriter ) );
+        }
+        finally
+        {
+            dataSource.releaseReadLock();
+        }
+        assertTrue( IndexWriterAccessor.isClosed( fooIndexWriter ) );
+    }
+
+    @Test
+    public void testDoesNotCloseAnEvictedSearcherThatIsStillInUse() throws Exception
+    {
+        addIndex( "bar" );
+        Map<String,String> config = config();
+        config.put( GraphDatabaseSettings.lucene_searcher_cache_size.name(), "1");
+        Config config1 = new Config( new ConfigurationDefaults(GraphDatabaseSettings.class ).apply( config) );
+        dataSource = new LuceneDataSource( config1, indexStore, new DefaultFileSystemAbstraction(),
+                                           new XaFactory( config1, TxIdGenerator.DEFAULT, new PlaceboTm(), new DefaultLogBufferFactory(), new DefaultFileSystemAbstraction(), StringLogger.DEV_NULL, RecoveryVerifier.ALWAYS_VALID) );
+        IndexSearcherRef fooSearcher = dataSource.getIndexSearcher( identifier( "foo" ), true );
+        dataSource.getIndexSearcher( identifier( "bar" ), false );
+        assertFalse( fooSearcher.isClosed() );
+        fooSearcher.close();
+        assertTrue( fooSearcher.isClosed() );
+    }
+
     @Ignore( "No longer valid since Lucene 3.5" )
     @Test
     public void testInvalidatingSearcherCreatesANewOne() throws InstantiationException
@@ -209,6 +253,32 @@ public class TestLuceneDataSource
         assertNotSame( oldSearcher.getSearcher(), newSearcher.getSearcher() );
     }
 
+    @Test
+    public void testRefreshesInvalidatedSearcherInTheBackground() throws Exception
+    {
+        Config config = new Config( new ConfigurationDefaults(GraphDatabaseSettings.class ).apply( config()) );
+        dataSource = new LuceneDataSource( config, indexStore, new DefaultFileSystemAbstraction(),
+            new XaFactory( config, TxIdGenerator.DEFAULT, new PlaceboTm(), new DefaultLogBufferFactory(), new DefaultFileSystemAbstraction(), StringLogger.DEV_NULL, RecoveryVerifier.ALWAYS_VALID) );
+        IndexIdentifier identifier = identifier( "foo" );
+        IndexSearcherRef oldSearcher = dataSource.getIndexSearcher( identifier, false );
+        IndexWriter writer = dataSource.getIndexWriter( identifier );
+        writer.addDocument( IndexType.newBaseDocument( 1 ) );
+        dataSource.invalidateIndexSearcher( identifier );
+
+        IndexSearcherStatistics statistics = dataSource.getSearcherStatistics();
+        long end = System.currentTimeMillis() + 10000;
+        while ( statistics.getBackgroundRefreshes() == 0 && System.currentTimeMillis() < end )
+        {
+            Thread.sleep( 10 );
+        }
+        assertEquals( 1, statistics.getBackgroundRefreshes() );
+        IndexSearcherRef newSearcher = dataSource.getIndexSearcher( identifier, false );
+        assertNotSame( oldSearcher, newSearcher );
+        assertEquals( 1, newSearcher.getSearcher().maxDoc() );
+        assertEquals( 1, statistics.getRefreshes() );
+        assertEquals( 2, statistics.getLookups() );
+    }
+
     private Map<String,String> config()
     {
         return MapUtil.stringMap(
@@ -1712,4 +1712,34 @@ public class TestLuceneIndex extends AbstractLuceneIndexTest
         q.add( LuceneUtil.rangeQuery( "end", null, 30, true, true ), Occur.MUST );
         assertContains( index.query( q ), node );
     }
+
+    @Test
+    public void cachedExactLookupsSeeCommittedChanges() throws Exception
+    {
+        LuceneIndex<Node> index = (LuceneIndex<Node>) nodeIndex( testname.getMethodName(),
+                LuceneIndexImplementation.EXACT_CONFIG );
+        index.setCacheCapacity( "name", 10 );
+        Cache cache = index.service.dataSource().getCache();
+        Node mattias = graphDb.createNode();
+        Node tobias = graphDb.createNode();
+        index.add( mattias, "name", "Mattias" );
+        restartTx();
+
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        assertContains( index.get( "name", "Mattias" ), mattias );
+        assertContains( index.get( "name", "Mattias" ), mattias );
+        assertEquals( hits + 1, cache.getHits() );
+        assertEquals( misses + 1, cache.getMisses() );
+        assertTrue( cache.getBytesUsed() > 0 );
+
+        index.add( tobias, "name", "Mattias" );
+        assertContains( index.get( "name", "Mattias" ), mattias, tobias );
+        restartTx();
+        assertContains( index.get( "name", "Mattias" ), mattias, tobias );
+        index.remove( mattias, "name" );
+        restartTx();
+        assertContains( index.get( "name", "Mattias" ), tobias );
+        assertContains( index.get( "name", "Tobias" ) );
+    }
 }
@@ -25,12 +25,15 @@ import java.io.File;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.configuration.Configuration;
 import org.neo4j.kernel.impl.util.StringLogger;
 import org.neo4j.kernel.info.DiagnosticsManager;
+import org.neo4j.server.admission.AdmissionControl;
+import org.neo4j.server.admission.RequestClass;
 import org.neo4j.server.configuration.Configurator;
 import org.neo4j.server.database.Database;
 import org.neo4j.server.database.GraphDatabaseFactory;
@@ -60,6 +63,7 @@ public class NeoServerWithEmbeddedWebServer implements NeoServer
 
     private final List<ServerModule> serverModules = new ArrayList<ServerModule>();
     private PluginInitializer pluginInitializer;
+    private AdmissionControl admissionControl;
     private final Bootstrapper bootstrapper;
 
     private SimpleUriBuilder uriBuilder = new SimpleUriBuilder();
@@ -212,9 +216,39 @@ public class NeoServerWithEmbeddedWebServer implements NeoServer
             webServer.setHttpsCertificateInformation( initHttpsKeyStore() );
         }
 
+        if ( configurator.configuration().getBoolean( Configurator.WEBSERVER_ADMISSION_CONTROL_PROPERTY_KEY,
+                Configurator.DEFAULT_WEBSERVER_ADMISSION_CONTROL ) )
+        {
+            // Every Jetty connector takes one acceptor thread out of the pool
+            admissionControl = createAdmissionControl( maxThreads - (sslEnabled ? 2 : 1) );
+        }
+
         webServer.init();
     }
 
+    private AdmissionControl createAdmissionControl( int workerThreads )
+    {
+        Configuration configuration = configurator.configuration();
+        // Queued requests hold on to a thread as well, keep them to a quarter of the pool
+        int maxQueued = configuration.getInt( Configurator.WEBSERVER_MAX_QUEUED_REQUESTS_PROPERTY_KEY,
+                Math.min( Configurator.DEFAULT_WEBSERVER_MAX_QUEUED_REQUESTS, workerThreads / 12 ) );
+        Map<RequestClass, Integer> defaults = AdmissionControl.defaultMaxConcurrent( workerThreads, maxQueued );
+        Map<RequestClass, Integer> maxConcurrent = new EnumMap<RequestClass, Integer>( RequestClass.class );
+        maxConcurrent.put( RequestClass.READ, configuration.getInt(
+                Configurator.WEBSERVER_MAX_READ_REQUESTS_PROPERTY_KEY, defaults.get( RequestClass.READ ) ) );
+        maxConcurrent.put( RequestClass.WRITE, configuration.getInt(
+                Configurator.WEBSERVER_MAX_WRITE_REQUESTS_PROPERTY_KEY, defaults.get( RequestClass.WRITE ) ) );
+        maxConcurrent.put( RequestClass.LONG_RUNNING, configuration.getInt(
+                Configurator.WEBSERVER_MAX_LONG_RUNNING_REQUESTS_PROPERTY_KEY,
+                defaults.get( RequestClass.LONG_RUNNING ) ) );
+        AdmissionControl.checkFits( maxConcurrent, maxQueued, workerThreads );
+        int maxWait = configuration.getInt( Configurator.WEBSERVER_MAX_QUEUE_WAIT_PROPERTY_KEY,
+                Configurator.DEFAULT_WEBSERVER_MAX_QUEUE_WAIT );
+        log.info( "Admission control enabled, at most %s requests executing and %s of each class waiting at once",
+                maxConcurrent, maxQueued );
+        return new AdmissionControl( maxConcurrent, maxQueued, maxWait );
+    }
+
     private SecurityRule[] createSecurityRulesFrom( Configuration configuration )
     {
         ArrayList<SecurityRule> rules = new ArrayList<SecurityRule>();
@@ -261,6 +295,11 @@ public class NeoServerWithEmbeddedWebServer implements NeoServer
                 webServer.addExecutionLimitFilter( limit );
             }
 
+            if ( admissionControl != null )
+            {
+                webServer.addAdmissionControlFilter( admissionControl );
+            }
+
 
             if ( httpLoggingProperlyConfigured() )
             {
@@ -437,6 +476,15 @@ public class NeoServerWithEmbeddedWebServer implements NeoServer
         return uriBuilder.buildURI( getWebServerAddress(), getHttpsPort(), true );
     }
 
+    /**
+     * @return the admission control of the web server, or {@code null} if
+     * it isn't enabled.
+     */
+    public AdmissionControl getAdmissionControl()
+    {
+        return admissionControl;
+    }
+
     public WebServer getWebServer()
     {
         return webServer;
@@ -21,26 +21,45 @@ package org.neo4j.server;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
+import org.neo4j.helpers.DaemonThreadFactory;
 import org.neo4j.server.rrd.JobScheduler;
 import org.neo4j.server.rrd.ScheduledJob;
 
+/**
+ * Runs all jobs on a single shared scheduler thread, rather than a timer
+ * thread per job.
+ */
 public class RoundRobinJobScheduler implements JobScheduler
 {
+    private static final String THREAD_NAME = "Neo4j Server Scheduler";
 
     private List<ScheduledJob> scheduledJobs = new LinkedList<ScheduledJob>();
+    private ScheduledExecutorService executor;
 
-    public void scheduleAtFixedRate( Runnable job, String jobName, long delay, long period )
+    public synchronized void scheduleAtFixedRate( Runnable job, String jobName, long delay, long period )
     {
-        ScheduledJob scheduledJob = new ScheduledJob( job, jobName, delay, period );
+        if ( executor == null )
+        {
+            executor = Executors.newSingleThreadScheduledExecutor( new DaemonThreadFactory( THREAD_NAME ) );
+        }
+        ScheduledJob scheduledJob = new ScheduledJob( executor, job, jobName, delay, period );
         scheduledJobs.add( scheduledJob );
     }
 
-    public void stopJobs()
+    public synchronized void stopJobs()
     {
         for ( ScheduledJob job : scheduledJobs )
         {
             job.cancel();
         }
+        scheduledJobs.clear();
+        if ( executor != null )
+        {
+            executor.shutdown();
+            executor = null;
+        }
     }
 }
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.admission;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of requests of each {@link RequestClass} executing at
+ * the same time. A request that can't start right away waits in a bounded
+ * queue for a limited time, and is turned away if the queue is full or the
+ * time runs out, so that a client gets an early answer instead of piling up
+ * behind requests of a different kind.
+ */
+public class AdmissionControl
+{
+    private final Map<RequestClass, Lane> lanes = new EnumMap<RequestClass, Lane>( RequestClass.class );
+    private final int maxQueued;
+    private final long maxWaitMillis;
+
+    /**
+     * @param maxConcurrent the number of requests of each class allowed to
+     * execute at the same time, classes left out are not limited.
+     * @param maxQueued the number of requests of a class allowed to wait for
+     * others of the same class to finish.
+     * @param maxWaitMillis how long a request may wait before being rejected.
+     */
+    public AdmissionControl( Map<RequestClass, Integer> maxConcurrent, int maxQueued, long maxWaitMillis )
+    {
+        for ( RequestClass requestClass : RequestClass.values() )
+        {
+            Integer max = maxConcurrent.get( requestClass );
+            lanes.put( requestClass, new Lane( max == null ? Integer.MAX_VALUE : Math.max( max, 1 ) ) );
+        }
+        this.maxQueued = maxQueued;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * The number of requests of each class allowed to execute at the same
+     * time by default, sharing {@code workerThreads} threads with
+     * {@code maxQueued} waiting requests of each class. Two fifths of the
+     * threads not taken by queued requests go to reads, as many to writes and
+     * a fifth to long running requests, so that at least one is left free.
+     */
+    public static Map<RequestClass, Integer> defaultMaxConcurrent( int workerThreads, int maxQueued )
+    {
+        int available = workerThreads - RequestClass.values().length * maxQueued - 1;
+        Map<RequestClass, Integer> maxConcurrent = new EnumMap<RequestClass, Integer>( RequestClass.class );
+        maxConcurrent.put( RequestClass.READ, Math.max( available * 2 / 5, 1 ) );
+        maxConcurrent.put( RequestClass.WRITE, Math.max( available * 2 / 5, 1 ) );
+        maxConcurrent.put( RequestClass.LONG_RUNNING, Math.max( available / 5, 1 ) );
+        return maxConcurrent;
+    }
+
+    /**
+     * Checks that the requests of all classes, both executing and queued,
+     * leave at least one of {@code workerThreads} free. Each of them holds a
+     * thread, and with none left the server can't even reject requests.
+     *
+     * @throws IllegalArgumentException if they don't.
+     */
+    public static void checkFits( Map<RequestClass, Integer> maxConcurrent, int maxQueued, int workerThreads )
+    {
+        long threads = 0;
+        for ( RequestClass requestClass : RequestClass.values() )
+        {
+            Integer max = maxConcurrent.get( requestClass );
+            if ( max == null )
+            {
+                throw new IllegalArgumentException( "No limit for " + requestClass + " requests" );
+            }
+            threads += Math.max( max, 1 ) + (long) maxQueued;
+        }
+        if ( threads >= workerThreads )
+        {
+            throw new IllegalArgumentException( "Admission control lets " + maxConcurrent + " requests execute and " +
+                    maxQueued + " of each class wait, which needs " + threads + " threads, but only " +
+                    workerThreads + " are available to handle requests" );
+        }
+    }
+
+    /**
+     * @return whether the request may go ahead, in which case
+     * {@link #release(RequestClass)} must be called once it is done.
+     */
+    public boolean admit( RequestClass requestClass ) throws InterruptedException
+    {
+        Lane lane = lanes.get( requestClass );
+        if ( lane.permits.tryAcquire() )
+        {
+            lane.admitted.incrementAndGet();
+            return true;
+        }
+        if ( lane.queued.incrementAndGet() > maxQueued )
+        {
+            lane.queued.decrementAndGet();
+            lane.rejected.incrementAndGet();
+            return false;
+        }
+        long start = System.nanoTime();
+        boolean admitted = false;
+        try
+        {
+            admitted = lane.permits.tryAcquire( maxWaitMillis, MILLISECONDS );
+        }
+        finally
+        {
+            lane.queued.decrementAndGet();
+            lane.waited.incrementAndGet();
+            lane.waitNanos.addAndGet( System.nanoTime() - start );
+            ( admitted ? lane.admitted : lane.rejected ).incrementAndGet();
+        }
+        return admitted;
+    }
+
+    public void release( RequestClass requestClass )
+    {
+        lanes.get( requestClass ).permits.release();
+    }
+
+    /**
+     * @return the number of requests currently waiting to be admitted.
+     */
+    public int queueDepth( RequestClass requestClass )
+    {
+        return lanes.get( requestClass ).queued.get();
+    }
+
+    public long admitted( RequestClass requestClass )
+    {
+        return lanes.get( requestClass ).admitted.get();
+    }
+
+    public long rejected( RequestClass requestClass )
+    {
+        return lanes.get( requestClass ).rejected.get();
+    }
+
+    /**
+     * @return the number of requests that have had to wait in the queue,
+     * whether admitted in the end or not.
+     */
+    public long waited( RequestClass requestClass )
+    {
+        return lanes.get( requestClass ).waited.get();
+    }
+
+    /**
+     * @return the total time spent waiting by the requests counted in
+     * {@link #waited(RequestClass)}.
+     */
+    public long totalWaitNanos( RequestClass requestClass )
+    {
+        return lanes.get( requestClass ).waitNanos.get();
+    }
+
+    private static class Lane
+    {
+        final Semaphore permits;
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicLong admitted = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong waited = new AtomicLong();
+        final AtomicLong waitNanos = new AtomicLong();
+
+        Lane( int maxConcurrent )
+        {
+            // Fair, so that queued requests are admitted in the order they came
+            this.permits = new Semaphore( maxConcurrent, true );
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.admission;
+
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.neo4j.server.rest.web.InternalJettyServletRequest;
+
+/**
+ * Asks {@link AdmissionControl} before letting a request through, and
+ * answers 503 Service Unavailable right away if it isn't admitted.
+ * Requests dispatched from within another request, like the operations of
+ * a batch, run on the permit of the outer request.
+ */
+public class AdmissionControlFilter implements Filter
+{
+    static final String RETRY_AFTER_SECONDS = "1";
+    private static final String ADMITTED = AdmissionControlFilter.class.getName() + ".admitted";
+
+    private final AdmissionControl admissionControl;
+
+    public AdmissionControlFilter( AdmissionControl admissionControl )
+    {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public void init( FilterConfig filterConfig ) throws ServletException
+    {
+    }
+
+    @Override
+    public void doFilter( ServletRequest req, ServletResponse res, FilterChain chain ) throws IOException,
+            ServletException
+    {
+        if ( !( req instanceof HttpServletRequest ) || !( res instanceof HttpServletResponse )
+             || req instanceof InternalJettyServletRequest || req.getAttribute( ADMITTED ) != null )
+        {
+            chain.doFilter( req, res );
+            return;
+        }
+
+        RequestClass requestClass = RequestClass.of( (HttpServletRequest) req );
+        boolean admitted;
+        try
+        {
+            admitted = admissionControl.admit( requestClass );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if ( !admitted )
+        {
+            HttpServletResponse response = (HttpServletResponse) res;
+            response.setHeader( "Retry-After", RETRY_AFTER_SECONDS );
+            response.sendError( SC_SERVICE_UNAVAILABLE );
+            return;
+        }
+
+        req.setAttribute( ADMITTED, requestClass );
+        try
+        {
+            chain.doFilter( req, res );
+        }
+        finally
+        {
+            admissionControl.release( requestClass );
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+    }
+}
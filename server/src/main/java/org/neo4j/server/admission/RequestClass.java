@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.admission;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * The classes of requests that get their own share of the web server
+ * threads, so that f.ex. a number of slow cypher queries can't keep cheap
+ * reads from being served.
+ */
+public enum RequestClass
+{
+    READ( "read" ),
+    WRITE( "write" ),
+    /**
+     * Queries, traversals, batches and extensions, which may run for any
+     * amount of time regardless of the http method.
+     */
+    LONG_RUNNING( "long" );
+
+    // Resources right below the context path, and below node/{id}
+    private static final String[] LONG_RUNNING_RESOURCES = { "cypher", "batch", "ext" };
+    private static final String[] LONG_RUNNING_NODE_RESOURCES = { "traverse", "paged", "path", "paths" };
+
+    private final String shortName;
+
+    private RequestClass( String shortName )
+    {
+        this.shortName = shortName;
+    }
+
+    /**
+     * @return a name short enough to be part of a round robin database
+     * data source name.
+     */
+    public String shortName()
+    {
+        return shortName;
+    }
+
+    public static RequestClass of( HttpServletRequest request )
+    {
+        if ( isLongRunning( pathSegments( request ) ) )
+        {
+            return LONG_RUNNING;
+        }
+        String method = request.getMethod();
+        if ( "GET".equals( method ) || "HEAD".equals( method ) || "OPTIONS".equals( method ) )
+        {
+            return READ;
+        }
+        return WRITE;
+    }
+
+    /**
+     * @return the segments of the request uri after the context path, f.ex.
+     * {@code node, 1, traverse, node} for {@code /db/data/node/1/traverse/node}.
+     */
+    private static String[] pathSegments( HttpServletRequest request )
+    {
+        String path = request.getRequestURI();
+        if ( path == null )
+        {
+            return new String[0];
+        }
+        String contextPath = request.getContextPath();
+        if ( contextPath != null && path.startsWith( contextPath ) )
+        {
+            path = path.substring( contextPath.length() );
+        }
+        while ( path.startsWith( "/" ) )
+        {
+            path = path.substring( 1 );
+        }
+        return path.length() == 0 ? new String[0] : path.split( "/" );
+    }
+
+    private static boolean isLongRunning( String[] segments )
+    {
+        if ( segments.length > 0 && contains( LONG_RUNNING_RESOURCES, segments[0] ) )
+        {
+            return true;
+        }
+        return segments.length > 2 && segments[0].equals( "node" )
+               && contains( LONG_RUNNING_NODE_RESOURCES, segments[2] );
+    }
+
+    private static boolean contains( String[] names, String name )
+    {
+        for ( String candidate : names )
+        {
+            if ( candidate.equals( name ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
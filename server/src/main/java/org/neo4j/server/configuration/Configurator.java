@@ -47,6 +47,16 @@ public interface Configurator
     String WEBSERVER_MAX_THREADS_PROPERTY_KEY = "org.neo4j.server.webserver.maxthreads";
     String WEBSERVER_LIMIT_EXECUTION_TIME_PROPERTY_KEY = "org.neo4j.server.webserver.limit.executiontime";
 
+    String WEBSERVER_ADMISSION_CONTROL_PROPERTY_KEY = "org.neo4j.server.webserver.admission_control.enabled";
+    boolean DEFAULT_WEBSERVER_ADMISSION_CONTROL = false;
+    String WEBSERVER_MAX_READ_REQUESTS_PROPERTY_KEY = "org.neo4j.server.webserver.admission_control.max_reads";
+    String WEBSERVER_MAX_WRITE_REQUESTS_PROPERTY_KEY = "org.neo4j.server.webserver.admission_control.max_writes";
+    String WEBSERVER_MAX_LONG_RUNNING_REQUESTS_PROPERTY_KEY = "org.neo4j.server.webserver.admission_control.max_long_running";
+    String WEBSERVER_MAX_QUEUED_REQUESTS_PROPERTY_KEY = "org.neo4j.server.webserver.admission_control.max_queued";
+    int DEFAULT_WEBSERVER_MAX_QUEUED_REQUESTS = 50;
+    String WEBSERVER_MAX_QUEUE_WAIT_PROPERTY_KEY = "org.neo4j.server.webserver.admission_control.max_wait";
+    int DEFAULT_WEBSERVER_MAX_QUEUE_WAIT = 1000;
+
     String REST_API_PATH_PROPERTY_KEY = "org.neo4j.server.webadmin.data.uri";
     String REST_API_PACKAGE = "org.neo4j.server.rest.web";
     String DEFAULT_DATA_API_PATH = "/db/data";
@@ -78,6 +88,12 @@ public interface Configurator
     String WEBSERVER_HTTPS_KEY_PATH_PROPERTY_KEY = "org.neo4j.server.webserver.https.key.location";
     String DEFAULT_WEBSERVER_HTTPS_KEY_PATH = "neo4j-home/ssl/snakeoil.key";
 
+    String BATCH_DIRECT_DISPATCH_KEY = "org.neo4j.server.rest.batch.direct_dispatch";
+    boolean DEFAULT_BATCH_DIRECT_DISPATCH = true;
+
+    String CYPHER_STREAMING_KEY = "org.neo4j.server.rest.cypher.streaming";
+    boolean DEFAULT_CYPHER_STREAMING = true;
+
     String HTTP_LOGGING = "org.neo4j.server.http.log.enabled";
     String HTTP_LOG_CONFIG_LOCATION = "org.neo4j.server.http.log.config";
 
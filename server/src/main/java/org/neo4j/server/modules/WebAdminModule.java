@@ -62,7 +62,7 @@ public class WebAdminModule implements ServerModule
     {
         Database db = neoServer.getDatabase();
         RrdFactory rrdFactory = new RrdFactory( neoServer.getConfiguration() );
-        RrdDb rrdDb = rrdFactory.createRrdDbAndSampler( db, jobScheduler );
+        RrdDb rrdDb = rrdFactory.createRrdDbAndSampler( db, neoServer.getAdmissionControl(), jobScheduler );
         db.setRrdDb( rrdDb );
     }
 }
@@ -49,10 +49,22 @@ public abstract class BatchOperations
     protected static final JsonFactory jsonFactory = new JsonFactory();
     protected final WebServer webServer;
     protected final ObjectMapper mapper;
+    protected final DirectBatchOperations directOperations;
 
     public BatchOperations( WebServer webServer )
+    {
+        this( webServer, null );
+    }
+
+    /**
+     * @param directOperations performs the operations it knows directly
+     * instead of through the web server, or {@code null} to send every
+     * operation through the web server.
+     */
+    public BatchOperations( WebServer webServer, DirectBatchOperations directOperations )
     {
         this.webServer = webServer;
+        this.directOperations = directOperations;
         mapper = new ObjectMapper();
     }
 
@@ -170,6 +182,16 @@ public abstract class BatchOperations
         body = replaceLocationPlaceholders(body, locations);
         URI targetUri = calculateTargetUri(uriInfo, path);
 
+        if ( directOperations != null )
+        {
+            DirectBatchOperations.Result result = directOperations.perform( method, uriInfo.getBaseUri(), targetUri, body );
+            if ( result != null )
+            {
+                invokeDirectly( method, path, body, id, result );
+                return;
+            }
+        }
+
         InternalJettyServletRequest req = new InternalJettyServletRequest( method, targetUri.toString(), body);
         addHeaders( req, httpHeaders );
 
@@ -179,4 +201,10 @@ public abstract class BatchOperations
     }
 
     protected abstract void invoke( String method, String path, String body, Integer id, URI targetUri, InternalJettyServletRequest req, InternalJettyServletResponse res ) throws IOException, ServletException;
+
+    /**
+     * Adds the result of an operation which was performed by the
+     * {@link DirectBatchOperations} instead of through the web server.
+     */
+    protected abstract void invokeDirectly( String method, String path, String body, Integer id, DirectBatchOperations.Result result ) throws IOException;
 }
@@ -0,0 +1,321 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.core.Response.Status;
+
+import org.neo4j.cypher.javacompat.ExecutionEngine;
+import org.neo4j.server.rest.domain.EndNodeNotFoundException;
+import org.neo4j.server.rest.domain.StartNodeNotFoundException;
+import org.neo4j.server.rest.repr.BadInputException;
+import org.neo4j.server.rest.repr.CypherResultRepresentation;
+import org.neo4j.server.rest.repr.EntityRepresentation;
+import org.neo4j.server.rest.repr.ExceptionRepresentation;
+import org.neo4j.server.rest.repr.InputFormat;
+import org.neo4j.server.rest.repr.OutputFormat;
+import org.neo4j.server.rest.repr.Representation;
+import org.neo4j.server.rest.web.DatabaseActions;
+import org.neo4j.server.rest.web.NodeNotFoundException;
+import org.neo4j.server.rest.web.RelationshipNotFoundException;
+
+/**
+ * Performs the most common batch operations, creating nodes and
+ * relationships, setting properties, adding to indexes and running cypher
+ * queries, directly on {@link DatabaseActions} instead of dispatching them
+ * through the web server as internal servlet requests. Responses are the same
+ * as the ones from the REST API. Operations it doesn't know about are left
+ * for the caller to dispatch.
+ */
+public class DirectBatchOperations
+{
+    private static final Pattern NODES = Pattern.compile( "node" );
+    private static final Pattern NODE_RELATIONSHIPS = Pattern.compile( "node/(\\d+)/relationships" );
+    private static final Pattern NODE_PROPERTIES = Pattern.compile( "node/(\\d+)/properties" );
+    private static final Pattern NODE_PROPERTY = Pattern.compile( "node/(\\d+)/properties/([^/]+)" );
+    private static final Pattern RELATIONSHIP_PROPERTIES = Pattern.compile( "relationship/(\\d+)/properties" );
+    private static final Pattern RELATIONSHIP_PROPERTY = Pattern.compile( "relationship/(\\d+)/properties/([^/]+)" );
+    private static final Pattern NODE_INDEX = Pattern.compile( "index/node/([^/]+)" );
+    private static final Pattern RELATIONSHIP_INDEX = Pattern.compile( "index/relationship/([^/]+)" );
+    private static final Pattern CYPHER = Pattern.compile( "cypher" );
+
+    private final DatabaseActions actions;
+    private final ExecutionEngine executionEngine;
+    private final InputFormat input;
+    private final OutputFormat output;
+
+    public DirectBatchOperations( DatabaseActions actions, ExecutionEngine executionEngine, InputFormat input,
+            OutputFormat output )
+    {
+        this.actions = actions;
+        this.executionEngine = executionEngine;
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * @return the response body of {@code result} as it would have been sent
+     *         by the REST API, empty if there is none.
+     */
+    public String format( Result result )
+    {
+        if ( result.representation != null )
+        {
+            return output.format( result.representation );
+        }
+        return result.text == null ? "" : result.text;
+    }
+
+    /**
+     * Writes the response body of {@code result}, if any, to {@code stream}.
+     */
+    public void write( Result result, OutputStream stream ) throws IOException
+    {
+        if ( result.representation != null )
+        {
+            output.write( result.representation, stream );
+        }
+        else if ( result.text != null )
+        {
+            stream.write( result.text.getBytes( "UTF-8" ) );
+        }
+    }
+
+    /**
+     * @param baseUri the base uri of the REST API.
+     * @param targetUri the uri the operation is sent to, with location
+     * placeholders already replaced.
+     * @return the outcome of the operation, or {@code null} if it's not one
+     *         that can be performed directly.
+     */
+    public Result perform( String method, URI baseUri, URI targetUri, String body )
+    {
+        String basePath = baseUri.getPath();
+        String path = targetUri.getPath();
+        if ( targetUri.getQuery() != null || path == null || !path.startsWith( basePath ) )
+        {
+            return null;
+        }
+        path = path.substring( basePath.length() );
+        if ( path.endsWith( "/" ) )
+        {
+            path = path.substring( 0, path.length() - 1 );
+        }
+        try
+        {
+            if ( method.equals( "POST" ) )
+            {
+                return post( path, body );
+            }
+            if ( method.equals( "PUT" ) )
+            {
+                return put( path, body );
+            }
+            return null;
+        }
+        catch ( BadInputException e )
+        {
+            return error( Status.BAD_REQUEST, e );
+        }
+        catch ( ClassCastException e )
+        {
+            return error( Status.BAD_REQUEST, e );
+        }
+        catch ( ArrayStoreException e )
+        {
+            return new Result( Status.BAD_REQUEST.getStatusCode(), null, null,
+                    "Invalid JSON array in POST body: " + body );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            return error( Status.BAD_REQUEST, e );
+        }
+        catch ( EndNodeNotFoundException e )
+        {
+            return error( Status.BAD_REQUEST, e );
+        }
+        catch ( StartNodeNotFoundException e )
+        {
+            return error( Status.NOT_FOUND, e );
+        }
+        catch ( NodeNotFoundException e )
+        {
+            return error( Status.NOT_FOUND, e );
+        }
+        catch ( RelationshipNotFoundException e )
+        {
+            return error( Status.NOT_FOUND, e );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            return new Result( 405, new ExceptionRepresentation( e ), null, null );
+        }
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private Result post( String path, String body ) throws BadInputException, StartNodeNotFoundException,
+            EndNodeNotFoundException
+    {
+        Matcher matcher;
+        if ( NODES.matcher( path ).matches() )
+        {
+            return created( actions.createNode( input.readMap( body ) ) );
+        }
+        if ( ( matcher = NODE_RELATIONSHIPS.matcher( path ) ).matches() )
+        {
+            Map<String, Object> data = input.readMap( body );
+            return created( actions.createRelationship( Long.parseLong( matcher.group( 1 ) ),
+                    extractId( (String) data.get( "to" ) ), (String) data.get( "type" ),
+                    (Map<String, Object>) data.get( "data" ) ) );
+        }
+        if ( ( matcher = NODE_INDEX.matcher( path ) ).matches() )
+        {
+            Map<String, Object> entity = input.readMap( body, "key", "value", "uri" );
+            return created( actions.addToNodeIndex( matcher.group( 1 ), String.valueOf( entity.get( "key" ) ),
+                    String.valueOf( entity.get( "value" ) ), extractId( entity.get( "uri" ).toString() ) ) );
+        }
+        if ( ( matcher = RELATIONSHIP_INDEX.matcher( path ) ).matches() )
+        {
+            Map<String, Object> entity = input.readMap( body, "key", "value", "uri" );
+            return created( actions.addToRelationshipIndex( matcher.group( 1 ),
+                    String.valueOf( entity.get( "key" ) ), String.valueOf( entity.get( "value" ) ),
+                    extractId( entity.get( "uri" ).toString() ) ) );
+        }
+        if ( CYPHER.matcher( path ).matches() )
+        {
+            return cypher( input.readMap( body ) );
+        }
+        return null;
+    }
+
+    private Result put( String path, String body ) throws BadInputException, NodeNotFoundException,
+            RelationshipNotFoundException
+    {
+        Matcher matcher;
+        if ( ( matcher = NODE_PROPERTIES.matcher( path ) ).matches() )
+        {
+            actions.setAllNodeProperties( Long.parseLong( matcher.group( 1 ) ), input.readMap( body ) );
+            return noContent();
+        }
+        if ( ( matcher = NODE_PROPERTY.matcher( path ) ).matches() )
+        {
+            actions.setNodeProperty( Long.parseLong( matcher.group( 1 ) ), matcher.group( 2 ),
+                    input.readValue( body ) );
+            return noContent();
+        }
+        if ( ( matcher = RELATIONSHIP_PROPERTIES.matcher( path ) ).matches() )
+        {
+            actions.setAllRelationshipProperties( Long.parseLong( matcher.group( 1 ) ), input.readMap( body ) );
+            return noContent();
+        }
+        if ( ( matcher = RELATIONSHIP_PROPERTY.matcher( path ) ).matches() )
+        {
+            actions.setRelationshipProperty( Long.parseLong( matcher.group( 1 ) ), matcher.group( 2 ),
+                    input.readValue( body ) );
+            return noContent();
+        }
+        return null;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private Result cypher( Map<String, Object> command )
+    {
+        if ( !command.containsKey( "query" ) )
+        {
+            return error( Status.BAD_REQUEST, new BadInputException( "You have to provide the 'query' parameter." ) );
+        }
+        Map<String, Object> params = command.containsKey( "params" ) ? (Map<String, Object>) command.get( "params" )
+                : new HashMap<String, Object>();
+        try
+        {
+            return new Result( Status.OK.getStatusCode(), new CypherResultRepresentation(
+                    executionEngine.execute( (String) command.get( "query" ), params ) ), null, null );
+        }
+        catch ( Exception e )
+        {
+            return error( Status.BAD_REQUEST, e );
+        }
+    }
+
+    private static long extractId( String uri ) throws BadInputException
+    {
+        try
+        {
+            return Long.parseLong( uri.substring( uri.lastIndexOf( "/" ) + 1 ) );
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new BadInputException( e );
+        }
+        catch ( NullPointerException e )
+        {
+            throw new BadInputException( e );
+        }
+    }
+
+    private <REPR extends Representation & EntityRepresentation> Result created( REPR representation )
+    {
+        return new Result( Status.CREATED.getStatusCode(), representation,
+                output.format( representation.selfUri() ), null );
+    }
+
+    private static Result noContent()
+    {
+        return new Result( Status.NO_CONTENT.getStatusCode(), null, null, null );
+    }
+
+    private static Result error( Status status, Throwable e )
+    {
+        return new Result( status.getStatusCode(), new ExceptionRepresentation( e ), null, null );
+    }
+
+    public static class Result
+    {
+        private final int status;
+        private final Representation representation;
+        private final String location;
+        private final String text;
+
+        Result( int status, Representation representation, String location, String text )
+        {
+            this.status = status;
+            this.representation = representation;
+            this.location = location;
+            this.text = text;
+        }
+
+        public int getStatus()
+        {
+            return status;
+        }
+
+        public String getLocation()
+        {
+            return location;
+        }
+    }
+}
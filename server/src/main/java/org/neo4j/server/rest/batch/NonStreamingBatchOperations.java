@@ -42,6 +42,11 @@ public class NonStreamingBatchOperations extends BatchOperations
         super( webServer );
     }
 
+    public NonStreamingBatchOperations( WebServer webServer, DirectBatchOperations directOperations )
+    {
+        super( webServer, directOperations );
+    }
+
     public BatchOperationResults performBatchJobs( UriInfo uriInfo, HttpHeaders httpHeaders, InputStream body ) throws IOException, ServletException
     {
         results = new BatchOperationResults();
@@ -64,4 +69,16 @@ public class NonStreamingBatchOperations extends BatchOperations
         }
     }
 
+    @Override
+    protected void invokeDirectly( String method, String path, String body, Integer id, DirectBatchOperations.Result result )
+    {
+        String resultBody = directOperations.format( result );
+        if (is2XXStatusCode(result.getStatus()))
+        {
+            results.addOperationResult(path, id, resultBody, result.getLocation());
+        } else
+        {
+            throw new BatchOperationFailedException(result.getStatus(), resultBody, null );
+        }
+    }
 }
@@ -19,17 +19,19 @@
  */
 package org.neo4j.server.rest.paging;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.UUID;
 
 public class Lease
 {
     private long startTime;
-    public final PagedTraverser leasedTraverser;
+    private final Leasable leasedItem;
     private final String id;
     private long leasePeriod;
     private final Clock clock;
 
-    Lease( PagedTraverser leasedTraverser, long leasePeriodInSeconds, Clock clock ) throws LeaseAlreadyExpiredException
+    Lease( Leasable leasedItem, long leasePeriodInSeconds, Clock clock ) throws LeaseAlreadyExpiredException
     {
         if ( leasePeriodInSeconds < 0 )
         {
@@ -38,7 +40,7 @@ public class Lease
         }
 
         this.clock = clock;
-        this.leasedTraverser = leasedTraverser;
+        this.leasedItem = leasedItem;
         this.startTime = clock.currentTimeInMilliseconds();
         this.leasePeriod = leasePeriodInSeconds * 1000;
         this.id = toHexOnly( UUID.randomUUID() );
@@ -55,10 +57,10 @@ public class Lease
                 .replaceAll( "-", "" );
     }
 
-    public PagedTraverser getLeasedItemAndRenewLease()
+    public Leasable getLeasedItemAndRenewLease()
     {
         renew();
-        return leasedTraverser;
+        return leasedItem;
     }
 
     public void renew()
@@ -83,4 +85,23 @@ public class Lease
     {
         return leasePeriod;
     }
+
+    /**
+     * Closes the leased item, if it holds on to resources, once the lease has
+     * been removed.
+     */
+    void release()
+    {
+        if ( leasedItem instanceof Closeable )
+        {
+            try
+            {
+                ( (Closeable) leasedItem ).close();
+            }
+            catch ( IOException e )
+            {
+                // nothing more to do, nobody can get at the leased item anymore
+            }
+        }
+    }
 }
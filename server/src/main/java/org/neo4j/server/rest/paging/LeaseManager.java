@@ -32,14 +32,15 @@ public class LeaseManager
         this.clock = clock;
     }
 
-    public Lease createLease( long seconds, PagedTraverser leasedTraverser ) throws LeaseAlreadyExpiredException
+    public Lease createLease( long seconds, Leasable leasedItem ) throws LeaseAlreadyExpiredException
     {
         if ( seconds < 1 )
         {
             return null;
         }
 
-        Lease lease = new Lease( leasedTraverser, seconds, clock );
+        pruneOldLeasesByNaivelyIteratingThroughAllOfThem();
+        Lease lease = new Lease( leasedItem, seconds, clock );
         leases.put( lease.getId(), lease );
 
         return lease;
@@ -90,9 +91,10 @@ public class LeaseManager
 
     public void remove( String key )
     {
-        if ( leases.containsKey( key ) )
+        Lease lease = leases.remove( key );
+        if ( lease != null )
         {
-            leases.remove( key );
+            lease.release();
         }
     }
 }
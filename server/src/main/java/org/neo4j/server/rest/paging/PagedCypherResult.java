@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.paging;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.cypher.javacompat.ExecutionResult;
+
+/**
+ * Hands out the rows of a cypher result a page at a time, reading them from
+ * the lazily evaluated result as pages are asked for, so that the query
+ * doesn't have to be run again with SKIP and LIMIT for every page.
+ */
+public class PagedCypherResult implements Leasable, Closeable
+{
+    private final ExecutionResult result;
+    private final List<String> columns;
+    private final Iterator<Map<String, Object>> rows;
+    private final int pageSize;
+
+    public PagedCypherResult( ExecutionResult result, int pageSize )
+    {
+        this.result = result;
+        this.columns = result.columns();
+        this.rows = result.iterator();
+        this.pageSize = pageSize;
+    }
+
+    public List<String> columns()
+    {
+        return columns;
+    }
+
+    /**
+     * @return the next page of at most page size rows, or {@code null} if
+     * all rows have been returned.
+     */
+    public synchronized List<Map<String, Object>> next()
+    {
+        if ( !rows.hasNext() )
+        {
+            return null;
+        }
+
+        List<Map<String, Object>> page = new ArrayList<Map<String, Object>>();
+        while ( page.size() < pageSize && rows.hasNext() )
+        {
+            page.add( rows.next() );
+        }
+        return page;
+    }
+
+    public synchronized boolean hasNext()
+    {
+        return rows.hasNext();
+    }
+
+    /**
+     * Releases what the query holds on to, for results that are dropped
+     * before all their rows have been read.
+     */
+    public synchronized void close()
+    {
+        result.close();
+    }
+}
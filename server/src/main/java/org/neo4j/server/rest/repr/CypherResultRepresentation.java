@@ -19,7 +19,8 @@
  */
 package org.neo4j.server.rest.repr;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +29,7 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.helpers.collection.IterableWrapper;
+import org.neo4j.helpers.collection.PrefetchingIterator;
 import org.neo4j.server.webadmin.rest.representations.JmxAttributeRepresentationDispatcher;
 
 public class CypherResultRepresentation extends ObjectRepresentation
@@ -37,10 +39,19 @@ public class CypherResultRepresentation extends ObjectRepresentation
 
 
     public CypherResultRepresentation( ExecutionResult result )
+    {
+        this( result.columns(), result );
+    }
+
+    /**
+     * Represents {@code rows} lazily, each row is read from the result and
+     * written one at a time while serializing.
+     */
+    public CypherResultRepresentation( List<String> columns, Iterable<Map<String, Object>> rows )
     {
         super( RepresentationType.STRING );
-        resultRepresentation = createResultRepresentation(result);
-        columns = ListRepresentation.string( result.columns() );
+        resultRepresentation = createResultRepresentation( columns, rows );
+        this.columns = ListRepresentation.string( columns );
     }
 
     @Mapping( "columns" )
@@ -56,9 +67,8 @@ public class CypherResultRepresentation extends ObjectRepresentation
 
     }
 
-    private Representation createResultRepresentation(ExecutionResult executionResult) {
-        final List<String> columns = executionResult.columns();
-        final Iterable<Map<String, Object>> inner = new RepresentationExceptionHandlingIterable<Map<String,Object>>(executionResult);
+    private Representation createResultRepresentation(final List<String> columns, Iterable<Map<String, Object>> rows) {
+        final Iterable<Map<String, Object>> inner = new RepresentationExceptionHandlingIterable<Map<String,Object>>(rows);
         return new ListRepresentation( "data", new IterableWrapper<Representation,Map<String,Object>>(inner) {
 
             @Override
@@ -106,23 +116,37 @@ public class CypherResultRepresentation extends ObjectRepresentation
         return representationDispatcher.dispatch( r, "" );
     }
 
-    Representation handleIterable( Iterable data ) {
-        final List<Representation> results = new ArrayList<Representation>();
-        for ( final Object value : data )
+    Representation handleIterable( final Iterable data ) {
+        // The list is typed after its first element, so only that one is
+        // read up front, the rest are represented as they're serialized
+        final Iterator<?> values = data.iterator();
+        if ( !values.hasNext() )
         {
-            Representation rep = getRepresentation(value);
-            results.add(rep);
+            return new ListRepresentation( RepresentationType.STRING, Collections.<Representation>emptyList() );
         }
-
-        RepresentationType representationType = getType(results);
-        return new ListRepresentation( representationType, results );
-    }
-
-    RepresentationType getType( List<Representation> representations )
-    {
-        if ( representations == null || representations.isEmpty() )
-            return RepresentationType.STRING;
-        return representations.get( 0 ).getRepresentationType();
+        final Representation first = getRepresentation( values.next() );
+        return new ListRepresentation( first.getRepresentationType(), new Iterable<Representation>()
+        {
+            @Override
+            public Iterator<Representation> iterator()
+            {
+                return new PrefetchingIterator<Representation>()
+                {
+                    private boolean returnedFirst;
+
+                    @Override
+                    protected Representation fetchNextOrNull()
+                    {
+                        if ( !returnedFirst )
+                        {
+                            returnedFirst = true;
+                            return first;
+                        }
+                        return values.hasNext() ? getRepresentation( values.next() ) : null;
+                    }
+                };
+            }
+        } );
     }
 
 }
\ No newline at end of file
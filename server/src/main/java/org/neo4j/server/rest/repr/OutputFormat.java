@@ -58,6 +58,11 @@ public class OutputFormat
         return response( Response.created( uri( representation ) ), representation );
     }
 
+    public final Response created( URI location, Representation representation )
+    {
+        return response( Response.created( location ), representation );
+    }
+
     public final Response response( Status status, Representation representation ) throws BadInputException
     {
         return response( Response.status( status ), representation );
@@ -136,6 +141,31 @@ public class OutputFormat
         return entityAsBytes;
     }
 
+    /**
+     * @return an output format rendering with {@code format} instead, for the
+     *         same base uri and extensions.
+     */
+    public OutputFormat withFormat( RepresentationFormat format )
+    {
+        return new OutputFormat( format, baseUri, extensions );
+    }
+
+    /**
+     * Writes {@code representation} to {@code output} the same way it would
+     * be written as a response entity.
+     */
+    public void write( Representation representation, OutputStream output ) throws IOException
+    {
+        if ( format instanceof StreamingFormat )
+        {
+            representation.serialize( ( (StreamingFormat) format ).writeTo( output ), baseUri, extensions );
+        }
+        else
+        {
+            output.write( toBytes( format( representation ) ) );
+        }
+    }
+
     public MediaType getMediaType()
     {
         return format.mediaType;
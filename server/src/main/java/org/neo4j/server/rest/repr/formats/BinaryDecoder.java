@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.repr.formats;
+
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.END;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.FALSE;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.FLOAT;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.INTEGER;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.LIST;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.MAP;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.MAX_KEYS;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.NULL;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.STRING;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.TRUE;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.URI;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads values written in the {@link BinaryFormat} encoding, f.ex. by a
+ * client of the REST API. Lists are read as {@link List}s, mappings as
+ * {@link Map}s with the keys in the order they were written, integers as
+ * {@link Long}s and floating point numbers as {@link Double}s.
+ */
+public class BinaryDecoder
+{
+    private final InputStream in;
+    private final List<String> keys = new ArrayList<String>();
+    private String lastUri = "";
+
+    public BinaryDecoder( InputStream in )
+    {
+        this.in = in;
+    }
+
+    /**
+     * @return the next value in the stream.
+     * @throws EOFException if the stream ends before a complete value.
+     */
+    public Object read() throws IOException
+    {
+        int tag = readByte();
+        if ( tag == END )
+        {
+            throw new IOException( "Unexpected end of list or mapping" );
+        }
+        return read( tag );
+    }
+
+    private Object read( int tag ) throws IOException
+    {
+        switch ( tag )
+        {
+        case NULL:
+            return null;
+        case FALSE:
+            return Boolean.FALSE;
+        case TRUE:
+            return Boolean.TRUE;
+        case INTEGER:
+            long zigZag = readVarLong();
+            return ( zigZag >>> 1 ) ^ -( zigZag & 1 );
+        case FLOAT:
+            long bits = 0;
+            for ( int i = 0; i < 8; i++ )
+            {
+                bits = ( bits << 8 ) | readByte();
+            }
+            return Double.longBitsToDouble( bits );
+        case STRING:
+            return readUtf8();
+        case URI:
+            int shared = (int) readVarLong();
+            lastUri = lastUri.substring( 0, shared ) + readUtf8();
+            return lastUri;
+        case LIST:
+            List<Object> list = new ArrayList<Object>();
+            for ( int next = readByte(); next != END; next = readByte() )
+            {
+                list.add( read( next ) );
+            }
+            return list;
+        case MAP:
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            for ( String key = readKey(); key != null; key = readKey() )
+            {
+                map.put( key, read() );
+            }
+            return map;
+        default:
+            throw new IOException( "Unknown type tag " + tag );
+        }
+    }
+
+    /**
+     * @return the next key of a mapping, or {@code null} at the end of it.
+     */
+    private String readKey() throws IOException
+    {
+        long index = readVarLong();
+        if ( index == END )
+        {
+            return null;
+        }
+        if ( index > 1 )
+        {
+            return keys.get( (int) index - 2 );
+        }
+        String key = readUtf8();
+        if ( keys.size() < MAX_KEYS )
+        {
+            keys.add( key );
+        }
+        return key;
+    }
+
+    private int readByte() throws IOException
+    {
+        int value = in.read();
+        if ( value == -1 )
+        {
+            throw new EOFException();
+        }
+        return value;
+    }
+
+    private long readVarLong() throws IOException
+    {
+        int b = readByte();
+        long value = b & 0x7F;
+        for ( int shift = 7; ( b & 0x80 ) != 0; shift += 7 )
+        {
+            b = readByte();
+            value |= (long) ( b & 0x7F ) << shift;
+        }
+        return value;
+    }
+
+    private String readUtf8() throws IOException
+    {
+        byte[] bytes = new byte[(int) readVarLong()];
+        for ( int read = 0; read < bytes.length; )
+        {
+            int count = in.read( bytes, read, bytes.length - read );
+            if ( count == -1 )
+            {
+                throw new EOFException();
+            }
+            read += count;
+        }
+        return new String( bytes, "UTF-8" );
+    }
+}
@@ -0,0 +1,314 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.repr.formats;
+
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.END;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.FALSE;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.FLOAT;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.INTEGER;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.LIST;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.MAP;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.MAX_KEYS;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.NULL;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.STRING;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.TRUE;
+import static org.neo4j.server.rest.repr.formats.BinaryFormat.URI;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes values in the encoding described in {@link BinaryFormat} to an
+ * output stream, through a fixed size buffer. Keeps the keys written so far
+ * and the last uri written, since later keys and uris refer to them.
+ */
+class BinaryEncoder
+{
+    private static final int BUFFER_SIZE = 1024 * 8;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private final Map<String, Integer> keys = new HashMap<String, Integer>();
+    private String lastUri = "";
+
+    BinaryEncoder( OutputStream out )
+    {
+        this.out = out;
+    }
+
+    void startList() throws IOException
+    {
+        writeByte( LIST );
+    }
+
+    void startMap() throws IOException
+    {
+        writeByte( MAP );
+    }
+
+    void end() throws IOException
+    {
+        writeByte( END );
+    }
+
+    void key( String key ) throws IOException
+    {
+        Integer index = keys.get( key );
+        if ( index != null )
+        {
+            writeVarLong( index + 2 );
+            return;
+        }
+        writeVarLong( 1 );
+        writeUtf8( key );
+        if ( keys.size() < MAX_KEYS )
+        {
+            keys.put( key, keys.size() );
+        }
+    }
+
+    void nullValue() throws IOException
+    {
+        writeByte( NULL );
+    }
+
+    void booleanValue( boolean value ) throws IOException
+    {
+        writeByte( value ? TRUE : FALSE );
+    }
+
+    void integerValue( long value ) throws IOException
+    {
+        writeByte( INTEGER );
+        // Zig-zag, so that small negative numbers are small as well
+        writeVarLong( ( value << 1 ) ^ ( value >> 63 ) );
+    }
+
+    void floatValue( double value ) throws IOException
+    {
+        writeByte( FLOAT );
+        long bits = Double.doubleToLongBits( value );
+        for ( int shift = 56; shift >= 0; shift -= 8 )
+        {
+            writeByte( (int) ( bits >>> shift ) );
+        }
+    }
+
+    void stringValue( String value ) throws IOException
+    {
+        writeByte( STRING );
+        writeUtf8( value );
+    }
+
+    void uriValue( String uri ) throws IOException
+    {
+        int shared = 0;
+        int max = Math.min( uri.length(), lastUri.length() );
+        while ( shared < max && uri.charAt( shared ) == lastUri.charAt( shared ) )
+        {
+            shared++;
+        }
+        if ( shared > 0 && Character.isHighSurrogate( uri.charAt( shared - 1 ) ) )
+        {
+            // Don't split a surrogate pair between prefix and suffix
+            shared--;
+        }
+        writeByte( URI );
+        writeVarLong( shared );
+        writeUtf8( uri.substring( shared ) );
+        lastUri = uri;
+    }
+
+    /**
+     * Writes any value a representation can hand to a list or mapping writer.
+     */
+    void value( String type, Object value ) throws IOException
+    {
+        if ( value == null )
+        {
+            nullValue();
+        }
+        else if ( value instanceof String )
+        {
+            if ( isUri( type ) )
+            {
+                uriValue( (String) value );
+            }
+            else
+            {
+                stringValue( (String) value );
+            }
+        }
+        else if ( value instanceof Boolean )
+        {
+            booleanValue( (Boolean) value );
+        }
+        else if ( value instanceof Double || value instanceof Float )
+        {
+            floatValue( ( (Number) value ).doubleValue() );
+        }
+        else if ( value instanceof Long || value instanceof Integer || value instanceof Short
+                  || value instanceof Byte )
+        {
+            integerValue( ( (Number) value ).longValue() );
+        }
+        else if ( value instanceof Character )
+        {
+            stringValue( value.toString() );
+        }
+        else if ( value.getClass().isArray() )
+        {
+            startList();
+            for ( int i = 0, length = Array.getLength( value ); i < length; i++ )
+            {
+                value( null, Array.get( value, i ) );
+            }
+            end();
+        }
+        else if ( value instanceof Iterable )
+        {
+            startList();
+            for ( Object item : (Iterable<?>) value )
+            {
+                value( null, item );
+            }
+            end();
+        }
+        else if ( value instanceof Map )
+        {
+            startMap();
+            for ( Map.Entry<?, ?> entry : ( (Map<?, ?>) value ).entrySet() )
+            {
+                key( String.valueOf( entry.getKey() ) );
+                value( null, entry.getValue() );
+            }
+            end();
+        }
+        else
+        {
+            stringValue( value.toString() );
+        }
+    }
+
+    private static boolean isUri( String type )
+    {
+        return "uri".equals( type ) || "uri-template".equals( type );
+    }
+
+    void flush() throws IOException
+    {
+        if ( position > 0 )
+        {
+            out.write( buffer, 0, position );
+            position = 0;
+        }
+        out.flush();
+    }
+
+    private void writeByte( int value ) throws IOException
+    {
+        if ( position == buffer.length )
+        {
+            out.write( buffer, 0, position );
+            position = 0;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeVarLong( long value ) throws IOException
+    {
+        while ( ( value & ~0x7FL ) != 0 )
+        {
+            writeByte( (int) ( ( value & 0x7F ) | 0x80 ) );
+            value >>>= 7;
+        }
+        writeByte( (int) value );
+    }
+
+    /**
+     * Writes the length in bytes followed by the UTF-8 bytes, encoded
+     * directly into the buffer. Unpaired surrogates are written as '?'.
+     */
+    private void writeUtf8( String value ) throws IOException
+    {
+        int length = value.length();
+        long bytes = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            char c = value.charAt( i );
+            if ( c < 0x80 ) bytes += 1;
+            else if ( c < 0x800 ) bytes += 2;
+            else if ( isSurrogatePair( value, i ) )
+            {
+                bytes += 4;
+                i++;
+            }
+            else if ( isSurrogate( c ) ) bytes += 1;
+            else bytes += 3;
+        }
+        writeVarLong( bytes );
+        for ( int i = 0; i < length; i++ )
+        {
+            char c = value.charAt( i );
+            if ( c < 0x80 )
+            {
+                writeByte( c );
+            }
+            else if ( c < 0x800 )
+            {
+                writeByte( 0xC0 | ( c >> 6 ) );
+                writeByte( 0x80 | ( c & 0x3F ) );
+            }
+            else if ( isSurrogatePair( value, i ) )
+            {
+                int codePoint = Character.toCodePoint( c, value.charAt( ++i ) );
+                writeByte( 0xF0 | ( codePoint >> 18 ) );
+                writeByte( 0x80 | ( ( codePoint >> 12 ) & 0x3F ) );
+                writeByte( 0x80 | ( ( codePoint >> 6 ) & 0x3F ) );
+                writeByte( 0x80 | ( codePoint & 0x3F ) );
+            }
+            else if ( isSurrogate( c ) )
+            {
+                writeByte( '?' );
+            }
+            else
+            {
+                writeByte( 0xE0 | ( c >> 12 ) );
+                writeByte( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+                writeByte( 0x80 | ( c & 0x3F ) );
+            }
+        }
+    }
+
+    private static boolean isSurrogatePair( String value, int index )
+    {
+        return Character.isHighSurrogate( value.charAt( index ) ) && index + 1 < value.length()
+               && Character.isLowSurrogate( value.charAt( index + 1 ) );
+    }
+
+    private static boolean isSurrogate( char c )
+    {
+        return c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE;
+    }
+}
@@ -0,0 +1,459 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.repr.formats;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+
+import org.neo4j.helpers.Service;
+import org.neo4j.server.rest.repr.BadInputException;
+import org.neo4j.server.rest.repr.InputFormat;
+import org.neo4j.server.rest.repr.ListWriter;
+import org.neo4j.server.rest.repr.MappingWriter;
+import org.neo4j.server.rest.repr.RepresentationFormat;
+import org.neo4j.server.rest.repr.StreamingFormat;
+
+/**
+ * A compact binary alternative to JSON, streamed straight to the response.
+ * Every value starts with a type tag byte:
+ * <ul>
+ * <li>{@link #NULL}, {@link #FALSE}, {@link #TRUE}: nothing follows.</li>
+ * <li>{@link #INTEGER}: a zig-zag encoded variable length integer, seven bits
+ * per byte with the high bit set on all but the last byte.</li>
+ * <li>{@link #FLOAT}: the eight bytes of the IEEE 754 double, big endian.</li>
+ * <li>{@link #STRING}: the length in bytes, as a variable length integer,
+ * followed by the UTF-8 bytes.</li>
+ * <li>{@link #URI}: the number of leading characters shared with the
+ * previous uri in the stream, then the rest as a string without tag.</li>
+ * <li>{@link #LIST}: the values, followed by {@link #END}.</li>
+ * <li>{@link #MAP}: pairs of key and value, followed by {@link #END}. A key is
+ * a variable length integer, 1 followed by a string for a new key or the
+ * index of a key seen before plus 2. The first {@link #MAX_KEYS} new keys
+ * are indexed in the order they appear.</li>
+ * </ul>
+ * Request bodies are still read as JSON, see {@link BinaryDecoder} for
+ * reading responses.
+ */
+@Service.Implementation( RepresentationFormat.class )
+public class BinaryFormat extends RepresentationFormat implements StreamingFormat
+{
+    public static final MediaType MEDIA_TYPE = new MediaType( "application", "vnd.neo4j.binary" );
+
+    public static final int END = 0;
+    public static final int NULL = 1;
+    public static final int FALSE = 2;
+    public static final int TRUE = 3;
+    public static final int INTEGER = 4;
+    public static final int FLOAT = 5;
+    public static final int STRING = 6;
+    public static final int URI = 7;
+    public static final int LIST = 8;
+    public static final int MAP = 9;
+
+    public static final int MAX_KEYS = 1024;
+
+    private final JsonFormat input = new JsonFormat();
+
+    public BinaryFormat()
+    {
+        super( MEDIA_TYPE );
+    }
+
+    @Override
+    public RepresentationFormat writeTo( OutputStream output )
+    {
+        return new BinaryRepresentationFormat( new BinaryEncoder( output ), input );
+    }
+
+    @Override
+    protected ListWriter serializeList( String type )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected String complete( ListWriter serializer )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected MappingWriter serializeMapping( String type )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected String complete( MappingWriter serializer )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected String serializeValue( String type, Object value )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object readValue( String input ) throws BadInputException
+    {
+        return this.input.readValue( input );
+    }
+
+    @Override
+    public Map<String, Object> readMap( String input, String... requiredKeys ) throws BadInputException
+    {
+        return this.input.readMap( input, requiredKeys );
+    }
+
+    @Override
+    public List<Object> readList( String input ) throws BadInputException
+    {
+        return this.input.readList( input );
+    }
+
+    @Override
+    public URI readUri( String input ) throws BadInputException
+    {
+        return this.input.readUri( input );
+    }
+
+    private static class BinaryMappingWriter extends MappingWriter
+    {
+        private final BinaryEncoder encoder;
+
+        BinaryMappingWriter( BinaryEncoder encoder, String key )
+        {
+            this.encoder = encoder;
+            try
+            {
+                if ( key != null ) encoder.key( key );
+                encoder.startMap();
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected MappingWriter newMapping( String type, String key )
+        {
+            return new BinaryMappingWriter( encoder, key );
+        }
+
+        @Override
+        protected ListWriter newList( String type, String key )
+        {
+            return new BinaryListWriter( encoder, key );
+        }
+
+        @Override
+        protected void writeString( String key, String value )
+        {
+            try
+            {
+                encoder.key( key );
+                if ( value == null ) encoder.nullValue();
+                else encoder.stringValue( value );
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected void writeInteger( String type, String key, long value )
+        {
+            try
+            {
+                encoder.key( key );
+                encoder.integerValue( value );
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected void writeFloatingPointNumber( String type, String key, double value )
+        {
+            try
+            {
+                encoder.key( key );
+                encoder.floatValue( value );
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected void writeBoolean( String key, boolean value )
+        {
+            try
+            {
+                encoder.key( key );
+                encoder.booleanValue( value );
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected void writeValue( String type, String key, Object value )
+        {
+            try
+            {
+                encoder.key( key );
+                encoder.value( type, value );
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected void done()
+        {
+            try
+            {
+                encoder.end();
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+    }
+
+    private static class BinaryListWriter extends ListWriter
+    {
+        private final BinaryEncoder encoder;
+
+        BinaryListWriter( BinaryEncoder encoder, String key )
+        {
+            this.encoder = encoder;
+            try
+            {
+                if ( key != null ) encoder.key( key );
+                encoder.startList();
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected MappingWriter newMapping( String type )
+        {
+            return new BinaryMappingWriter( encoder, null );
+        }
+
+        @Override
+        protected ListWriter newList( String type )
+        {
+            return new BinaryListWriter( encoder, null );
+        }
+
+        @Override
+        protected void writeString( String value )
+        {
+            try
+            {
+                if ( value == null ) encoder.nullValue();
+                else encoder.stringValue( value );
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected void writeInteger( String type, long value )
+        {
+            try
+            {
+                encoder.integerValue( value );
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected void writeFloatingPointNumber( String type, double value )
+        {
+            try
+            {
+                encoder.floatValue( value );
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected void writeBoolean( boolean value )
+        {
+            try
+            {
+                encoder.booleanValue( value );
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected void writeValue( String type, Object value )
+        {
+            try
+            {
+                encoder.value( type, value );
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected void done()
+        {
+            try
+            {
+                encoder.end();
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+    }
+
+    private static class BinaryRepresentationFormat extends RepresentationFormat
+    {
+        private final BinaryEncoder encoder;
+        private final InputFormat inputFormat;
+
+        BinaryRepresentationFormat( BinaryEncoder encoder, InputFormat inputFormat )
+        {
+            super( MEDIA_TYPE );
+            this.encoder = encoder;
+            this.inputFormat = inputFormat;
+        }
+
+        @Override
+        protected String serializeValue( String type, Object value )
+        {
+            try
+            {
+                encoder.value( type, value );
+                return null;
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        protected ListWriter serializeList( String type )
+        {
+            return new BinaryListWriter( encoder, null );
+        }
+
+        @Override
+        protected MappingWriter serializeMapping( String type )
+        {
+            return new BinaryMappingWriter( encoder, null );
+        }
+
+        @Override
+        protected String complete( ListWriter serializer )
+        {
+            complete();
+            return null; // already written
+        }
+
+        @Override
+        protected String complete( MappingWriter serializer )
+        {
+            complete();
+            return null; // already written
+        }
+
+        @Override
+        public void complete()
+        {
+            try
+            {
+                encoder.flush();
+            }
+            catch ( IOException e )
+            {
+                throw new WebApplicationException( e );
+            }
+        }
+
+        @Override
+        public Object readValue( String input ) throws BadInputException
+        {
+            return inputFormat.readValue( input );
+        }
+
+        @Override
+        public Map<String, Object> readMap( String input, String... requiredKeys ) throws BadInputException
+        {
+            return inputFormat.readMap( input, requiredKeys );
+        }
+
+        @Override
+        public List<Object> readList( String input ) throws BadInputException
+        {
+            return inputFormat.readList( input );
+        }
+
+        @Override
+        public URI readUri( String input ) throws BadInputException
+        {
+            return inputFormat.readUri( input );
+        }
+    }
+}
@@ -55,10 +55,23 @@ public class StreamingJsonFormat extends RepresentationFormat implements Streami
             MediaType.APPLICATION_JSON_TYPE.getSubtype(), MapUtil.stringMap( "stream", "true" ) );
 
     private final JsonFactory factory;
+    private final boolean prettyPrint;
+
     public StreamingJsonFormat()
     {
-        super(MEDIA_TYPE);
+        this( MEDIA_TYPE, false );
+    }
+
+    /**
+     * Creates a streaming format which announces itself as {@code mediaType},
+     * f.ex. to stream a response to a client asking for plain JSON, and
+     * optionally pretty prints like {@link JsonFormat} does.
+     */
+    public StreamingJsonFormat( MediaType mediaType, boolean prettyPrint )
+    {
+        super( mediaType );
         this.factory = createJsonFactory();
+        this.prettyPrint = prettyPrint;
     }
 
     private JsonFactory createJsonFactory() {
@@ -84,7 +97,8 @@ public class StreamingJsonFormat extends RepresentationFormat implements Streami
     public StreamingRepresentationFormat writeTo(OutputStream output) {
         try {
             final JsonGenerator g = factory.createJsonGenerator(output);
-            return new StreamingRepresentationFormat(g,this);
+            StreamingRepresentationFormat format = new StreamingRepresentationFormat(g,this);
+            return prettyPrint ? format.usePrettyPrinter() : format;
         } catch (IOException e) {
             throw new WebApplicationException( e );
         }
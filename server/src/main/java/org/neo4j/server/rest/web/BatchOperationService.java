@@ -35,13 +35,22 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
+import org.apache.commons.configuration.Configuration;
 import org.mortbay.log.Log;
+import org.neo4j.cypher.javacompat.ExecutionEngine;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.impl.transaction.xaframework.ForceMode;
+import org.neo4j.server.configuration.Configurator;
 import org.neo4j.server.database.Database;
 import org.neo4j.server.rest.batch.BatchOperationResults;
+import org.neo4j.server.rest.batch.DirectBatchOperations;
 import org.neo4j.server.rest.batch.NonStreamingBatchOperations;
+import org.neo4j.server.rest.paging.LeaseManager;
 import org.neo4j.server.rest.repr.BadInputException;
 import org.neo4j.server.rest.repr.OutputFormat;
+import org.neo4j.server.rest.repr.RepresentationFormat;
+import org.neo4j.server.rest.repr.formats.JsonFormat;
+import org.neo4j.server.rest.repr.formats.StreamingJsonFormat;
 import org.neo4j.server.web.WebServer;
 
 @Path("/batch")
@@ -50,13 +59,32 @@ public class BatchOperationService {
     private final OutputFormat output;
     private final WebServer webServer;
     private final Database database;
+    private final LeaseManager leaseManager;
+    private final boolean directDispatch;
 
     public BatchOperationService(@Context Database database,
-            @Context WebServer webServer, @Context OutputFormat output)
+            @Context WebServer webServer, @Context OutputFormat output,
+            @Context LeaseManager leaseManager, @Context Configuration config)
     {
         this.output = output;
         this.webServer = webServer;
         this.database = database;
+        this.leaseManager = leaseManager;
+        // Operations performed directly don't pass the security rules, which
+        // are servlet filters
+        this.directDispatch = config.getBoolean( Configurator.BATCH_DIRECT_DISPATCH_KEY,
+                Configurator.DEFAULT_BATCH_DIRECT_DISPATCH ) &&
+                config.getStringArray( Configurator.SECURITY_RULES_KEY ).length == 0;
+    }
+
+    private DirectBatchOperations directOperations( RepresentationFormat format )
+    {
+        if ( !directDispatch )
+        {
+            return null;
+        }
+        return new DirectBatchOperations( new DatabaseActions( database, leaseManager, ForceMode.forced ),
+                new ExecutionEngine( database.graph ), new JsonFormat(), output.withFormat( format ) );
     }
 
     @POST
@@ -85,7 +113,7 @@ public class BatchOperationService {
                                 output.write(i);
                             }
                         };
-                        new StreamingBatchOperations(webServer).readAndExecuteOperations( uriInfo, httpHeaders, body, servletOutputStream );
+                        new StreamingBatchOperations( webServer, directOperations( new StreamingJsonFormat() ) ).readAndExecuteOperations( uriInfo, httpHeaders, body, servletOutputStream );
                         tx.success();
                     } catch (Exception e) {
                         Log.warn( "Error executing batch request ", e );
@@ -112,7 +140,7 @@ public class BatchOperationService {
         Transaction tx = database.graph.beginTx();
         try
         {
-            NonStreamingBatchOperations batchOperations = new NonStreamingBatchOperations( webServer );
+            NonStreamingBatchOperations batchOperations = new NonStreamingBatchOperations( webServer, directOperations( new JsonFormat() ) );
             BatchOperationResults results = batchOperations.performBatchJobs( uriInfo, httpHeaders, body );
 
             Response res = Response.ok().entity(results.toJSON())
@@ -19,41 +19,82 @@
  */
 package org.neo4j.server.rest.web;
 
+import java.net.URI;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
 
+import org.apache.commons.configuration.Configuration;
 import org.neo4j.cypher.javacompat.ExecutionEngine;
 import org.neo4j.cypher.javacompat.ExecutionResult;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.server.configuration.Configurator;
 import org.neo4j.server.database.Database;
+import org.neo4j.server.rest.paging.Leasable;
+import org.neo4j.server.rest.paging.Lease;
+import org.neo4j.server.rest.paging.LeaseManager;
+import org.neo4j.server.rest.paging.PagedCypherResult;
 import org.neo4j.server.rest.repr.BadInputException;
 import org.neo4j.server.rest.repr.CypherResultRepresentation;
 import org.neo4j.server.rest.repr.InputFormat;
 import org.neo4j.server.rest.repr.OutputFormat;
+import org.neo4j.server.rest.repr.formats.StreamingJsonFormat;
 
 @Path( "/cypher" )
 public class CypherService {
 
     private static final String PARAMS_KEY = "params";
     private static final String QUERY_KEY = "query";
+    private static final String SIXTY_SECONDS = "60";
+    private static final String FIFTY = "50";
+
+    public static final String PATH_PAGED_CYPHER = "/paged";
+    public static final String PATH_PAGED_CYPHER_RESULT = PATH_PAGED_CYPHER + "/{resultId}";
 
     private ExecutionEngine executionEngine;
     private OutputFormat output;
     private InputFormat input;
+    private LeaseManager leases;
 
     public CypherService(@Context Database database, @Context InputFormat input,
-            @Context OutputFormat output) {
+            @Context OutputFormat output, @Context Configuration config, @Context LeaseManager leases) {
         this.executionEngine = new ExecutionEngine(database.graph);
         this.input = input;
-        this.output = output;
+        this.leases = leases;
+        this.output = streaming( output, config );
+    }
+
+    /**
+     * Results are written as they're read from the query instead of being
+     * built up in full before anything is sent, if the client asked for
+     * plain JSON. The response looks the same, pretty printing included.
+     */
+    private static OutputFormat streaming( OutputFormat output, Configuration config )
+    {
+        if ( config.getBoolean( Configurator.CYPHER_STREAMING_KEY, Configurator.DEFAULT_CYPHER_STREAMING )
+             && MediaType.APPLICATION_JSON_TYPE.equals( output.getMediaType() ) )
+        {
+            return output.withFormat( new StreamingJsonFormat( MediaType.APPLICATION_JSON_TYPE, true ) );
+        }
+        return output;
     }
     
     @POST
-    @SuppressWarnings({ "unchecked" })
     public Response cypher(String body) throws BadInputException {
         Map<String,Object> command = input.readMap( body );
         
@@ -61,13 +102,95 @@ public class CypherService {
             return output.badRequest(new BadInputException( "You have to provide the 'query' parameter." ));
         }
         
-        String query =  (String) command.get(QUERY_KEY);
-        Map<String,Object> params = (Map<String, Object>) (command.containsKey(PARAMS_KEY) ? command.get(PARAMS_KEY) : new HashMap<String, Object>());
         try {
-            ExecutionResult result = executionEngine.execute(  query, params );
-            return output.ok(new CypherResultRepresentation( result ));
+            ExecutionResult result = execute( command );
+            // Read the first row here so that a failing query still gets a
+            // bad request, once streaming has started the status is sent
+            Iterator<Map<String,Object>> rows = result.iterator();
+            rows.hasNext();
+            return output.ok(new CypherResultRepresentation( result.columns(), IteratorUtil.asIterable( rows ) ));
         } catch(Exception e) {
             return output.badRequest(e);
         }
     }
+
+    /**
+     * Runs the query and leases its result, which is then read a page at a
+     * time through {@link #pagedCypher(String)}. Responds with the first page
+     * and the location of the next ones, or with all rows and no location if
+     * they fit on the first page.
+     */
+    @POST
+    @Path( PATH_PAGED_CYPHER )
+    public Response createPagedCypher(@Context UriInfo uriInfo,
+            @QueryParam( "pageSize" ) @DefaultValue( FIFTY ) int pageSize,
+            @QueryParam( "leaseTime" ) @DefaultValue( SIXTY_SECONDS ) int leaseTimeInSeconds, String body) {
+        try {
+            if ( pageSize < 1 ) {
+                throw new BadInputException( "Page size less than 1 is not permitted" );
+            }
+            if ( leaseTimeInSeconds < 1 ) {
+                throw new BadInputException( "Lease time less than 1 second is not supported" );
+            }
+            Map<String,Object> command = input.readMap( body );
+            if( !command.containsKey(QUERY_KEY) ) {
+                throw new BadInputException( "You have to provide the 'query' parameter." );
+            }
+
+            PagedCypherResult paged = new PagedCypherResult( execute( command ), pageSize );
+            List<Map<String,Object>> page = paged.next();
+            CypherResultRepresentation representation = new CypherResultRepresentation( paged.columns(),
+                    page == null ? Collections.<Map<String,Object>>emptyList() : page );
+            if ( !paged.hasNext() )
+            {
+                return output.ok( representation );
+            }
+
+            String id = leases.createLease( leaseTimeInSeconds, paged ).getId();
+            URI location = uriInfo.getBaseUri().resolve( "cypher/paged/" + id );
+            return output.created( location, representation );
+        } catch(Exception e) {
+            return output.badRequest(e);
+        }
+    }
+
+    @GET
+    @Path( PATH_PAGED_CYPHER_RESULT )
+    public Response pagedCypher(@PathParam( "resultId" ) String resultId) {
+        PagedCypherResult paged = leasedResult( resultId );
+        List<Map<String,Object>> page = paged == null ? null : paged.next();
+        if ( page == null ) {
+            leases.remove( resultId );
+            return output.notFound( new NotFoundException( String.format(
+                    "The cypher result with id [%s] was not found or has been fully enumerated", resultId ) ) );
+        }
+        try {
+            return output.ok( new CypherResultRepresentation( paged.columns(), page ) );
+        } catch(Exception e) {
+            return output.badRequest(e);
+        }
+    }
+
+    @DELETE
+    @Path( PATH_PAGED_CYPHER_RESULT )
+    public Response removePagedCypher(@PathParam( "resultId" ) String resultId) {
+        if ( leasedResult( resultId ) == null ) {
+            return output.notFound();
+        }
+        leases.remove( resultId );
+        return Response.ok().build();
+    }
+
+    private PagedCypherResult leasedResult( String resultId ) {
+        Lease lease = leases.getLeaseById( resultId );
+        Leasable leased = lease == null ? null : lease.getLeasedItemAndRenewLease();
+        return leased instanceof PagedCypherResult ? (PagedCypherResult) leased : null;
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    private ExecutionResult execute( Map<String,Object> command ) {
+        String query =  (String) command.get(QUERY_KEY);
+        Map<String,Object> params = (Map<String, Object>) (command.containsKey(PARAMS_KEY) ? command.get(PARAMS_KEY) : new HashMap<String, Object>());
+        return executionEngine.execute(  query, params );
+    }
 }
@@ -67,6 +67,7 @@ import org.neo4j.server.rest.domain.RelationshipExpanderBuilder;
 import org.neo4j.server.rest.domain.StartNodeNotFoundException;
 import org.neo4j.server.rest.domain.TraversalDescriptionBuilder;
 import org.neo4j.server.rest.domain.TraverserReturnType;
+import org.neo4j.server.rest.paging.Leasable;
 import org.neo4j.server.rest.paging.Lease;
 import org.neo4j.server.rest.paging.LeaseManager;
 import org.neo4j.server.rest.paging.PagedTraverser;
@@ -1263,13 +1264,14 @@ public class DatabaseActions
             TraverserReturnType returnType )
     {
         Lease lease = leases.getLeaseById( traverserId );
-        if ( lease == null )
+        Leasable leased = lease == null ? null : lease.getLeasedItemAndRenewLease();
+        if ( !( leased instanceof PagedTraverser ) )
         {
             throw new NotFoundException( String.format(
                     "The traverser with id [%s] was not found", traverserId ) );
         }
 
-        PagedTraverser traverser = lease.getLeasedItemAndRenewLease();
+        PagedTraverser traverser = (PagedTraverser) leased;
         List<Path> paths = traverser.next();
 
         if ( paths != null )
@@ -32,6 +32,7 @@ import javax.ws.rs.core.UriInfo;
 
 import org.mortbay.log.Log;
 import org.neo4j.server.rest.batch.BatchOperations;
+import org.neo4j.server.rest.batch.DirectBatchOperations;
 import org.neo4j.server.rest.batch.StreamingBatchOperationResults;
 import org.neo4j.server.rest.domain.BatchOperationFailedException;
 import org.neo4j.server.web.WebServer;
@@ -46,6 +47,11 @@ public class StreamingBatchOperations extends BatchOperations
         super( webServer );
     }
 
+    public StreamingBatchOperations( WebServer webServer, DirectBatchOperations directOperations )
+    {
+        super( webServer, directOperations );
+    }
+
     public void readAndExecuteOperations( UriInfo uriInfo, HttpHeaders httpHeaders, InputStream body, ServletOutputStream output ) throws IOException, ServletException {
         results = new StreamingBatchOperationResults(jsonFactory.createJsonGenerator(output),output);
         Map<Integer, String> locations = results.getLocations();
@@ -68,10 +74,22 @@ public class StreamingBatchOperations extends BatchOperations
             throw new BatchOperationFailedException(500, e.getMessage(),e );
 
         }
-        final int status = res.getStatus();
+        addResult( method, path, body, id, res.getStatus(), res.getHeader("Location") );
+    }
+
+    @Override
+    protected void invokeDirectly( String method, String path, String body, Integer id, DirectBatchOperations.Result result ) throws IOException
+    {
+        results.startOperation(path,id);
+        directOperations.write( result, results.getServletOutputStream() );
+        addResult( method, path, body, id, result.getStatus(), result.getLocation() );
+    }
+
+    private void addResult( String method, String path, String body, Integer id, int status, String location ) throws IOException
+    {
         if (is2XXStatusCode(status))
         {
-            results.addOperationResult(status,id,res.getHeader("Location"));
+            results.addOperationResult(status,id,location);
         }
         else
         {
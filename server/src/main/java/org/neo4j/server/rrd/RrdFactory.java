@@ -38,11 +38,23 @@ import java.util.List;
 
 import org.apache.commons.configuration.Configuration;
 import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.server.admission.AdmissionControl;
+import org.neo4j.server.admission.RequestClass;
 import org.neo4j.server.database.Database;
 import org.neo4j.server.logging.Logger;
+import org.neo4j.server.rrd.sampler.AdmissionQueueDepthSampleable;
+import org.neo4j.server.rrd.sampler.AdmissionWaitTimeSampleable;
 import org.neo4j.server.rrd.sampler.NodeIdsInUseSampleable;
 import org.neo4j.server.rrd.sampler.PropertyCountSampleable;
 import org.neo4j.server.rrd.sampler.RelationshipCountSampleable;
+import org.neo4j.server.rrd.sampler.RequestBytesSampleable;
+import org.neo4j.server.rrd.sampler.RequestCountSampleable;
+import org.neo4j.server.rrd.sampler.RequestMaxTimeSampleable;
+import org.neo4j.server.rrd.sampler.RequestMeanTimeSampleable;
+import org.neo4j.server.rrd.sampler.RequestMedianTimeSampleable;
+import org.neo4j.server.rrd.sampler.RequestMinTimeSampleable;
+import org.neo4j.server.rrd.sampler.RequestPercentileTimeSampleable;
+import org.neo4j.server.statistic.StatisticCollector;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.core.DsDef;
 import org.rrd4j.core.RrdDb;
@@ -64,6 +76,15 @@ public class RrdFactory
     }
 
     public RrdDb createRrdDbAndSampler( final Database db, JobScheduler scheduler )
+    {
+        return createRrdDbAndSampler( db, null, scheduler );
+    }
+
+    /**
+     * @param admissionControl if not {@code null}, the queue depth and wait
+     * time of each request class are sampled as well.
+     */
+    public RrdDb createRrdDbAndSampler( final Database db, AdmissionControl admissionControl, JobScheduler scheduler )
     {
         Sampleable[] primitives = {
 //                new MemoryUsedSampleable(),
@@ -71,44 +92,59 @@ public class RrdFactory
                 new PropertyCountSampleable( (GraphDatabaseAPI) db.graph ),
                 new RelationshipCountSampleable( (GraphDatabaseAPI) db.graph )
         };
+        if ( admissionControl != null )
+        {
+            primitives = join( primitives, admissionSampleables( admissionControl ) );
+        }
 
         Sampleable[] usage = {
-//                new RequestBytesSampleable( db ),
-//                new RequestMeanTimeSampleable( db ),
-//                new RequestMedianTimeSampleable( db ),
-//                new RequestMaxTimeSampleable( db ),
-//                new RequestMinTimeSampleable( db ),
-//                new RequestCountSampleable( db )
+                new RequestCountSampleable( db ),
+                new RequestBytesSampleable( db ),
+                new RequestMeanTimeSampleable( db ),
+                new RequestMedianTimeSampleable( db ),
+                new RequestPercentileTimeSampleable( db, 95 ),
+                new RequestPercentileTimeSampleable( db, 99 ),
+                new RequestPercentileTimeSampleable( db, 99.9 ),
+                new RequestMaxTimeSampleable( db ),
+                new RequestMinTimeSampleable( db )
         };
 
         final String basePath = config.getString( RRDB_LOCATION_PROPERTY_KEY,
                 getDefaultDirectory( (GraphDatabaseAPI) db.graph ) );
-        final RrdDb rrdb = createRrdb( basePath, join( primitives, usage ) );
+        final Sampleable[] sampleables = join( primitives, usage );
+        final RrdDb rrdb = createRrdb( basePath, sampleables );
+        final StatisticCollector statistics = db.statisticCollector();
 
+        // A single job, an update of the rrd leaves the data sources it has no value for unknown
         scheduler.scheduleAtFixedRate(
-                new RrdJob( new RrdSamplerImpl( rrdb, primitives ) ),
-                RRD_THREAD_NAME + "[primitives]",
+                new RrdJob( new RrdSamplerImpl( rrdb, sampleables )
+                {
+                    @Override
+                    public void updateSample()
+                    {
+                        // The request samplers all read the statistics of the requests since the last run
+                        statistics.createSnapshot();
+                        super.updateSample();
+                    }
+                } ),
+                RRD_THREAD_NAME,
                 SECONDS.toMillis( 0 ),
                 SECONDS.toMillis( 3 )
         );
-
-//        scheduler.scheduleAtFixedRate(
-//                new RrdJob( new RrdSamplerImpl( rrdb, usage )
-//                {
-//                    @Override
-//                    public void updateSample()
-//                    {
-//                        db.statisticCollector().createSnapshot();
-//                        super.updateSample();
-//                    }
-//                } ),
-//                RRD_THREAD_NAME + "[usage]",
-//                SECONDS.toMillis( 1 ),
-//                SECONDS.toMillis( 60 )
-//        );
         return rrdb;
     }
 
+    private Sampleable[] admissionSampleables( AdmissionControl admissionControl )
+    {
+        List<Sampleable> result = new ArrayList<Sampleable>();
+        for ( RequestClass requestClass : RequestClass.values() )
+        {
+            result.add( new AdmissionQueueDepthSampleable( admissionControl, requestClass ) );
+            result.add( new AdmissionWaitTimeSampleable( admissionControl, requestClass ) );
+        }
+        return result.toArray( new Sampleable[result.size()] );
+    }
+
     private Sampleable[] join( Sampleable[]... sampleables )
     {
         ArrayList<Sampleable> result = new ArrayList<Sampleable>();
@@ -19,37 +19,64 @@
  */
 package org.neo4j.server.rrd;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 
 import org.neo4j.server.logging.Logger;
 
-public class ScheduledJob
+/**
+ * Runs a job periodically on a shared executor. Runs that would only be
+ * catching up after a slow run are skipped rather than run back to back,
+ * so the job keeps to its schedule instead of stacking up.
+ */
+public class ScheduledJob implements Runnable
 {
-    private Timer timer;
+    private final Runnable job;
+    private final String name;
+    private final long period;
+    private final ScheduledFuture<?> future;
+    private long nextRun;
     private Logger logger = Logger.getLogger( ScheduledJob.class );
 
-    public ScheduledJob( final Runnable job, String name, long delay, long period )
+    public ScheduledJob( ScheduledExecutorService executor, Runnable job, String name, long delay, long period )
     {
-        timer = new Timer( name );
-        TimerTask runJob = new TimerTask()
+        this.job = job;
+        this.name = name;
+        this.period = MILLISECONDS.toNanos( period );
+        this.nextRun = System.nanoTime() + MILLISECONDS.toNanos( delay );
+        this.future = executor.scheduleAtFixedRate( this, delay, period, MILLISECONDS );
+    }
+
+    @Override
+    public void run()
+    {
+        long now = System.nanoTime();
+        if ( now < nextRun - period / 2 )
+        {
+            // A missed run the executor is catching up on
+            return;
+        }
+        try
+        {
+            job.run();
+        }
+        catch ( Exception e )
+        {
+            logger.warn( "Scheduled job [%s] failed: %s", name, e );
+        }
+        nextRun += period;
+        now = System.nanoTime();
+        if ( nextRun <= now )
         {
-            public void run()
-            {
-                try
-                {
-                    job.run();
-                } catch ( Exception e )
-                {
-                    logger.warn( e );
-                }
-            }
-        };
-        timer.scheduleAtFixedRate( runJob, delay, period );
+            // Skip the runs missed while this one was running
+            nextRun += ( ( now - nextRun ) / period + 1 ) * period;
+        }
     }
 
     public void cancel()
     {
-        timer.cancel();
+        future.cancel( false );
     }
 }
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rrd.sampler;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.neo4j.server.admission.AdmissionControl;
+import org.neo4j.server.admission.RequestClass;
+import org.neo4j.server.rrd.Sampleable;
+import org.rrd4j.DsType;
+
+/**
+ * Mean time in milliseconds spent waiting for admission by the requests
+ * that had to wait since the previous sample.
+ */
+public class AdmissionWaitTimeSampleable implements Sampleable
+{
+    private final AdmissionControl admissionControl;
+    private final RequestClass requestClass;
+    private long lastWaited;
+    private long lastWaitNanos;
+
+    public AdmissionWaitTimeSampleable( AdmissionControl admissionControl, RequestClass requestClass )
+    {
+        this.admissionControl = admissionControl;
+        this.requestClass = requestClass;
+    }
+
+    @Override
+    public String getName()
+    {
+        return "wait_" + requestClass.shortName();
+    }
+
+    @Override
+    public synchronized double getValue()
+    {
+        long waited = admissionControl.waited( requestClass );
+        long waitNanos = admissionControl.totalWaitNanos( requestClass );
+        long count = waited - lastWaited;
+        double mean = count == 0 ? 0 : (double) NANOSECONDS.toMicros( waitNanos - lastWaitNanos ) / count / 1000;
+        lastWaited = waited;
+        lastWaitNanos = waitNanos;
+        return mean;
+    }
+
+    @Override
+    public DsType getType()
+    {
+        return DsType.GAUGE;
+    }
+}
@@ -27,7 +27,7 @@ public class RequestMaxTimeSampleable extends StatisticSampleableBase
 
     public RequestMaxTimeSampleable( Database db )
     {
-        super( db, DsType.ABSOLUTE );
+        super( db, DsType.GAUGE );
     }
 
     @Override
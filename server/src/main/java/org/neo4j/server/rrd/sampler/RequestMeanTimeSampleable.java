@@ -27,7 +27,7 @@ public class RequestMeanTimeSampleable extends StatisticSampleableBase
 
     public RequestMeanTimeSampleable( Database db )
     {
-        super( db, DsType.ABSOLUTE );
+        super( db, DsType.GAUGE );
     }
 
     @Override
@@ -27,7 +27,7 @@ public class RequestMedianTimeSampleable extends StatisticSampleableBase
 
     public RequestMedianTimeSampleable( Database db )
     {
-        super( db, DsType.ABSOLUTE );
+        super( db, DsType.GAUGE );
     }
 
     @Override
@@ -39,6 +39,6 @@ public class RequestMedianTimeSampleable extends StatisticSampleableBase
     @Override
     public double getValue()
     {
-        return getCurrentSnapshot().getDuration().getMedian();
+        return getCurrentSnapshot().getDuration().getPercentile( 50 );
     }
 }
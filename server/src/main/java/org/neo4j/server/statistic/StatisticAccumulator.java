@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.statistic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * lock-free accumulation of one statistic, f.ex. the request durations.
+ * count, sums, min and max are spread over a number of stripes picked by
+ * thread, so that concurrent requests don't all compete for the same
+ * counters. everything is drained with atomic get-and-resets, so a value
+ * added concurrently with {@link #drain()} is counted in exactly one period.
+ */
+class StatisticAccumulator
+{
+    private static final int STRIPES = 16;
+
+    private final double resolution;
+    private final StatisticHistogram histogram = new StatisticHistogram();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    StatisticAccumulator( double resolution )
+    {
+        this.resolution = resolution;
+        for ( int i = 0; i < STRIPES; i++ )
+        {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    void add( double value )
+    {
+        stripes[(int) Thread.currentThread().getId() & ( STRIPES - 1 )].add( value );
+        histogram.record( Math.round( value * resolution ) );
+    }
+
+    /**
+     * @return everything added since the previous drain.
+     */
+    StatisticData drain()
+    {
+        long count = 0;
+        double sum = 0, sumSq = 0, min = Double.NaN, max = Double.NaN;
+        for ( Stripe stripe : stripes )
+        {
+            count += stripe.count.getAndSet( 0 );
+            sum += getAndReset( stripe.sum, 0 );
+            sumSq += getAndReset( stripe.sumSq, 0 );
+            double stripeMin = getAndReset( stripe.min, Double.NaN );
+            double stripeMax = getAndReset( stripe.max, Double.NaN );
+            min = Double.isNaN( min ) || stripeMin < min ? stripeMin : min;
+            max = Double.isNaN( max ) || stripeMax > max ? stripeMax : max;
+        }
+        return new StatisticData( resolution, histogram.drain(), (int) count, sum, sumSq,
+                Double.isNaN( min ) ? 0 : min, Double.isNaN( max ) ? 0 : max );
+    }
+
+    private static double getAndReset( AtomicLong bits, double value )
+    {
+        return Double.longBitsToDouble( bits.getAndSet( Double.doubleToRawLongBits( value ) ) );
+    }
+
+    private static class Stripe
+    {
+        // doubles are kept as their raw long bits, NaN meaning no value yet
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong( Double.doubleToRawLongBits( 0 ) );
+        private final AtomicLong sumSq = new AtomicLong( Double.doubleToRawLongBits( 0 ) );
+        private final AtomicLong min = new AtomicLong( Double.doubleToRawLongBits( Double.NaN ) );
+        private final AtomicLong max = new AtomicLong( Double.doubleToRawLongBits( Double.NaN ) );
+
+        void add( double value )
+        {
+            count.incrementAndGet();
+            addTo( sum, value );
+            addTo( sumSq, value * value );
+            while ( true )
+            {
+                long current = min.get();
+                double currentMin = Double.longBitsToDouble( current );
+                if ( !( Double.isNaN( currentMin ) || value < currentMin ) ||
+                     min.compareAndSet( current, Double.doubleToRawLongBits( value ) ) )
+                {
+                    break;
+                }
+            }
+            while ( true )
+            {
+                long current = max.get();
+                double currentMax = Double.longBitsToDouble( current );
+                if ( !( Double.isNaN( currentMax ) || value > currentMax ) ||
+                     max.compareAndSet( current, Double.doubleToRawLongBits( value ) ) )
+                {
+                    break;
+                }
+            }
+        }
+
+        private static void addTo( AtomicLong bits, double value )
+        {
+            while ( true )
+            {
+                long current = bits.get();
+                long updated = Double.doubleToRawLongBits( Double.longBitsToDouble( current ) + value );
+                if ( bits.compareAndSet( current, updated ) )
+                {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -33,10 +33,10 @@ public class StatisticCollector
     private static final Logger LOG = Logger.getLogger( StatisticCollector.class );
 
     private volatile long start = System.currentTimeMillis();
-    private volatile long count = 0;
-    private volatile StatisticData currentSize = new StatisticData();
-    private volatile StatisticData currentDuration = new StatisticData();
-    private StatisticRecord snapshot = createSnapshot();
+    // durations are in milliseconds, keep percentiles at microseconds
+    private final StatisticAccumulator currentDuration = new StatisticAccumulator( 1000 );
+    private final StatisticAccumulator currentSize = new StatisticAccumulator( 1 );
+    private volatile StatisticRecord snapshot = createSnapshot();
 
     public StatisticRecord currentSnapshot()
     {
@@ -45,38 +45,25 @@ public class StatisticCollector
 
     public synchronized StatisticRecord createSnapshot()
     {
-        final StatisticData previousDuration, previousSize;
-        final long timeStamp, period, previousCount, previousStart;
+        final long previousStart = start;
+        start = System.currentTimeMillis();
 
-        synchronized (this)
-        {
-            previousDuration = currentDuration.copy();
-            previousSize = currentSize.copy();
-            previousCount = count;
-            previousStart = start;
+        final StatisticData previousDuration = currentDuration.drain();
+        final StatisticData previousSize = currentSize.drain();
 
-            currentDuration = new StatisticData();
-            currentSize = new StatisticData();
-            start = System.currentTimeMillis();
-            count = 0;
-
-            timeStamp = start;
-            period = ( start - previousStart );
-        }
-
-        return snapshot = new StatisticRecord( timeStamp, period, previousCount, previousDuration, previousSize );
+        return snapshot = new StatisticRecord( start, start - previousStart, previousDuration.getCount(),
+                previousDuration, previousSize );
     }
 
     /**
-     * add one datapoint for statistics
+     * add one datapoint for statistics. lock-free, called for every request.
      *
      * @param time duration of the request
      * @param size size in bytes of the request
      */
-    public synchronized void update( final double time, final long size )
+    public void update( final double time, final long size )
     {
-        currentDuration.addValue( time );
-        currentSize.addValue( size );
-        count++;
+        currentDuration.add( time );
+        currentSize.add( size );
     }
 }
@@ -29,10 +29,10 @@ import java.io.Serializable;
  */
 public class StatisticData implements Serializable
 {
-    private static final long serialVersionUID = 1006656694124740870L;
-    
-    private static final int MEDIAN_MAX = 3000;
-    private int[] requests = new int[MEDIAN_MAX];
+    private static final long serialVersionUID = -6305683404426355745L;
+
+    private final double resolution;
+    private final StatisticHistogram histogram;
     private int count = 0;
     private double sum = 0;
     private double sumSq = 0;
@@ -41,17 +41,29 @@ public class StatisticData implements Serializable
 
     public StatisticData()
     {
+        this( 1 );
+    }
+
+    /**
+     * @param resolution how many histogram steps there are per unit of the
+     * added values, f.ex. 1000 for durations in milliseconds to keep
+     * percentiles at microsecond resolution.
+     */
+    public StatisticData( double resolution )
+    {
+        this( resolution, new StatisticHistogram(), 0, 0, 0, 0, 0 );
     }
 
-    private StatisticData( int count, double sum, double sumSq, double min,
-                           double max, int[] requests )
+    StatisticData( double resolution, StatisticHistogram histogram, int count, double sum,
+                   double sumSq, double min, double max )
     {
+        this.resolution = resolution;
+        this.histogram = histogram;
         this.count = count;
         this.sum = sum;
         this.sumSq = sumSq;
         this.min = min;
         this.max = max;
-        System.arraycopy( requests, 0, this.requests, 0, MEDIAN_MAX );
     }
 
 
@@ -77,17 +89,17 @@ public class StatisticData implements Serializable
 
     public int getMedian()
     {
-        int c = 0;
-        int medianPoint = count / 2;
-        for ( int i = 0; i < MEDIAN_MAX; i++ )
-        {
-            c += requests[i];
-            if ( c >= medianPoint )
-            {
-                return i;
-            }
-        }
-        return MEDIAN_MAX;
+        return (int) getPercentile( 50 );
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return the value which {@code percentile} percent of the added values
+     *         are less than or equal to, with a relative error below 2%.
+     */
+    public double getPercentile( double percentile )
+    {
+        return histogram.getValueAtPercentile( percentile ) / resolution;
     }
 
     @Override
@@ -101,15 +113,23 @@ public class StatisticData implements Serializable
                 ", avg=" + getAvg() +
                 ", var=" + getVar() +
                 ", median=" + getMedian() +
+                ", p95=" + getPercentile( 95 ) +
+                ", p99=" + getPercentile( 99 ) +
+                ", p999=" + getPercentile( 99.9 ) +
                 '}';
     }
 
 
     public StatisticData copy()
     {
-        return new StatisticData( count, sum, sumSq, min, max, requests );
+        StatisticHistogram histogramCopy = new StatisticHistogram();
+        histogramCopy.add( histogram );
+        return new StatisticData( resolution, histogramCopy, count, sum, sumSq, min, max );
     }
 
+    /**
+     * not thread safe, see {@link StatisticCollector} for concurrent updates.
+     */
     public void addValue( double value )
     {
         min = count > 0 && min < value ? min : value;
@@ -119,11 +139,12 @@ public class StatisticData implements Serializable
         sum += value;
         sumSq += value * value;
 
-        int v = value >= MEDIAN_MAX ? MEDIAN_MAX - 1 :
-                value < 0 ? 0 :
-                        (int) value;
+        histogram.record( Math.round( value * resolution ) );
+    }
 
-        requests[v]++;
+    public int getCount()
+    {
+        return count;
     }
 
     public double getMin()
@@ -141,5 +162,3 @@ public class StatisticData implements Serializable
         return sum;
     }
 }
-
-
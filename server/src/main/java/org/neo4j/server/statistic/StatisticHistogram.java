@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.statistic;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * log-bucketed histogram of non-negative values. values below
+ * {@link #SUB_BUCKETS} get a bucket each, larger values share a bucket with
+ * the values having the same highest 7 bits, which keeps the relative error
+ * below 2% over the whole range with ~2300 buckets. recording is lock-free
+ * and can be done from any number of threads.
+ */
+public class StatisticHistogram implements Serializable
+{
+    private static final long serialVersionUID = -3296472850935178390L;
+
+    static final int SUB_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 6;
+    static final long MAX_VALUE = ( 1L << 40 ) - 1;
+    private static final int BUCKETS = indexOf( MAX_VALUE ) + 1;
+
+    private final AtomicLongArray counts;
+
+    public StatisticHistogram()
+    {
+        this( new AtomicLongArray( BUCKETS ) );
+    }
+
+    private StatisticHistogram( AtomicLongArray counts )
+    {
+        this.counts = counts;
+    }
+
+    static int indexOf( long value )
+    {
+        if ( value < SUB_BUCKETS )
+        {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros( value );
+        int subBucket = (int) ( value >>> ( exponent - SUB_BUCKET_BITS ) ) - SUB_BUCKETS;
+        return ( exponent - SUB_BUCKET_BITS + 1 ) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the highest value which ends up in the bucket at {@code index}.
+     */
+    static long highestValueAt( int index )
+    {
+        if ( index < SUB_BUCKETS )
+        {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) ( SUB_BUCKETS + index % SUB_BUCKETS ) << shift;
+        return lowest + ( 1L << shift ) - 1;
+    }
+
+    /**
+     * add one value, values outside of [0, {@link #MAX_VALUE}] are clamped.
+     */
+    public void record( long value )
+    {
+        counts.incrementAndGet( indexOf( value < 0 ? 0 : value > MAX_VALUE ? MAX_VALUE : value ) );
+    }
+
+    /**
+     * moves everything recorded so far into a new histogram and resets this
+     * one. values recorded concurrently end up in exactly one of them.
+     */
+    public StatisticHistogram drain()
+    {
+        AtomicLongArray drained = new AtomicLongArray( BUCKETS );
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            if ( counts.get( i ) != 0 )
+            {
+                drained.set( i, counts.getAndSet( i, 0 ) );
+            }
+        }
+        return new StatisticHistogram( drained );
+    }
+
+    /**
+     * adds everything recorded in {@code other} to this histogram.
+     */
+    public void add( StatisticHistogram other )
+    {
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            long count = other.counts.get( i );
+            if ( count != 0 )
+            {
+                counts.addAndGet( i, count );
+            }
+        }
+    }
+
+    public long getTotalCount()
+    {
+        long total = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            total += counts.get( i );
+        }
+        return total;
+    }
+
+    /**
+     * @param percentile between 0 and 100, 50 being the median.
+     * @return the value which {@code percentile} percent of the recorded values
+     *         are less than or equal to, or 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile( double percentile )
+    {
+        long total = getTotalCount();
+        if ( total == 0 )
+        {
+            return 0;
+        }
+        long rank = Math.max( 1, (long) Math.ceil( total * Math.min( percentile, 100 ) / 100 ) );
+        long seen = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            seen += counts.get( i );
+            if ( seen >= rank )
+            {
+                return highestValueAt( i );
+            }
+        }
+        return MAX_VALUE;
+    }
+}
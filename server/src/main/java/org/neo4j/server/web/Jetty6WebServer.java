@@ -55,6 +55,8 @@ import org.mortbay.resource.Resource;
 import org.mortbay.thread.QueuedThreadPool;
 import org.neo4j.kernel.guard.Guard;
 import org.neo4j.server.NeoServer;
+import org.neo4j.server.admission.AdmissionControl;
+import org.neo4j.server.admission.AdmissionControlFilter;
 import org.neo4j.server.guard.GuardingRequestFilter;
 import org.neo4j.server.logging.Logger;
 import org.neo4j.server.rest.security.SecurityFilter;
@@ -444,4 +446,25 @@ public class Jetty6WebServer implements WebServer
             }
         } );
     }
+
+    @Override
+    public void addAdmissionControlFilter( final AdmissionControl admissionControl )
+    {
+        jetty.addLifeCycleListener( new JettyLifeCycleListenerAdapter()
+        {
+            @Override
+            public void lifeCycleStarted( LifeCycle arg0 )
+            {
+                for ( Handler handler : jetty.getHandlers() )
+                {
+                    if ( handler instanceof Context )
+                    {
+                        final Context context = (Context) handler;
+                        final Filter jettyFilter = new AdmissionControlFilter( admissionControl );
+                        context.addFilter( new FilterHolder( jettyFilter ), "/*", Handler.ALL );
+                    }
+                }
+            }
+        } );
+    }
 }
@@ -29,6 +29,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.mortbay.jetty.Server;
 import org.neo4j.server.NeoServer;
+import org.neo4j.server.admission.AdmissionControl;
 import org.neo4j.server.rest.security.SecurityRule;
 import org.neo4j.server.security.KeyStoreInformation;
 
@@ -65,6 +66,8 @@ public interface WebServer
 
     void addExecutionLimitFilter( int timeout );
 
+    void addAdmissionControlFilter( AdmissionControl admissionControl );
+
     void enableHTTPLoggingForWebadmin( File logbackConfig );
 
     @Deprecated
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.admission;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+
+public class AdmissionControlTest
+{
+    @Test
+    public void shouldAdmitUpToTheLimitOfEachRequestClass() throws Exception
+    {
+        AdmissionControl admission = admissionControl( 2, 0, 0 );
+
+        assertTrue( admission.admit( RequestClass.LONG_RUNNING ) );
+        assertTrue( admission.admit( RequestClass.LONG_RUNNING ) );
+        assertFalse( admission.admit( RequestClass.LONG_RUNNING ) );
+        assertTrue( admission.admit( RequestClass.READ ) );
+
+        assertThat( admission.admitted( RequestClass.LONG_RUNNING ), is( 2L ) );
+        assertThat( admission.rejected( RequestClass.LONG_RUNNING ), is( 1L ) );
+
+        admission.release( RequestClass.LONG_RUNNING );
+        assertTrue( admission.admit( RequestClass.LONG_RUNNING ) );
+    }
+
+    @Test
+    public void shouldRejectAfterWaitingTooLong() throws Exception
+    {
+        AdmissionControl admission = admissionControl( 1, 10, 10 );
+        assertTrue( admission.admit( RequestClass.WRITE ) );
+
+        assertFalse( admission.admit( RequestClass.WRITE ) );
+
+        assertThat( admission.waited( RequestClass.WRITE ), is( 1L ) );
+        assertTrue( admission.totalWaitNanos( RequestClass.WRITE ) >= TimeUnit.MILLISECONDS.toNanos( 10 ) );
+        assertThat( admission.queueDepth( RequestClass.WRITE ), is( 0 ) );
+    }
+
+    @Test
+    public void shouldAdmitQueuedRequestWhenAnotherIsReleased() throws Exception
+    {
+        final AdmissionControl admission = admissionControl( 1, 10, 10000 );
+        assertTrue( admission.admit( RequestClass.READ ) );
+
+        final CountDownLatch admitted = new CountDownLatch( 1 );
+        Thread waiter = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    if ( admission.admit( RequestClass.READ ) ) admitted.countDown();
+                }
+                catch ( InterruptedException e )
+                {
+                    // The latch is never counted down
+                }
+            }
+        };
+        waiter.start();
+        while ( admission.queueDepth( RequestClass.READ ) == 0 )
+        {
+            Thread.sleep( 1 );
+        }
+
+        admission.release( RequestClass.READ );
+
+        assertTrue( admitted.await( 10, TimeUnit.SECONDS ) );
+        waiter.join();
+        assertThat( admission.queueDepth( RequestClass.READ ), is( 0 ) );
+    }
+
+    @Test
+    public void defaultLimitsShouldLeaveAThreadFreeForEveryPoolSize() throws Exception
+    {
+        for ( int workerThreads = 4; workerThreads <= 500; workerThreads++ )
+        {
+            int maxQueued = Math.min( 50, workerThreads / 12 );
+            AdmissionControl.checkFits( AdmissionControl.defaultMaxConcurrent( workerThreads, maxQueued ),
+                    maxQueued, workerThreads );
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldNotAcceptLimitsNeedingMoreThreadsThanThePoolHas() throws Exception
+    {
+        Map<RequestClass, Integer> maxConcurrent = new EnumMap<RequestClass, Integer>( RequestClass.class );
+        maxConcurrent.put( RequestClass.READ, 40 );
+        maxConcurrent.put( RequestClass.WRITE, 40 );
+        maxConcurrent.put( RequestClass.LONG_RUNNING, 20 );
+        AdmissionControl.checkFits( maxConcurrent, 0, 100 );
+    }
+
+    @Test
+    public void shouldClassifyRequests() throws Exception
+    {
+        assertThat( RequestClass.of( request( "GET", "/db/data/node/1" ) ), is( RequestClass.READ ) );
+        assertThat( RequestClass.of( request( "DELETE", "/db/data/node/1" ) ), is( RequestClass.WRITE ) );
+        assertThat( RequestClass.of( request( "POST", "/db/data/cypher" ) ), is( RequestClass.LONG_RUNNING ) );
+        assertThat( RequestClass.of( request( "GET", "/db/data/node/1/traverse/node" ) ),
+                is( RequestClass.LONG_RUNNING ) );
+    }
+
+    @Test
+    public void shouldClassifyOnPathSegmentsRatherThanSubstrings() throws Exception
+    {
+        assertThat( RequestClass.of( request( "GET", "/db/data/index/node/pathology/name/x" ) ),
+                is( RequestClass.READ ) );
+        assertThat( RequestClass.of( request( "PUT", "/db/data/node/1/properties/cypher" ) ),
+                is( RequestClass.WRITE ) );
+        assertThat( RequestClass.of( request( "GET", "/db/data/node/1/properties/traverse" ) ),
+                is( RequestClass.READ ) );
+        assertThat( RequestClass.of( request( "POST", "/db/data/node/1/paths" ) ), is( RequestClass.LONG_RUNNING ) );
+        assertThat( RequestClass.of( request( "POST", "/db/data/batch" ) ), is( RequestClass.LONG_RUNNING ) );
+        assertThat( RequestClass.of( request( "POST", "/db/data/ext/GremlinPlugin/graphdb/execute_script" ) ),
+                is( RequestClass.LONG_RUNNING ) );
+    }
+
+    private static AdmissionControl admissionControl( int maxConcurrent, int maxQueued, long maxWaitMillis )
+    {
+        Map<RequestClass, Integer> limits = new EnumMap<RequestClass, Integer>( RequestClass.class );
+        for ( RequestClass requestClass : RequestClass.values() )
+        {
+            limits.put( requestClass, maxConcurrent );
+        }
+        return new AdmissionControl( limits, maxQueued, maxWaitMillis );
+    }
+
+    private static HttpServletRequest request( String method, String uri )
+    {
+        HttpServletRequest request = mock( HttpServletRequest.class );
+        when( request.getMethod() ).thenReturn( method );
+        when( request.getRequestURI() ).thenReturn( uri );
+        when( request.getContextPath() ).thenReturn( "/db/data" );
+        return request;
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.cypher.javacompat.ExecutionEngine;
+import org.neo4j.kernel.impl.transaction.xaframework.ForceMode;
+import org.neo4j.server.ServerTestUtils;
+import org.neo4j.server.configuration.Configurator;
+import org.neo4j.server.database.Database;
+import org.neo4j.server.rest.domain.GraphDbHelper;
+import org.neo4j.server.rest.paging.FakeClock;
+import org.neo4j.server.rest.paging.LeaseManager;
+import org.neo4j.server.rest.repr.OutputFormat;
+import org.neo4j.server.rest.repr.formats.JsonFormat;
+import org.neo4j.server.rest.web.BatchOperationService;
+import org.neo4j.server.rest.web.DatabaseActions;
+import org.neo4j.server.web.WebServer;
+
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+
+public class DirectBatchOperationsTest
+{
+    private static final String BASE_URI = "http://neo4j.org/db/data/";
+    private static Database database;
+    private static GraphDbHelper helper;
+    private static LeaseManager leaseManager;
+    private static OutputFormat output;
+
+    @BeforeClass
+    public static void startDatabase() throws IOException
+    {
+        database = new Database( ServerTestUtils.EPHEMERAL_GRAPH_DATABASE_FACTORY, null );
+        helper = new GraphDbHelper( database );
+        leaseManager = new LeaseManager( new FakeClock() );
+        output = new OutputFormat( new JsonFormat(), URI.create( BASE_URI ), null );
+    }
+
+    @AfterClass
+    public static void shutdownDatabase() throws IOException
+    {
+        database.shutdown();
+    }
+
+    @Test
+    public void shouldLeaveRequestsWithAQueryToTheServlets() throws Exception
+    {
+        DirectBatchOperations direct = new DirectBatchOperations( new DatabaseActions( database, leaseManager,
+                ForceMode.forced ), new ExecutionEngine( database.graph ), new JsonFormat(), output );
+        long node = helper.createNode();
+
+        assertNull( direct.perform( "POST", URI.create( BASE_URI ), URI.create( BASE_URI + "index/node/people?unique" ),
+                "{\"key\":\"name\",\"value\":\"Tobias\",\"uri\":\"" + BASE_URI + "node/" + node + "\"}" ) );
+    }
+
+    @Test
+    public void shouldSendUniqueIndexingThroughTheWebServer() throws Exception
+    {
+        WebServer webServer = mock( WebServer.class );
+        long node = helper.createNode();
+
+        performBatch( webServer, new BaseConfiguration(), "[{\"method\":\"POST\",\"to\":\"/index/node/people?unique\"," +
+                "\"body\":{\"key\":\"name\",\"value\":\"Tobias\",\"uri\":\"" + BASE_URI + "node/" + node + "\"}}]" );
+
+        verify( webServer ).invokeDirectly( eq( "/db/data/index/node/people" ), any( HttpServletRequest.class ),
+                any( HttpServletResponse.class ) );
+    }
+
+    @Test
+    public void shouldRollBackTheWholeBatchWhenADirectJobFails() throws Exception
+    {
+        WebServer webServer = mock( WebServer.class );
+        int nodesBefore = helper.getNumberOfNodes();
+
+        Response response = performBatch( webServer, new BaseConfiguration(),
+                "[{\"method\":\"POST\",\"to\":\"/node\",\"body\":{},\"id\":0}," +
+                "{\"method\":\"POST\",\"to\":\"{0}/relationships\"," +
+                "\"body\":{\"to\":\"" + BASE_URI + "node/12345678\",\"type\":\"KNOWS\"},\"id\":1}]" );
+
+        assertEquals( 500, response.getStatus() );
+        assertEquals( nodesBefore, helper.getNumberOfNodes() );
+        verify( webServer, never() ).invokeDirectly( anyString(), any( HttpServletRequest.class ),
+                any( HttpServletResponse.class ) );
+    }
+
+    @Test
+    public void shouldSendEveryJobThroughTheWebServerWhenSecurityRulesAreConfigured() throws Exception
+    {
+        WebServer webServer = mock( WebServer.class );
+        Configuration config = new BaseConfiguration();
+        config.setProperty( Configurator.SECURITY_RULES_KEY, "org.example.SomeSecurityRule" );
+
+        performBatch( webServer, config, "[{\"method\":\"POST\",\"to\":\"/node\",\"body\":{}}]" );
+
+        verify( webServer ).invokeDirectly( eq( "/db/data/node" ), any( HttpServletRequest.class ),
+                any( HttpServletResponse.class ) );
+    }
+
+    private Response performBatch( WebServer webServer, Configuration config, String batch ) throws Exception
+    {
+        UriInfo uriInfo = mock( UriInfo.class );
+        when( uriInfo.getBaseUri() ).thenReturn( URI.create( BASE_URI ) );
+        HttpHeaders headers = mock( HttpHeaders.class );
+        when( headers.getAcceptableMediaTypes() ).thenReturn( Collections.<MediaType>emptyList() );
+        when( headers.getRequestHeaders() ).thenReturn( new MultivaluedMapImpl() );
+
+        BatchOperationService service = new BatchOperationService( database, webServer, output, leaseManager, config );
+        return service.performBatchOperations( uriInfo, headers, new ByteArrayInputStream( batch.getBytes( "UTF-8" ) ) );
+    }
+}
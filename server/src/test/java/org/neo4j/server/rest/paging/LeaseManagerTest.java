@@ -22,6 +22,8 @@ package org.neo4j.server.rest.paging;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import org.junit.Test;
 
@@ -103,4 +105,34 @@ public class LeaseManagerTest
 
         assertNull( manager.getLeaseById( lease.getId() ) );
     }
+
+    @Test
+    public void shouldCloseExpiredLeasedItemsWhenCreatingNewLeases()
+    {
+        FakeClock fakeClock = new FakeClock();
+        LeaseManager manager = new LeaseManager( fakeClock );
+        PagedCypherResult expiring = mock( PagedCypherResult.class );
+        PagedCypherResult lasting = mock( PagedCypherResult.class );
+        manager.createLease( SIXTY_SECONDS, expiring );
+        manager.createLease( SIXTY_SECONDS * 3, lasting );
+
+        fakeClock.forwardMinutes( 2 );
+        manager.createLease( SIXTY_SECONDS, mock( PagedTraverser.class ) );
+
+        verify( expiring ).close();
+        verify( lasting, never() ).close();
+    }
+
+    @Test
+    public void shouldCloseTheLeasedItemWhenRemovingItsLease()
+    {
+        FakeClock fakeClock = new FakeClock();
+        LeaseManager manager = new LeaseManager( fakeClock );
+        PagedCypherResult result = mock( PagedCypherResult.class );
+        Lease lease = manager.createLease( SIXTY_SECONDS, result );
+
+        manager.remove( lease.getId() );
+
+        verify( result ).close();
+    }
 }
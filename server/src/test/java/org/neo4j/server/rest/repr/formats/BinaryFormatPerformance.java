@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.repr.formats;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.helpers.collection.IterableWrapper;
+import org.neo4j.server.rest.repr.ListRepresentation;
+import org.neo4j.server.rest.repr.NodeRepresentation;
+import org.neo4j.server.rest.repr.OutputFormat;
+import org.neo4j.server.rest.repr.Representation;
+import org.neo4j.server.rest.repr.RepresentationFormat;
+import org.neo4j.server.rest.repr.RepresentationType;
+import org.neo4j.server.rest.repr.StreamingFormat;
+import org.neo4j.test.ImpermanentGraphDatabase;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+/**
+ * Compares time and size of a list of nodes written with
+ * {@link StreamingJsonFormat} and with {@link BinaryFormat}. Run it as a main
+ * class, it's not a unit test. Optional arguments are the number of nodes and
+ * of rounds.
+ */
+public class BinaryFormatPerformance
+{
+    private final GraphDatabaseService gdb;
+
+    private BinaryFormatPerformance( GraphDatabaseService gdb )
+    {
+        this.gdb = gdb;
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        int nodes = args.length > 0 ? Integer.parseInt( args[0] ) : 10000;
+        int rounds = args.length > 1 ? Integer.parseInt( args[1] ) : 5;
+        ImpermanentGraphDatabase gdb = new ImpermanentGraphDatabase();
+        try
+        {
+            createNodes( gdb, nodes );
+            BinaryFormatPerformance performance = new BinaryFormatPerformance( gdb );
+            for ( int round = 0; round < rounds; round++ )
+            {
+                performance.measure( "json", new StreamingJsonFormat() );
+                performance.measure( "binary", new BinaryFormat() );
+            }
+        }
+        finally
+        {
+            gdb.shutdown();
+        }
+    }
+
+    private static void createNodes( GraphDatabaseService gdb, int nodes )
+    {
+        Transaction tx = gdb.beginTx();
+        try
+        {
+            for ( int i = 0; i < nodes; i++ )
+            {
+                Node node = gdb.createNode();
+                node.setProperty( "id", i );
+                node.setProperty( "name", "node number " + i );
+                node.setProperty( "score", i / 3.0d );
+            }
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    private void measure( String name, StreamingFormat format ) throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long time = System.currentTimeMillis();
+        RepresentationFormat streaming = format.writeTo( output );
+        new OutputFormat( streaming, new URI( "http://localhost:7474/db/data/" ), null ).format( nodes() );
+        long delta = System.currentTimeMillis() - time;
+        System.out.println( name + " took " + delta + " ms, " + output.size() + " bytes." );
+    }
+
+    private Representation nodes()
+    {
+        return new ListRepresentation( RepresentationType.NODE, new IterableWrapper<Representation, Node>(
+                GlobalGraphOperations.at( gdb ).getAllNodes() )
+        {
+            @Override
+            protected Representation underlyingObjectToObject( Node node )
+            {
+                return new NodeRepresentation( node );
+            }
+        } );
+    }
+}
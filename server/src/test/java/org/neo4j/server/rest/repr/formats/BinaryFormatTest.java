@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.repr.formats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.server.rest.domain.JsonHelper;
+import org.neo4j.server.rest.repr.ListRepresentation;
+import org.neo4j.server.rest.repr.MappingRepresentation;
+import org.neo4j.server.rest.repr.MappingSerializer;
+import org.neo4j.server.rest.repr.NodeRepresentation;
+import org.neo4j.server.rest.repr.OutputFormat;
+import org.neo4j.server.rest.repr.ValueRepresentation;
+import org.neo4j.test.ImpermanentGraphDatabase;
+
+public class BinaryFormatTest
+{
+    private OutputFormat binary;
+    private ByteArrayOutputStream stream;
+
+    @Before
+    public void createOutputFormat() throws Exception
+    {
+        stream = new ByteArrayOutputStream();
+        binary = new OutputFormat( new BinaryFormat().writeTo( stream ), new URI( "http://localhost/" ), null );
+    }
+
+    private Object read() throws Exception
+    {
+        return new BinaryDecoder( new ByteArrayInputStream( stream.toByteArray() ) ).read();
+    }
+
+    @Test
+    public void canFormatString() throws Exception
+    {
+        binary.format( ValueRepresentation.string( "expected value" ) );
+        assertEquals( "expected value", read() );
+    }
+
+    @Test
+    public void canFormatNumbers() throws Exception
+    {
+        binary.format( ListRepresentation.numbers( 0, -1, Long.MAX_VALUE, Long.MIN_VALUE ) );
+        assertEquals( Arrays.<Object>asList( 0L, -1L, Long.MAX_VALUE, Long.MIN_VALUE ), read() );
+    }
+
+    @Test
+    public void canFormatListOfStrings() throws Exception
+    {
+        binary.format( ListRepresentation.strings( "hello", "w\u00f6rld", "\u4e16\u754c" ) );
+        assertEquals( Arrays.<Object>asList( "hello", "w\u00f6rld", "\u4e16\u754c" ), read() );
+    }
+
+    @Test
+    public void canFormatObjectWithNestedObjectAndUris() throws Exception
+    {
+        binary.format( new MappingRepresentation( "nesting" )
+        {
+            @Override
+            protected void serialize( MappingSerializer serializer )
+            {
+                serializer.putUri( "self", "node/1" );
+                serializer.putBoolean( "flag", true );
+                serializer.putMapping( "nested", new MappingRepresentation( "data" )
+                {
+                    @Override
+                    protected void serialize( MappingSerializer nested )
+                    {
+                        nested.putUri( "self", "node/12/properties" );
+                        nested.putString( "flag", "repeated key" );
+                    }
+                } );
+            }
+        } );
+        Map<?, ?> result = (Map<?, ?>) read();
+        assertEquals( "http://localhost/node/1", result.get( "self" ) );
+        assertEquals( Boolean.TRUE, result.get( "flag" ) );
+        Map<?, ?> nested = (Map<?, ?>) result.get( "nested" );
+        assertEquals( "http://localhost/node/12/properties", nested.get( "self" ) );
+        assertEquals( "repeated key", nested.get( "flag" ) );
+    }
+
+    @Test
+    public void canFormatNodeLikeJson() throws Exception
+    {
+        GraphDatabaseService db = new ImpermanentGraphDatabase();
+        try
+        {
+            Transaction tx = db.beginTx();
+            Node node = db.createNode();
+            node.setProperty( "name", "the node" );
+            node.setProperty( "weight", 0.5d );
+            node.setProperty( "tags", new String[] { "a", "b" } );
+            tx.success();
+            tx.finish();
+
+            binary.format( new NodeRepresentation( node ) );
+            Map<?, ?> result = (Map<?, ?>) read();
+            Map<String, Object> json = JsonHelper.jsonToMap( new OutputFormat( new JsonFormat(),
+                    new URI( "http://localhost/" ), null ).format( new NodeRepresentation( node ) ) );
+
+            assertEquals( json.keySet(), result.keySet() );
+            for ( String key : json.keySet() )
+            {
+                if ( !key.equals( "data" ) ) assertEquals( json.get( key ), result.get( key ) );
+            }
+            Map<?, ?> data = (Map<?, ?>) result.get( "data" );
+            assertEquals( "the node", data.get( "name" ) );
+            assertEquals( 0.5d, data.get( "weight" ) );
+            assertEquals( Arrays.asList( "a", "b" ), (List<?>) data.get( "tags" ) );
+            assertNull( data.get( "missing" ) );
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+}
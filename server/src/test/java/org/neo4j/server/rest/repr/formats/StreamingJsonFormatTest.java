@@ -26,11 +26,17 @@ import java.io.ByteArrayOutputStream;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.neo4j.graphdb.Node;
+import org.neo4j.helpers.collection.MapUtil;
 import org.neo4j.server.rest.domain.JsonHelper;
+import org.neo4j.server.rest.repr.CypherResultRepresentation;
 import org.neo4j.server.rest.repr.ListRepresentation;
 import org.neo4j.server.rest.repr.MappingRepresentation;
 import org.neo4j.server.rest.repr.MappingSerializer;
@@ -146,4 +152,22 @@ public class StreamingJsonFormatTest
                 JsonHelper.createJsonFrom( Collections.singletonMap( "nested",
                         Collections.singletonMap( "data", "expected data" ) ) ), stream.toString() );
     }
+
+    @Test
+    public void streamsCypherResultTheSameAsJsonFormatWouldFormatIt() throws Exception
+    {
+        List<String> columns = Arrays.asList( "name", "values" );
+        List<Map<String, Object>> rows = Arrays.asList(
+                MapUtil.map( "name", "first", "values", Arrays.asList( 1, 2, 3 ) ),
+                MapUtil.map( "name", "second", "values", Collections.emptyList() ) );
+        String expected = new OutputFormat( new JsonFormat(), new URI( "http://localhost/" ), null )
+                .format( new CypherResultRepresentation( columns, rows ) );
+
+        StreamingJsonFormat plainJson = new StreamingJsonFormat( MediaType.APPLICATION_JSON_TYPE, true );
+        new OutputFormat( plainJson.writeTo( stream ), new URI( "http://localhost/" ), null )
+                .format( new CypherResultRepresentation( columns, rows ) );
+        assertEquals( expected, stream.toString() );
+        assertEquals( MediaType.APPLICATION_JSON_TYPE,
+                new OutputFormat( plainJson, new URI( "http://localhost/" ), null ).getMediaType() );
+    }
 }
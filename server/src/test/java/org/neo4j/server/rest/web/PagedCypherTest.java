@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.web;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.server.ServerTestUtils;
+import org.neo4j.server.configuration.Configurator;
+import org.neo4j.server.database.Database;
+import org.neo4j.server.rest.paging.FakeClock;
+import org.neo4j.server.rest.paging.LeaseManager;
+import org.neo4j.server.rest.repr.formats.JsonFormat;
+import org.neo4j.test.server.EntityOutputFormat;
+
+public class PagedCypherTest
+{
+    private static final String BASE_URI = "http://neo4j.org:7474/";
+    private static final String QUERY = "{\"query\":\"start n=node(*) where has(n.index) return n.index\"}";
+    private static final int SIXTY_SECONDS = 60;
+    private static final int PAGE_SIZE = 10;
+
+    private Database database;
+    private EntityOutputFormat output;
+    private LeaseManager leaseManager;
+    private CypherService service;
+
+    @Before
+    public void startDatabase() throws IOException
+    {
+        database = new Database( ServerTestUtils.EPHEMERAL_GRAPH_DATABASE_FACTORY, null );
+        output = new EntityOutputFormat( new JsonFormat(), URI.create( BASE_URI ), null );
+        leaseManager = new LeaseManager( new FakeClock() );
+        Configuration config = new PropertiesConfiguration();
+        config.setProperty( Configurator.CYPHER_STREAMING_KEY, false );
+        service = new CypherService( database, new JsonFormat(), output, config, leaseManager );
+
+        Transaction tx = database.graph.beginTx();
+        try
+        {
+            for ( int i = 0; i < 25; i++ )
+            {
+                database.graph.createNode().setProperty( "index", i );
+            }
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @After
+    public void shutdownDatabase()
+    {
+        database.shutdown();
+    }
+
+    @Test
+    public void shouldRespondWithFirstPageAndLocationOfTheNextOnes() throws Exception
+    {
+        Response response = createPagedCypher( PAGE_SIZE, SIXTY_SECONDS );
+
+        assertEquals( 201, response.getStatus() );
+        assertThat( location( response ), containsString( BASE_URI + "cypher/paged/" ) );
+        assertEquals( PAGE_SIZE, rows() );
+    }
+
+    @Test
+    public void shouldRespondWithAllRowsAndNoLeaseWhenTheyFitOnTheFirstPage() throws Exception
+    {
+        Response response = createPagedCypher( 25, SIXTY_SECONDS );
+
+        assertEquals( 200, response.getStatus() );
+        assertNull( response.getMetadata().get( "Location" ) );
+        assertEquals( 25, rows() );
+    }
+
+    @Test
+    public void shouldReturnTheRemainingRowsPageByPageThen404() throws Exception
+    {
+        String id = resultId( createPagedCypher( PAGE_SIZE, SIXTY_SECONDS ) );
+
+        assertEquals( 200, service.pagedCypher( id ).getStatus() );
+        assertEquals( PAGE_SIZE, rows() );
+        assertEquals( 200, service.pagedCypher( id ).getStatus() );
+        assertEquals( 5, rows() );
+        assertEquals( 404, service.pagedCypher( id ).getStatus() );
+    }
+
+    @Test
+    public void shouldRespondWith404WhenResultHasExpired() throws Exception
+    {
+        String id = resultId( createPagedCypher( PAGE_SIZE, SIXTY_SECONDS ) );
+
+        ( (FakeClock) leaseManager.getClock() ).forwardSeconds( 30 );
+        assertEquals( 200, service.pagedCypher( id ).getStatus() );
+        ( (FakeClock) leaseManager.getClock() ).forwardMinutes( 2 );
+        assertEquals( 404, service.pagedCypher( id ).getStatus() );
+    }
+
+    @Test
+    public void shouldRespondWith400OnInvalidPageSizeOrLeaseTime() throws Exception
+    {
+        assertEquals( 400, createPagedCypher( 0, SIXTY_SECONDS ).getStatus() );
+        assertEquals( 400, createPagedCypher( PAGE_SIZE, -5 ).getStatus() );
+    }
+
+    @Test
+    public void shouldBeAbleToRemoveAResultOnceOnly() throws Exception
+    {
+        String id = resultId( createPagedCypher( PAGE_SIZE, SIXTY_SECONDS ) );
+
+        assertEquals( 200, service.removePagedCypher( id ).getStatus() );
+        assertEquals( 404, service.removePagedCypher( id ).getStatus() );
+        assertEquals( 404, service.pagedCypher( id ).getStatus() );
+    }
+
+    private Response createPagedCypher( int pageSize, int leaseTime ) throws Exception
+    {
+        UriInfo uriInfo = mock( UriInfo.class );
+        when( uriInfo.getBaseUri() ).thenReturn( new URI( BASE_URI ) );
+        return service.createPagedCypher( uriInfo, pageSize, leaseTime, QUERY );
+    }
+
+    private int rows()
+    {
+        return ( (List<?>) output.getResultAsMap().get( "data" ) ).size();
+    }
+
+    private static String location( Response response )
+    {
+        return response.getMetadata().get( "Location" ).get( 0 ).toString();
+    }
+
+    private static String resultId( Response response )
+    {
+        String location = location( response );
+        return location.substring( location.lastIndexOf( '/' ) + 1 );
+    }
+}
@@ -21,6 +21,7 @@ package org.neo4j.server.rrd;
 
 import static java.lang.Double.NaN;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
 import java.io.File;
@@ -113,6 +114,32 @@ public class RrdFactoryTest
         rrdDbAndSampler.close();
     }
 
+    @Test
+    public void shouldSampleRequestStatisticsOfEachRun() throws IOException
+    {
+        config.addProperty( Configurator.RRDB_LOCATION_PROPERTY_KEY, "target/rrd-test-requests" );
+        CapturingJobScheduler scheduler = new CapturingJobScheduler();
+        RrdDb rrd = createRrdFactory().createRrdDbAndSampler( db, scheduler );
+        try
+        {
+            for ( int i = 1; i <= 100; i++ )
+            {
+                db.statisticCollector().update( i, 10 );
+            }
+            scheduler.job.run();
+
+            assertThat( rrd.getDatasource( "request_count" ).getLastValue(), is( 100d ) );
+            assertThat( rrd.getDatasource( "request_max_time" ).getLastValue(), is( 100d ) );
+            // Percentiles come from the histogram, with a relative error below 2%
+            assertEquals( 50, rrd.getDatasource( "request_median_time" ).getLastValue(), 1 );
+            assertEquals( 99, rrd.getDatasource( "request_p99_time" ).getLastValue(), 2 );
+        }
+        finally
+        {
+            rrd.close();
+        }
+    }
+
     private TestableRrdFactory createRrdFactory()
     {
         return new TestableRrdFactory( config );
@@ -135,6 +162,17 @@ public class RrdFactoryTest
         }
     }
 
+    private static class CapturingJobScheduler implements JobScheduler
+    {
+        private Runnable job;
+
+        @Override
+        public void scheduleAtFixedRate( Runnable job, String name, long delay, long period )
+        {
+            this.job = job;
+        }
+    }
+
     private static class NullJobScheduler implements JobScheduler
     {
         @Override
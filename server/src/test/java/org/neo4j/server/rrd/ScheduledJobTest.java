@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rrd;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class ScheduledJobTest
+{
+    private static final long PERIOD = 20;
+    private static final long SLOW_RUN = 15 * PERIOD;
+
+    @Test
+    public void shouldNotRunBackToBackToCatchUpAfterASlowRun() throws Exception
+    {
+        final List<Long> starts = new CopyOnWriteArrayList<Long>();
+        final AtomicLong slowRunEnd = new AtomicLong();
+        Runnable job = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                starts.add( System.nanoTime() );
+                if ( starts.size() == 1 )
+                {
+                    sleep( SLOW_RUN );
+                    slowRunEnd.set( System.nanoTime() );
+                }
+            }
+        };
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            ScheduledJob scheduledJob = new ScheduledJob( executor, job, "slow job", 0, PERIOD );
+            Thread.sleep( SLOW_RUN + 10 * PERIOD );
+            scheduledJob.cancel();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // The executor fires the runs missed during the slow one right after it,
+        // all but the one that's due by now are skipped
+        int runsRightAfter = 0;
+        for ( long start : starts )
+        {
+            if ( start >= slowRunEnd.get() && start - slowRunEnd.get() < MILLISECONDS.toNanos( PERIOD ) / 2 )
+            {
+                runsRightAfter++;
+            }
+        }
+        assertTrue( "runs right after the slow one: " + runsRightAfter, runsRightAfter <= 1 );
+        assertTrue( "runs after the slow one: " + (starts.size() - 1), starts.size() > 1 );
+    }
+
+    private static void sleep( long millis )
+    {
+        try
+        {
+            Thread.sleep( millis );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
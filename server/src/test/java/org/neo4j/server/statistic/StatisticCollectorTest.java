@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.statistic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class StatisticCollectorTest
+{
+    @Test
+    public void shouldReportPercentilesOfRequestDurations()
+    {
+        StatisticCollector collector = new StatisticCollector();
+        for ( int i = 1; i <= 1000; i++ )
+        {
+            collector.update( i / 10.0, 100 + i );
+        }
+        StatisticRecord record = collector.createSnapshot();
+
+        assertEquals( 1000, record.getRequests() );
+        StatisticData duration = record.getDuration();
+        assertEquals( 0.1, duration.getMin(), 0.0 );
+        assertEquals( 100.0, duration.getMax(), 0.0 );
+        assertEquals( 50, duration.getMedian() );
+        assertWithinTwoPercent( 50.0, duration.getPercentile( 50 ) );
+        assertWithinTwoPercent( 95.0, duration.getPercentile( 95 ) );
+        assertWithinTwoPercent( 99.0, duration.getPercentile( 99 ) );
+        assertWithinTwoPercent( 99.9, duration.getPercentile( 99.9 ) );
+        assertWithinTwoPercent( 600.0, record.getSize().getPercentile( 50 ) );
+        assertEquals( 100 * 1000 + 1000 * 1001 / 2, record.getSize().getSum(), 0.0 );
+    }
+
+    @Test
+    public void shouldStartEachSnapshotFromScratch()
+    {
+        StatisticCollector collector = new StatisticCollector();
+        collector.update( 5, 10 );
+        collector.createSnapshot();
+        collector.update( 7, 20 );
+        StatisticRecord record = collector.createSnapshot();
+
+        assertEquals( 1, record.getRequests() );
+        assertEquals( 7.0, record.getDuration().getMin(), 0.0 );
+        assertEquals( 20.0, record.getSize().getSum(), 0.0 );
+        assertEquals( 0, collector.createSnapshot().getRequests() );
+    }
+
+    @Test
+    public void shouldNotLoseConcurrentUpdates() throws Exception
+    {
+        final StatisticCollector collector = new StatisticCollector();
+        final int threads = 8, updates = 10000;
+        final CountDownLatch done = new CountDownLatch( threads );
+        for ( int t = 0; t < threads; t++ )
+        {
+            new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for ( int i = 0; i < updates; i++ )
+                    {
+                        collector.update( 1, 1 );
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        long requests = 0;
+        while ( done.getCount() > 0 )
+        {
+            requests += collector.createSnapshot().getRequests();
+        }
+        done.await();
+        StatisticRecord last = collector.createSnapshot();
+        requests += last.getRequests();
+
+        assertEquals( threads * updates, requests );
+    }
+
+    private static void assertWithinTwoPercent( double expected, double actual )
+    {
+        assertTrue( "expected " + expected + " but was " + actual, Math.abs( actual - expected ) <= expected * 0.02 );
+    }
+}